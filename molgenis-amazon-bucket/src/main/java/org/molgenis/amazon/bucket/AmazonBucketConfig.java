@@ -8,6 +8,7 @@ import org.molgenis.jobs.Job;
 import org.molgenis.jobs.JobFactory;
 import org.molgenis.jobs.model.ScheduledJobType;
 import org.molgenis.jobs.model.ScheduledJobTypeFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -19,14 +20,17 @@ public class AmazonBucketConfig {
   private final AmazonBucketIngester ingester;
   private final ScheduledJobTypeFactory scheduledJobTypeFactory;
   private final AmazonBucketJobExecutionMetadata amazonBucketJobExecutionMetadata;
+  private final int maxConcurrency;
 
   public AmazonBucketConfig(
       AmazonBucketIngester ingester,
       ScheduledJobTypeFactory scheduledJobTypeFactory,
-      AmazonBucketJobExecutionMetadata amazonBucketJobExecutionMetadata) {
+      AmazonBucketJobExecutionMetadata amazonBucketJobExecutionMetadata,
+      @Value("${jobs.import.max-concurrency:2}") int maxConcurrency) {
     this.ingester = requireNonNull(ingester);
     this.scheduledJobTypeFactory = requireNonNull(scheduledJobTypeFactory);
     this.amazonBucketJobExecutionMetadata = requireNonNull(amazonBucketJobExecutionMetadata);
+    this.maxConcurrency = maxConcurrency;
   }
 
   @Bean
@@ -56,6 +60,21 @@ public class AmazonBucketConfig {
                 isExpression,
                 progress);
       }
+
+      @Override
+      public int getPriority() {
+        return PRIORITY_LOW;
+      }
+
+      @Override
+      public int getMaxConcurrency() {
+        return maxConcurrency;
+      }
+
+      @Override
+      public String getConcurrencyGroup() {
+        return CONCURRENCY_GROUP_IMPORT;
+      }
     };
   }
 
@@ -90,7 +90,11 @@ public class AmazonBucketIngester {
           fileRepositoryCollectionFactory.createFileRepositoryCollection(renamed);
       EntityImportReport report =
           importService.doImport(
-              repositoryCollection, MetadataAction.UPSERT, DataAction.ADD_UPDATE_EXISTING, null);
+              repositoryCollection,
+              MetadataAction.UPSERT,
+              DataAction.ADD_UPDATE_EXISTING,
+              null,
+              progress);
       progress.status("Download and import from Amazon Bucket done.");
       progress.progress(
           3,
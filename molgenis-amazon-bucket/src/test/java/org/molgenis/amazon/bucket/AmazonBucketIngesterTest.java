@@ -70,7 +70,7 @@ class AmazonBucketIngesterTest extends AbstractMolgenisSpringTest {
     when(importServiceFactoryMock.getImportService("test_data_only.xlsx"))
         .thenReturn(importServiceMock);
     when(importServiceMock.doImport(
-            any(), eq(MetadataAction.UPSERT), eq(ADD_UPDATE_EXISTING), eq(null)))
+            any(), eq(MetadataAction.UPSERT), eq(ADD_UPDATE_EXISTING), eq(null), eq(progress)))
         .thenReturn(report);
 
     amazonBucketIngester.ingest(
@@ -86,7 +86,8 @@ class AmazonBucketIngesterTest extends AbstractMolgenisSpringTest {
         progress);
     verify(importServiceFactoryMock).getImportService("test_data_only.xlsx");
     verify(importServiceMock)
-        .doImport(any(), eq(MetadataAction.UPSERT), eq(ADD_UPDATE_EXISTING), eq(null));
+        .doImport(
+            any(), eq(MetadataAction.UPSERT), eq(ADD_UPDATE_EXISTING), eq(null), eq(progress));
   }
 
   @Configuration
@@ -0,0 +1,164 @@
+package org.molgenis.api.data;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.meta.model.AttributeMetadata.ATTRIBUTE_META_DATA;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
+import static org.molgenis.data.security.auth.RoleMetadata.ROLE;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.transaction.EntityTypeVersions;
+import org.molgenis.security.core.utils.SecurityUtils;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Generates strong ETags for read requests of the data APIs without reading data, so that
+ * conditional requests can be answered with 304 Not Modified before querying the repository.
+ *
+ * <p>The ETag is a hash of the {@link EntityTypeVersions} version tag of the requested entity type,
+ * the entity types it references and the metadata and role entity types, together with the request
+ * URI and parameters and the current user, authorities and language. ETags of queries replace the
+ * request with the query.
+ *
+ * <p>Versions change when a transaction that changed the data commits and again when the index of
+ * the changed entity types has been updated, so that responses of queries that were answered by the
+ * outdated index are not confirmed by later conditional requests.
+ */
+@Component
+public class DataETagGenerator {
+  private final DataService dataService;
+  private final EntityTypeVersions entityTypeVersions;
+
+  DataETagGenerator(DataService dataService, EntityTypeVersions entityTypeVersions) {
+    this.dataService = requireNonNull(dataService);
+    this.entityTypeVersions = requireNonNull(entityTypeVersions);
+  }
+
+  /**
+   * Sets the ETag of the response and checks whether the client already has the current response.
+   *
+   * @return <code>true</code> if the client has the current response, which should therefore not be
+   *     written
+   */
+  public boolean isNotModified(String entityTypeId, WebRequest webRequest) {
+    String eTag = generateETag(entityTypeId, webRequest);
+    return eTag != null && webRequest.checkNotModified(eTag);
+  }
+
+  /**
+   * Generates the ETag for a read request of entities of the given entity type.
+   *
+   * @return ETag or <code>null</code> if the entity type doesn't exist
+   */
+  @Nullable
+  @CheckForNull
+  public String generateETag(String entityTypeId, WebRequest webRequest) {
+    EntityType entityType = dataService.getMeta().getEntityType(entityTypeId).orElse(null);
+    if (entityType == null) {
+      return null;
+    }
+
+    Hasher hasher = createHasher(entityType);
+    putString(hasher, webRequest.getDescription(false));
+    new TreeMap<>(webRequest.getParameterMap())
+        .forEach(
+            (name, values) -> {
+              putString(hasher, name);
+              Arrays.stream(values).forEach(value -> putString(hasher, value));
+            });
+    putUser(hasher);
+    putString(hasher, LocaleContextHolder.getLocale().toLanguageTag());
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Generates the ETag for the result of a query of entities of the given entity type for the
+   * current user, e.g. to cache the number of entities that match the query.
+   *
+   * @return ETag or <code>null</code> if the entity type doesn't exist
+   */
+  @Nullable
+  @CheckForNull
+  public String generateQueryETag(String entityTypeId, Query<Entity> query) {
+    EntityType entityType = dataService.getMeta().getEntityType(entityTypeId).orElse(null);
+    if (entityType == null) {
+      return null;
+    }
+
+    Hasher hasher = createHasher(entityType);
+    putString(hasher, query.toString());
+    putUser(hasher);
+    return hasher.hash().toString();
+  }
+
+  private Hasher createHasher(EntityType entityType) {
+    Set<String> entityTypeIds = new LinkedHashSet<>();
+    addEntityTypeIds(entityType, entityTypeIds);
+    entityTypeIds.add(ENTITY_TYPE_META_DATA);
+    entityTypeIds.add(ATTRIBUTE_META_DATA);
+    entityTypeIds.add(ROLE);
+
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, entityTypeVersions.getVersionTag(entityTypeIds));
+    return hasher;
+  }
+
+  private static void putUser(Hasher hasher) {
+    putString(hasher, SecurityUtils.getCurrentUsername());
+    getAuthorities().forEach(authority -> putString(hasher, authority));
+  }
+
+  /** Adds the entity type and the entity types it references directly or indirectly */
+  private static void addEntityTypeIds(EntityType entityType, Set<String> entityTypeIds) {
+    if (entityTypeIds.add(entityType.getId())) {
+      for (Attribute attribute : entityType.getAtomicAttributes()) {
+        EntityType refEntityType = attribute.getRefEntity();
+        if (refEntityType != null) {
+          addEntityTypeIds(refEntityType, entityTypeIds);
+        }
+      }
+    }
+  }
+
+  private static List<String> getAuthorities() {
+    List<String> authorities = new ArrayList<>();
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null) {
+      authentication.getAuthorities().stream()
+          .map(GrantedAuthority::getAuthority)
+          .filter(Objects::nonNull)
+          .sorted()
+          .forEach(authorities::add);
+    }
+    return authorities;
+  }
+
+  /** Strings are length-prefixed so that different sequences of strings don't collide */
+  private static void putString(Hasher hasher, @Nullable @CheckForNull String value) {
+    if (value == null) {
+      hasher.putInt(-1);
+    } else {
+      hasher.putInt(value.length()).putString(value, UTF_8);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package org.molgenis.api.data;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.ToLongFunction;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityCountEstimator;
+import org.molgenis.data.Query;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.EntityIdentityUtils;
+import org.molgenis.data.security.EntityTypeIdentity;
+import org.molgenis.data.security.EntityTypePermission;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.security.acl.MutableAclClassService;
+import org.molgenis.security.core.UserPermissionEvaluator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of the total number of entities matching a query for paged collection responses, so that
+ * paging through a collection counts the matching entities once instead of for every page. Counts
+ * are keyed on the {@link DataETagGenerator query ETag}, which changes when the data changes, and
+ * the query without paging, sorting and fetch.
+ *
+ * <p>Callers can opt-in to an approximate total, which is estimated by an {@link
+ * EntityCountEstimator} instead of counted, e.g. from backend statistics or by counting up to a
+ * threshold. Estimates are cached separately from counts. Entity types with row level security and
+ * queries that can't be estimated are always counted.
+ */
+@Component
+public class EntityCountCache {
+  private static final String CACHE_NAME = "count";
+  private static final String APPROXIMATE_KEY_PREFIX = "~";
+
+  private final DataService dataService;
+  private final DataETagGenerator dataETagGenerator;
+  private final UserPermissionEvaluator userPermissionEvaluator;
+  private final MutableAclClassService mutableAclClassService;
+  private final List<EntityCountEstimator> entityCountEstimators;
+  private final Cache<String, Long> cache;
+
+  EntityCountCache(
+      DataService dataService,
+      DataETagGenerator dataETagGenerator,
+      UserPermissionEvaluator userPermissionEvaluator,
+      MutableAclClassService mutableAclClassService,
+      List<EntityCountEstimator> entityCountEstimators,
+      MeterRegistry meterRegistry,
+      @Value("${cache.ttl.minutes:60}") long timeToLiveMinutes,
+      @Value("${cache.count.max.size:10000}") long maxSize) {
+    this.dataService = requireNonNull(dataService);
+    this.dataETagGenerator = requireNonNull(dataETagGenerator);
+    this.userPermissionEvaluator = requireNonNull(userPermissionEvaluator);
+    this.mutableAclClassService = requireNonNull(mutableAclClassService);
+    this.entityCountEstimators = requireNonNull(entityCountEstimators);
+    this.cache =
+        Caffeine.newBuilder()
+            .recordStats()
+            .expireAfterWrite(timeToLiveMinutes, MINUTES)
+            .maximumSize(maxSize)
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  /**
+   * Returns the number of entities matching the query from the cache or counts them.
+   *
+   * @param entityTypeId entity type identifier
+   * @param query query, paging, sorting and fetch are ignored
+   * @param approximate whether an estimate is good enough
+   * @param counter counts the entities matching the count query
+   */
+  public long count(
+      String entityTypeId,
+      Query<Entity> query,
+      boolean approximate,
+      ToLongFunction<Query<Entity>> counter) {
+    QueryImpl<Entity> countQuery = new QueryImpl<>(query).setOffset(0).setPageSize(0);
+    countQuery.setSort(null);
+    countQuery.setFetch(null);
+
+    ToLongFunction<Query<Entity>> countFunction;
+    if (approximate) {
+      countFunction = q -> estimateCount(entityTypeId, q).orElseGet(() -> counter.applyAsLong(q));
+    } else {
+      countFunction = counter;
+    }
+
+    String key = dataETagGenerator.generateQueryETag(entityTypeId, countQuery);
+    if (key == null) {
+      return countFunction.applyAsLong(countQuery);
+    }
+    if (approximate) {
+      key = APPROXIMATE_KEY_PREFIX + key;
+    }
+    return cache.get(key, k -> countFunction.applyAsLong(countQuery));
+  }
+
+  private OptionalLong estimateCount(String entityTypeId, Query<Entity> query) {
+    EntityType entityType = dataService.getMeta().getEntityType(entityTypeId).orElse(null);
+    if (entityType == null
+        || !userPermissionEvaluator.hasPermission(
+            new EntityTypeIdentity(entityType), EntityTypePermission.READ_DATA)
+        || mutableAclClassService.hasAclClass(EntityIdentityUtils.toType(entityType))) {
+      return OptionalLong.empty();
+    }
+    return entityCountEstimators.stream()
+        .map(entityCountEstimator -> entityCountEstimator.estimateCount(entityType, query))
+        .filter(OptionalLong::isPresent)
+        .findFirst()
+        .orElse(OptionalLong.empty());
+  }
+}
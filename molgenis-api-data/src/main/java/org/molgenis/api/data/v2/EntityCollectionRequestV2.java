@@ -21,6 +21,9 @@ class EntityCollectionRequestV2 {
   @Max(MAX_ROWS)
   private int num = DEFAULT_ROW_COUNT;
 
+  /** whether the total may be estimated instead of counted */
+  private boolean approximateTotal = false;
+
   public int getStart() {
     return start;
   }
@@ -37,6 +40,14 @@ class EntityCollectionRequestV2 {
     this.num = num;
   }
 
+  public boolean isApproximateTotal() {
+    return approximateTotal;
+  }
+
+  public void setApproximateTotal(boolean approximateTotal) {
+    this.approximateTotal = approximateTotal;
+  }
+
   public QueryRsql getQ() {
     return q;
   }
@@ -83,6 +94,8 @@ class EntityCollectionRequestV2 {
         + start
         + ", num="
         + num
+        + ", approximateTotal="
+        + approximateTotal
         + "]";
   }
 }
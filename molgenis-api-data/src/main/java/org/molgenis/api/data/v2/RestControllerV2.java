@@ -40,6 +40,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import org.molgenis.api.ApiNamespace;
+import org.molgenis.api.data.DataETagGenerator;
+import org.molgenis.api.data.EntityCountCache;
 import org.molgenis.api.data.RestService;
 import org.molgenis.api.data.v1.EntityPager;
 import org.molgenis.data.DataService;
@@ -97,6 +99,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @RestController
@@ -118,6 +121,8 @@ public class RestControllerV2 {
   private final PermissionSystemService permissionSystemService;
   private final RepositoryCopier repoCopier;
   private final LocalizationService localizationService;
+  private final DataETagGenerator dataETagGenerator;
+  private final EntityCountCache entityCountCache;
 
   static MolgenisDataAccessException createMolgenisDataAccessExceptionReadOnlyAttribute(
       String entityTypeId, String attributeName) {
@@ -144,13 +149,17 @@ public class RestControllerV2 {
       RestService restService,
       LocalizationService localizationService,
       PermissionSystemService permissionSystemService,
-      RepositoryCopier repoCopier) {
+      RepositoryCopier repoCopier,
+      DataETagGenerator dataETagGenerator,
+      EntityCountCache entityCountCache) {
     this.dataService = requireNonNull(dataService);
     this.permissionService = requireNonNull(permissionService);
     this.restService = requireNonNull(restService);
     this.localizationService = requireNonNull(localizationService);
     this.permissionSystemService = requireNonNull(permissionSystemService);
     this.repoCopier = requireNonNull(repoCopier);
+    this.dataETagGenerator = requireNonNull(dataETagGenerator);
+    this.entityCountCache = requireNonNull(entityCountCache);
   }
 
   /** @deprecated replaced with a call to '/api' with method 'OPTIONS' */
@@ -188,8 +197,11 @@ public class RestControllerV2 {
       @PathVariable("entityTypeId") String entityTypeId,
       @PathVariable("id") String untypedId,
       @RequestParam(value = "attrs", required = false) AttributeFilter attributeFilter,
-      @RequestParam(value = "includeCategories", defaultValue = "false")
-          boolean includeCategories) {
+      @RequestParam(value = "includeCategories", defaultValue = "false") boolean includeCategories,
+      WebRequest webRequest) {
+    if (dataETagGenerator.isNotModified(entityTypeId, webRequest)) {
+      return null;
+    }
     UriComponentsBuilder uriBuilder = createUriBuilder();
     return getEntityResponse(
         uriBuilder, entityTypeId, untypedId, attributeFilter, includeCategories);
@@ -271,8 +283,11 @@ public class RestControllerV2 {
       @PathVariable("entityTypeId") String entityTypeId,
       @Valid EntityCollectionRequestV2 request,
       HttpServletRequest httpRequest,
-      @RequestParam(value = "includeCategories", defaultValue = "false")
-          boolean includeCategories) {
+      @RequestParam(value = "includeCategories", defaultValue = "false") boolean includeCategories,
+      WebRequest webRequest) {
+    if (dataETagGenerator.isNotModified(entityTypeId, webRequest)) {
+      return null;
+    }
     UriComponentsBuilder uriBuilder = createUriBuilder();
     return createEntityCollectionResponse(
         uriBuilder, entityTypeId, request, httpRequest, includeCategories);
@@ -752,7 +767,12 @@ public class RestControllerV2 {
           yAttrResponse,
           UriUtils.createEntityCollectionUriPath(uriBuilder, entityTypeId));
     } else {
-      Long count = dataService.count(entityTypeId, new QueryImpl<>(q).setOffset(0).setPageSize(0));
+      long count =
+          entityCountCache.count(
+              entityTypeId,
+              q,
+              request.isApproximateTotal(),
+              countQuery -> dataService.count(entityTypeId, countQuery));
       Iterable<Entity> it;
       if (count > 0 && q.getPageSize() > 0) {
         it = () -> dataService.findAll(entityTypeId, q).iterator();
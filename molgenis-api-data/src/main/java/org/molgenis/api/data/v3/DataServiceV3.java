@@ -58,6 +58,7 @@ interface DataServiceV3 {
    * @param sort entities sort criteria
    * @param size maximum number of entities to return
    * @param number page number
+   * @param approximateTotal whether the total may be estimated instead of counted
    * @return entities, never null
    * @throws UnknownRepositoryException if no repository exists for the given entity type identifier
    */
@@ -68,7 +69,8 @@ interface DataServiceV3 {
       Selection expand,
       Sort sort,
       int size,
-      int number);
+      int number,
+      boolean approximateTotal);
 
   /**
    * Update one entity.
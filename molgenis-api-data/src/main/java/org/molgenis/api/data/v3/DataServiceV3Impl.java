@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.stream.StreamSupport;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.molgenis.api.data.EntityCountCache;
 import org.molgenis.api.data.QueryMapper;
 import org.molgenis.api.data.SortMapper;
 import org.molgenis.api.model.Query;
@@ -44,6 +45,7 @@ class DataServiceV3Impl implements DataServiceV3 {
   private final SortMapper sortMapper;
   private final FetchMapper fetchMapper;
   private final EntityValidator entityValidator;
+  private final EntityCountCache entityCountCache;
 
   private enum OperationType {
     READ,
@@ -56,13 +58,15 @@ class DataServiceV3Impl implements DataServiceV3 {
       QueryMapper queryMapper,
       SortMapper sortMapper,
       FetchMapper fetchMapper,
-      EntityValidator entityValidator) {
+      EntityValidator entityValidator,
+      EntityCountCache entityCountCache) {
     this.metaDataService = requireNonNull(metaDataService);
     this.entityManagerV3 = requireNonNull(entityManagerV3);
     this.queryMapper = requireNonNull(queryMapper);
     this.sortMapper = requireNonNull(sortMapper);
     this.fetchMapper = requireNonNull(fetchMapper);
     this.entityValidator = requireNonNull(entityValidator);
+    this.entityCountCache = requireNonNull(entityCountCache);
   }
 
   @Transactional
@@ -152,7 +156,7 @@ class DataServiceV3Impl implements DataServiceV3 {
     Entities result;
     if (!refEntityIds.isEmpty()) {
       q.in(refEntityType.getIdAttribute().getName(), refEntityIds);
-      result = getEntities(filter, expand, sort, size, number, refRepository, q);
+      result = getEntities(filter, expand, sort, size, number, false, refRepository, q);
     } else {
       result = Entities.builder().setEntities(Collections.emptyList()).setTotal(0).build();
     }
@@ -168,12 +172,13 @@ class DataServiceV3Impl implements DataServiceV3 {
       Selection expand,
       Sort sort,
       int size,
-      int number) {
+      int number,
+      boolean approximateTotal) {
     Repository<Entity> repository = getRepository(entityTypeId, OperationType.READ);
     org.molgenis.data.Query<Entity> findQuery =
         query != null ? queryMapper.map(query, repository) : new QueryImpl<>(repository);
 
-    return getEntities(filter, expand, sort, size, number, repository, findQuery);
+    return getEntities(filter, expand, sort, size, number, approximateTotal, repository, findQuery);
   }
 
   private Entities getEntities(
@@ -182,6 +187,7 @@ class DataServiceV3Impl implements DataServiceV3 {
       Sort sort,
       int size,
       int number,
+      boolean approximateTotal,
       Repository<Entity> repository,
       org.molgenis.data.Query<Entity> query) {
     EntityType entityType = repository.getEntityType();
@@ -195,10 +201,9 @@ class DataServiceV3Impl implements DataServiceV3 {
     findQuery.sort(sortMapper.map(sort, entityType));
     List<Entity> entities = repository.findAll(findQuery).collect(toList());
 
-    org.molgenis.data.Query<Entity> countQuery = new QueryImpl<>(query);
-    countQuery.offset(0);
-    countQuery.pageSize(Integer.MAX_VALUE);
-    int count = Math.toIntExact(repository.count(countQuery));
+    int count =
+        Math.toIntExact(
+            entityCountCache.count(entityType.getId(), query, approximateTotal, repository::count));
 
     return Entities.builder().setEntities(entities).setTotal(count).build();
   }
@@ -7,6 +7,7 @@ import java.util.Map;
 import javax.validation.Valid;
 import org.molgenis.api.ApiController;
 import org.molgenis.api.ApiNamespace;
+import org.molgenis.api.data.DataETagGenerator;
 import org.molgenis.api.data.v3.EntityCollection.Page;
 import org.molgenis.api.data.v3.model.DeleteEntitiesRequest;
 import org.molgenis.api.data.v3.model.DeleteEntityRequest;
@@ -32,6 +33,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
@@ -42,11 +44,14 @@ public class EntityController extends ApiController {
 
   private final DataServiceV3 dataServiceV3;
   private final EntityMapper entityMapper;
+  private final DataETagGenerator dataETagGenerator;
 
-  EntityController(DataServiceV3 dataServiceV3, EntityMapper entityMapper) {
+  EntityController(
+      DataServiceV3 dataServiceV3, EntityMapper entityMapper, DataETagGenerator dataETagGenerator) {
     super(API_ENTITY_ID, 3);
     this.dataServiceV3 = requireNonNull(dataServiceV3);
     this.entityMapper = requireNonNull(entityMapper);
+    this.dataETagGenerator = requireNonNull(dataETagGenerator);
   }
 
   @Transactional
@@ -66,7 +71,11 @@ public class EntityController extends ApiController {
 
   @Transactional(readOnly = true)
   @GetMapping("/{entityTypeId}/{entityId}")
-  public EntityResponse getEntity(@Valid ReadEntityRequest entityRequest) {
+  public EntityResponse getEntity(@Valid ReadEntityRequest entityRequest, WebRequest webRequest) {
+    if (dataETagGenerator.isNotModified(entityRequest.getEntityTypeId(), webRequest)) {
+      return null;
+    }
+
     Selection filter = entityRequest.getFilter();
     Selection expand = entityRequest.getExpand();
 
@@ -79,7 +88,12 @@ public class EntityController extends ApiController {
 
   @Transactional(readOnly = true)
   @GetMapping("/{entityTypeId}/{entityId}/{fieldId}")
-  public EntitiesResponse getReferencedEntities(@Valid ReadSubresourceRequest entitiesRequest) {
+  public EntitiesResponse getReferencedEntities(
+      @Valid ReadSubresourceRequest entitiesRequest, WebRequest webRequest) {
+    if (dataETagGenerator.isNotModified(entitiesRequest.getEntityTypeId(), webRequest)) {
+      return null;
+    }
+
     String entityTypeId = entitiesRequest.getEntityTypeId();
     String entityId = entitiesRequest.getEntityId();
     String fieldId = entitiesRequest.getFieldId();
@@ -152,7 +166,12 @@ public class EntityController extends ApiController {
 
   @Transactional(readOnly = true)
   @GetMapping("/{entityTypeId}")
-  public EntitiesResponse getEntities(@Valid ReadEntitiesRequest entitiesRequest) {
+  public EntitiesResponse getEntities(
+      @Valid ReadEntitiesRequest entitiesRequest, WebRequest webRequest) {
+    if (dataETagGenerator.isNotModified(entitiesRequest.getEntityTypeId(), webRequest)) {
+      return null;
+    }
+
     String entityTypeId = entitiesRequest.getEntityTypeId();
     Selection filter = entitiesRequest.getFilter();
     Selection expand = entitiesRequest.getExpand();
@@ -162,7 +181,14 @@ public class EntityController extends ApiController {
 
     Entities entities =
         dataServiceV3.findAll(
-            entityTypeId, entitiesRequest.getQ().orElse(null), filter, expand, sort, size, page);
+            entityTypeId,
+            entitiesRequest.getQ().orElse(null),
+            filter,
+            expand,
+            sort,
+            size,
+            page,
+            entitiesRequest.isApproximateTotal());
 
     EntityCollection entityCollection =
         EntityCollection.builder()
@@ -22,6 +22,9 @@ public class ReadEntitiesRequest extends AbstractReadRequest {
 
   private Query q;
 
+  /** Whether the total may be estimated instead of counted */
+  private boolean approximateTotal = false;
+
   public int getPage() {
     return page;
   }
@@ -53,4 +56,12 @@ public class ReadEntitiesRequest extends AbstractReadRequest {
   public void setQ(Query q) {
     this.q = q;
   }
+
+  public boolean isApproximateTotal() {
+    return approximateTotal;
+  }
+
+  public void setApproximateTotal(boolean approximateTotal) {
+    this.approximateTotal = approximateTotal;
+  }
 }
@@ -0,0 +1,192 @@
+package org.molgenis.api.data;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.model.AttributeMetadata.ATTRIBUTE_META_DATA;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
+import static org.molgenis.data.security.auth.RoleMetadata.ROLE;
+
+import java.util.Arrays;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.molgenis.data.DataService;
+import org.molgenis.data.meta.MetaDataService;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.EntityTypeVersions;
+import org.molgenis.test.AbstractMockitoTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.WebRequest;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DataETagGeneratorTest extends AbstractMockitoTest {
+  @Mock private DataService dataService;
+  @Mock private MetaDataService metaDataService;
+  @Mock private EntityTypeVersions entityTypeVersions;
+  @Mock private WebRequest webRequest;
+  private DataETagGenerator dataETagGenerator;
+
+  @BeforeEach
+  void setUpBeforeMethod() {
+    when(dataService.getMeta()).thenReturn(metaDataService);
+    when(webRequest.getDescription(false)).thenReturn("uri=/api/v2/MyEntityType");
+    when(webRequest.getParameterMap()).thenReturn(emptyMap());
+    when(entityTypeVersions.getVersionTag(any())).thenReturn("version0");
+    dataETagGenerator = new DataETagGenerator(dataService, entityTypeVersions);
+  }
+
+  @AfterEach
+  void tearDownAfterMethod() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void testIsNotModified() {
+    EntityType entityType = createEntityType("MyEntityType");
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+    when(webRequest.checkNotModified(anyString())).thenReturn(true);
+
+    assertTrue(dataETagGenerator.isNotModified("MyEntityType", webRequest));
+  }
+
+  @Test
+  void testIsNotModifiedUnknownEntityType() {
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.empty());
+
+    assertFalse(dataETagGenerator.isNotModified("MyEntityType", webRequest));
+    verify(webRequest, never()).checkNotModified(anyString());
+  }
+
+  @Test
+  void testGenerateETagUnknownEntityType() {
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.empty());
+    assertNull(dataETagGenerator.generateETag("MyEntityType", webRequest));
+  }
+
+  @Test
+  void testGenerateETagReferencedEntityTypes() {
+    EntityType refRefEntityType = createEntityType("MyRefRefEntityType");
+    EntityType refEntityType = createEntityType("MyRefEntityType", refRefEntityType);
+    EntityType entityType = createEntityType("MyEntityType", refEntityType);
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+
+    dataETagGenerator.generateETag("MyEntityType", webRequest);
+    verify(entityTypeVersions)
+        .getVersionTag(
+            new java.util.LinkedHashSet<>(
+                Arrays.asList(
+                    "MyEntityType",
+                    "MyRefEntityType",
+                    "MyRefRefEntityType",
+                    ENTITY_TYPE_META_DATA,
+                    ATTRIBUTE_META_DATA,
+                    ROLE)));
+  }
+
+  @Test
+  void testGenerateETagStable() {
+    EntityType entityType = createEntityType("MyEntityType");
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+
+    assertEquals(
+        dataETagGenerator.generateETag("MyEntityType", webRequest),
+        dataETagGenerator.generateETag("MyEntityType", webRequest));
+  }
+
+  @Test
+  void testGenerateETagVersionChanged() {
+    EntityType entityType = createEntityType("MyEntityType");
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+
+    String eTag = dataETagGenerator.generateETag("MyEntityType", webRequest);
+    when(entityTypeVersions.getVersionTag(any())).thenReturn("version1");
+    assertNotEquals(eTag, dataETagGenerator.generateETag("MyEntityType", webRequest));
+  }
+
+  @Test
+  void testGenerateETagParametersChanged() {
+    EntityType entityType = createEntityType("MyEntityType");
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+
+    String eTag = dataETagGenerator.generateETag("MyEntityType", webRequest);
+    when(webRequest.getParameterMap()).thenReturn(singletonMap("q", new String[] {"id==1"}));
+    assertNotEquals(eTag, dataETagGenerator.generateETag("MyEntityType", webRequest));
+  }
+
+  @Test
+  void testGenerateETagUserChanged() {
+    EntityType entityType = createEntityType("MyEntityType");
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+
+    SecurityContextHolder.getContext()
+        .setAuthentication(new TestingAuthenticationToken("user0", null, "ROLE_USER"));
+    String eTag = dataETagGenerator.generateETag("MyEntityType", webRequest);
+    SecurityContextHolder.getContext()
+        .setAuthentication(new TestingAuthenticationToken("user1", null, "ROLE_USER"));
+    assertNotEquals(eTag, dataETagGenerator.generateETag("MyEntityType", webRequest));
+  }
+
+  @Test
+  void testGenerateETagAuthoritiesChanged() {
+    EntityType entityType = createEntityType("MyEntityType");
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+
+    SecurityContextHolder.getContext()
+        .setAuthentication(new TestingAuthenticationToken("user", null, "ROLE_USER"));
+    String eTag = dataETagGenerator.generateETag("MyEntityType", webRequest);
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new TestingAuthenticationToken("user", null, "ROLE_USER", "ROLE_MANAGER"));
+    assertNotEquals(eTag, dataETagGenerator.generateETag("MyEntityType", webRequest));
+  }
+
+  @Test
+  void testGenerateQueryETag() {
+    EntityType entityType = createEntityType("MyEntityType");
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+
+    String eTag = dataETagGenerator.generateQueryETag("MyEntityType", new QueryImpl<>());
+    assertEquals(eTag, dataETagGenerator.generateQueryETag("MyEntityType", new QueryImpl<>()));
+    assertNotEquals(
+        eTag, dataETagGenerator.generateQueryETag("MyEntityType", new QueryImpl<>().eq("id", "1")));
+  }
+
+  @Test
+  void testGenerateQueryETagUnknownEntityType() {
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.empty());
+    assertNull(dataETagGenerator.generateQueryETag("MyEntityType", new QueryImpl<>()));
+  }
+
+  private static EntityType createEntityType(String id, EntityType... refEntityTypes) {
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getId()).thenReturn(id);
+    if (refEntityTypes.length == 0) {
+      when(entityType.getAtomicAttributes()).thenReturn(emptyList());
+    } else {
+      Attribute attribute = mock(Attribute.class);
+      when(attribute.getRefEntity()).thenReturn(refEntityTypes[0]);
+      when(entityType.getAtomicAttributes()).thenReturn(singletonList(attribute));
+    }
+    return entityType;
+  }
+}
@@ -0,0 +1,188 @@
+package org.molgenis.api.data;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.security.EntityTypePermission.READ_DATA;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.ToLongFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityCountEstimator;
+import org.molgenis.data.Query;
+import org.molgenis.data.Sort;
+import org.molgenis.data.meta.MetaDataService;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.EntityTypeIdentity;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.security.acl.MutableAclClassService;
+import org.molgenis.security.core.UserPermissionEvaluator;
+import org.molgenis.test.AbstractMockitoTest;
+
+class EntityCountCacheTest extends AbstractMockitoTest {
+  @Mock private DataService dataService;
+  @Mock private MetaDataService metaDataService;
+  @Mock private DataETagGenerator dataETagGenerator;
+  @Mock private UserPermissionEvaluator userPermissionEvaluator;
+  @Mock private MutableAclClassService mutableAclClassService;
+  @Mock private EntityCountEstimator entityCountEstimator;
+  @Mock private EntityType entityType;
+  private EntityCountCache entityCountCache;
+  private List<Query<Entity>> countQueries;
+  private ToLongFunction<Query<Entity>> counter;
+
+  @BeforeEach
+  void setUpBeforeMethod() {
+    entityCountCache =
+        new EntityCountCache(
+            dataService,
+            dataETagGenerator,
+            userPermissionEvaluator,
+            mutableAclClassService,
+            singletonList(entityCountEstimator),
+            new SimpleMeterRegistry(),
+            60,
+            1000);
+    countQueries = new ArrayList<>();
+    counter =
+        countQuery -> {
+          countQueries.add(countQuery);
+          return 123L;
+        };
+  }
+
+  @Test
+  void testCount() {
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value");
+    query.offset(10);
+    query.pageSize(10);
+    query.sort(new Sort("attr"));
+
+    Query<Entity> expectedCountQuery = new QueryImpl<>().eq("attr", "value");
+    when(dataETagGenerator.generateQueryETag("MyEntityType", expectedCountQuery))
+        .thenReturn("etag");
+
+    assertEquals(123L, entityCountCache.count("MyEntityType", query, false, counter));
+    assertEquals(singletonList(expectedCountQuery), countQueries);
+  }
+
+  @Test
+  void testCountCached() {
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value");
+    when(dataETagGenerator.generateQueryETag("MyEntityType", query)).thenReturn("etag");
+
+    assertEquals(123L, entityCountCache.count("MyEntityType", query, false, counter));
+    assertEquals(
+        123L,
+        entityCountCache.count(
+            "MyEntityType", new QueryImpl<>(query).setOffset(100), false, counter));
+    assertEquals(1, countQueries.size());
+  }
+
+  @Test
+  void testCountDataChanged() {
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value");
+    when(dataETagGenerator.generateQueryETag("MyEntityType", query))
+        .thenReturn("etag0")
+        .thenReturn("etag1");
+
+    entityCountCache.count("MyEntityType", query, false, counter);
+    entityCountCache.count("MyEntityType", query, false, counter);
+    assertEquals(2, countQueries.size());
+  }
+
+  @Test
+  void testCountUnknownEntityType() {
+    Query<Entity> query = new QueryImpl<>();
+    entityCountCache.count("MyEntityType", query, false, counter);
+    entityCountCache.count("MyEntityType", query, false, counter);
+    assertEquals(2, countQueries.size());
+  }
+
+  @Test
+  void testCountApproximate() {
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value");
+    mockEstimatePermitted();
+    when(entityCountEstimator.estimateCount(entityType, query)).thenReturn(OptionalLong.of(10000L));
+
+    assertEquals(10000L, entityCountCache.count("MyEntityType", query, true, counter));
+    assertEquals(emptyList(), countQueries);
+  }
+
+  @Test
+  void testCountApproximateCached() {
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value");
+    mockEstimatePermitted();
+    when(dataETagGenerator.generateQueryETag("MyEntityType", query)).thenReturn("etag");
+    when(entityCountEstimator.estimateCount(entityType, query)).thenReturn(OptionalLong.of(10000L));
+
+    assertEquals(10000L, entityCountCache.count("MyEntityType", query, true, counter));
+    assertEquals(10000L, entityCountCache.count("MyEntityType", query, true, counter));
+    verify(entityCountEstimator, times(1)).estimateCount(entityType, query);
+  }
+
+  @Test
+  void testCountApproximateAndExactCachedSeparately() {
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value");
+    mockEstimatePermitted();
+    when(dataETagGenerator.generateQueryETag("MyEntityType", query)).thenReturn("etag");
+    when(entityCountEstimator.estimateCount(entityType, query)).thenReturn(OptionalLong.of(10000L));
+
+    assertEquals(10000L, entityCountCache.count("MyEntityType", query, true, counter));
+    assertEquals(123L, entityCountCache.count("MyEntityType", query, false, counter));
+  }
+
+  @Test
+  void testCountApproximateNoEstimate() {
+    mockEstimatePermitted();
+    when(entityCountEstimator.estimateCount(entityType, new QueryImpl<>()))
+        .thenReturn(OptionalLong.empty());
+
+    assertEquals(123L, entityCountCache.count("MyEntityType", new QueryImpl<>(), true, counter));
+  }
+
+  @Test
+  void testCountApproximateRowLevelSecured() {
+    when(dataService.getMeta()).thenReturn(metaDataService);
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+    when(entityType.getId()).thenReturn("MyEntityType");
+    when(userPermissionEvaluator.hasPermission(new EntityTypeIdentity("MyEntityType"), READ_DATA))
+        .thenReturn(true);
+    when(mutableAclClassService.hasAclClass("entity-MyEntityType")).thenReturn(true);
+
+    assertEquals(123L, entityCountCache.count("MyEntityType", new QueryImpl<>(), true, counter));
+    verifyNoInteractions(entityCountEstimator);
+  }
+
+  @Test
+  void testCountApproximateNoPermission() {
+    when(dataService.getMeta()).thenReturn(metaDataService);
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+    when(entityType.getId()).thenReturn("MyEntityType");
+    when(userPermissionEvaluator.hasPermission(new EntityTypeIdentity("MyEntityType"), READ_DATA))
+        .thenReturn(false);
+
+    assertEquals(123L, entityCountCache.count("MyEntityType", new QueryImpl<>(), true, counter));
+    verifyNoInteractions(entityCountEstimator);
+  }
+
+  private void mockEstimatePermitted() {
+    when(dataService.getMeta()).thenReturn(metaDataService);
+    when(metaDataService.getEntityType("MyEntityType")).thenReturn(Optional.of(entityType));
+    when(entityType.getId()).thenReturn("MyEntityType");
+    when(userPermissionEvaluator.hasPermission(new EntityTypeIdentity("MyEntityType"), READ_DATA))
+        .thenReturn(true);
+  }
+}
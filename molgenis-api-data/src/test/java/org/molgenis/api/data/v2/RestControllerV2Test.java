@@ -10,11 +10,13 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -67,6 +69,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.ToLongFunction;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterAll;
@@ -76,8 +79,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.molgenis.api.data.DataETagGenerator;
+import org.molgenis.api.data.EntityCountCache;
 import org.molgenis.api.data.RestService;
 import org.molgenis.api.data.ServletUriComponentsBuilderFactory;
 import org.molgenis.api.data.v2.RestControllerV2Test.RestControllerV2Config;
@@ -196,6 +202,10 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
 
   @Autowired private LocaleResolver localeResolver;
 
+  @Autowired private DataETagGenerator dataETagGenerator;
+
+  @Autowired private EntityCountCache entityCountCache;
+
   private MockMvc mockMvc;
   private String attrBoolName;
   private String attrStringName;
@@ -226,6 +236,17 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
   void beforeMethod() {
     reset(dataService);
     reset(repoCopier);
+    reset(dataETagGenerator);
+    reset(entityCountCache);
+    when(entityCountCache.count(anyString(), any(), anyBoolean(), any()))
+        .thenAnswer(
+            invocation ->
+                invocation
+                    .<ToLongFunction<Query<Entity>>>getArgument(3)
+                    .applyAsLong(
+                        new QueryImpl<>(invocation.<Query<Entity>>getArgument(1))
+                            .setOffset(0)
+                            .setPageSize(0)));
 
     EntityType refRefEntityType =
         entityTypeFactory
@@ -730,6 +751,31 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
         .andExpect(jsonPath("$.total").value(countResult));
   }
 
+  @Test
+  void retrieveEntityCollectionNotModified() throws Exception {
+    when(dataETagGenerator.isNotModified(eq(ENTITY_NAME), any())).thenReturn(true);
+    mockMvc.perform(get(HREF_ENTITY_COLLECTION)).andExpect(content().string(""));
+    verify(dataService, never()).findAll(anyString(), ArgumentMatchers.<Query<Entity>>any());
+  }
+
+  @Test
+  void retrieveEntityCollectionModified() throws Exception {
+    when(dataETagGenerator.isNotModified(eq(ENTITY_NAME), any())).thenReturn(false);
+    mockMvc
+        .perform(get(HREF_ENTITY_COLLECTION))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items").isNotEmpty());
+  }
+
+  @Test
+  void retrieveEntityCollectionApproximateTotal() throws Exception {
+    when(entityCountCache.count(eq(ENTITY_NAME), any(), eq(true), any())).thenReturn(1000L);
+    mockMvc
+        .perform(get(HREF_ENTITY_COLLECTION).param("approximateTotal", "true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.total").value(1000L));
+  }
+
   @Test
   void retrieveEntityCollectionWitNonZeroNumSize() throws Exception {
     mockMvc
@@ -1453,6 +1499,16 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
       return mock(ServletUriComponentsBuilderFactory.class);
     }
 
+    @Bean
+    DataETagGenerator dataETagGenerator() {
+      return mock(DataETagGenerator.class);
+    }
+
+    @Bean
+    EntityCountCache entityCountCache() {
+      return mock(EntityCountCache.class);
+    }
+
     @Bean
     RestControllerV2 restController() {
       return new RestControllerV2(
@@ -1467,7 +1523,9 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
               servletUriComponentsBuilderFactory()),
           localizationService(),
           permissionSystemService(),
-          repositoryCopier());
+          repositoryCopier(),
+          dataETagGenerator(),
+          entityCountCache());
     }
   }
 }
@@ -23,6 +23,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.molgenis.api.data.EntityCountCache;
 import org.molgenis.api.data.QueryMapper;
 import org.molgenis.api.data.SortMapper;
 import org.molgenis.api.model.Order.Direction;
@@ -53,6 +54,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
   @Mock private SortMapper sortMapper;
   @Mock private FetchMapper fetchMapper;
   @Mock private EntityValidator entityValidator;
+  @Mock private EntityCountCache entityCountCache;
   private DataServiceV3Impl dataServiceV3Impl;
 
   @BeforeEach
@@ -64,7 +66,8 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
             queryMapper,
             sortMapper,
             fetchMapper,
-            entityValidator);
+            entityValidator,
+            entityCountCache);
   }
 
   @Test
@@ -248,13 +251,16 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
     countQuery.pageSize(Integer.MAX_VALUE);
 
     when(repository.findAll(findQuery)).thenReturn(Stream.of(entity1, entity2));
-    when(repository.count(countQuery)).thenReturn(100L);
+    when(entityType.getId()).thenReturn(entityTypeId);
+    when(entityCountCache.count(eq(entityTypeId), eq(findAllQuery), eq(false), any()))
+        .thenReturn(100L);
     when(queryMapper.map(q, repository)).thenReturn(findAllQuery).thenReturn(countQuery);
     when(sortMapper.map(sort, entityType)).thenReturn(dataSort);
 
     when(metaDataService.getRepository(entityTypeId)).thenReturn(Optional.of(repository));
 
-    Entities actual = dataServiceV3Impl.findAll(entityTypeId, q, filter, expand, sort, 10, 1);
+    Entities actual =
+        dataServiceV3Impl.findAll(entityTypeId, q, filter, expand, sort, 10, 1, false);
 
     assertEquals(
         actual, Entities.builder().setEntities(asList(entity1, entity2)).setTotal(100).build());
@@ -325,7 +331,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
 
     when(queryMapper.map(q, refRepository)).thenReturn(findAllQuery).thenReturn(countQuery);
     countQuery.in("id", Arrays.asList("entity1", "entity2", "entity3"));
-    when(refRepository.count(countQuery)).thenReturn(100L);
+    when(entityCountCache.count(eq(refEntityTypeId), any(), eq(false), any())).thenReturn(100L);
     when(refRepository.findAll(findQuery)).thenReturn(Stream.of(entity1, entity2));
     when(sortMapper.map(sort, refEntityType)).thenReturn(dataSort);
 
@@ -408,7 +414,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
 
     when(queryMapper.map(q, refRepository)).thenReturn(findAllQuery).thenReturn(countQuery);
     countQuery.in("id", Arrays.asList("entity1", "entity2", "entity3"));
-    when(refRepository.count(countQuery)).thenReturn(100L);
+    when(entityCountCache.count(eq(refEntityTypeId), any(), eq(false), any())).thenReturn(100L);
     when(refRepository.findAll(findQuery)).thenReturn(Stream.of(entity1, entity2));
     when(sortMapper.map(sort, refEntityType)).thenReturn(dataSort);
 
@@ -645,7 +651,9 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
 
     assertThrows(
         UnknownRepositoryException.class,
-        () -> dataServiceV3Impl.findAll(entityTypeId, null, filter, expand, Sort.EMPTY_SORT, 1, 1));
+        () ->
+            dataServiceV3Impl.findAll(
+                entityTypeId, null, filter, expand, Sort.EMPTY_SORT, 1, 1, false));
   }
 
   @Test
@@ -2,8 +2,10 @@ package org.molgenis.api.data.v3;
 
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
@@ -12,6 +14,7 @@ import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.molgenis.api.data.DataETagGenerator;
 import org.molgenis.api.data.v3.EntityCollection.Page;
 import org.molgenis.api.data.v3.model.DeleteEntitiesRequest;
 import org.molgenis.api.data.v3.model.DeleteEntityRequest;
@@ -34,16 +37,19 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.WebRequest;
 
 class EntityControllerTest extends AbstractMockitoTest {
   @Mock private DataServiceV3 dataServiceV3;
   @Mock private EntityMapper entityMapper;
   @Mock private MessageSource messageSource;
+  @Mock private DataETagGenerator dataETagGenerator;
+  @Mock private WebRequest webRequest;
   private EntityController entityController;
 
   @BeforeEach
   void setUpBeforeMethod() {
-    entityController = new EntityController(dataServiceV3, entityMapper);
+    entityController = new EntityController(dataServiceV3, entityMapper, dataETagGenerator);
     RequestContextHolder.setRequestAttributes(
         new ServletRequestAttributes(new MockHttpServletRequest()));
     MessageSourceHolder.setMessageSource(messageSource);
@@ -83,7 +89,32 @@ class EntityControllerTest extends AbstractMockitoTest {
 
     EntityResponse entityResponse = mock(EntityResponse.class);
     when(entityMapper.map(entity, filter, expand)).thenReturn(entityResponse);
-    assertEquals(entityResponse, entityController.getEntity(entityRequest));
+    assertEquals(entityResponse, entityController.getEntity(entityRequest, webRequest));
+  }
+
+  @Test
+  void testGetEntityNotModified() {
+    String entityTypeId = "MyEntityTypeId";
+    ReadEntityRequest entityRequest = new ReadEntityRequest();
+    entityRequest.setEntityTypeId(entityTypeId);
+    entityRequest.setEntityId("MyId");
+
+    when(dataETagGenerator.isNotModified(entityTypeId, webRequest)).thenReturn(true);
+
+    assertNull(entityController.getEntity(entityRequest, webRequest));
+    verifyNoInteractions(dataServiceV3, entityMapper);
+  }
+
+  @Test
+  void testGetEntitiesNotModified() {
+    String entityTypeId = "MyEntityTypeId";
+    ReadEntitiesRequest entityRequest = new ReadEntitiesRequest();
+    entityRequest.setEntityTypeId(entityTypeId);
+
+    when(dataETagGenerator.isNotModified(entityTypeId, webRequest)).thenReturn(true);
+
+    assertNull(entityController.getEntities(entityRequest, webRequest));
+    verifyNoInteractions(dataServiceV3, entityMapper);
   }
 
   @Test
@@ -104,7 +135,7 @@ class EntityControllerTest extends AbstractMockitoTest {
     entityRequest.setPage(2);
 
     Entities entities = Entities.create(emptyList(), 30);
-    when(dataServiceV3.findAll(entityTypeId, query, filter, expand, sort, 10, 2))
+    when(dataServiceV3.findAll(entityTypeId, query, filter, expand, sort, 10, 2, false))
         .thenReturn(entities);
 
     EntityCollection entityCollection =
@@ -118,7 +149,7 @@ class EntityControllerTest extends AbstractMockitoTest {
     when(entityMapper.map(entityCollection, filter, expand, 10, 2, 30))
         .thenReturn(entitiesResponse);
 
-    assertEquals(entitiesResponse, entityController.getEntities(entityRequest));
+    assertEquals(entitiesResponse, entityController.getEntities(entityRequest, webRequest));
   }
 
   @Test
@@ -158,7 +189,9 @@ class EntityControllerTest extends AbstractMockitoTest {
     when(entityMapper.map(entityCollection, filter, expand, 10, 2, 30))
         .thenReturn(entitiesResponse);
 
-    assertEquals(entitiesResponse, entityController.getReferencedEntities(readSubResourceRequest));
+    assertEquals(
+        entitiesResponse,
+        entityController.getReferencedEntities(readSubResourceRequest, webRequest));
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,86 @@
+package org.molgenis.benchmarks;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+import org.molgenis.data.DataService;
+import org.molgenis.data.EntityManager;
+import org.molgenis.data.EntityManagerImpl;
+import org.molgenis.data.EntityTestHarness;
+import org.molgenis.data.TestHarnessConfig;
+import org.molgenis.data.config.MetadataTestConfig;
+import org.molgenis.data.meta.SystemEntityType;
+import org.molgenis.data.meta.model.AttributeFactory;
+import org.molgenis.data.meta.model.AttributeMetadata;
+import org.molgenis.data.meta.model.EntityTypeFactory;
+import org.molgenis.data.meta.model.EntityTypeMetadata;
+import org.molgenis.data.util.GenericDependencyResolver;
+import org.molgenis.util.ApplicationContextProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.format.support.DefaultFormattingConversionService;
+
+/**
+ * Application context with a bootstrapped meta data model, the same one that is used by the unit
+ * tests. Benchmarks don't access the data service, it only exists to satisfy dependencies.
+ */
+public class BenchmarkContext implements AutoCloseable {
+  private final AnnotationConfigApplicationContext applicationContext;
+
+  public BenchmarkContext() {
+    applicationContext = new AnnotationConfigApplicationContext(Config.class);
+    bootstrap();
+  }
+
+  private void bootstrap() {
+    EntityTypeMetadata entityTypeMeta = applicationContext.getBean(EntityTypeMetadata.class);
+    entityTypeMeta.setBackendEnumOptions(newArrayList("PostgreSQL"));
+    applicationContext.getBean(AttributeMetadata.class).bootstrap(entityTypeMeta);
+    Map<String, SystemEntityType> systemEntityTypeMap =
+        applicationContext.getBeansOfType(SystemEntityType.class);
+    new GenericDependencyResolver()
+        .resolve(systemEntityTypeMap.values(), SystemEntityType::getDependencies)
+        .forEach(systemEntityType -> systemEntityType.bootstrap(entityTypeMeta));
+
+    new ApplicationContextProvider().setApplicationContext(applicationContext);
+  }
+
+  public EntityTestHarness getEntityTestHarness() {
+    return applicationContext.getBean(EntityTestHarness.class);
+  }
+
+  public EntityTypeFactory getEntityTypeFactory() {
+    return applicationContext.getBean(EntityTypeFactory.class);
+  }
+
+  public AttributeFactory getAttributeFactory() {
+    return applicationContext.getBean(AttributeFactory.class);
+  }
+
+  public EntityManager getEntityManager() {
+    return applicationContext.getBean(EntityManager.class);
+  }
+
+  @Override
+  public void close() {
+    applicationContext.close();
+  }
+
+  @Configuration
+  @Import({MetadataTestConfig.class, TestHarnessConfig.class, EntityManagerImpl.class})
+  static class Config {
+    @Bean
+    public DataService dataService() {
+      return mock(DataService.class);
+    }
+
+    @Bean
+    public ConversionService conversionService() {
+      return new DefaultFormattingConversionService();
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package org.molgenis.benchmarks;
+
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Local PostgreSQL database for benchmarks that need one. Uses the same system properties as the
+ * platform integration tests and defaults to the database of their docker-compose environment.
+ */
+public class BenchmarkDatabase {
+  private static final String DEFAULT_URI = "jdbc:postgresql://localhost:5432/molgenis";
+  private static final String DEFAULT_USER = "molgenis";
+  private static final String DEFAULT_PASSWORD = "molgenis";
+
+  private BenchmarkDatabase() {}
+
+  public static DataSource createDataSource() {
+    return new DriverManagerDataSource(
+        System.getProperty("db_uri", DEFAULT_URI),
+        System.getProperty("db_user", DEFAULT_USER),
+        System.getProperty("db_password", DEFAULT_PASSWORD));
+  }
+}
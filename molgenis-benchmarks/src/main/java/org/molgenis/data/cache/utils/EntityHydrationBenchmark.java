@@ -0,0 +1,63 @@
+package org.molgenis.data.cache.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.molgenis.benchmarks.BenchmarkContext;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityTestHarness;
+import org.molgenis.data.meta.model.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityHydrationBenchmark {
+  private BenchmarkContext context;
+  private EntityHydration entityHydration;
+  private EntityType entityType;
+  private Entity hydratedEntity;
+  private Map<String, Object> dehydratedEntity;
+
+  @Setup
+  public void setUp() {
+    context = new BenchmarkContext();
+    EntityTestHarness entityTestHarness = context.getEntityTestHarness();
+    EntityType refEntityType = entityTestHarness.createDynamicRefEntityType();
+    List<Entity> refEntities = entityTestHarness.createTestRefEntities(refEntityType, 1);
+    entityType = entityTestHarness.createDynamicTestEntityType(refEntityType);
+    hydratedEntity =
+        entityTestHarness.createTestEntities(entityType, 1, refEntities).findFirst().orElseThrow();
+
+    entityHydration = new EntityHydration(context.getEntityManager());
+    dehydratedEntity = entityHydration.dehydrate(hydratedEntity);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Entity hydrate() {
+    return entityHydration.hydrate(dehydratedEntity, entityType);
+  }
+
+  @Benchmark
+  public Map<String, Object> dehydrate() {
+    return entityHydration.dehydrate(hydratedEntity);
+  }
+}
@@ -0,0 +1,150 @@
+package org.molgenis.data.postgresql;
+
+import static java.util.stream.Collectors.toList;
+import static org.molgenis.data.meta.AttributeType.BOOL;
+import static org.molgenis.data.meta.AttributeType.DATE;
+import static org.molgenis.data.meta.AttributeType.DATE_TIME;
+import static org.molgenis.data.meta.AttributeType.DECIMAL;
+import static org.molgenis.data.meta.AttributeType.INT;
+import static org.molgenis.data.meta.AttributeType.LONG;
+import static org.molgenis.data.meta.AttributeType.STRING;
+import static org.molgenis.data.meta.AttributeType.TEXT;
+import static org.molgenis.data.meta.model.EntityType.AttributeRole.ROLE_ID;
+import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getTableName;
+import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getTableAttributes;
+import static org.molgenis.data.postgresql.PostgreSqlUtils.getPostgreSqlValue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.molgenis.benchmarks.BenchmarkContext;
+import org.molgenis.benchmarks.BenchmarkDatabase;
+import org.molgenis.data.Entity;
+import org.molgenis.data.meta.AttributeType;
+import org.molgenis.data.meta.model.AttributeFactory;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.DynamicEntity;
+import org.molgenis.data.support.QueryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Maps rows selected from a table in a local PostgreSQL database to entities. The {@link
+ * #selectRowsBaseline()} benchmark selects the same rows without mapping them, the difference
+ * between both benchmarks is the cost of the row mapping.
+ *
+ * @see BenchmarkDatabase
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostgreSqlEntityFactoryBenchmark {
+  private static final List<AttributeType> ATTRIBUTE_TYPES =
+      List.of(STRING, TEXT, INT, LONG, DECIMAL, BOOL, DATE, DATE_TIME);
+
+  @Param({"1000"})
+  private int nrRows;
+
+  private BenchmarkContext context;
+  private JdbcTemplate jdbcTemplate;
+  private EntityType entityType;
+  private String sqlSelect;
+  private Object[] parameters;
+  private RowMapper<Entity> rowMapper;
+
+  @Setup
+  public void setUp() {
+    context = new BenchmarkContext();
+    entityType = createEntityType();
+
+    jdbcTemplate = new JdbcTemplate(BenchmarkDatabase.createDataSource());
+    jdbcTemplate.execute("DROP TABLE IF EXISTS " + getTableName(entityType));
+    jdbcTemplate.execute(PostgreSqlQueryGenerator.getSqlCreateTable(entityType));
+    List<Object[]> rows =
+        IntStream.range(0, nrRows).mapToObj(this::createEntity).map(this::toRow).collect(toList());
+    jdbcTemplate.batchUpdate(PostgreSqlQueryGenerator.getSqlInsert(entityType), rows);
+
+    List<Object> parameterList = new ArrayList<>();
+    sqlSelect =
+        PostgreSqlQueryGenerator.getSqlSelect(entityType, new QueryImpl<>(), parameterList, true);
+    parameters = parameterList.toArray();
+    rowMapper =
+        new PostgreSqlEntityFactory(context.getEntityManager()).createRowMapper(entityType, null);
+  }
+
+  @TearDown
+  public void tearDown() {
+    jdbcTemplate.execute(PostgreSqlQueryGenerator.getSqlDropTable(entityType));
+    context.close();
+  }
+
+  @Benchmark
+  public List<Entity> mapRows() {
+    return jdbcTemplate.query(sqlSelect, rowMapper, parameters);
+  }
+
+  @Benchmark
+  public List<Object> selectRowsBaseline() {
+    return jdbcTemplate.query(sqlSelect, (resultSet, rowNum) -> resultSet.getObject(1), parameters);
+  }
+
+  private EntityType createEntityType() {
+    AttributeFactory attributeFactory = context.getAttributeFactory();
+    EntityType benchmarkEntityType =
+        context
+            .getEntityTypeFactory()
+            .create("BenchmarkEntity")
+            .setLabel("BenchmarkEntity")
+            .setBackend("PostgreSQL");
+    benchmarkEntityType.addAttribute(
+        attributeFactory.create().setName("id").setDataType(STRING), ROLE_ID);
+    ATTRIBUTE_TYPES.forEach(
+        attributeType ->
+            benchmarkEntityType.addAttribute(
+                attributeFactory
+                    .create()
+                    .setName(getAttributeName(attributeType))
+                    .setDataType(attributeType)));
+    return benchmarkEntityType;
+  }
+
+  private Entity createEntity(int id) {
+    Entity entity = new DynamicEntity(entityType);
+    entity.set("id", String.valueOf(id));
+    entity.set(getAttributeName(STRING), "string" + id);
+    entity.set(getAttributeName(TEXT), "text text text text text text text text " + id);
+    entity.set(getAttributeName(INT), id);
+    entity.set(getAttributeName(LONG), id * 1000000L);
+    entity.set(getAttributeName(DECIMAL), id + 0.123);
+    entity.set(getAttributeName(BOOL), id % 2 == 0);
+    entity.set(getAttributeName(DATE), LocalDate.parse("2012-12-21").plusDays(id));
+    entity.set(getAttributeName(DATE_TIME), Instant.parse("1985-08-12T06:12:13Z").plusSeconds(id));
+    return entity;
+  }
+
+  private Object[] toRow(Entity entity) {
+    return getTableAttributes(entityType).map(attr -> getPostgreSqlValue(entity, attr)).toArray();
+  }
+
+  private static String getAttributeName(AttributeType attributeType) {
+    return attributeType.name().toLowerCase() + "_attr";
+  }
+}
@@ -0,0 +1,79 @@
+package org.molgenis.data.postgresql;
+
+import static org.molgenis.data.EntityTestHarness.ATTR_DATE;
+import static org.molgenis.data.EntityTestHarness.ATTR_INT;
+import static org.molgenis.data.EntityTestHarness.ATTR_MREF;
+import static org.molgenis.data.EntityTestHarness.ATTR_STRING;
+import static org.molgenis.data.EntityTestHarness.ATTR_XREF;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.molgenis.benchmarks.BenchmarkContext;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityTestHarness;
+import org.molgenis.data.Query;
+import org.molgenis.data.Sort;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.QueryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostgreSqlQueryGeneratorBenchmark {
+  private BenchmarkContext context;
+  private EntityType entityType;
+  private Query<Entity> query;
+
+  @Setup
+  public void setUp() {
+    context = new BenchmarkContext();
+    EntityTestHarness entityTestHarness = context.getEntityTestHarness();
+    EntityType refEntityType = entityTestHarness.createDynamicRefEntityType();
+    entityType = entityTestHarness.createDynamicTestEntityType(refEntityType);
+
+    query =
+        new QueryImpl<>()
+            .eq(ATTR_STRING, "string1")
+            .and()
+            .gt(ATTR_INT, 10)
+            .and()
+            .in(ATTR_XREF, List.of("0", "1", "2"))
+            .and()
+            .eq(ATTR_MREF, "0")
+            .sort(new Sort(ATTR_DATE, Sort.Direction.DESC))
+            .offset(200)
+            .pageSize(100);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public String getSqlSelect() {
+    return PostgreSqlQueryGenerator.getSqlSelect(entityType, query, new ArrayList<>(), true);
+  }
+
+  @Benchmark
+  public String getSqlWhere() {
+    return PostgreSqlQueryGenerator.getSqlWhere(
+        entityType, query, new ArrayList<>(), new AtomicInteger());
+  }
+}
@@ -0,0 +1,76 @@
+package org.molgenis.data.support;
+
+import static org.molgenis.data.EntityTestHarness.ATTR_DATE;
+import static org.molgenis.data.EntityTestHarness.ATTR_DECIMAL;
+import static org.molgenis.data.EntityTestHarness.ATTR_INT;
+import static org.molgenis.data.EntityTestHarness.ATTR_STRING;
+import static org.molgenis.data.EntityTestHarness.ATTR_XREF;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.molgenis.benchmarks.BenchmarkContext;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityTestHarness;
+import org.molgenis.data.meta.model.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicEntityBenchmark {
+  private static final LocalDate DATE = LocalDate.parse("2012-12-21");
+
+  private BenchmarkContext context;
+  private Entity entity;
+  private Entity refEntity;
+
+  @Setup
+  public void setUp() {
+    context = new BenchmarkContext();
+    EntityTestHarness entityTestHarness = context.getEntityTestHarness();
+    EntityType refEntityType = entityTestHarness.createDynamicRefEntityType();
+    List<Entity> refEntities = entityTestHarness.createTestRefEntities(refEntityType, 1);
+    EntityType entityType = entityTestHarness.createDynamicTestEntityType(refEntityType);
+    refEntity = refEntities.get(0);
+    entity = entityTestHarness.createEntity(entityType, 0, refEntity);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void get(Blackhole blackhole) {
+    blackhole.consume(entity.getString(ATTR_STRING));
+    blackhole.consume(entity.getInt(ATTR_INT));
+    blackhole.consume(entity.getDouble(ATTR_DECIMAL));
+    blackhole.consume(entity.getLocalDate(ATTR_DATE));
+    blackhole.consume(entity.getEntity(ATTR_XREF));
+  }
+
+  @Benchmark
+  public Entity set() {
+    entity.set(ATTR_STRING, "string1");
+    entity.set(ATTR_INT, 10);
+    entity.set(ATTR_DECIMAL, 0.123);
+    entity.set(ATTR_DATE, DATE);
+    entity.set(ATTR_XREF, refEntity);
+    return entity;
+  }
+}
@@ -0,0 +1,63 @@
+package org.molgenis.data.support;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.Sort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Queries are used as L3 cache keys, so their hashCode and equals are on the hot path. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryImplBenchmark {
+  private Query<Entity> query;
+  private Query<Entity> equalQuery;
+
+  @Setup
+  public void setUp() {
+    query = createQuery();
+    equalQuery = createQuery();
+  }
+
+  @Benchmark
+  public int hashCodeQuery() {
+    return query.hashCode();
+  }
+
+  @Benchmark
+  public boolean equalsQuery() {
+    return query.equals(equalQuery);
+  }
+
+  private static Query<Entity> createQuery() {
+    Query<Entity> query =
+        new QueryImpl<>()
+            .eq("string", "value")
+            .and()
+            .nest()
+            .gt("int", 10)
+            .or()
+            .in("xref", List.of("0", "1", "2"))
+            .unnest()
+            .sort(new Sort("date"))
+            .pageSize(100)
+            .offset(200);
+    query.fetch(new Fetch().field("string").field("int").field("xref", new Fetch().field("id")));
+    return query;
+  }
+}
@@ -0,0 +1,36 @@
+package org.molgenis.web.rsql;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryRsqlConverterBenchmark {
+  private static final String RSQL =
+      "name==piet;age=gt=30;(city=in=(Groningen,Amsterdam),description=q='rare disease')";
+
+  private QueryRsqlConverter queryRsqlConverter;
+
+  @Setup
+  public void setUp() {
+    queryRsqlConverter = new RsqlConfig().rsqlQueryConverter();
+  }
+
+  @Benchmark
+  public QueryRsql convert() {
+    return queryRsqlConverter.convert(RSQL);
+  }
+}
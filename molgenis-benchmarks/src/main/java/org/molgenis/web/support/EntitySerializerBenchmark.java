@@ -0,0 +1,58 @@
+package org.molgenis.web.support;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.molgenis.benchmarks.BenchmarkContext;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityTestHarness;
+import org.molgenis.data.meta.model.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntitySerializerBenchmark {
+  private BenchmarkContext context;
+  private Gson gson;
+  private Entity entity;
+
+  @Setup
+  public void setUp() {
+    context = new BenchmarkContext();
+    EntityTestHarness entityTestHarness = context.getEntityTestHarness();
+    EntityType refEntityType = entityTestHarness.createDynamicRefEntityType();
+    List<Entity> refEntities = entityTestHarness.createTestRefEntities(refEntityType, 1);
+    EntityType entityType = entityTestHarness.createDynamicTestEntityType(refEntityType);
+    entity = entityTestHarness.createEntity(entityType, 0, refEntities.get(0));
+
+    gson =
+        new GsonBuilder()
+            .registerTypeHierarchyAdapter(Entity.class, new EntitySerializer())
+            .create();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public String serialize() {
+    return gson.toJson(entity);
+  }
+}
@@ -3,6 +3,9 @@ package org.molgenis.core.ui.data.importer.wizard;
 import static org.apache.commons.io.FilenameUtils.getBaseName;
 import static org.apache.commons.io.FilenameUtils.getExtension;
 import static org.molgenis.core.ui.data.importer.wizard.ImportWizardController.URI;
+import static org.molgenis.data.importer.ImportRunMetadata.IMPORT_RUN;
+import static org.molgenis.jobs.JobFactory.CONCURRENCY_GROUP_IMPORT;
+import static org.molgenis.jobs.JobFactory.PRIORITY_LOW;
 import static org.springframework.http.MediaType.TEXT_PLAIN;
 
 import java.io.File;
@@ -12,8 +15,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.text.MessageFormat;
 import java.util.Arrays;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
@@ -32,12 +34,14 @@ import org.molgenis.data.importer.ImportRunService;
 import org.molgenis.data.importer.ImportService;
 import org.molgenis.data.importer.ImportServiceFactory;
 import org.molgenis.data.importer.MetadataAction;
+import org.molgenis.jobs.JobExecutor;
 import org.molgenis.security.core.utils.SecurityUtils;
 import org.molgenis.validation.UriValidator;
 import org.molgenis.web.PluginController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -64,7 +68,7 @@ public class ImportWizardController extends AbstractWizardController {
   private FileStore fileStore;
   private FileRepositoryCollectionFactory fileRepositoryCollectionFactory;
   private ImportRunService importRunService;
-  private ExecutorService asyncImportJobs;
+  private Executor importExecutor;
   private DataService dataService;
   private static final Logger LOG = LoggerFactory.getLogger(ImportWizardController.class);
 
@@ -79,7 +83,9 @@ public class ImportWizardController extends AbstractWizardController {
       ImportServiceFactory importServiceFactory,
       FileStore fileStore,
       FileRepositoryCollectionFactory fileRepositoryCollectionFactory,
-      ImportRunService importRunService) {
+      ImportRunService importRunService,
+      JobExecutor jobExecutor,
+      @Value("${jobs.import.max-concurrency:2}") int maxImportConcurrency) {
     this(
         uploadWizardPage,
         optionsWizardPage,
@@ -91,7 +97,8 @@ public class ImportWizardController extends AbstractWizardController {
         fileStore,
         fileRepositoryCollectionFactory,
         importRunService,
-        Executors.newSingleThreadExecutor());
+        jobExecutor.getExecutor(
+            IMPORT_RUN, CONCURRENCY_GROUP_IMPORT, PRIORITY_LOW, maxImportConcurrency));
   }
 
   public ImportWizardController(
@@ -105,7 +112,7 @@ public class ImportWizardController extends AbstractWizardController {
       FileStore fileStore,
       FileRepositoryCollectionFactory fileRepositoryCollectionFactory,
       ImportRunService importRunService,
-      ExecutorService executorService) {
+      Executor importExecutor) {
     super(URI, "importWizard");
     if (uploadWizardPage == null) throw new IllegalArgumentException("UploadWizardPage is null");
     if (optionsWizardPage == null) throw new IllegalArgumentException("OptionsWizardPage is null");
@@ -123,7 +130,7 @@ public class ImportWizardController extends AbstractWizardController {
     this.fileStore = fileStore;
     this.fileRepositoryCollectionFactory = fileRepositoryCollectionFactory;
     this.importRunService = importRunService;
-    this.asyncImportJobs = executorService;
+    this.importExecutor = importExecutor;
   }
 
   @Override
@@ -275,7 +282,7 @@ public class ImportWizardController extends AbstractWizardController {
             SecurityUtils.getCurrentUsername(), Boolean.TRUE.equals(notify));
 
     long callingThreadId = Thread.currentThread().getId();
-    asyncImportJobs.execute(
+    importExecutor.execute(
         new ImportJob(
             importService,
             SecurityContextHolder.getContext(),
@@ -327,11 +334,6 @@ public class ImportWizardController extends AbstractWizardController {
     return databaseAction;
   }
 
-  /** Added for testability */
-  void setExecutorService(ExecutorService executorService) {
-    this.asyncImportJobs = executorService;
-  }
-
   public static String getUriPath(ImportRun importRun) {
     return ServletUriComponentsBuilder.fromCurrentRequestUri()
         .encode()
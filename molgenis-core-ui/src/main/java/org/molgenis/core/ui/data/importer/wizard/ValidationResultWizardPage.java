@@ -1,12 +1,13 @@
 package org.molgenis.core.ui.data.importer.wizard;
 
 import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.importer.ImportRunMetadata.IMPORT_RUN;
+import static org.molgenis.jobs.JobFactory.CONCURRENCY_GROUP_IMPORT;
+import static org.molgenis.jobs.JobFactory.PRIORITY_LOW;
 import static org.molgenis.util.ApplicationContextProvider.getApplicationContext;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import javax.annotation.PreDestroy;
+import java.util.concurrent.Executor;
 import javax.servlet.http.HttpServletRequest;
 import org.molgenis.core.ui.wizard.AbstractWizardPage;
 import org.molgenis.core.ui.wizard.Wizard;
@@ -19,10 +20,11 @@ import org.molgenis.data.importer.ImportRunService;
 import org.molgenis.data.importer.ImportService;
 import org.molgenis.data.importer.ImportServiceFactory;
 import org.molgenis.data.importer.MetadataAction;
+import org.molgenis.jobs.JobExecutor;
 import org.molgenis.security.core.utils.SecurityUtils;
-import org.molgenis.util.ExecutorServiceUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.BindingResult;
@@ -35,24 +37,20 @@ public class ValidationResultWizardPage extends AbstractWizardPage {
   private transient ImportServiceFactory transientImportServiceFactory;
   private transient FileRepositoryCollectionFactory transientFileRepositoryCollectionFactory;
   private transient ImportRunService transientImportRunService;
-  private transient ExecutorService transientExecutorService;
+  private transient JobExecutor transientJobExecutor;
+  private final int maxImportConcurrency;
 
   ValidationResultWizardPage(
       ImportServiceFactory importServiceFactory,
       FileRepositoryCollectionFactory fileRepositoryCollectionFactory,
-      ImportRunService importRunService) {
+      ImportRunService importRunService,
+      JobExecutor jobExecutor,
+      @Value("${jobs.import.max-concurrency:2}") int maxImportConcurrency) {
     this.transientImportServiceFactory = requireNonNull(importServiceFactory);
     this.transientFileRepositoryCollectionFactory = requireNonNull(fileRepositoryCollectionFactory);
     this.transientImportRunService = requireNonNull(importRunService);
-
-    this.transientExecutorService = createExecutorService();
-  }
-
-  @PreDestroy
-  void preDestroy() {
-    if (transientExecutorService != null) {
-      ExecutorServiceUtils.shutdownAndAwaitTermination(transientExecutorService);
-    }
+    this.transientJobExecutor = requireNonNull(jobExecutor);
+    this.maxImportConcurrency = maxImportConcurrency;
   }
 
   @Override
@@ -92,7 +90,7 @@ public class ValidationResultWizardPage extends AbstractWizardPage {
           ((ImportWizard) wizard).setImportRunId(importRun.getId());
 
           long callingThreadId = Thread.currentThread().getId();
-          getExecutorService()
+          getImportExecutor()
               .execute(
                   new ImportJob(
                       importService,
@@ -137,14 +135,15 @@ public class ValidationResultWizardPage extends AbstractWizardPage {
     return transientImportRunService;
   }
 
-  private synchronized ExecutorService getExecutorService() {
-    if (transientExecutorService == null) {
-      transientExecutorService = createExecutorService();
+  private synchronized JobExecutor getJobExecutor() {
+    if (transientJobExecutor == null) {
+      transientJobExecutor = getApplicationContext().getBean(JobExecutor.class);
     }
-    return transientExecutorService;
+    return transientJobExecutor;
   }
 
-  private ExecutorService createExecutorService() {
-    return Executors.newCachedThreadPool();
+  private Executor getImportExecutor() {
+    return getJobExecutor()
+        .getExecutor(IMPORT_RUN, CONCURRENCY_GROUP_IMPORT, PRIORITY_LOW, maxImportConcurrency);
   }
 }
@@ -12,7 +12,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.Collections;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -39,7 +39,7 @@ class ImportWizardControllerMockMVCTest extends AbstractMockitoTest {
   @Mock private FileStore fileStore;
   @Mock private FileRepositoryCollectionFactory fileRepositoryCollectionFactory;
   @Mock private ImportRunService importRunService;
-  @Mock private ExecutorService executorService;
+  @Mock private Executor importExecutor;
   @Mock private File file;
 
   private MockMvc mockMvc;
@@ -58,7 +58,7 @@ class ImportWizardControllerMockMVCTest extends AbstractMockitoTest {
             fileStore,
             fileRepositoryCollectionFactory,
             importRunService,
-            executorService);
+            importExecutor);
     mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
   }
 
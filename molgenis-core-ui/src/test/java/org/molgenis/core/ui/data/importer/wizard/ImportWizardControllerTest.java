@@ -8,6 +8,9 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.importer.ImportRunMetadata.IMPORT_RUN;
+import static org.molgenis.jobs.JobFactory.CONCURRENCY_GROUP_IMPORT;
+import static org.molgenis.jobs.JobFactory.PRIORITY_LOW;
 import static org.springframework.http.MediaType.TEXT_PLAIN;
 import static org.springframework.http.ResponseEntity.badRequest;
 import static org.springframework.http.ResponseEntity.created;
@@ -18,7 +21,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Iterator;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 import org.apache.commons.fileupload.disk.DiskFileItem;
@@ -39,6 +42,7 @@ import org.molgenis.data.importer.ImportService;
 import org.molgenis.data.importer.ImportServiceFactory;
 import org.molgenis.data.importer.MetadataAction;
 import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.jobs.JobExecutor;
 import org.molgenis.test.AbstractMockitoSpringContextTests;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -65,7 +69,8 @@ class ImportWizardControllerTest extends AbstractMockitoSpringContextTests {
   @Mock private FileStore fileStore;
   @Mock private FileRepositoryCollectionFactory fileRepositoryCollectionFactory;
   @Mock private ImportRunService importRunService;
-  @Mock private ExecutorService executorService;
+  @Mock private JobExecutor jobExecutor;
+  @Mock private Executor importExecutor;
 
   private ImportWizardController importWizardController;
 
@@ -74,6 +79,8 @@ class ImportWizardControllerTest extends AbstractMockitoSpringContextTests {
     MockHttpServletRequest request = new MockHttpServletRequest();
     RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
 
+    when(jobExecutor.getExecutor(IMPORT_RUN, CONCURRENCY_GROUP_IMPORT, PRIORITY_LOW, 2))
+        .thenReturn(importExecutor);
     importWizardController =
         new ImportWizardController(
             uploadWizardPage,
@@ -85,8 +92,9 @@ class ImportWizardControllerTest extends AbstractMockitoSpringContextTests {
             importServiceFactory,
             fileStore,
             fileRepositoryCollectionFactory,
-            importRunService);
-    importWizardController.setExecutorService(executorService);
+            importRunService,
+            jobExecutor,
+            2);
   }
 
   static Iterator<Object[]> testInitProvider() {
@@ -152,7 +160,7 @@ class ImportWizardControllerTest extends AbstractMockitoSpringContextTests {
 
     verify(fileStore).store(any(), eq(filename));
     ArgumentCaptor<ImportJob> importJobArgumentCaptor = ArgumentCaptor.forClass(ImportJob.class);
-    verify(executorService).execute(importJobArgumentCaptor.capture());
+    verify(importExecutor).execute(importJobArgumentCaptor.capture());
     assertEquals(
         new ImportJob(
             importService,
@@ -203,7 +211,7 @@ class ImportWizardControllerTest extends AbstractMockitoSpringContextTests {
         responseEntity);
 
     verify(fileStore).store(any(), eq(filename));
-    verifyZeroInteractions(executorService);
+    verifyZeroInteractions(importExecutor);
   }
 
   @Test
@@ -240,7 +248,7 @@ class ImportWizardControllerTest extends AbstractMockitoSpringContextTests {
         responseEntity);
 
     verify(fileStore).store(any(), eq(filename));
-    verifyZeroInteractions(executorService);
+    verifyZeroInteractions(importExecutor);
   }
 
   private MultipartFile createMultipartFile(String filename) throws IOException {
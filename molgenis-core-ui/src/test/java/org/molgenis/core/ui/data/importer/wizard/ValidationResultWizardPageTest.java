@@ -2,18 +2,25 @@ package org.molgenis.core.ui.data.importer.wizard;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.importer.ImportRunMetadata.IMPORT_RUN;
+import static org.molgenis.jobs.JobFactory.CONCURRENCY_GROUP_IMPORT;
+import static org.molgenis.jobs.JobFactory.PRIORITY_LOW;
 
+import java.util.concurrent.Executor;
 import javax.servlet.http.HttpServletRequest;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.molgenis.data.file.FileRepositoryCollectionFactory;
+import org.molgenis.data.importer.ImportJob;
 import org.molgenis.data.importer.ImportRun;
 import org.molgenis.data.importer.ImportRunService;
 import org.molgenis.data.importer.ImportServiceFactory;
+import org.molgenis.jobs.JobExecutor;
 import org.molgenis.test.AbstractMockitoSpringContextTests;
 import org.springframework.security.test.context.annotation.SecurityTestExecutionListeners;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -24,18 +31,18 @@ class ValidationResultWizardPageTest extends AbstractMockitoSpringContextTests {
   @Mock private ImportServiceFactory importServiceFactory;
   @Mock private FileRepositoryCollectionFactory fileRepositoryCollectionFactory;
   @Mock private ImportRunService importRunService;
+  @Mock private JobExecutor jobExecutor;
   private ValidationResultWizardPage validationResultWizardPage;
 
   @BeforeEach
   void setUpBeforeEach() {
     validationResultWizardPage =
         new ValidationResultWizardPage(
-            importServiceFactory, fileRepositoryCollectionFactory, importRunService);
-  }
-
-  @AfterEach
-  void tearDownAfterEach() {
-    validationResultWizardPage.preDestroy();
+            importServiceFactory,
+            fileRepositoryCollectionFactory,
+            importRunService,
+            jobExecutor,
+            2);
   }
 
   @Test
@@ -53,8 +60,10 @@ class ValidationResultWizardPageTest extends AbstractMockitoSpringContextTests {
     ImportWizard wizard = mock(ImportWizard.class);
     when(wizard.getDataImportOption()).thenReturn("add");
     when(wizard.getMetadataImportOption()).thenReturn("add");
+    Executor importExecutor = mock(Executor.class);
+    when(jobExecutor.getExecutor(IMPORT_RUN, CONCURRENCY_GROUP_IMPORT, PRIORITY_LOW, 2))
+        .thenReturn(importExecutor);
     assertNull(validationResultWizardPage.handleRequest(httpServletRequest, bindingResult, wizard));
-    // this is as useful as the unit test can get:
-    // job will be executed using an actual executor service and fail
+    verify(importExecutor).execute(any(ImportJob.class));
   }
 }
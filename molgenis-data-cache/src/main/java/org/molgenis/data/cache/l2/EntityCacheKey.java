@@ -0,0 +1,21 @@
+package org.molgenis.data.cache.l2;
+
+import com.google.auto.value.AutoValue;
+import org.molgenis.data.EntityKey;
+
+/** Value object to store entity keys in the entity cache for a generation of the entity type. */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+abstract class EntityCacheKey {
+  abstract EntityKey getEntityKey();
+
+  abstract long getGeneration();
+
+  String getEntityTypeId() {
+    return getEntityKey().getEntityTypeId();
+  }
+
+  static EntityCacheKey create(EntityKey entityKey, long generation) {
+    return new AutoValue_EntityCacheKey(entityKey, generation);
+  }
+}
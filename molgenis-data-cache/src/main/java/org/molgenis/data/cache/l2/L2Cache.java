@@ -1,79 +1,125 @@
 package org.molgenis.data.cache.l2;
 
-import static com.google.common.collect.Maps.newConcurrentMap;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static com.google.common.collect.Streams.stream;
+import static java.lang.Math.min;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.empty;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.guava.CaffeinatedGuava;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
-import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityKey;
 import org.molgenis.data.Fetch;
-import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Repository;
 import org.molgenis.data.cache.utils.EntityHydration;
+import org.molgenis.data.cache.utils.EntityTypeCacheMetrics;
+import org.molgenis.data.cache.utils.EntityTypeGenerations;
+import org.molgenis.data.cache.utils.MemorySizeEstimator;
 import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
+import org.molgenis.data.transaction.CacheInvalidationListener;
 import org.molgenis.data.transaction.TransactionInformation;
 import org.molgenis.data.transaction.TransactionListener;
 import org.molgenis.data.transaction.TransactionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-/** In-memory cache of entities read from cacheable repositories. */
+/**
+ * In-memory cache of entities read from cacheable repositories.
+ *
+ * <p>Entities of all repositories share a single cache that is bounded by the estimated size of the
+ * dehydrated entities. When the cache exceeds its budget, entries are evicted based on their access
+ * frequency and recency, regardless of the repository they belong to. Entities of meta repositories
+ * don't count towards the budget.
+ *
+ * <p>Changes committed by other nodes are evicted through the {@link CacheInvalidationBus}.
+ * Entities expire after a configurable time to live in case an invalidation is missed. Entities of
+ * entirely dirty repositories are evicted by moving the entity type to its next {@link
+ * EntityTypeGenerations generation}.
+ */
 @Service
-public class L2Cache implements TransactionListener {
+public class L2Cache implements TransactionListener, CacheInvalidationListener {
   private static final Logger LOG = LoggerFactory.getLogger(L2Cache.class);
-  private static final int MAX_CACHE_SIZE_PER_ENTITY = 1000;
-  /** maps entity id to the loading cache with Object key and Optional dehydrated entity value */
-  private final ConcurrentMap<String, LoadingCache<Object, Optional<Map<String, Object>>>> caches;
+  private static final String CACHE_NAME = "l2";
+
+  /** dehydrated entities, the absence of entities in a repository is cached as empty value */
+  private final Cache<EntityCacheKey, Optional<Map<String, Object>>> cache;
+  /** ids of entity types of which the entities don't count towards the cache budget */
+  private final Set<String> unboundedEntityTypeIds = newConcurrentHashSet();
+
+  private final EntityTypeGenerations entityTypeGenerations = new EntityTypeGenerations();
 
   private final EntityHydration entityHydration;
   private final TransactionInformation transactionInformation;
-  private final MeterRegistry meterRegistry;
+  private final EntityTypeCacheMetrics entityTypeCacheMetrics;
 
   public L2Cache(
       TransactionManager transactionManager,
+      CacheInvalidationBus cacheInvalidationBus,
       EntityHydration entityHydration,
       TransactionInformation transactionInformation,
-      MeterRegistry meterRegistry) {
+      MeterRegistry meterRegistry,
+      @Value("${cache.ttl.minutes:60}") long timeToLiveMinutes,
+      @Value("${cache.l2.max.size.mb:128}") long maxSizeMegabytes) {
     this.entityHydration = requireNonNull(entityHydration);
     this.transactionInformation = requireNonNull(transactionInformation);
-    this.meterRegistry = requireNonNull(meterRegistry);
-    caches = newConcurrentMap();
+    this.entityTypeCacheMetrics = new EntityTypeCacheMetrics(CACHE_NAME, meterRegistry);
+    this.cache =
+        Caffeine.newBuilder()
+            .recordStats()
+            .expireAfterAccess(10, MINUTES)
+            .expireAfterWrite(timeToLiveMinutes, MINUTES)
+            .maximumWeight(maxSizeMegabytes * 1024 * 1024)
+            .weigher(this::weigh)
+            .executor(Runnable::run)
+            .removalListener(this::onRemoval)
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
     requireNonNull(transactionManager).addTransactionListener(this);
+    requireNonNull(cacheInvalidationBus).addCacheInvalidationListener(this);
   }
 
   @Override
   public void afterCommitTransaction(String transactionId) {
-    // TODO: trace logging
-    transactionInformation.getEntirelyDirtyRepositories().forEach(caches::remove);
-    transactionInformation.getDirtyEntities().forEach(this::evict);
+    invalidate(CacheInvalidation.create(transactionInformation));
   }
 
-  private void evict(EntityKey entityKey) {
-    LoadingCache<Object, Optional<Map<String, Object>>> cache =
-        caches.get(entityKey.getEntityTypeId());
-    if (cache != null) {
-      cache.invalidate(entityKey.getId());
-    }
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    LOG.trace("Evicting {}", cacheInvalidation);
+    entityTypeGenerations.nextGeneration(cacheInvalidation.getEntirelyDirtyRepositories());
+    cache.invalidateAll(
+        cacheInvalidation.getDirtyEntities().stream().map(this::createCacheKey).collect(toList()));
+  }
+
+  @Override
+  public void invalidateAll() {
+    LOG.trace("Evicting all");
+    cache.invalidateAll();
   }
 
   /**
@@ -82,13 +128,13 @@ public class L2Cache implements TransactionListener {
    * @param repository the underlying repository
    * @param id the ID of the entity to retrieve
    * @return the retrieved Entity, or null if the entity is not present.
-   * @throws com.google.common.util.concurrent.UncheckedExecutionException if the repository throws
-   *     an error when loading the entity
+   * @throws UncheckedExecutionException if the repository throws an error when loading the entity
    */
   public Entity get(Repository<Entity> repository, Object id) {
-    LoadingCache<Object, Optional<Map<String, Object>>> cache = getEntityCache(repository);
     EntityType entityType = repository.getEntityType();
-    return cache.getUnchecked(id).map(e -> entityHydration.hydrate(e, entityType)).orElse(null);
+    return getDehydrated(repository, id)
+        .map(e -> entityHydration.hydrate(e, entityType))
+        .orElse(null);
   }
 
   /**
@@ -98,162 +144,181 @@ public class L2Cache implements TransactionListener {
    * @param id the ID of the entity to retrieve
    * @param fetch containing attributes to retrieve, can be null
    * @return the retrieved Entity, or null if the entity is not present.
-   * @throws com.google.common.util.concurrent.UncheckedExecutionException if the repository throws
-   *     an error when loading the entity
+   * @throws UncheckedExecutionException if the repository throws an error when loading the entity
    */
   public Entity get(Repository<Entity> repository, Object id, Fetch fetch) {
-    LoadingCache<Object, Optional<Map<String, Object>>> cache = getEntityCache(repository);
     EntityType entityType = repository.getEntityType();
-    return cache
-        .getUnchecked(id)
+    return getDehydrated(repository, id)
         .map(e -> entityHydration.hydrate(e, entityType, fetch))
         .orElse(null);
   }
+
   /**
-   * Retrieves a list of entities from the cache. If the cache doesn't yet exist, will create the
-   * cache.
+   * Retrieves a list of entities from the cache or the underlying repository.
    *
-   * @param repository the underlying repository, used to create the cache loader or to retrieve the
-   *     existing cache
+   * @param repository the underlying repository, used to load the entities that are not cached
    * @param ids {@link Iterable} of the ids of the entities to retrieve
    * @return List containing the retrieved entities, missing values are excluded
-   * @throws RuntimeException if the cache failed to load the entities
+   * @throws UncheckedExecutionException if the repository throws an error when loading the entities
    */
   public List<Entity> getBatch(Repository<Entity> repository, Iterable<Object> ids) {
-    try {
-      EntityType entityType = repository.getEntityType();
-      return getEntityCache(repository).getAll(ids).values().stream()
-          .filter(Optional::isPresent)
-          .map(e -> entityHydration.hydrate(e.get(), entityType))
-          .collect(toList());
-    } catch (ExecutionException exception) {
-      throw translateExecutionException(exception);
-    }
+    EntityType entityType = repository.getEntityType();
+    return getDehydratedBatch(repository, ids).stream()
+        .filter(Optional::isPresent)
+        .map(e -> entityHydration.hydrate(e.get(), entityType))
+        .collect(toList());
   }
 
   /**
-   * Retrieves a list of partial entities from the cache. If the cache doesn't yet exist, will
-   * create the cache.
+   * Retrieves a list of partial entities from the cache or the underlying repository.
    *
-   * @param repository the underlying repository, used to create the cache loader or to retrieve the
-   *     existing cache
+   * @param repository the underlying repository, used to load the entities that are not cached
    * @param ids {@link Iterable} of the ids of the entities to retrieve
    * @param fetch containing attributes to retrieve, can be null
    * @return List containing the retrieved entities, missing values are excluded
-   * @throws RuntimeException if the cache failed to load the entities
+   * @throws UncheckedExecutionException if the repository throws an error when loading the entities
    */
   public List<Entity> getBatch(Repository<Entity> repository, Iterable<Object> ids, Fetch fetch) {
+    EntityType entityType = repository.getEntityType();
+    return getDehydratedBatch(repository, ids).stream()
+        .filter(Optional::isPresent)
+        .map(e -> entityHydration.hydrate(e.get(), entityType, fetch))
+        .collect(toList());
+  }
+
+  /** Logs cumulative cache statistics. */
+  @Scheduled(fixedRate = 60000)
+  public void logStatistics() {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Cache stats: {}", cache.stats());
+    }
+  }
+
+  private Optional<Map<String, Object>> getDehydrated(Repository<Entity> repository, Object id) {
+    EntityType entityType = repository.getEntityType();
+    EntityCacheKey entityKey = createCacheKey(EntityKey.create(entityType, id));
+
+    Optional<Map<String, Object>> dehydratedEntity = cache.getIfPresent(entityKey);
+    if (dehydratedEntity != null) {
+      entityTypeCacheMetrics.recordHits(entityType.getId(), 1);
+      return dehydratedEntity;
+    }
+
+    entityTypeCacheMetrics.recordMisses(entityType.getId(), 1);
+    registerEntityType(entityType);
     try {
-      EntityType entityType = repository.getEntityType();
-      return getEntityCache(repository).getAll(ids).values().stream()
-          .filter(Optional::isPresent)
-          .map(e -> entityHydration.hydrate(e.get(), entityType, fetch))
-          .collect(toList());
-    } catch (ExecutionException exception) {
-      throw translateExecutionException(exception);
+      return cache.get(entityKey, key -> load(repository, key.getEntityKey().getId()));
+    } catch (RuntimeException e) {
+      throw new UncheckedExecutionException(e);
     }
   }
 
-  private RuntimeException translateExecutionException(ExecutionException exception) {
-    // rethrow unchecked
-    if (exception.getCause() instanceof RuntimeException) {
-      return (RuntimeException) exception.getCause();
+  private Collection<Optional<Map<String, Object>>> getDehydratedBatch(
+      Repository<Entity> repository, Iterable<Object> ids) {
+    EntityType entityType = repository.getEntityType();
+    long generation = entityTypeGenerations.getGeneration(entityType.getId());
+    Set<EntityCacheKey> entityKeys =
+        stream(ids)
+            .map(id -> EntityCacheKey.create(EntityKey.create(entityType, id), generation))
+            .collect(toCollection(LinkedHashSet::new));
+
+    AtomicInteger misses = new AtomicInteger();
+    Map<EntityCacheKey, Optional<Map<String, Object>>> dehydratedEntities;
+    try {
+      dehydratedEntities =
+          cache.getAll(
+              entityKeys,
+              missingEntityKeys -> {
+                misses.set(Iterables.size(missingEntityKeys));
+                registerEntityType(entityType);
+                return loadAll(repository, missingEntityKeys, generation);
+              });
+    } catch (RuntimeException e) {
+      throw new UncheckedExecutionException(e);
     }
-    return new MolgenisDataException(exception);
+    entityTypeCacheMetrics.recordHits(entityType.getId(), entityKeys.size() - misses.get());
+    entityTypeCacheMetrics.recordMisses(entityType.getId(), misses.get());
+    return dehydratedEntities.values();
   }
 
-  /** Logs cumulative cache statistics for all known caches. */
-  @Scheduled(fixedRate = 60000)
-  public void logStatistics() {
-    // TODO: do we want to log diff with last log instead?
-    if (LOG.isDebugEnabled()) {
-      LOG.debug("Cache stats:");
-      for (Map.Entry<String, LoadingCache<Object, Optional<Map<String, Object>>>> cacheEntry :
-          caches.entrySet()) {
-        LOG.debug("{}:{}", cacheEntry.getKey(), cacheEntry.getValue().stats());
-      }
+  private void registerEntityType(EntityType entityType) {
+    if (MetaDataService.isMetaEntityType(entityType)) {
+      unboundedEntityTypeIds.add(entityType.getId());
     }
   }
 
   /**
-   * Gets the existing entity cache for a {@link Repository} or creates a new one if no cache exists
-   * yet.
+   * Loads a single entity from the repository.
    *
-   * @param repository the Repository used to create a new cache if none found, otherwise only the
-   *     id of the repository is used to look up the existing cache
-   * @return the LoadingCache for the repository
+   * @param id ID value of the entity to retrieve
+   * @return dehydrated entity or empty if the entity was not present in the repository
    */
-  @SuppressWarnings("java:S2201") // ignore return values
-  private LoadingCache<Object, Optional<Map<String, Object>>> getEntityCache(
-      Repository<Entity> repository) {
-    String id = repository.getEntityType().getId();
-    if (!caches.containsKey(id)) {
-      caches.putIfAbsent(id, createEntityCache(repository));
-    }
-    return caches.get(id);
+  private Optional<Map<String, Object>> load(Repository<Entity> repository, Object id) {
+    Optional<Map<String, Object>> dehydratedEntity =
+        Optional.ofNullable(repository.findOneById(id)).map(entityHydration::dehydrate);
+    recordPut(repository.getEntityType().getId(), dehydratedEntity);
+    return dehydratedEntity;
   }
 
   /**
-   * Creates a new Entity cache
+   * Loads multiple entities from the repository.
    *
-   * @param repository the {@link Repository} to load the entities from
-   * @return newly created LoadingCache
+   * @param entityKeys keys of the entities to retrieve
+   * @param generation generation of the entity type of the keys
+   * @return Map mapping key to loaded entity, or to empty optional if the entity was not present in
+   *     the repository
    */
-  private LoadingCache<Object, Optional<Map<String, Object>>> createEntityCache(
-      Repository<Entity> repository) {
-    Caffeine<Object, Object> cacheBuilder =
-        Caffeine.newBuilder().recordStats().expireAfterAccess(10, MINUTES);
-    if (!MetaDataService.isMetaEntityType(repository.getEntityType())) {
-      cacheBuilder.maximumSize(MAX_CACHE_SIZE_PER_ENTITY);
+  private Map<EntityCacheKey, Optional<Map<String, Object>>> loadAll(
+      Repository<Entity> repository,
+      Iterable<? extends EntityCacheKey> entityKeys,
+      long generation) {
+    String entityTypeId = repository.getEntityType().getId();
+    Stream<Object> ids = stream(entityKeys).map(entityKey -> entityKey.getEntityKey().getId());
+    Map<EntityCacheKey, Optional<Map<String, Object>>> result =
+        repository
+            .findAll(ids)
+            .collect(
+                toMap(
+                    entity ->
+                        EntityCacheKey.create(
+                            EntityKey.create(entityTypeId, entity.getIdValue()), generation),
+                    entity -> Optional.of(entityHydration.dehydrate(entity))));
+    for (EntityCacheKey entityKey : entityKeys) {
+      // cache the absence of these entities in the backend as empty values
+      result.putIfAbsent(entityKey, empty());
     }
-    LoadingCache<Object, Optional<Map<String, Object>>> cache =
-        CaffeinatedGuava.build(cacheBuilder, createCacheLoader(repository));
-    GuavaCacheMetrics.monitor(meterRegistry, cache, "l2." + repository.getEntityType().getId());
-    return cache;
+    result.values().forEach(dehydratedEntity -> recordPut(entityTypeId, dehydratedEntity));
+    return result;
   }
 
-  /**
-   * Creates a CacheLoader that loads entities from the repository and dehydrates them.
-   *
-   * @param repository the Repository to load the entities from
-   * @return the {@link CacheLoader}
-   */
-  private CacheLoader<Object, Optional<Map<String, Object>>> createCacheLoader(
-      final Repository<Entity> repository) {
-    return new CacheLoader<Object, Optional<Map<String, Object>>>() {
-      /**
-       * Loads a single entity from the repository.
-       *
-       * @param id ID value of the entity to retrieve
-       * @return dehydrated entity or empty if the entity was not present in the repository
-       */
-      @Override
-      public Optional<Map<String, Object>> load(@Nonnull Object id) {
-        return Optional.ofNullable(repository.findOneById(id)).map(entityHydration::dehydrate);
-      }
+  private int weigh(EntityCacheKey entityKey, Optional<Map<String, Object>> dehydratedEntity) {
+    if (unboundedEntityTypeIds.contains(entityKey.getEntityTypeId())) {
+      return 0;
+    }
+    return (int) min(estimateSize(dehydratedEntity), Integer.MAX_VALUE);
+  }
+
+  private void recordPut(String entityTypeId, Optional<Map<String, Object>> dehydratedEntity) {
+    entityTypeCacheMetrics.recordPut(entityTypeId, estimateSize(dehydratedEntity));
+  }
 
-      /**
-       * Loads multiple entities from the repository.
-       *
-       * @param ids Iterable of String representations of the ID values
-       * @return Map mapping id to loaded entity, or to empty optional if the entity was not present
-       *     in the repository
-       */
-      @Override
-      public Map<Object, Optional<Map<String, Object>>> loadAll(Iterable<?> ids) {
-        Stream<Object> typedIds = stream(ids).map(id -> id);
-        Map<Object, Optional<Map<String, Object>>> result =
-            repository.findAll(typedIds).collect(toMap(Entity::getIdValue, this::dehydrateEntity));
-        for (Object key : ids) {
-          // cache the absence of these entities in the backend as empty values
-          result.putIfAbsent(key, empty());
-        }
-        return result;
-      }
+  private void onRemoval(
+      @Nullable EntityCacheKey entityKey,
+      @Nullable Optional<Map<String, Object>> dehydratedEntity,
+      RemovalCause removalCause) {
+    if (entityKey != null && dehydratedEntity != null) {
+      entityTypeCacheMetrics.recordRemoval(
+          entityKey.getEntityTypeId(), estimateSize(dehydratedEntity));
+    }
+  }
+
+  private EntityCacheKey createCacheKey(EntityKey entityKey) {
+    return EntityCacheKey.create(
+        entityKey, entityTypeGenerations.getGeneration(entityKey.getEntityTypeId()));
+  }
 
-      private Optional<Map<String, Object>> dehydrateEntity(Entity entity) {
-        return Optional.of(entityHydration.dehydrate(entity));
-      }
-    };
+  private static long estimateSize(Optional<Map<String, Object>> dehydratedEntity) {
+    // an entry consists of the key, the optional and the dehydrated entity
+    return 64 + dehydratedEntity.map(MemorySizeEstimator::estimateDehydratedEntitySize).orElse(0L);
   }
 }
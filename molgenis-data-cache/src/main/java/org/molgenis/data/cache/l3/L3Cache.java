@@ -1,131 +1,182 @@
 package org.molgenis.data.cache.l3;
 
-import static com.google.common.collect.Maps.newConcurrentMap;
+import static java.lang.Math.min;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.stream.Collectors.toList;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.guava.CaffeinatedGuava;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
-import javax.annotation.Nonnull;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
+import org.molgenis.data.cache.utils.EntityTypeCacheMetrics;
+import org.molgenis.data.cache.utils.EntityTypeGenerations;
+import org.molgenis.data.cache.utils.MemorySizeEstimator;
 import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
+import org.molgenis.data.transaction.CacheInvalidationListener;
 import org.molgenis.data.transaction.TransactionInformation;
 import org.molgenis.data.transaction.TransactionListener;
 import org.molgenis.data.transaction.TransactionManager;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-/** In-memory Query cache containing Queries and resulting ids from cacheable repositories */
+/**
+ * In-memory Query cache containing Queries and resulting ids from cacheable repositories.
+ *
+ * <p>Queries of all repositories share a single cache that is bounded by the estimated size of the
+ * cached identifiers. When the cache exceeds its budget, entries are evicted based on their access
+ * frequency and recency, regardless of the repository they belong to.
+ *
+ * <p>Changes committed by other nodes are evicted through the {@link CacheInvalidationBus}. Queries
+ * expire after a configurable time to live in case an invalidation is missed. Queries of dirty
+ * repositories are evicted by moving the entity type to its next {@link EntityTypeGenerations
+ * generation}.
+ */
 @Service
-public class L3Cache implements TransactionListener {
+public class L3Cache implements TransactionListener, CacheInvalidationListener {
   private static final Logger LOG = getLogger(L3Cache.class);
-  private static final int MAX_CACHE_SIZE_PER_QUERY = 1000;
+  private static final String CACHE_NAME = "l3";
+  /** Estimated size of a cache entry excluding the identifiers */
+  private static final int QUERY_ENTRY_SIZE = 256;
 
-  /** maps entity name to the loading cache with Query key and List of Identifiers */
-  private final ConcurrentMap<String, LoadingCache<Query<Entity>, List<Object>>> caches =
-      newConcurrentMap();
+  /** maps entity type id and Query to the List of Identifiers */
+  private final Cache<QueryCacheKey, List<Object>> cache;
+
+  private final EntityTypeGenerations entityTypeGenerations = new EntityTypeGenerations();
 
   private final TransactionInformation transactionInformation;
 
-  private final MeterRegistry meterRegistry;
+  private final EntityTypeCacheMetrics entityTypeCacheMetrics;
 
   public L3Cache(
       TransactionManager transactionManager,
+      CacheInvalidationBus cacheInvalidationBus,
       TransactionInformation transactionInformation,
-      MeterRegistry meterRegistry) {
+      MeterRegistry meterRegistry,
+      @Value("${cache.ttl.minutes:60}") long timeToLiveMinutes,
+      @Value("${cache.l3.max.size.mb:32}") long maxSizeMegabytes) {
     this.transactionInformation = requireNonNull(transactionInformation);
-    this.meterRegistry = requireNonNull(meterRegistry);
+    this.entityTypeCacheMetrics = new EntityTypeCacheMetrics(CACHE_NAME, meterRegistry);
+    this.cache =
+        Caffeine.newBuilder()
+            .recordStats()
+            .expireAfterAccess(10, MINUTES)
+            .expireAfterWrite(timeToLiveMinutes, MINUTES)
+            .maximumWeight(maxSizeMegabytes * 1024 * 1024)
+            .weigher(L3Cache::weigh)
+            .executor(Runnable::run)
+            .removalListener(this::onRemoval)
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
     requireNonNull(transactionManager).addTransactionListener(this);
+    requireNonNull(cacheInvalidationBus).addCacheInvalidationListener(this);
   }
 
   @Override
   public void afterCommitTransaction(String transactionId) {
-    transactionInformation.getDirtyRepositories().forEach(caches::remove);
+    evict(transactionInformation.getDirtyRepositories());
+  }
+
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    evict(cacheInvalidation.getDirtyRepositories());
+  }
+
+  @Override
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private void evict(Set<String> dirtyRepositories) {
+    entityTypeGenerations.nextGeneration(dirtyRepositories);
   }
 
+  /**
+   * Retrieves the identifiers of the entities matching the query from the cache or the underlying
+   * repository.
+   *
+   * @throws UncheckedExecutionException if the repository throws an error when loading the
+   *     identifiers
+   */
   public List<Object> get(Repository<Entity> repository, Query<Entity> query) {
     // Set fetch to null because we are only caching identifiers
-    LoadingCache<Query<Entity>, List<Object>> cache = getQueryCache(repository);
     Query<Entity> fetchlessQuery = new QueryImpl<>(query);
     fetchlessQuery.setFetch(null);
-    return cache.getUnchecked(fetchlessQuery);
-  }
 
-  @SuppressWarnings("java:S2201") // ignore return values
-  private LoadingCache<Query<Entity>, List<Object>> getQueryCache(Repository<Entity> repository) {
-    String id = repository.getEntityType().getId();
-    if (!caches.containsKey(id)) {
-      caches.putIfAbsent(id, createQueryCache(repository));
+    String entityTypeId = repository.getEntityType().getId();
+    QueryCacheKey queryCacheKey =
+        QueryCacheKey.create(
+            entityTypeId, fetchlessQuery, entityTypeGenerations.getGeneration(entityTypeId));
+
+    List<Object> ids = cache.getIfPresent(queryCacheKey);
+    if (ids != null) {
+      entityTypeCacheMetrics.recordHits(entityTypeId, 1);
+      return ids;
     }
-    return caches.get(id);
-  }
 
-  private LoadingCache<Query<Entity>, List<Object>> createQueryCache(
-      Repository<Entity> repository) {
-    LOG.trace("Creating Query cache for repository {}", repository.getName());
-    LoadingCache<Query<Entity>, List<Object>> cache =
-        CaffeinatedGuava.build(
-            Caffeine.newBuilder()
-                .recordStats()
-                .maximumSize(MAX_CACHE_SIZE_PER_QUERY)
-                .expireAfterAccess(10, MINUTES),
-            createCacheLoader(repository));
-    GuavaCacheMetrics.monitor(meterRegistry, cache, "l3." + repository.getEntityType().getId());
-    return cache;
+    entityTypeCacheMetrics.recordMisses(entityTypeId, 1);
+    try {
+      return cache.get(queryCacheKey, key -> load(repository, key.getQuery()));
+    } catch (RuntimeException e) {
+      throw new UncheckedExecutionException(e);
+    }
   }
 
   /**
-   * Create a cacheloader that loads entity ids from the repository and stores them together with
-   * their query
+   * Loads {@link Entity} identifiers for a {@link Query}
    *
-   * @return the {@link CacheLoader}
+   * @param query the fetchless query
+   * @return {@link List} of identifier {@link Object}s
    */
-  private CacheLoader<Query<Entity>, List<Object>> createCacheLoader(
-      final Repository<Entity> repository) {
-    String repositoryName = repository.getName();
+  private List<Object> load(Repository<Entity> repository, Query<Entity> query) {
+    LOG.trace("Loading identifiers from repository {} for query {}", repository.getName(), query);
     Fetch idAttributeFetch =
         new Fetch().field(repository.getEntityType().getIdAttribute().getName());
-    return new CacheLoader<Query<Entity>, List<Object>>() {
-      /**
-       * Loads {@link Entity} identifiers for a {@link Query}
-       *
-       * @param query the cache key to load
-       * @return {@link List} of identifier {@link Object}s
-       */
-      @Override
-      public List<Object> load(@Nonnull Query<Entity> query) {
-        LOG.trace("Loading identifiers from repository {} for query {}", repositoryName, query);
-        return repository
+    List<Object> ids =
+        repository
             .findAll(new QueryImpl<>(query).fetch(idAttributeFetch))
             .map(Entity::getIdValue)
             .collect(toList());
-      }
-    };
+    entityTypeCacheMetrics.recordPut(repository.getEntityType().getId(), estimateSize(ids));
+    return ids;
+  }
+
+  private static int weigh(QueryCacheKey queryCacheKey, List<Object> ids) {
+    return (int) min(estimateSize(ids), Integer.MAX_VALUE);
+  }
+
+  private void onRemoval(
+      @Nullable QueryCacheKey queryCacheKey,
+      @Nullable List<Object> ids,
+      RemovalCause removalCause) {
+    if (queryCacheKey != null && ids != null) {
+      entityTypeCacheMetrics.recordRemoval(queryCacheKey.getEntityTypeId(), estimateSize(ids));
+    }
+  }
+
+  private static long estimateSize(List<Object> ids) {
+    return QUERY_ENTRY_SIZE + MemorySizeEstimator.estimateSize(ids);
   }
 
-  /** Logs cumulative cache statistics for all known caches. */
+  /** Logs cumulative cache statistics. */
   @Scheduled(fixedRate = 60000)
   public void logStatistics() {
-    // TODO: do we want to log diff with last log instead?
     if (LOG.isDebugEnabled()) {
-      LOG.debug("Cache stats:");
-      for (Map.Entry<String, LoadingCache<Query<Entity>, List<Object>>> cacheEntry :
-          caches.entrySet()) {
-        LOG.debug("{}:{}", cacheEntry.getKey(), cacheEntry.getValue().stats());
-      }
+      LOG.debug("Cache stats: {}", cache.stats());
     }
   }
 }
@@ -2,6 +2,8 @@ package org.molgenis.data.cache.l3;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
+import static org.molgenis.data.QueryUtils.containsOperator;
 import static org.molgenis.data.RepositoryCapability.CACHEABLE;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -18,7 +20,8 @@ import org.slf4j.Logger;
 
 /**
  * Retrieves identifiers from the {@link L3Cache} based on a {@link Query} if {@link
- * RepositoryCapability#CACHEABLE}.
+ * RepositoryCapability#CACHEABLE}. Queries that filter on the permissions of the current user are
+ * not cached, because the cache is not invalidated when permissions change.
  *
  * <p>Delegates to the underlying {@link Repository}
  */
@@ -55,7 +58,10 @@ public class L3CacheRepositoryDecorator extends AbstractRepositoryDecorator<Enti
     if (transactionInformation.isRepositoryCompletelyClean(getEntityType())) {
       // FIXME page size for metadata is always 0, and batching is done by the postgres repository
       // FIXME Only superusers are able to use the L3 cache for metadata
-      if (cacheable && query.getPageSize() > 0 && query.getPageSize() <= MAX_PAGE_SIZE) {
+      if (cacheable
+          && query.getPageSize() > 0
+          && query.getPageSize() <= MAX_PAGE_SIZE
+          && !containsOperator(query, PERMITTED)) {
         List<Object> ids = l3Cache.get(delegate(), query);
         return delegate().findAll(ids.stream(), query.getFetch());
       }
@@ -74,7 +80,9 @@ public class L3CacheRepositoryDecorator extends AbstractRepositoryDecorator<Enti
    */
   @Override
   public Entity findOne(Query<Entity> query) {
-    if (transactionInformation.isRepositoryCompletelyClean(getEntityType()) && cacheable) {
+    if (transactionInformation.isRepositoryCompletelyClean(getEntityType())
+        && cacheable
+        && !containsOperator(query, PERMITTED)) {
       // pageSize is irrelevant for findOne, would be a waste to cache them in different entries
       // sort may affect which of the results is the first result, so cannot ignore that.
       QueryImpl<Entity> cacheKey = new QueryImpl<>(query).setPageSize(1);
@@ -0,0 +1,23 @@
+package org.molgenis.data.cache.l3;
+
+import com.google.auto.value.AutoValue;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+
+/**
+ * Value object to store entity type id / fetchless query combinations in the query cache for a
+ * generation of the entity type.
+ */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+abstract class QueryCacheKey {
+  abstract String getEntityTypeId();
+
+  abstract Query<Entity> getQuery();
+
+  abstract long getGeneration();
+
+  static QueryCacheKey create(String entityTypeId, Query<Entity> query, long generation) {
+    return new AutoValue_QueryCacheKey(entityTypeId, query, generation);
+  }
+}
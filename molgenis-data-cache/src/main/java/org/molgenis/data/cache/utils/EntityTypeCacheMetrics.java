@@ -0,0 +1,111 @@
+package org.molgenis.data.cache.utils;
+
+import static java.util.Objects.requireNonNull;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records per entity type statistics of a cache that is shared by all entity types.
+ *
+ * <p>Meters are tagged with <code>cache=&lt;cache name&gt;.&lt;entity type id&gt;</code>.
+ */
+public class EntityTypeCacheMetrics {
+  private final String cacheName;
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<String, EntityTypeMeters> entityTypeMeters;
+
+  public EntityTypeCacheMetrics(String cacheName, MeterRegistry meterRegistry) {
+    this.cacheName = requireNonNull(cacheName);
+    this.meterRegistry = requireNonNull(meterRegistry);
+    this.entityTypeMeters = new ConcurrentHashMap<>();
+  }
+
+  public void recordHits(String entityTypeId, long count) {
+    if (count > 0) {
+      getMeters(entityTypeId).hits.increment(count);
+    }
+  }
+
+  public void recordMisses(String entityTypeId, long count) {
+    if (count > 0) {
+      getMeters(entityTypeId).misses.increment(count);
+    }
+  }
+
+  /**
+   * Records that an entry was added to the cache
+   *
+   * @param entityTypeId entity type of the added entry
+   * @param weight estimated size of the added entry in bytes
+   */
+  public void recordPut(String entityTypeId, long weight) {
+    EntityTypeMeters meters = getMeters(entityTypeId);
+    meters.size.incrementAndGet();
+    meters.weight.addAndGet(weight);
+  }
+
+  /**
+   * Records that an entry was removed from the cache
+   *
+   * @param entityTypeId entity type of the removed entry
+   * @param weight estimated size of the removed entry in bytes
+   */
+  public void recordRemoval(String entityTypeId, long weight) {
+    EntityTypeMeters meters = getMeters(entityTypeId);
+    meters.size.decrementAndGet();
+    meters.weight.addAndGet(-weight);
+  }
+
+  private EntityTypeMeters getMeters(String entityTypeId) {
+    return entityTypeMeters.computeIfAbsent(entityTypeId, this::createMeters);
+  }
+
+  private EntityTypeMeters createMeters(String entityTypeId) {
+    Tags tags = Tags.of("cache", cacheName + '.' + entityTypeId);
+    Counter hits =
+        Counter.builder("cache.gets")
+            .tags(tags)
+            .tag("result", "hit")
+            .description("The number of times cache lookup methods have returned a cached value.")
+            .register(meterRegistry);
+    Counter misses =
+        Counter.builder("cache.gets")
+            .tags(tags)
+            .tag("result", "miss")
+            .description(
+                "The number of times cache lookup methods have returned an uncached value.")
+            .register(meterRegistry);
+    AtomicLong size = new AtomicLong();
+    Gauge.builder("cache.size", size, AtomicLong::get)
+        .tags(tags)
+        .description("The number of entries in this cache.")
+        .register(meterRegistry);
+    AtomicLong weight = new AtomicLong();
+    Gauge.builder("cache.weight", weight, AtomicLong::get)
+        .tags(tags)
+        .description("The estimated size of the entries in this cache.")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    return new EntityTypeMeters(hits, misses, size, weight);
+  }
+
+  private static class EntityTypeMeters {
+    private final Counter hits;
+    private final Counter misses;
+    private final AtomicLong size;
+    private final AtomicLong weight;
+
+    EntityTypeMeters(Counter hits, Counter misses, AtomicLong size, AtomicLong weight) {
+      this.hits = hits;
+      this.misses = misses;
+      this.size = size;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package org.molgenis.data.cache.utils;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the generation of entity types in a cache that is shared by all entity types.
+ *
+ * <p>Cache keys include the generation of their entity type, so that all entries of an entity type
+ * are evicted at once by moving the entity type to its next generation instead of scanning all
+ * keys. Entries of previous generations can no longer be retrieved and are removed when they expire
+ * or when the cache exceeds its budget.
+ */
+public class EntityTypeGenerations {
+  private final ConcurrentMap<String, Long> generations = new ConcurrentHashMap<>();
+
+  public long getGeneration(String entityTypeId) {
+    return generations.getOrDefault(entityTypeId, 0L);
+  }
+
+  public void nextGeneration(Collection<String> entityTypeIds) {
+    entityTypeIds.forEach(entityTypeId -> generations.merge(entityTypeId, 1L, Long::sum));
+  }
+}
@@ -0,0 +1,91 @@
+package org.molgenis.data.cache.utils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Estimates the heap size of cached values such as dehydrated entities and lists of entity ids.
+ *
+ * <p>The estimates assume a 64-bit JVM with compressed references. They are used to weigh cache
+ * entries against a cache budget and don't need to be exact.
+ */
+public class MemorySizeEstimator {
+  private static final int OBJECT_HEADER_SIZE = 16;
+  private static final int REFERENCE_SIZE = 4;
+  private static final int STRING_SIZE = 40;
+  private static final int HASH_MAP_SIZE = 48;
+  private static final int HASH_MAP_ENTRY_SIZE = 32;
+  private static final int ARRAY_LIST_SIZE = 40;
+  private static final int DEFAULT_VALUE_SIZE = 32;
+
+  private MemorySizeEstimator() {}
+
+  /**
+   * Estimates the size of a dehydrated entity. Attribute names are shared with the entity type and
+   * are therefore not counted.
+   *
+   * @param dehydratedEntity map of attribute name to dehydrated value
+   * @return estimated size in bytes
+   */
+  public static long estimateDehydratedEntitySize(Map<String, Object> dehydratedEntity) {
+    long size = HASH_MAP_SIZE + (long) tableSize(dehydratedEntity.size()) * REFERENCE_SIZE;
+    for (Object value : dehydratedEntity.values()) {
+      size += HASH_MAP_ENTRY_SIZE + estimateSize(value);
+    }
+    return size;
+  }
+
+  /**
+   * Estimates the size of a value.
+   *
+   * @param value the value, may be <code>null</code>
+   * @return estimated size in bytes
+   */
+  public static long estimateSize(@Nullable @CheckForNull Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof String) {
+      // compact strings store latin-1 characters in a single byte
+      return STRING_SIZE + (long) ((String) value).length();
+    } else if (value instanceof Integer
+        || value instanceof Boolean
+        || value instanceof Short
+        || value instanceof Byte
+        || value instanceof Character
+        || value instanceof Float) {
+      return OBJECT_HEADER_SIZE;
+    } else if (value instanceof Long || value instanceof Double) {
+      return OBJECT_HEADER_SIZE + 8L;
+    } else if (value instanceof Optional) {
+      return OBJECT_HEADER_SIZE + estimateSize(((Optional<?>) value).orElse(null));
+    } else if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      long size = ARRAY_LIST_SIZE + (long) collection.size() * REFERENCE_SIZE;
+      for (Object element : collection) {
+        size += estimateSize(element);
+      }
+      return size;
+    } else if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      long size = HASH_MAP_SIZE + (long) tableSize(map.size()) * REFERENCE_SIZE;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        size += HASH_MAP_ENTRY_SIZE + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+      }
+      return size;
+    } else {
+      return DEFAULT_VALUE_SIZE;
+    }
+  }
+
+  /** Returns the hash table size of a hash map with default load factor containing n entries */
+  private static int tableSize(int n) {
+    int tableSize = 16;
+    while (tableSize * 3 / 4 < n) {
+      tableSize *= 2;
+    }
+    return tableSize;
+  }
+}
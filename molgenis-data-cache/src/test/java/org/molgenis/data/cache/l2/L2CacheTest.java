@@ -42,6 +42,8 @@ import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.DynamicEntity;
 import org.molgenis.data.support.EntityWithComputedAttributes;
 import org.molgenis.data.support.PartialEntity;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
 import org.molgenis.data.transaction.TransactionInformation;
 import org.molgenis.data.transaction.TransactionManager;
 import org.molgenis.data.util.EntityUtils;
@@ -64,6 +66,7 @@ class L2CacheTest extends AbstractMolgenisSpringTest {
   @Autowired private EntityManager entityManager;
 
   @Mock private TransactionManager transactionManager;
+  @Mock private CacheInvalidationBus cacheInvalidationBus;
   @Mock private Repository<Entity> repository;
   @Mock private TransactionInformation transactionInformation;
   @Captor private ArgumentCaptor<Stream<Object>> idStreamCaptor;
@@ -92,7 +95,79 @@ class L2CacheTest extends AbstractMolgenisSpringTest {
     when(repository.getName()).thenReturn(emd.getId());
 
     l2Cache =
-        new L2Cache(transactionManager, entityHydration, transactionInformation, meterRegistry);
+        new L2Cache(
+            transactionManager,
+            cacheInvalidationBus,
+            entityHydration,
+            transactionInformation,
+            meterRegistry,
+            60,
+            128);
+  }
+
+  @Test
+  void testConstructorRegistersCacheInvalidationListener() {
+    verify(cacheInvalidationBus).addCacheInvalidationListener(l2Cache);
+  }
+
+  @Test
+  void testInvalidateRemovesEntityForDirtyEntity() {
+    Entity entity2 = testEntities.get(2);
+    Entity entity3 = testEntities.get(3);
+    when(repository.findOneById("2")).thenReturn(entity2);
+    when(repository.findOneById("3")).thenReturn(entity3);
+    l2Cache.get(repository, "2");
+    l2Cache.get(repository, "3");
+
+    l2Cache.invalidate(CacheInvalidation.create(emptySet(), singleton(EntityKey.create(entity3))));
+
+    l2Cache.get(repository, "2");
+    l2Cache.get(repository, "3");
+    verify(repository, times(1)).findOneById("2");
+    verify(repository, times(2)).findOneById("3");
+  }
+
+  @Test
+  void testGetRecordsEntityTypeMetrics() {
+    Entity entity2 = testEntities.get(2);
+    when(repository.findOneById("2")).thenReturn(entity2);
+
+    l2Cache.get(repository, "2");
+    l2Cache.get(repository, "2");
+
+    String cacheName = "l2." + emd.getId();
+    assertEquals(
+        1,
+        meterRegistry
+            .get("cache.gets")
+            .tag("cache", cacheName)
+            .tag("result", "hit")
+            .counter()
+            .count());
+    assertEquals(
+        1,
+        meterRegistry
+            .get("cache.gets")
+            .tag("cache", cacheName)
+            .tag("result", "miss")
+            .counter()
+            .count());
+    assertEquals(1, meterRegistry.get("cache.size").tag("cache", cacheName).gauge().value());
+
+    l2Cache.invalidateAll();
+    assertEquals(0, meterRegistry.get("cache.size").tag("cache", cacheName).gauge().value());
+  }
+
+  @Test
+  void testInvalidateAll() {
+    Entity entity2 = testEntities.get(2);
+    when(repository.findOneById("2")).thenReturn(entity2);
+    l2Cache.get(repository, "2");
+
+    l2Cache.invalidateAll();
+
+    assertTrue(EntityUtils.equals(l2Cache.get(repository, "2"), entity2));
+    verify(repository, times(2)).findOneById("2");
   }
 
   @Test
@@ -1,6 +1,8 @@
 package org.molgenis.data.cache.l3;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.atLeast;
@@ -27,6 +29,7 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.molgenis.data.AbstractMolgenisSpringTest;
 import org.molgenis.data.Entity;
+import org.molgenis.data.EntityKey;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
@@ -36,6 +39,8 @@ import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeFactory;
 import org.molgenis.data.support.DynamicEntity;
 import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
 import org.molgenis.data.transaction.TransactionInformation;
 import org.molgenis.data.transaction.TransactionManager;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -60,6 +65,8 @@ class L3CacheTest extends AbstractMolgenisSpringTest {
 
   @Mock private TransactionManager transactionManager;
 
+  @Mock private CacheInvalidationBus cacheInvalidationBus;
+
   private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
   @Autowired private EntityTypeFactory entityTypeFactory;
@@ -91,7 +98,30 @@ class L3CacheTest extends AbstractMolgenisSpringTest {
     when(decoratedRepository.getName()).thenReturn(repositoryName);
     when(decoratedRepository.getEntityType()).thenReturn(entityType);
 
-    l3Cache = new L3Cache(transactionManager, transactionInformation, meterRegistry);
+    l3Cache =
+        new L3Cache(
+            transactionManager,
+            cacheInvalidationBus,
+            transactionInformation,
+            meterRegistry,
+            60,
+            32);
+  }
+
+  @Test
+  void testInvalidateRemovesCacheForDirtyEntity() {
+    Fetch idAttributeFetch = new Fetch().field(entityType.getIdAttribute().getName());
+    Query<Entity> fetchLessQuery = new QueryImpl<>().eq(COUNTRY, "NL").fetch(idAttributeFetch);
+    when(decoratedRepository.findAll(fetchLessQuery))
+        .thenAnswer(invocation -> Stream.of(entity1, entity2));
+    Query<Entity> query = new QueryImpl<>().eq(COUNTRY, "NL");
+
+    assertEquals(asList(1, 2), l3Cache.get(decoratedRepository, query));
+    l3Cache.invalidate(
+        CacheInvalidation.create(emptySet(), singleton(EntityKey.create(entityType, 3))));
+    assertEquals(asList(1, 2), l3Cache.get(decoratedRepository, query));
+
+    verify(decoratedRepository, times(2)).findAll(fetchLessQuery);
   }
 
   @Test
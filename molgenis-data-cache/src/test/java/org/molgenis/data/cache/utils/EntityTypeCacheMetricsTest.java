@@ -0,0 +1,55 @@
+package org.molgenis.data.cache.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EntityTypeCacheMetricsTest {
+  private MeterRegistry meterRegistry;
+  private EntityTypeCacheMetrics entityTypeCacheMetrics;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    meterRegistry = new SimpleMeterRegistry();
+    entityTypeCacheMetrics = new EntityTypeCacheMetrics("l2", meterRegistry);
+  }
+
+  @Test
+  void recordHitsAndMisses() {
+    entityTypeCacheMetrics.recordHits("MyEntityType", 3);
+    entityTypeCacheMetrics.recordMisses("MyEntityType", 2);
+    entityTypeCacheMetrics.recordMisses("MyEntityType", 0);
+
+    assertEquals(
+        3,
+        meterRegistry
+            .get("cache.gets")
+            .tag("cache", "l2.MyEntityType")
+            .tag("result", "hit")
+            .counter()
+            .count());
+    assertEquals(
+        2,
+        meterRegistry
+            .get("cache.gets")
+            .tag("cache", "l2.MyEntityType")
+            .tag("result", "miss")
+            .counter()
+            .count());
+  }
+
+  @Test
+  void recordPutAndRemoval() {
+    entityTypeCacheMetrics.recordPut("MyEntityType", 100);
+    entityTypeCacheMetrics.recordPut("MyEntityType", 50);
+    entityTypeCacheMetrics.recordRemoval("MyEntityType", 100);
+
+    assertEquals(
+        1, meterRegistry.get("cache.size").tag("cache", "l2.MyEntityType").gauge().value());
+    assertEquals(
+        50, meterRegistry.get("cache.weight").tag("cache", "l2.MyEntityType").gauge().value());
+  }
+}
@@ -0,0 +1,19 @@
+package org.molgenis.data.cache.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EntityTypeGenerationsTest {
+  @Test
+  void nextGeneration() {
+    EntityTypeGenerations entityTypeGenerations = new EntityTypeGenerations();
+    entityTypeGenerations.nextGeneration(List.of("A", "B"));
+    entityTypeGenerations.nextGeneration(List.of("A"));
+
+    assertEquals(2, entityTypeGenerations.getGeneration("A"));
+    assertEquals(1, entityTypeGenerations.getGeneration("B"));
+    assertEquals(0, entityTypeGenerations.getGeneration("C"));
+  }
+}
@@ -0,0 +1,68 @@
+package org.molgenis.data.cache.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.molgenis.data.cache.utils.MemorySizeEstimator.estimateDehydratedEntitySize;
+import static org.molgenis.data.cache.utils.MemorySizeEstimator.estimateSize;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class MemorySizeEstimatorTest {
+  @Test
+  void estimateSizeNull() {
+    assertEquals(0, estimateSize(null));
+  }
+
+  @Test
+  void estimateSizeString() {
+    assertEquals(43, estimateSize("abc"));
+  }
+
+  @Test
+  void estimateSizeInteger() {
+    assertEquals(16, estimateSize(1));
+  }
+
+  @Test
+  void estimateSizeLong() {
+    assertEquals(24, estimateSize(1L));
+  }
+
+  @Test
+  void estimateSizeOptional() {
+    assertEquals(32, estimateSize(Optional.of(1)));
+  }
+
+  @Test
+  void estimateSizeList() {
+    assertEquals(40 + 2 * 4 + 2 * 16, estimateSize(List.of(1, 2)));
+  }
+
+  @Test
+  void estimateSizeOther() {
+    assertEquals(32, estimateSize(LocalDate.of(2020, 1, 1)));
+  }
+
+  @Test
+  void estimateDehydratedEntitySizeGrowsWithValues() {
+    Map<String, Object> dehydratedEntity = new HashMap<>();
+    dehydratedEntity.put("id", "0");
+    long size = estimateDehydratedEntitySize(dehydratedEntity);
+    dehydratedEntity.put("description", "a long description");
+    assertTrue(estimateDehydratedEntitySize(dehydratedEntity) > size);
+  }
+
+  @Test
+  void estimateDehydratedEntitySizeExcludesAttributeNames() {
+    Map<String, Object> dehydratedEntity = Map.of("id", "0");
+    Map<String, Object> otherDehydratedEntity = Map.of("identifier", "0");
+    assertEquals(
+        estimateDehydratedEntitySize(dehydratedEntity),
+        estimateDehydratedEntitySize(otherDehydratedEntity));
+  }
+}
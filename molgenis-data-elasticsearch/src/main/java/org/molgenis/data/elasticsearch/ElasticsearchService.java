@@ -20,7 +20,6 @@ import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.elasticsearch.client.ClientFacade;
 import org.molgenis.data.elasticsearch.client.model.SearchHit;
-import org.molgenis.data.elasticsearch.client.model.SearchHits;
 import org.molgenis.data.elasticsearch.generator.ContentGenerators;
 import org.molgenis.data.elasticsearch.generator.model.Document;
 import org.molgenis.data.elasticsearch.generator.model.DocumentAction;
@@ -33,16 +32,28 @@ import org.molgenis.data.index.SearchService;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 /**
  * Elasticsearch search service that executes all requests using the elasticsearch client facade.
+ *
+ * <p>Entity types are indexed in versioned indexes that are referred to by an alias. Rebuilding an
+ * index fills a new versioned index while searches continue to use the existing index, after which
+ * the alias is swapped to the new index.
  */
 @Component
 public class ElasticsearchService implements SearchService, IndexService {
+  private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchService.class);
+
   private static final int BATCH_SIZE = 1000;
   public static final int MAX_BATCH_SIZE = 10000;
 
+  /** Settings used while filling a new index: no replicas and no refreshes */
+  private static final IndexSettings BULK_INDEX_SETTINGS =
+      IndexSettings.builder().setNumberOfReplicas(0).setRefreshInterval("-1").build();
+
   private final ClientFacade clientFacade;
   private final ContentGenerators contentGenerators;
   private final DataService dataService;
@@ -56,10 +67,11 @@ public class ElasticsearchService implements SearchService, IndexService {
 
   @Override
   public void createIndex(EntityType entityType) {
-    Index index = contentGenerators.createIndex(entityType);
+    Index alias = contentGenerators.createIndex(entityType);
+    Index index = createVersionedIndex(alias);
     IndexSettings indexSettings = IndexSettings.create();
     Mapping mapping = contentGenerators.createMapping(entityType);
-    clientFacade.createIndex(index, indexSettings, Stream.of(mapping));
+    clientFacade.createIndex(index, alias, indexSettings, Stream.of(mapping));
   }
 
   @Override
@@ -70,23 +82,77 @@ public class ElasticsearchService implements SearchService, IndexService {
 
   @Override
   public void deleteIndex(EntityType entityType) {
-    Index index = contentGenerators.createIndex(entityType);
-    clientFacade.deleteIndex(index);
+    Index alias = contentGenerators.createIndex(entityType);
+    List<Index> indexes = clientFacade.getAliasedIndexes(alias);
+    if (indexes.isEmpty()) {
+      // index created before indexes were aliased
+      clientFacade.deleteIndex(alias);
+    } else {
+      clientFacade.deleteIndexes(indexes);
+    }
   }
 
+  /**
+   * Fills a new index with bulk settings, then atomically points the alias to the new index and
+   * deletes the old index. Searches use the old index until the new index is complete. The new
+   * index is deleted if it could not be filled or if the alias could not be swapped.
+   *
+   * <p>A failed alias swap may still have been applied, e.g. when the request timed out. The new
+   * index is then the only index left, so it is only deleted if the alias does not refer to it.
+   */
   @Override
   public void rebuildIndex(Repository<? extends Entity> repository) {
     EntityType entityType = repository.getEntityType();
+    Index alias = contentGenerators.createIndex(entityType);
+    Index index = createVersionedIndex(alias);
+    Mapping mapping = contentGenerators.createMapping(entityType);
+    clientFacade.createIndex(index, BULK_INDEX_SETTINGS, Stream.of(mapping));
+
+    try {
+      repository.forEachBatched(
+          createFetchForReindexing(entityType),
+          entities -> index(index, entities.stream()),
+          BATCH_SIZE);
+      clientFacade.updateIndexSettings(index, IndexSettings.create());
+      clientFacade.refreshIndex(index);
+    } catch (RuntimeException e) {
+      clientFacade.deleteIndex(index);
+      throw e;
+    }
 
-    if (hasIndex(entityType)) {
-      deleteIndex(entityType);
+    try {
+      clientFacade.swapIndexAlias(alias, index);
+    } catch (RuntimeException e) {
+      handleSwapIndexAliasException(alias, index, e);
     }
+  }
 
-    createIndex(entityType);
-    repository.forEachBatched(
-        createFetchForReindexing(entityType),
-        entities -> index(entityType, entities.stream()),
-        BATCH_SIZE);
+  private void handleSwapIndexAliasException(Index alias, Index index, RuntimeException e) {
+    List<Index> aliasedIndexes;
+    try {
+      aliasedIndexes = clientFacade.getAliasedIndexes(alias);
+    } catch (RuntimeException aliasedIndexesException) {
+      // unknown whether the alias was swapped, keep the new index since it might be in use
+      e.addSuppressed(aliasedIndexesException);
+      throw e;
+    }
+
+    if (aliasedIndexes.contains(index)) {
+      LOG.warn(
+          "Swapping alias '{}' to index '{}' failed, but the alias was swapped",
+          alias.getName(),
+          index.getName(),
+          e);
+    } else {
+      // the alias swap is atomic, so the alias still points to the old index
+      clientFacade.deleteIndex(index);
+      throw e;
+    }
+  }
+
+  private static Index createVersionedIndex(Index alias) {
+    // index names generated for entity types never contain a '-'
+    return Index.create(alias.getName() + '-' + System.currentTimeMillis());
   }
 
   @Override
@@ -114,31 +180,24 @@ public class ElasticsearchService implements SearchService, IndexService {
     return search(entityType, q, from, q.getPageSize());
   }
 
+  /**
+   * Searches a single page using from and size if possible. Otherwise hits are retrieved lazily in
+   * batches using search after, which is not subject to the maximum result window.
+   */
   private Stream<Object> search(EntityType entityType, Query<Entity> q, int offset, int pageSize) {
     QueryBuilder query = contentGenerators.createQuery(q, entityType);
     Sort sort = q.getSort() != null ? contentGenerators.createSorts(q.getSort(), entityType) : null;
     Index index = contentGenerators.createIndex(entityType);
-    Stream<SearchHit> searchHits = Stream.empty();
-
-    boolean done = false;
-    int currentOffset;
-    int i = 0;
-    while (!done) {
-      int batchSize = pageSize < MAX_BATCH_SIZE && pageSize != 0 ? pageSize : MAX_BATCH_SIZE;
-      currentOffset = offset + (i * MAX_BATCH_SIZE);
-
-      SearchHits currentSearchHits =
-          clientFacade.search(query, currentOffset, batchSize, sort, index);
-      searchHits = Streams.concat(searchHits, currentSearchHits.getHits().stream());
-
-      if (currentSearchHits.getHits().size() < MAX_BATCH_SIZE) {
-        done = true;
-      }
 
-      if (pageSize != 0) pageSize -= MAX_BATCH_SIZE;
-      i++;
+    Stream<SearchHit> searchHits;
+    if (pageSize != 0 && offset + pageSize <= MAX_BATCH_SIZE) {
+      searchHits = clientFacade.search(query, offset, pageSize, sort, index).getHits().stream();
+    } else {
+      long maxHits = pageSize != 0 ? (long) offset + pageSize : Long.MAX_VALUE;
+      SearchHitIterator searchHitIterator =
+          new SearchHitIterator(clientFacade, query, sort, index, maxHits);
+      searchHits = Streams.stream(searchHitIterator).skip(offset);
     }
-
     return toEntityIds(entityType, searchHits.map(SearchHit::getId));
   }
 
@@ -205,6 +264,10 @@ public class ElasticsearchService implements SearchService, IndexService {
   @Override
   public long index(EntityType entityType, Stream<? extends Entity> entities) {
     Index index = contentGenerators.createIndex(entityType);
+    return index(index, entities);
+  }
+
+  private long index(Index index, Stream<? extends Entity> entities) {
     Stream<DocumentAction> documentActionStream =
         entities.map(entity -> this.toDocumentAction(index, entity));
 
@@ -237,7 +300,14 @@ public class ElasticsearchService implements SearchService, IndexService {
 
   @Override
   public void deleteAll(EntityType entityType, Stream<Object> entityIds) {
-    entityIds.forEach(entityId -> deleteById(entityType, entityId));
+    Index index = contentGenerators.createIndex(entityType);
+    clientFacade.processDocumentActions(
+        entityIds.map(
+            entityId ->
+                DocumentAction.create(
+                    index,
+                    contentGenerators.createDocument(entityId),
+                    DocumentAction.Operation.DELETE)));
   }
 
   @Override
@@ -0,0 +1,72 @@
+package org.molgenis.data.elasticsearch;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.elasticsearch.ElasticsearchService.MAX_BATCH_SIZE;
+
+import com.google.common.collect.AbstractIterator;
+import java.util.Iterator;
+import java.util.List;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.molgenis.data.elasticsearch.client.ClientFacade;
+import org.molgenis.data.elasticsearch.client.model.SearchHit;
+import org.molgenis.data.elasticsearch.generator.model.Index;
+import org.molgenis.data.elasticsearch.generator.model.Sort;
+
+/**
+ * Iterates over search hits using search after. The next batch of hits is only retrieved once the
+ * current batch has been consumed. The first batch is retrieved on construction so that errors are
+ * reported when searching instead of when consuming.
+ */
+class SearchHitIterator extends AbstractIterator<SearchHit> {
+  private final ClientFacade clientFacade;
+  private final QueryBuilder query;
+  private final Sort sort;
+  private final Index index;
+
+  /** Maximum number of hits to retrieve */
+  private long remainingHits;
+
+  private Iterator<SearchHit> batchIterator;
+  private List<Object> searchAfter;
+
+  SearchHitIterator(
+      ClientFacade clientFacade, QueryBuilder query, Sort sort, Index index, long maxHits) {
+    this.clientFacade = requireNonNull(clientFacade);
+    this.query = query;
+    this.sort = sort;
+    this.index = requireNonNull(index);
+    this.remainingHits = maxHits;
+    this.searchAfter = emptyList();
+    fetchBatch();
+  }
+
+  @Override
+  protected SearchHit computeNext() {
+    if (!batchIterator.hasNext()) {
+      if (searchAfter == null) {
+        return endOfData();
+      }
+      fetchBatch();
+      if (!batchIterator.hasNext()) {
+        return endOfData();
+      }
+    }
+    return batchIterator.next();
+  }
+
+  private void fetchBatch() {
+    int batchSize = (int) Math.min(remainingHits, MAX_BATCH_SIZE);
+    List<SearchHit> hits =
+        clientFacade.searchAfter(query, searchAfter, batchSize, sort, index).getHits();
+    remainingHits -= hits.size();
+
+    if (hits.size() < batchSize || remainingHits == 0) {
+      // no more hits to retrieve
+      searchAfter = null;
+    } else {
+      searchAfter = hits.get(hits.size() - 1).getSortValues();
+    }
+    batchIterator = hits.iterator();
+  }
+}
@@ -2,7 +2,9 @@ package org.molgenis.data.elasticsearch.client;
 
 import static java.lang.Boolean.TRUE;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -19,15 +21,21 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.apache.lucene.search.Explanation;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.ShardOperationFailedException;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
 import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
@@ -39,6 +47,7 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.ShardSearchFailure;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.client.GetAliasesResponse;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.core.CountRequest;
@@ -47,12 +56,15 @@ import org.elasticsearch.client.indices.CreateIndexRequest;
 import org.elasticsearch.client.indices.CreateIndexResponse;
 import org.elasticsearch.client.indices.GetIndexRequest;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.elasticsearch.client.model.SearchHit;
 import org.molgenis.data.elasticsearch.client.model.SearchHits;
@@ -67,6 +79,7 @@ import org.molgenis.data.index.exception.AggregationTimeoutException;
 import org.molgenis.data.index.exception.DocumentDeleteException;
 import org.molgenis.data.index.exception.DocumentIndexException;
 import org.molgenis.data.index.exception.ExplainException;
+import org.molgenis.data.index.exception.IndexAliasException;
 import org.molgenis.data.index.exception.IndexAlreadyExistsException;
 import org.molgenis.data.index.exception.IndexCountException;
 import org.molgenis.data.index.exception.IndexCountTimeoutException;
@@ -76,6 +89,7 @@ import org.molgenis.data.index.exception.IndexExistsException;
 import org.molgenis.data.index.exception.IndexRefreshException;
 import org.molgenis.data.index.exception.IndexSearchException;
 import org.molgenis.data.index.exception.IndexSearchTimeoutException;
+import org.molgenis.data.index.exception.IndexSettingsUpdateException;
 import org.molgenis.data.index.exception.LargeBatchException;
 import org.molgenis.data.index.exception.UnknownIndexException;
 import org.molgenis.util.UnexpectedEnumException;
@@ -95,6 +109,8 @@ import org.slf4j.LoggerFactory;
 public class ClientFacade implements Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(ClientFacade.class);
 
+  private static final String ID_FIELD = "_id";
+
   private final RestHighLevelClient client;
   private final SettingsContentBuilder settingsBuilder;
   private final MappingContentBuilder mappingSourceBuilder;
@@ -110,11 +126,25 @@ public class ClientFacade implements Closeable {
   }
 
   public void createIndex(Index index, IndexSettings indexSettings, Stream<Mapping> mappingStream) {
+    createIndex(index, null, indexSettings, mappingStream);
+  }
+
+  /**
+   * Creates an index that can be referred to using the given alias.
+   *
+   * @param alias alias of the created index, can be <code>null</code>
+   */
+  public void createIndex(
+      Index index,
+      @Nullable Index alias,
+      IndexSettings indexSettings,
+      Stream<Mapping> mappingStream) {
     if (LOG.isTraceEnabled()) {
       LOG.trace("Creating index '{}' ...", index.getName());
     }
 
-    CreateIndexRequest createIndexRequest = createIndexRequest(index, indexSettings, mappingStream);
+    CreateIndexRequest createIndexRequest =
+        createIndexRequest(index, alias, indexSettings, mappingStream);
 
     CreateIndexResponse createIndexResponse;
     try {
@@ -142,9 +172,12 @@ public class ClientFacade implements Closeable {
   }
 
   private CreateIndexRequest createIndexRequest(
-      Index index, IndexSettings indexSettings, Stream<Mapping> mappingStream) {
+      Index index, Index alias, IndexSettings indexSettings, Stream<Mapping> mappingStream) {
     var createIndexRequest = new CreateIndexRequest(index.getName());
     createIndexRequest.settings(settingsBuilder.createSettings(indexSettings));
+    if (alias != null) {
+      createIndexRequest.alias(new Alias(alias.getName()));
+    }
     mappingStream.map(mappingSourceBuilder::createMapping).forEach(createIndexRequest::mapping);
     return createIndexRequest;
   }
@@ -179,7 +212,7 @@ public class ClientFacade implements Closeable {
     deleteIndexes(singletonList(index));
   }
 
-  private void deleteIndexes(List<Index> indexes) {
+  public void deleteIndexes(List<Index> indexes) {
     if (LOG.isTraceEnabled()) {
       LOG.trace("Deleting index(es) '{}' ...", toString(indexes));
     }
@@ -211,6 +244,10 @@ public class ClientFacade implements Closeable {
     refreshIndexes(singletonList(Index.create("_all")));
   }
 
+  public void refreshIndex(Index index) {
+    refreshIndexes(singletonList(index));
+  }
+
   private void refreshIndexes(List<Index> indexes) {
     if (LOG.isTraceEnabled()) {
       LOG.trace("Refreshing index(es) '{}' ...", toString(indexes));
@@ -246,6 +283,120 @@ public class ClientFacade implements Closeable {
     }
   }
 
+  /**
+   * Returns the indexes that the given alias refers to.
+   *
+   * @return the aliased indexes or an empty list if the alias does not exist
+   */
+  public List<Index> getAliasedIndexes(Index alias) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Retrieving indexes for alias '{}' ...", alias.getName());
+    }
+
+    GetAliasesRequest getAliasesRequest = new GetAliasesRequest(alias.getName());
+
+    GetAliasesResponse getAliasesResponse;
+    try {
+      getAliasesResponse = client.indices().getAlias(getAliasesRequest, DEFAULT);
+    } catch (ElasticsearchException | IOException e) {
+      throw new IndexAliasException(singletonList(alias.getName()), e);
+    }
+
+    List<Index> indexes;
+    if (getAliasesResponse.status() == RestStatus.NOT_FOUND) {
+      indexes = emptyList();
+    } else {
+      indexes = getAliasesResponse.getAliases().keySet().stream().map(Index::create).toList();
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Retrieved indexes '{}' for alias '{}'.", toString(indexes), alias.getName());
+    }
+    return indexes;
+  }
+
+  /**
+   * Atomically points the alias to the given index and deletes the indexes that the alias referred
+   * to before. An existing index with the same name as the alias is deleted as well.
+   */
+  public void swapIndexAlias(Index alias, Index index) {
+    List<Index> oldIndexes = getAliasedIndexes(alias);
+    if (oldIndexes.isEmpty() && indexesExist(alias)) {
+      oldIndexes = singletonList(alias);
+    }
+
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+          "Swapping alias '{}' from index(es) '{}' to index '{}' ...",
+          alias.getName(),
+          toString(oldIndexes),
+          index.getName());
+    }
+
+    IndicesAliasesRequest indicesAliasesRequest = new IndicesAliasesRequest();
+    indicesAliasesRequest.addAliasAction(
+        AliasActions.add().index(index.getName()).alias(alias.getName()));
+    oldIndexes.forEach(
+        oldIndex ->
+            indicesAliasesRequest.addAliasAction(
+                AliasActions.removeIndex().index(oldIndex.getName())));
+
+    AcknowledgedResponse indicesAliasesResponse;
+    try {
+      indicesAliasesResponse = client.indices().updateAliases(indicesAliasesRequest, DEFAULT);
+    } catch (ElasticsearchException | IOException e) {
+      throw new IndexAliasException(List.of(alias.getName(), index.getName()), e);
+    }
+
+    if (!indicesAliasesResponse.isAcknowledged()) {
+      throw new IndexAliasException(List.of(alias.getName(), index.getName()));
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(
+          "Swapped alias '{}' from index(es) '{}' to index '{}'.",
+          alias.getName(),
+          toString(oldIndexes),
+          index.getName());
+    }
+  }
+
+  /** Updates the dynamic settings (number of replicas, refresh interval) of an existing index. */
+  public void updateIndexSettings(Index index, IndexSettings indexSettings) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Updating settings of index '{}' ...", index.getName());
+    }
+
+    Settings.Builder settings =
+        Settings.builder().put("index.number_of_replicas", indexSettings.getNumberOfReplicas());
+    String refreshInterval = indexSettings.getRefreshInterval();
+    if (refreshInterval != null) {
+      settings.put("index.refresh_interval", refreshInterval);
+    } else {
+      settings.putNull("index.refresh_interval");
+    }
+    UpdateSettingsRequest updateSettingsRequest =
+        new UpdateSettingsRequest(index.getName()).settings(settings);
+
+    AcknowledgedResponse updateSettingsResponse;
+    try {
+      updateSettingsResponse = client.indices().putSettings(updateSettingsRequest, DEFAULT);
+    } catch (ElasticsearchException e) {
+      if (e.status().getStatus() == 404) {
+        throw new UnknownIndexException(index.getName(), e);
+      }
+      throw new IndexSettingsUpdateException(singletonList(index.getName()), e);
+    } catch (IOException e) {
+      throw new IndexSettingsUpdateException(singletonList(index.getName()), e);
+    }
+
+    if (!updateSettingsResponse.isAcknowledged()) {
+      throw new IndexSettingsUpdateException(singletonList(index.getName()));
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Updated settings of index '{}'.", index.getName());
+    }
+  }
+
   public long getCount(Index index) {
     return getCount(singletonList(index));
   }
@@ -325,11 +476,33 @@ public class ClientFacade implements Closeable {
   }
 
   public SearchHits search(QueryBuilder query, int from, int size, Sort sort, Index index) {
-    return search(query, from, size, sort, singletonList(index));
+    return search(query, from, size, sort, null, singletonList(index));
+  }
+
+  /**
+   * Searches the docs that follow the doc with the given sort values. Docs are sorted by the given
+   * sort, or by score if no sort is given, followed by document id to guarantee a total order.
+   *
+   * @param searchAfter sort values of the last doc of the previous page, see {@link
+   *     SearchHit#getSortValues()}, or an empty list to search the first page
+   */
+  public SearchHits searchAfter(
+      QueryBuilder query, List<Object> searchAfter, int size, Sort sort, Index index) {
+    return search(query, 0, size, sort, requireNonNull(searchAfter), singletonList(index));
   }
 
   private SearchHits search(
       QueryBuilder query, int from, int size, Sort sort, List<Index> indexes) {
+    return search(query, from, size, sort, null, indexes);
+  }
+
+  private SearchHits search(
+      QueryBuilder query,
+      int from,
+      int size,
+      Sort sort,
+      List<Object> searchAfter,
+      List<Index> indexes) {
     if (size > MAX_BATCH_SIZE) {
       throw new LargeBatchException(size, MAX_BATCH_SIZE);
     }
@@ -353,7 +526,8 @@ public class ClientFacade implements Closeable {
       }
     }
 
-    SearchRequest searchRequest = createSearchRequest(query, from, size, sort, null, indexes);
+    SearchRequest searchRequest =
+        createSearchRequest(query, from, size, sort, searchAfter, null, indexes);
 
     SearchResponse searchResponse;
     try {
@@ -412,12 +586,13 @@ public class ClientFacade implements Closeable {
       Integer from,
       Integer size,
       Sort sort,
+      List<Object> searchAfter,
       List<AggregationBuilder> aggregations,
       List<Index> indexes) {
     String[] indexNames = toIndexNames(indexes);
     SearchRequest searchRequest = new SearchRequest(indexNames);
     SearchSourceBuilder searchSourceBuilder =
-        createSearchSourceBuilder(query, from, size, sort, aggregations);
+        createSearchSourceBuilder(query, from, size, sort, searchAfter, aggregations);
     searchRequest.source(searchSourceBuilder);
     return searchRequest;
   }
@@ -427,6 +602,7 @@ public class ClientFacade implements Closeable {
       Integer from,
       Integer size,
       Sort sort,
+      List<Object> searchAfter,
       List<AggregationBuilder> aggregations) {
     SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
     if (query != null) {
@@ -442,6 +618,16 @@ public class ClientFacade implements Closeable {
       List<SortBuilder> sorts = sortContentBuilder.createSorts(sort);
       sorts.forEach(searchSourceBuilder::sort);
     }
+    if (searchAfter != null) {
+      if (sort == null) {
+        searchSourceBuilder.sort(SortBuilders.scoreSort());
+      }
+      // tie-breaker, search after requires a total order
+      searchSourceBuilder.sort(SortBuilders.fieldSort(ID_FIELD));
+      if (!searchAfter.isEmpty()) {
+        searchSourceBuilder.searchAfter(searchAfter.toArray());
+      }
+    }
     if (aggregations != null) {
       aggregations.forEach(searchSourceBuilder::aggregation);
     }
@@ -452,7 +638,13 @@ public class ClientFacade implements Closeable {
     org.elasticsearch.search.SearchHits searchHits = searchResponse.getHits();
     List<SearchHit> searchHitList =
         stream(searchHits.getHits())
-            .map(hit -> SearchHit.create(hit.getId(), hit.getIndex()))
+            .map(
+                hit ->
+                    SearchHit.builder()
+                        .setId(hit.getId())
+                        .setIndex(hit.getIndex())
+                        .setSortValues(asList(hit.getSortValues()))
+                        .build())
             .toList();
     return SearchHits.create(searchHits.getTotalHits().value, searchHitList);
   }
@@ -479,7 +671,8 @@ public class ClientFacade implements Closeable {
       }
     }
 
-    SearchRequest searchRequest = createSearchRequest(query, null, 0, null, aggregations, indexes);
+    SearchRequest searchRequest =
+        createSearchRequest(query, null, 0, null, null, aggregations, indexes);
     SearchResponse searchResponse;
     try {
       searchResponse = client.search(searchRequest, DEFAULT);
@@ -49,6 +49,10 @@ class SettingsContentBuilder {
 
     contentBuilder.field("number_of_shards", indexSettings.getNumberOfShards());
     contentBuilder.field("number_of_replicas", indexSettings.getNumberOfReplicas());
+    String refreshInterval = indexSettings.getRefreshInterval();
+    if (refreshInterval != null) {
+      contentBuilder.field("refresh_interval", refreshInterval);
+    }
     createMappingSettings(contentBuilder);
     createAnalysisSettings(contentBuilder);
 
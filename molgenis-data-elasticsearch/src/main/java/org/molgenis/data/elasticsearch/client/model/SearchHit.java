@@ -1,6 +1,9 @@
 package org.molgenis.data.elasticsearch.client.model;
 
 import com.google.auto.value.AutoValue;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 @AutoValue
 @SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
@@ -9,6 +12,11 @@ public abstract class SearchHit {
 
   public abstract String getIndex();
 
+  /** Sort values of this hit, can be used to search the hits that follow this hit. */
+  @Nullable
+  @CheckForNull
+  public abstract List<Object> getSortValues();
+
   public static SearchHit create(String newId, String newIndex) {
     return builder().setId(newId).setIndex(newIndex).build();
   }
@@ -23,6 +31,8 @@ public abstract class SearchHit {
 
     public abstract Builder setIndex(String newIndex);
 
+    public abstract Builder setSortValues(List<Object> newSortValues);
+
     public abstract SearchHit build();
   }
 }
@@ -1,27 +1,51 @@
 package org.molgenis.data.elasticsearch;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.elasticsearch.ElasticsearchService.MAX_BATCH_SIZE;
+import static org.molgenis.data.meta.AttributeType.STRING;
 
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Repository;
 import org.molgenis.data.elasticsearch.client.ClientFacade;
 import org.molgenis.data.elasticsearch.client.model.SearchHit;
 import org.molgenis.data.elasticsearch.client.model.SearchHits;
 import org.molgenis.data.elasticsearch.generator.ContentGenerators;
+import org.molgenis.data.elasticsearch.generator.model.Document;
+import org.molgenis.data.elasticsearch.generator.model.DocumentAction;
+import org.molgenis.data.elasticsearch.generator.model.Index;
+import org.molgenis.data.elasticsearch.generator.model.IndexSettings;
+import org.molgenis.data.elasticsearch.generator.model.Mapping;
+import org.molgenis.data.index.exception.IndexAliasException;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.test.AbstractMockitoTest;
@@ -49,23 +73,22 @@ class ElasticsearchServiceTest extends AbstractMockitoTest {
     QueryImpl<Entity> query = mock(QueryImpl.class);
     when(query.getPageSize()).thenReturn(0);
     when(query.getOffset()).thenReturn(0);
+    setUpIdAttribute();
+    when(contentGenerators.createIndex(entityType)).thenReturn(Index.create("index"));
 
-    SearchHits searchHitsBatch = mock(SearchHits.class);
-    when(searchHitsBatch.getHits()).thenReturn(asList(new SearchHit[10000]));
-
-    SearchHits finalSearchHitsBatch = mock(SearchHits.class);
-    when(finalSearchHitsBatch.getHits()).thenReturn(asList(new SearchHit[5000]));
-
-    when(clientFacade.search(any(), eq(0), eq(10000), any(), any())).thenReturn(searchHitsBatch);
-    when(clientFacade.search(any(), eq(10000), anyInt(), any(), any())).thenReturn(searchHitsBatch);
-    when(clientFacade.search(any(), eq(20000), anyInt(), any(), any()))
+    SearchHits searchHitsBatch = createSearchHits(0, 10000);
+    SearchHits finalSearchHitsBatch = createSearchHits(10000, 5000);
+    when(clientFacade.searchAfter(any(), eq(emptyList()), eq(MAX_BATCH_SIZE), any(), any()))
+        .thenReturn(searchHitsBatch);
+    when(clientFacade.searchAfter(any(), eq(List.of(9999)), eq(MAX_BATCH_SIZE), any(), any()))
         .thenReturn(finalSearchHitsBatch);
 
-    elasticsearchService.search(entityType, query);
+    Stream<Object> entityIds = elasticsearchService.search(entityType, query);
+    verify(clientFacade).searchAfter(any(), eq(emptyList()), eq(MAX_BATCH_SIZE), any(), any());
+    verifyNoMoreInteractions(clientFacade);
 
-    verify(clientFacade, times(1)).search(any(), eq(0), eq(MAX_BATCH_SIZE), any(), any());
-    verify(clientFacade, times(1)).search(any(), eq(10000), eq(MAX_BATCH_SIZE), any(), any());
-    verify(clientFacade, times(1)).search(any(), eq(20000), eq(MAX_BATCH_SIZE), any(), any());
+    assertEquals(15000, entityIds.count());
+    verify(clientFacade).searchAfter(any(), eq(List.of(9999)), eq(MAX_BATCH_SIZE), any(), any());
     verifyNoMoreInteractions(clientFacade);
   }
 
@@ -93,22 +116,209 @@ class ElasticsearchServiceTest extends AbstractMockitoTest {
     QueryImpl<Entity> query = mock(QueryImpl.class);
     when(query.getPageSize()).thenReturn(10001);
     when(query.getOffset()).thenReturn(5000);
+    setUpIdAttribute();
+    when(contentGenerators.createIndex(entityType)).thenReturn(Index.create("index"));
 
-    SearchHits searchHitsBatch = mock(SearchHits.class);
-    when(searchHitsBatch.getHits()).thenReturn(asList(new SearchHit[10000]));
-
-    SearchHits finalSearchHitsBatch = mock(SearchHits.class);
-    when(finalSearchHitsBatch.getHits()).thenReturn(asList(new SearchHit[1]));
-
-    when(clientFacade.search(any(), eq(5000), eq(MAX_BATCH_SIZE), any(), any()))
+    SearchHits searchHitsBatch = createSearchHits(0, 10000);
+    SearchHits finalSearchHitsBatch = createSearchHits(10000, 5001);
+    when(clientFacade.searchAfter(any(), eq(emptyList()), eq(MAX_BATCH_SIZE), any(), any()))
         .thenReturn(searchHitsBatch);
-    when(clientFacade.search(any(), eq(15000), eq(1), any(), any()))
+    when(clientFacade.searchAfter(any(), eq(List.of(9999)), eq(5001), any(), any()))
         .thenReturn(finalSearchHitsBatch);
 
-    elasticsearchService.search(entityType, query);
+    List<Object> entityIds = elasticsearchService.search(entityType, query).toList();
+
+    assertEquals(10001, entityIds.size());
+    assertEquals("5000", entityIds.get(0));
+    assertEquals("15000", entityIds.get(10000));
+    verify(clientFacade).searchAfter(any(), eq(emptyList()), eq(MAX_BATCH_SIZE), any(), any());
+    verify(clientFacade).searchAfter(any(), eq(List.of(9999)), eq(5001), any(), any());
+    verifyNoMoreInteractions(clientFacade);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRebuildIndex() {
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    Mapping mapping = mock(Mapping.class);
+    when(contentGenerators.createMapping(entityType)).thenReturn(mapping);
 
-    verify(clientFacade, times(1)).search(any(), eq(5000), eq(MAX_BATCH_SIZE), any(), any());
-    verify(clientFacade, times(1)).search(any(), eq(15000), eq(1), any(), any());
+    elasticsearchService.rebuildIndex(repository);
+
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    InOrder inOrder = inOrder(clientFacade, repository);
+    inOrder
+        .verify(clientFacade)
+        .createIndex(
+            indexCaptor.capture(),
+            eq(IndexSettings.builder().setRefreshInterval("-1").build()),
+            any(Stream.class));
+    Index index = indexCaptor.getValue();
+    assertTrue(index.getName().startsWith("alias-"));
+    inOrder.verify(repository).forEachBatched(any(Fetch.class), any(Consumer.class), eq(1000));
+    inOrder.verify(clientFacade).updateIndexSettings(index, IndexSettings.create());
+    inOrder.verify(clientFacade).refreshIndex(index);
+    inOrder.verify(clientFacade).swapIndexAlias(alias, index);
     verifyNoMoreInteractions(clientFacade);
   }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRebuildIndexFails() {
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    when(contentGenerators.createIndex(entityType)).thenReturn(Index.create("alias"));
+    RuntimeException exception = new RuntimeException();
+    doThrow(exception)
+        .when(repository)
+        .forEachBatched(any(Fetch.class), any(Consumer.class), anyInt());
+
+    assertThrows(RuntimeException.class, () -> elasticsearchService.rebuildIndex(repository));
+
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    verify(clientFacade).createIndex(indexCaptor.capture(), any(), any(Stream.class));
+    verify(clientFacade).deleteIndex(indexCaptor.getValue());
+    verify(clientFacade, never()).swapIndexAlias(any(), any());
+  }
+
+  @Test
+  void testRebuildIndexSwapIndexAliasFails() {
+    @SuppressWarnings("unchecked")
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    IndexAliasException exception = mock(IndexAliasException.class);
+    doThrow(exception).when(clientFacade).swapIndexAlias(eq(alias), any(Index.class));
+    when(clientFacade.getAliasedIndexes(alias)).thenReturn(List.of(Index.create("alias-1")));
+
+    assertThrows(IndexAliasException.class, () -> elasticsearchService.rebuildIndex(repository));
+
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    verify(clientFacade).createIndex(indexCaptor.capture(), any(), any());
+    Index index = indexCaptor.getValue();
+    verify(clientFacade).swapIndexAlias(alias, index);
+    verify(clientFacade).deleteIndex(index);
+  }
+
+  @Test
+  void testRebuildIndexSwapIndexAliasFailsAfterSwap() {
+    @SuppressWarnings("unchecked")
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    doThrow(mock(IndexAliasException.class))
+        .when(clientFacade)
+        .swapIndexAlias(eq(alias), indexCaptor.capture());
+    when(clientFacade.getAliasedIndexes(alias))
+        .thenAnswer(invocation -> List.of(indexCaptor.getValue()));
+
+    elasticsearchService.rebuildIndex(repository);
+
+    verify(clientFacade, never()).deleteIndex(any());
+  }
+
+  @Test
+  void testRebuildIndexSwapIndexAliasFailsUnknownState() {
+    @SuppressWarnings("unchecked")
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    IndexAliasException exception = new IndexAliasException(List.of("alias"));
+    doThrow(exception).when(clientFacade).swapIndexAlias(eq(alias), any(Index.class));
+    when(clientFacade.getAliasedIndexes(alias))
+        .thenThrow(new IndexAliasException(List.of("alias")));
+
+    assertEquals(
+        exception,
+        assertThrows(
+            IndexAliasException.class, () -> elasticsearchService.rebuildIndex(repository)));
+
+    verify(clientFacade, never()).deleteIndex(any());
+  }
+
+  @Test
+  void testCreateIndex() {
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+
+    elasticsearchService.createIndex(entityType);
+
+    verify(clientFacade)
+        .createIndex(
+            argThat(index -> index.getName().startsWith("alias-")),
+            eq(alias),
+            eq(IndexSettings.create()),
+            any());
+  }
+
+  @Test
+  void testDeleteIndex() {
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    List<Index> indexes = List.of(Index.create("alias-1"));
+    when(clientFacade.getAliasedIndexes(alias)).thenReturn(indexes);
+
+    elasticsearchService.deleteIndex(entityType);
+
+    verify(clientFacade).deleteIndexes(indexes);
+  }
+
+  @Test
+  void testDeleteIndexNotAliased() {
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    when(clientFacade.getAliasedIndexes(alias)).thenReturn(emptyList());
+
+    elasticsearchService.deleteIndex(entityType);
+
+    verify(clientFacade).deleteIndex(alias);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testDeleteAll() {
+    Index index = Index.create("index");
+    when(contentGenerators.createIndex(entityType)).thenReturn(index);
+    Document document0 = Document.builder().setId("id0").build();
+    Document document1 = Document.builder().setId("id1").build();
+    when(contentGenerators.createDocument("id0")).thenReturn(document0);
+    when(contentGenerators.createDocument("id1")).thenReturn(document1);
+
+    elasticsearchService.deleteAll(entityType, Stream.of("id0", "id1"));
+
+    ArgumentCaptor<Stream<DocumentAction>> captor = ArgumentCaptor.forClass(Stream.class);
+    verify(clientFacade).processDocumentActions(captor.capture());
+    assertEquals(
+        List.of(
+            DocumentAction.create(index, document0, DocumentAction.Operation.DELETE),
+            DocumentAction.create(index, document1, DocumentAction.Operation.DELETE)),
+        captor.getValue().toList());
+  }
+
+  private void setUpIdAttribute() {
+    Attribute idAttribute = mock(Attribute.class);
+    when(idAttribute.getDataType()).thenReturn(STRING);
+    when(entityType.getIdAttribute()).thenReturn(idAttribute);
+  }
+
+  private static SearchHits createSearchHits(int start, int size) {
+    List<SearchHit> searchHits =
+        IntStream.range(start, start + size)
+            .mapToObj(
+                i ->
+                    SearchHit.builder()
+                        .setId(String.valueOf(i))
+                        .setIndex("index")
+                        .setSortValues(List.of(i))
+                        .build())
+            .toList();
+    return SearchHits.create(size, searchHits);
+  }
 }
@@ -21,16 +21,24 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
+import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.ResourceNotFoundException;
 import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
 import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.explain.ExplainRequest;
 import org.elasticsearch.action.index.IndexRequest;
@@ -41,6 +49,7 @@ import org.elasticsearch.action.search.ShardSearchFailure;
 import org.elasticsearch.action.support.DefaultShardOperationFailedException;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse.ShardInfo;
+import org.elasticsearch.client.GetAliasesResponse;
 import org.elasticsearch.client.IndicesClient;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
@@ -58,6 +67,7 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -77,6 +87,7 @@ import org.molgenis.data.index.exception.AggregationTimeoutException;
 import org.molgenis.data.index.exception.DocumentDeleteException;
 import org.molgenis.data.index.exception.DocumentIndexException;
 import org.molgenis.data.index.exception.ExplainException;
+import org.molgenis.data.index.exception.IndexAliasException;
 import org.molgenis.data.index.exception.IndexAlreadyExistsException;
 import org.molgenis.data.index.exception.IndexCountException;
 import org.molgenis.data.index.exception.IndexCreateException;
@@ -85,6 +96,7 @@ import org.molgenis.data.index.exception.IndexExistsException;
 import org.molgenis.data.index.exception.IndexRefreshException;
 import org.molgenis.data.index.exception.IndexSearchException;
 import org.molgenis.data.index.exception.IndexSearchTimeoutException;
+import org.molgenis.data.index.exception.IndexSettingsUpdateException;
 import org.molgenis.data.index.exception.UnknownIndexException;
 import org.slf4j.LoggerFactory;
 
@@ -105,6 +117,10 @@ class ClientFacadeTest {
 
   @Mock private RefreshResponse refreshResponse;
 
+  @Mock private GetAliasesResponse getAliasesResponse;
+
+  @Mock private AcknowledgedResponse aliasesResponse;
+
   @Mock private SearchResponse searchResponse;
 
   @Mock private CountResponse countResponse;
@@ -295,6 +311,136 @@ class ClientFacadeTest {
     assertEquals(List.of("_all"), exception.getIndices());
   }
 
+  @Test
+  void testGetAliasedIndexes() throws IOException {
+    when(indicesClient.getAlias(any(GetAliasesRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(getAliasesResponse);
+    when(getAliasesResponse.status()).thenReturn(RestStatus.OK);
+    when(getAliasesResponse.getAliases()).thenReturn(Map.of("index-1", Set.of()));
+
+    assertEquals(
+        List.of(Index.create("index-1")), clientFacade.getAliasedIndexes(Index.create("index")));
+  }
+
+  @Test
+  void testGetAliasedIndexesUnknownAlias() throws IOException {
+    when(indicesClient.getAlias(any(GetAliasesRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(getAliasesResponse);
+    when(getAliasesResponse.status()).thenReturn(RestStatus.NOT_FOUND);
+
+    assertEquals(emptyList(), clientFacade.getAliasedIndexes(Index.create("index")));
+  }
+
+  @Test
+  void testGetAliasedIndexesThrowsException() throws IOException {
+    Index alias = Index.create("index");
+
+    when(indicesClient.getAlias(any(GetAliasesRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenThrow(new ElasticsearchException("exception"));
+
+    var exception =
+        assertThrows(IndexAliasException.class, () -> clientFacade.getAliasedIndexes(alias));
+    assertEquals(List.of("index"), exception.getIndices());
+  }
+
+  @Test
+  void testSwapIndexAlias() throws IOException {
+    when(indicesClient.getAlias(any(GetAliasesRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(getAliasesResponse);
+    when(getAliasesResponse.status()).thenReturn(RestStatus.OK);
+    when(getAliasesResponse.getAliases()).thenReturn(Map.of("index-1", Set.of()));
+    when(indicesClient.updateAliases(any(IndicesAliasesRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(aliasesResponse);
+    when(aliasesResponse.isAcknowledged()).thenReturn(true);
+
+    clientFacade.swapIndexAlias(Index.create("index"), Index.create("index-2"));
+
+    verify(indicesClient)
+        .updateAliases(
+            argThat(
+                request ->
+                    request
+                        .getAliasActions()
+                        .equals(
+                            List.of(
+                                AliasActions.add().index("index-2").alias("index"),
+                                AliasActions.removeIndex().index("index-1")))),
+            eq(RequestOptions.DEFAULT));
+  }
+
+  @Test
+  void testSwapIndexAliasReplacesIndex() throws IOException {
+    when(indicesClient.getAlias(any(GetAliasesRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(getAliasesResponse);
+    when(getAliasesResponse.status()).thenReturn(RestStatus.NOT_FOUND);
+    when(indicesClient.exists(any(GetIndexRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(true);
+    when(indicesClient.updateAliases(any(IndicesAliasesRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(aliasesResponse);
+    when(aliasesResponse.isAcknowledged()).thenReturn(true);
+
+    clientFacade.swapIndexAlias(Index.create("index"), Index.create("index-2"));
+
+    verify(indicesClient)
+        .updateAliases(
+            argThat(
+                request ->
+                    request
+                        .getAliasActions()
+                        .equals(
+                            List.of(
+                                AliasActions.add().index("index-2").alias("index"),
+                                AliasActions.removeIndex().index("index")))),
+            eq(RequestOptions.DEFAULT));
+  }
+
+  @Test
+  void testSwapIndexAliasNotAcknowledged() throws IOException {
+    Index alias = Index.create("index");
+    Index index = Index.create("index-2");
+
+    when(indicesClient.getAlias(any(GetAliasesRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(getAliasesResponse);
+    when(getAliasesResponse.status()).thenReturn(RestStatus.NOT_FOUND);
+    when(indicesClient.updateAliases(any(IndicesAliasesRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(aliasesResponse);
+    when(aliasesResponse.isAcknowledged()).thenReturn(false);
+
+    var exception =
+        assertThrows(IndexAliasException.class, () -> clientFacade.swapIndexAlias(alias, index));
+    assertEquals(List.of("index", "index-2"), exception.getIndices());
+  }
+
+  @Test
+  void testUpdateIndexSettingsThrowsException() throws IOException {
+    Index index = Index.create("index");
+    IndexSettings indexSettings = IndexSettings.create();
+
+    when(indicesClient.putSettings(any(UpdateSettingsRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenThrow(new ElasticsearchException("exception"));
+
+    var exception =
+        assertThrows(
+            IndexSettingsUpdateException.class,
+            () -> clientFacade.updateIndexSettings(index, indexSettings));
+    assertEquals(List.of("index"), exception.getIndices());
+  }
+
+  @Test
+  void testUpdateIndexSettingsNotFound() throws IOException {
+    Index index = Index.create("index");
+    IndexSettings indexSettings = IndexSettings.create();
+
+    when(indicesClient.putSettings(any(UpdateSettingsRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenThrow(new ResourceNotFoundException("exception"));
+
+    var exception =
+        assertThrows(
+            UnknownIndexException.class,
+            () -> clientFacade.updateIndexSettings(index, indexSettings));
+    assertEquals(List.of("index"), exception.getIndices());
+  }
+
   @Test
   void testGetCountThrowsException() throws IOException {
     Index index = Index.create("index");
@@ -342,6 +488,35 @@ class ClientFacadeTest {
     assertEquals(List.of("index"), exception.getIndices());
   }
 
+  @Test
+  void testSearchAfter() throws IOException {
+    Index index = Index.create("index");
+
+    when(client.search(any(SearchRequest.class), eq(RequestOptions.DEFAULT)))
+        .thenReturn(searchResponse);
+    when(searchResponse.getHits())
+        .thenReturn(
+            new org.elasticsearch.search.SearchHits(
+                new org.elasticsearch.search.SearchHit[0],
+                new TotalHits(0, TotalHits.Relation.EQUAL_TO),
+                0));
+    when(searchResponse.getTook()).thenReturn(TimeValue.timeValueMillis(10));
+
+    clientFacade.searchAfter(queryBuilder, List.of("id0"), 100, null, index);
+
+    verify(client)
+        .search(
+            argThat(
+                request ->
+                    request
+                            .source()
+                            .sorts()
+                            .equals(
+                                List.of(SortBuilders.scoreSort(), SortBuilders.fieldSort("_id")))
+                        && Arrays.equals(request.source().searchAfter(), new Object[] {"id0"})),
+            eq(RequestOptions.DEFAULT));
+  }
+
   @Test
   void testSearchTimedOut() throws IOException {
     Index index = Index.create("index");
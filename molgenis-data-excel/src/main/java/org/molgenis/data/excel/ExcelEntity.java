@@ -37,6 +37,22 @@ public class ExcelEntity extends DynamicEntity {
     this.cellProcessors = cellProcessors;
   }
 
+  /**
+   * Creates an entity for a row of which the cell values have already been read and processed, see
+   * {@link XlsxStreamingRepository}.
+   */
+  ExcelEntity(Map<String, Object> values, Map<String, Integer> colNamesMap, EntityType entityType) {
+    super(entityType);
+
+    if (values == null) throw new IllegalArgumentException("values is null");
+    if (colNamesMap == null) throw new IllegalArgumentException("column names map is null");
+
+    this.row = null;
+    this.colNamesMap = colNamesMap;
+    this.cellProcessors = null;
+    this.cachedValueMap = values;
+  }
+
   /**
    * Gets an Attribute (Cell value).
    *
@@ -53,7 +69,7 @@ public class ExcelEntity extends DynamicEntity {
       value = cachedValueMap.get(attributeName);
     } else {
       Integer col = colNamesMap.get(attributeName);
-      if (col != null) {
+      if (col != null && row != null) {
         Cell cell = row.getCell(col);
         if (cell != null) {
           value = ExcelUtils.toValue(cell, cellProcessors);
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
 import java.util.List;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
@@ -25,12 +26,21 @@ import org.springframework.beans.factory.annotation.Autowired;
  *
  * <p>A sheet is exposed as a {@link org.molgenis.data.Repository} with the sheetname as the
  * Repository name
+ *
+ * <p>XLSX files are streamed from file by {@link XlsxStreamingRepository}, so that memory use does
+ * not depend on the size of the sheets. Other excel files and input streams are loaded into memory
+ * and read by {@link ExcelRepository}.
  */
 public class ExcelRepositoryCollection extends FileRepositoryCollection {
 
   private static final String REPOSITORY_COLLECTION_NAME = "EXCEL";
 
+  /** <code>null</code> if the sheets are streamed from file */
   private final Workbook workbook;
+  /** <code>null</code> if the workbook is loaded into memory */
+  private final File xlsxFile;
+
+  private final List<String> xlsxSheetNames;
 
   private EntityTypeFactory entityTypeFactory;
   private AttributeFactory attributeFactory;
@@ -40,13 +50,31 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection {
   }
 
   public ExcelRepositoryCollection(File file, CellProcessor... cellProcessors) throws IOException {
-    this(new FileInputStream(file), cellProcessors);
+    super(ExcelFileExtensions.getExcel(), cellProcessors);
+    if (isXlsxFile(file)) {
+      workbook = null;
+      xlsxFile = file;
+      xlsxSheetNames = XlsxSheetReader.getSheetNames(file);
+    } else {
+      try (InputStream in = new FileInputStream(file)) {
+        workbook = WorkbookFactory.create(in);
+      }
+      xlsxFile = null;
+      xlsxSheetNames = null;
+    }
   }
 
   public ExcelRepositoryCollection(InputStream in, CellProcessor... cellProcessors)
       throws IOException {
     super(ExcelFileExtensions.getExcel(), cellProcessors);
     workbook = WorkbookFactory.create(in);
+    xlsxFile = null;
+    xlsxSheetNames = null;
+  }
+
+  private static boolean isXlsxFile(File file) {
+    return FilenameUtils.getExtension(file.getName())
+        .equalsIgnoreCase(ExcelFileExtensions.XLSX.toString());
   }
 
   @Override
@@ -68,6 +96,14 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection {
 
   @Override
   public Repository<Entity> getRepository(String name) {
+    if (workbook == null) {
+      if (!xlsxSheetNames.contains(name)) {
+        return null;
+      }
+      return new XlsxStreamingRepository(
+          xlsxFile, name, entityTypeFactory, attributeFactory, cellProcessors);
+    }
+
     Sheet poiSheet = workbook.getSheet(name);
     if (poiSheet == null) {
       return null;
@@ -77,14 +113,22 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection {
   }
 
   public int getNumberOfSheets() {
-    return workbook.getNumberOfSheets();
+    return workbook != null ? workbook.getNumberOfSheets() : xlsxSheetNames.size();
   }
 
   public String getSheetName(int i) {
-    return workbook.getSheetName(i);
+    return workbook != null ? workbook.getSheetName(i) : xlsxSheetNames.get(i);
   }
 
-  public ExcelRepository getSheet(int i) {
+  public Repository<Entity> getSheet(int i) {
+    if (workbook == null) {
+      if (i < 0 || i >= xlsxSheetNames.size()) {
+        throw new IllegalArgumentException(
+            "Sheet index (" + i + ") is out of range (0.." + (xlsxSheetNames.size() - 1) + ")");
+      }
+      return getRepository(xlsxSheetNames.get(i));
+    }
+
     Sheet poiSheet = workbook.getSheetAt(i);
     if (poiSheet == null) {
       return null;
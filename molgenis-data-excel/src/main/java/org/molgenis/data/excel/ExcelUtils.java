@@ -54,13 +54,7 @@ public class ExcelUtils {
             LocaleUtil.resetUserTimeZone();
           }
         } else {
-          // excel stores integer values as double values
-          // read an integer if the double value equals the
-          // integer value
-          double x = cell.getNumericCellValue();
-          if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x))
-            value = String.valueOf((long) x);
-          else value = String.valueOf(x);
+          value = toNumericValue(cell.getNumericCellValue());
         }
         break;
       case BOOLEAN:
@@ -84,25 +78,9 @@ public class ExcelUtils {
             break;
           case NUMERIC:
             if (DateUtil.isCellDateFormatted(cell)) {
-              try {
-                // Excel dates are LocalDateTime, stored without timezone.
-                // Interpret them as UTC to prevent ambiguous DST overlaps which happen in other
-                // timezones.
-                LocaleUtil.setUserTimeZone(LocaleUtil.TIMEZONE_UTC);
-                Date javaDate = DateUtil.getJavaDate(cellValue.getNumberValue(), false);
-                value = formatUTCDateAsLocalDateTime(javaDate);
-
-              } finally {
-                LocaleUtil.resetUserTimeZone();
-              }
+              value = toDateValue(cellValue.getNumberValue(), false);
             } else {
-              // excel stores integer values as double values
-              // read an integer if the double value equals the
-              // integer value
-              double x = cellValue.getNumberValue();
-              if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x))
-                value = String.valueOf((long) x);
-              else value = String.valueOf(x);
+              value = toNumericValue(cellValue.getNumberValue());
             }
             break;
           case STRING:
@@ -123,6 +101,37 @@ public class ExcelUtils {
     return AbstractCellProcessor.processCell(value, false, cellProcessors);
   }
 
+  /**
+   * Excel stores integer values as double values, returns an integer if the double value equals the
+   * integer value.
+   */
+  static String toNumericValue(double x) {
+    if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x)) {
+      return String.valueOf((long) x);
+    } else {
+      return String.valueOf(x);
+    }
+  }
+
+  /**
+   * Returns the {@link LocalDateTime} string of an Excel date value.
+   *
+   * @param excelDate Excel date value, the number of days since the epoch of the workbook
+   * @param use1904windowing whether the workbook uses the 1904 date system
+   */
+  static String toDateValue(double excelDate, boolean use1904windowing) {
+    try {
+      // Excel dates are LocalDateTime, stored without timezone.
+      // Interpret them as UTC to prevent ambiguous DST overlaps which happen in other
+      // timezones.
+      LocaleUtil.setUserTimeZone(LocaleUtil.TIMEZONE_UTC);
+      Date javaDate = DateUtil.getJavaDate(excelDate, use1904windowing);
+      return formatUTCDateAsLocalDateTime(javaDate);
+    } finally {
+      LocaleUtil.resetUserTimeZone();
+    }
+  }
+
   public static void renameSheet(String newSheetname, File file, int index) {
     try (FileInputStream fis = new FileInputStream(file);
         Workbook workbook = WorkbookFactory.create(fis)) {
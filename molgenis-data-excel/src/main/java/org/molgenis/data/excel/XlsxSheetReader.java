@@ -0,0 +1,297 @@
+package org.molgenis.data.excel;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFReader.SheetIterator;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.molgenis.data.MolgenisDataException;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads the rows of a XLSX sheet one at a time using {@link XSSFReader}, the shared strings table
+ * and a pull parser for the sheet XML. Only the current row is kept in memory.
+ *
+ * <p>Cell values are converted to string in the same way as {@link ExcelUtils#toValue}, except for
+ * formula cells which are read from the value cached in the file instead of being evaluated.
+ */
+class XlsxSheetReader implements Closeable {
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  private final OPCPackage opcPackage;
+  private final String sheetName;
+  private final ReadOnlySharedStringsTable sharedStrings;
+  private final StylesTable styles;
+  private final boolean use1904windowing;
+  private final InputStream sheetInputStream;
+  private final XMLStreamReader xmlReader;
+
+  private XlsxSheetReader(OPCPackage opcPackage, String sheetName)
+      throws IOException, OpenXML4JException, SAXException, XMLStreamException {
+    this.opcPackage = requireNonNull(opcPackage);
+    this.sheetName = requireNonNull(sheetName);
+
+    XSSFReader xssfReader = new XSSFReader(opcPackage);
+    this.sharedStrings = new ReadOnlySharedStringsTable(opcPackage);
+    this.styles = xssfReader.getStylesTable();
+    this.use1904windowing = isUse1904windowing(xssfReader);
+    this.sheetInputStream = getSheetInputStream(xssfReader, sheetName);
+    this.xmlReader = XML_INPUT_FACTORY.createXMLStreamReader(sheetInputStream);
+  }
+
+  static XlsxSheetReader open(File file, String sheetName) {
+    OPCPackage opcPackage = openPackage(file);
+    try {
+      return new XlsxSheetReader(opcPackage, sheetName);
+    } catch (IOException | OpenXML4JException | SAXException | XMLStreamException e) {
+      opcPackage.revert();
+      throw new MolgenisDataException(e);
+    } catch (RuntimeException e) {
+      opcPackage.revert();
+      throw e;
+    }
+  }
+
+  /** Returns the sheet names in workbook order without reading the sheets. */
+  static List<String> getSheetNames(File file) {
+    OPCPackage opcPackage = openPackage(file);
+    try {
+      List<String> sheetNames = new ArrayList<>();
+      SheetIterator sheetIterator = (SheetIterator) new XSSFReader(opcPackage).getSheetsData();
+      while (sheetIterator.hasNext()) {
+        sheetIterator.next().close();
+        sheetNames.add(sheetIterator.getSheetName());
+      }
+      return sheetNames;
+    } catch (IOException | OpenXML4JException e) {
+      throw new MolgenisDataException(e);
+    } finally {
+      opcPackage.revert();
+    }
+  }
+
+  /**
+   * Reads the next row of the sheet.
+   *
+   * @return the values of the cells in the row by column index, <code>null</code> for blank cells,
+   *     or <code>null</code> if there are no more rows
+   */
+  Map<Integer, String> readRow() {
+    try {
+      while (xmlReader.hasNext()) {
+        if (xmlReader.next() == START_ELEMENT) {
+          switch (xmlReader.getLocalName()) {
+            case "row":
+              return readCells();
+            case "mergeCell":
+              throw new MolgenisDataException(
+                  format("Sheet [%s] contains merged regions which is not supported", sheetName));
+            default:
+              break;
+          }
+        }
+      }
+      return null;
+    } catch (XMLStreamException e) {
+      throw new MolgenisDataException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      xmlReader.close();
+      sheetInputStream.close();
+    } catch (XMLStreamException e) {
+      throw new IOException(e);
+    } finally {
+      opcPackage.revert();
+    }
+  }
+
+  private Map<Integer, String> readCells() throws XMLStreamException {
+    Map<Integer, String> cells = new LinkedHashMap<>();
+    int columnIndex = 0;
+    while (xmlReader.hasNext()) {
+      int event = xmlReader.next();
+      if (event == START_ELEMENT && xmlReader.getLocalName().equals("c")) {
+        String cellReference = xmlReader.getAttributeValue(null, "r");
+        if (cellReference != null) {
+          columnIndex = new CellReference(cellReference).getCol();
+        }
+        cells.put(columnIndex, readCell());
+        columnIndex++;
+      } else if (event == END_ELEMENT && xmlReader.getLocalName().equals("row")) {
+        break;
+      }
+    }
+    return cells;
+  }
+
+  private String readCell() throws XMLStreamException {
+    String type = xmlReader.getAttributeValue(null, "t");
+    String style = xmlReader.getAttributeValue(null, "s");
+
+    String value = null;
+    String inlineString = null;
+    while (xmlReader.hasNext()) {
+      int event = xmlReader.next();
+      if (event == START_ELEMENT) {
+        switch (xmlReader.getLocalName()) {
+          case "v":
+            value = xmlReader.getElementText();
+            break;
+          case "is":
+            inlineString = readInlineString();
+            break;
+          default:
+            skipElement();
+            break;
+        }
+      } else if (event == END_ELEMENT) {
+        break;
+      }
+    }
+
+    if ("inlineStr".equals(type)) {
+      return inlineString;
+    }
+    return value != null ? toValue(type, style, value) : null;
+  }
+
+  private String toValue(String type, String style, String value) {
+    switch (type != null ? type : "n") {
+      case "s":
+        return sharedStrings.getItemAt(Integer.parseInt(value)).getString();
+      case "str":
+        return value;
+      case "b":
+        return String.valueOf("1".equals(value) || "true".equals(value));
+      case "n":
+        double x = Double.parseDouble(value);
+        if (isDateFormatted(style, x)) {
+          return ExcelUtils.toDateValue(x, use1904windowing);
+        } else {
+          return ExcelUtils.toNumericValue(x);
+        }
+      case "e":
+        throw new MolgenisDataException("unsupported cell type: ERROR");
+      default:
+        throw new MolgenisDataException("unsupported cell type: " + type);
+    }
+  }
+
+  /** @see DateUtil#isCellDateFormatted */
+  private boolean isDateFormatted(String style, double x) {
+    if (styles == null || styles.getNumCellStyles() == 0) {
+      return false;
+    }
+    XSSFCellStyle cellStyle = styles.getStyleAt(style != null ? Integer.parseInt(style) : 0);
+    return cellStyle != null
+        && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString())
+        && DateUtil.isValidExcelDate(x);
+  }
+
+  /** Concatenates the text of the rich text runs, ignoring phonetic runs */
+  private String readInlineString() throws XMLStreamException {
+    StringBuilder stringBuilder = new StringBuilder();
+    while (xmlReader.hasNext()) {
+      int event = xmlReader.next();
+      if (event == START_ELEMENT) {
+        if (xmlReader.getLocalName().equals("t")) {
+          stringBuilder.append(xmlReader.getElementText());
+        } else if (xmlReader.getLocalName().equals("rPh")) {
+          skipElement();
+        }
+      } else if (event == END_ELEMENT && xmlReader.getLocalName().equals("is")) {
+        break;
+      }
+    }
+    return stringBuilder.toString();
+  }
+
+  private void skipElement() throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0 && xmlReader.hasNext()) {
+      int event = xmlReader.next();
+      if (event == START_ELEMENT) {
+        depth++;
+      } else if (event == END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private static OPCPackage openPackage(File file) {
+    try {
+      return OPCPackage.open(file, PackageAccess.READ);
+    } catch (OpenXML4JException e) {
+      throw new MolgenisDataException(e);
+    }
+  }
+
+  private static InputStream getSheetInputStream(XSSFReader xssfReader, String sheetName)
+      throws IOException, OpenXML4JException {
+    SheetIterator sheetIterator = (SheetIterator) xssfReader.getSheetsData();
+    while (sheetIterator.hasNext()) {
+      InputStream inputStream = sheetIterator.next();
+      if (sheetIterator.getSheetName().equals(sheetName)) {
+        return inputStream;
+      }
+      inputStream.close();
+    }
+    throw new MolgenisDataException(format("Unknown sheet [%s]", sheetName));
+  }
+
+  private static boolean isUse1904windowing(XSSFReader xssfReader)
+      throws IOException, OpenXML4JException, XMLStreamException {
+    try (InputStream inputStream = xssfReader.getWorkbookData()) {
+      XMLStreamReader workbookReader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+      try {
+        while (workbookReader.hasNext()) {
+          if (workbookReader.next() == START_ELEMENT) {
+            String localName = workbookReader.getLocalName();
+            if (localName.equals("workbookPr")) {
+              String date1904 = workbookReader.getAttributeValue(null, "date1904");
+              return "1".equals(date1904) || "true".equals(date1904);
+            } else if (localName.equals("sheets")) {
+              // workbookPr precedes sheets
+              return false;
+            }
+          }
+        }
+        return false;
+      } finally {
+        workbookReader.close();
+      }
+    }
+  }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return xmlInputFactory;
+  }
+}
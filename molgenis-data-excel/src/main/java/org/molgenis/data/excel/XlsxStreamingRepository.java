@@ -0,0 +1,218 @@
+package org.molgenis.data.excel;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.meta.AttributeType.STRING;
+
+import com.google.common.collect.Iterables;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.apache.commons.lang3.StringUtils;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.file.processor.AbstractCellProcessor;
+import org.molgenis.data.file.processor.CellProcessor;
+import org.molgenis.data.meta.model.AttributeFactory;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.meta.model.EntityTypeFactory;
+import org.molgenis.data.support.AbstractRepository;
+
+/**
+ * XLSX sheet {@link org.molgenis.data.Repository} implementation that streams the rows of the sheet
+ * from file instead of loading the workbook into memory, see {@link XlsxSheetReader}.
+ *
+ * <p>It is assumed that the first row of the sheet is the header row.
+ *
+ * <p>All attributes will be of the string type. The cell values are converted to string.
+ */
+public class XlsxStreamingRepository extends AbstractRepository {
+  private final File file;
+  private final String sheetName;
+  private final EntityTypeFactory entityTypeFactory;
+  private final AttributeFactory attrMetaFactory;
+
+  /** process cells after reading */
+  private List<CellProcessor> cellProcessors;
+  /** column names index */
+  private Map<String, Integer> colNamesMap;
+
+  private EntityType entityType;
+
+  public XlsxStreamingRepository(
+      File file,
+      String sheetName,
+      EntityTypeFactory entityTypeFactory,
+      AttributeFactory attrMetaFactory,
+      List<CellProcessor> cellProcessors) {
+    this.file = requireNonNull(file);
+    this.sheetName = requireNonNull(sheetName);
+    this.entityTypeFactory = requireNonNull(entityTypeFactory);
+    this.attrMetaFactory = requireNonNull(attrMetaFactory);
+    this.cellProcessors = cellProcessors;
+  }
+
+  @Override
+  public Iterator<Entity> iterator() {
+    XlsxSheetReader sheetReader = XlsxSheetReader.open(file, sheetName);
+    try {
+      // create column header index once and reuse
+      Map<Integer, String> headerRow = sheetReader.readRow();
+      if (headerRow == null) {
+        close(sheetReader);
+        return Collections.emptyIterator();
+      }
+      if (colNamesMap == null) {
+        colNamesMap = toColNamesMap(headerRow);
+      }
+    } catch (RuntimeException e) {
+      close(sheetReader);
+      throw e;
+    }
+
+    return new Iterator<Entity>() {
+      XlsxSheetReader reader = sheetReader;
+      ExcelEntity next = null;
+
+      @Override
+      public boolean hasNext() {
+        getAndUpdateNext();
+        return next != null;
+      }
+
+      @Override
+      public ExcelEntity next() {
+        boolean hasNext = hasNext();
+        if (!hasNext) {
+          throw new NoSuchElementException();
+        }
+        ExcelEntity result = next;
+        next = null;
+        return result;
+      }
+
+      private void getAndUpdateNext() {
+        // iterator skips empty lines and closes the reader after the last line
+        while (reader != null && next == null) {
+          Map<Integer, String> row;
+          try {
+            row = reader.readRow();
+          } catch (RuntimeException e) {
+            closeReader();
+            throw e;
+          }
+
+          if (row == null) {
+            closeReader();
+          } else {
+            ExcelEntity entity = toEntity(row);
+            // check if there is any column containing a value
+            for (String name : entity.getAttributeNames()) {
+              if (StringUtils.isNotEmpty(entity.getString(name))) {
+                next = entity;
+                break;
+              }
+            }
+          }
+        }
+      }
+
+      private void closeReader() {
+        XlsxSheetReader sheetReaderToClose = reader;
+        reader = null;
+        close(sheetReaderToClose);
+      }
+    };
+  }
+
+  public void addCellProcessor(CellProcessor cellProcessor) {
+    if (cellProcessors == null) cellProcessors = new ArrayList<>();
+    cellProcessors.add(cellProcessor);
+  }
+
+  public EntityType getEntityType() {
+    if (entityType == null) {
+      EntityType newEntityType = entityTypeFactory.create(sheetName).setLabel(sheetName);
+
+      if (colNamesMap == null) {
+        try (XlsxSheetReader sheetReader = XlsxSheetReader.open(file, sheetName)) {
+          // First row contains the headers
+          Map<Integer, String> headerRow = sheetReader.readRow();
+          if (headerRow != null) {
+            colNamesMap = toColNamesMap(headerRow);
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      if (colNamesMap != null) {
+        for (String colName : colNamesMap.keySet()) {
+          newEntityType.addAttribute(attrMetaFactory.create().setName(colName).setDataType(STRING));
+        }
+      }
+      this.entityType = newEntityType;
+    }
+
+    return entityType;
+  }
+
+  private ExcelEntity toEntity(Map<Integer, String> row) {
+    Map<String, Object> values = new LinkedHashMap<>();
+    colNamesMap.forEach(
+        (colName, colIndex) -> {
+          String value;
+          if (row.containsKey(colIndex)) {
+            value = AbstractCellProcessor.processCell(row.get(colIndex), false, cellProcessors);
+          } else {
+            value = null;
+          }
+          values.put(colName, value);
+        });
+    return new ExcelEntity(values, colNamesMap, getEntityType());
+  }
+
+  private Map<String, Integer> toColNamesMap(Map<Integer, String> headerRow) {
+    Map<String, Integer> columnIdx = new LinkedHashMap<>();
+    headerRow.forEach(
+        (colIndex, value) -> {
+          String header = AbstractCellProcessor.processCell(value, true, cellProcessors);
+          if (header != null) {
+            if (columnIdx.containsKey(header)) {
+              throw new MolgenisDataException(
+                  format(
+                      "Duplicate column header '%s' in sheet '%s' not allowed", header, sheetName));
+            }
+            columnIdx.put(header, colIndex);
+          }
+        });
+    return columnIdx;
+  }
+
+  private static void close(XlsxSheetReader sheetReader) {
+    try {
+      sheetReader.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public Set<RepositoryCapability> getCapabilities() {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public long count() {
+    return Iterables.size(this);
+  }
+}
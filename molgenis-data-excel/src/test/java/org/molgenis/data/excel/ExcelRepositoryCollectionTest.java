@@ -1,11 +1,17 @@
 package org.molgenis.data.excel;
 
+import static com.google.common.collect.Lists.newArrayList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,6 +55,29 @@ class ExcelRepositoryCollectionTest extends AbstractMockitoTest {
     assertThrows(IllegalArgumentException.class, () -> excelRepositoryCollection.getSheet(123));
   }
 
+  @Test
+  void testGetRepositoryXlsxFile() throws IOException {
+    File file = File.createTempFile("test", ".xlsx");
+    try {
+      try (InputStream xlsxInputStream = getClass().getResourceAsStream("/test.xlsx")) {
+        Files.copy(xlsxInputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      ExcelRepositoryCollection xlsxRepositoryCollection = new ExcelRepositoryCollection(file);
+      xlsxRepositoryCollection.setEntityTypeFactory(entityTypeFactory);
+      xlsxRepositoryCollection.setAttributeFactory(attributeFactory);
+
+      assertEquals(
+          newArrayList(excelRepositoryCollection.getEntityTypeIds()),
+          newArrayList(xlsxRepositoryCollection.getEntityTypeIds()));
+      assertTrue(
+          xlsxRepositoryCollection.getRepository("attributes") instanceof XlsxStreamingRepository);
+      assertNull(xlsxRepositoryCollection.getRepository("blaat"));
+      assertThrows(IllegalArgumentException.class, () -> xlsxRepositoryCollection.getSheet(123));
+    } finally {
+      Files.delete(file.toPath());
+    }
+  }
+
   @AfterEach
   void tearDownAfterEach() throws IOException {
     inputStream.close();
@@ -0,0 +1,224 @@
+package org.molgenis.data.excel;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.molgenis.data.AbstractMolgenisSpringTest;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.file.processor.CellProcessor;
+import org.molgenis.data.file.processor.TrimProcessor;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.AttributeFactory;
+import org.molgenis.data.meta.model.EntityTypeFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+class XlsxStreamingRepositoryTest extends AbstractMolgenisSpringTest {
+  @Autowired private EntityTypeFactory entityTypeFactory;
+
+  @Autowired private AttributeFactory attrMetaFactory;
+
+  private File file;
+  private XlsxStreamingRepository xlsxStreamingRepository;
+
+  @BeforeEach
+  void beforeMethod() throws IOException {
+    file = File.createTempFile("test", ".xlsx");
+    try (XSSFWorkbook workbook = new XSSFWorkbook();
+        OutputStream outputStream = new FileOutputStream(file)) {
+      Sheet sheet = workbook.createSheet("test");
+      createRow(sheet, 0, "col1", "col2");
+      createRow(sheet, 1, "val1", "val2");
+      createRow(sheet, 2, "val3", "val4");
+      createRow(sheet, 4, "XXX", " val6 ");
+
+      // number cell (col1) and formula cell (col2)
+      Row row = sheet.createRow(5);
+      row.createCell(0).setCellValue(1.2);
+      row.createCell(1).setCellFormula("A6*2");
+
+      // integer cell (col1) and boolean cell (col2)
+      row = sheet.createRow(6);
+      row.createCell(0).setCellValue(3.0);
+      row.createCell(1).setCellValue(true);
+
+      // date cell (col1) and missing cell (col2)
+      CellStyle dateStyle = workbook.createCellStyle();
+      dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+      row = sheet.createRow(7);
+      row.createCell(0).setCellValue(43864.5);
+      row.getCell(0).setCellStyle(dateStyle);
+
+      Sheet mergedSheet = workbook.createSheet("test_mergedcells");
+      createRow(mergedSheet, 0, "col1", "col2");
+      createRow(mergedSheet, 1, "val1", null);
+      mergedSheet.addMergedRegion(new CellRangeAddress(1, 1, 0, 1));
+
+      workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+      workbook.write(outputStream);
+    }
+    xlsxStreamingRepository = createRepository(file, "test");
+  }
+
+  @AfterEach
+  void afterMethod() throws IOException {
+    Files.delete(file.toPath());
+  }
+
+  @Test
+  void iterator() {
+    Iterator<Entity> it = xlsxStreamingRepository.iterator();
+    assertTrue(it.hasNext());
+
+    Entity row1 = it.next();
+    assertEquals("val1", row1.get("col1"));
+    assertEquals("val2", row1.get("col2"));
+
+    Entity row2 = it.next();
+    assertEquals("val3", row2.get("col1"));
+    assertEquals("val4", row2.get("col2"));
+
+    Entity row3 = it.next();
+    assertEquals("XXX", row3.get("col1"));
+    assertEquals("val6", row3.get("col2"));
+
+    Entity row4 = it.next();
+    assertEquals("1.2", row4.get("col1"));
+    assertEquals("2.4", row4.get("col2"));
+
+    Entity row5 = it.next();
+    assertEquals("3", row5.get("col1"));
+    assertEquals("true", row5.get("col2"));
+
+    Entity row6 = it.next();
+    assertEquals("2020-02-03T12:00", row6.get("col1"));
+    assertNull(row6.get("col2"));
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  void iteratorNextWhenNoNext() {
+    Iterator<Entity> it = xlsxStreamingRepository.iterator();
+    for (int i = 0; i < 6; i++) {
+      it.next();
+    }
+    assertThrows(NoSuchElementException.class, it::next);
+  }
+
+  @Test
+  void iteratorMergedCells() {
+    XlsxStreamingRepository repository = createRepository(file, "test_mergedcells");
+    Exception exception = assertThrows(MolgenisDataException.class, repository::count);
+    assertThat(exception.getMessage())
+        .isEqualTo("Sheet [test_mergedcells] contains merged regions which is not supported");
+  }
+
+  @Test
+  void iteratorDuplicateSheetHeader() throws IOException {
+    File duplicateHeaderFile = copyResource("/duplicate-sheet-header.xlsx");
+    try {
+      XlsxStreamingRepository repository = createRepository(duplicateHeaderFile, "attributes");
+      Exception exception = assertThrows(MolgenisDataException.class, repository::iterator);
+      assertThat(exception.getMessage())
+          .containsPattern("Duplicate column header 'entity' in sheet 'attributes' not allowed");
+    } finally {
+      Files.delete(duplicateHeaderFile.toPath());
+    }
+  }
+
+  @Test
+  void iteratorHeaderCaseSensitive() throws IOException {
+    File caseSensitivityFile = copyResource("/case-sensitivity.xlsx");
+    try {
+      XlsxStreamingRepository repository =
+          createRepository(caseSensitivityFile, "case-sensitivity");
+      Entity entity = repository.iterator().next();
+      assertEquals("Value #0", entity.get("Header"));
+      assertNull(entity.get("hEADER"));
+    } finally {
+      Files.delete(caseSensitivityFile.toPath());
+    }
+  }
+
+  @Test
+  void addCellProcessorHeader() {
+    CellProcessor processor = mock(CellProcessor.class);
+    when(processor.processHeader()).thenReturn(true);
+    when(processor.process("col1")).thenReturn("COL1");
+    when(processor.process("col2")).thenReturn("COL2");
+
+    xlsxStreamingRepository.addCellProcessor(processor);
+    Entity entity = xlsxStreamingRepository.iterator().next();
+    assertEquals("val1", entity.get("COL1"));
+    assertEquals("val2", entity.get("COL2"));
+  }
+
+  @Test
+  void getEntityType() {
+    Iterator<Attribute> headerIt =
+        xlsxStreamingRepository.getEntityType().getAttributes().iterator();
+    assertEquals("col1", headerIt.next().getName());
+    assertEquals("col2", headerIt.next().getName());
+    assertFalse(headerIt.hasNext());
+  }
+
+  @Test
+  void count() {
+    assertEquals(6, xlsxStreamingRepository.count());
+    // the sheet is read again for every iteration
+    assertEquals(6, xlsxStreamingRepository.count());
+  }
+
+  private XlsxStreamingRepository createRepository(File xlsxFile, String sheetName) {
+    return new XlsxStreamingRepository(
+        xlsxFile,
+        sheetName,
+        entityTypeFactory,
+        attrMetaFactory,
+        new ArrayList<>(singletonList(new TrimProcessor())));
+  }
+
+  private File copyResource(String name) throws IOException {
+    File copy = File.createTempFile("test", ".xlsx");
+    try (InputStream inputStream = getClass().getResourceAsStream(name)) {
+      Files.copy(inputStream, copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    return copy;
+  }
+
+  private static void createRow(Sheet sheet, int rowIndex, String value0, String value1) {
+    Row row = sheet.createRow(rowIndex);
+    row.createCell(0).setCellValue(value0);
+    if (value1 != null) {
+      row.createCell(1).setCellValue(value1);
+    }
+  }
+}
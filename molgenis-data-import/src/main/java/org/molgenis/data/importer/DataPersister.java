@@ -1,6 +1,7 @@
 package org.molgenis.data.importer;
 
 import org.molgenis.data.DataAction;
+import org.molgenis.data.meta.model.EntityType;
 
 /** Persists data and metadata provided by a {@link DataProvider} using a {@link DataAction}. */
 public interface DataPersister {
@@ -19,13 +20,27 @@ public interface DataPersister {
     NONE
   }
 
+  /** Receives progress updates while data is persisted, ignores them by default */
+  interface PersistProgress {
+    /** Called before the entities of the given entity type are persisted. */
+    default void persistingEntities(EntityType entityType) {}
+
+    /** Called after the entities of the given entity type are persisted. */
+    default void persistedEntities(EntityType entityType, long nrPersistedEntities) {}
+  }
+
   /**
    * Persists data and metadata
    *
    * @param dataProvider data and metadata provider
    * @param metadataMode metadata persists mode
    * @param dataMode data persist mode
+   * @param progress receives the progress per entity type
    * @return persist result containing e.g. number of persisted data elements
    */
-  PersistResult persist(DataProvider dataProvider, MetadataMode metadataMode, DataMode dataMode);
+  PersistResult persist(
+      DataProvider dataProvider,
+      MetadataMode metadataMode,
+      DataMode dataMode,
+      PersistProgress progress);
 }
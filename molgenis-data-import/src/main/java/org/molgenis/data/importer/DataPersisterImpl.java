@@ -1,17 +1,30 @@
 package org.molgenis.data.importer;
 
+import static com.google.common.collect.Streams.stream;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
+import static org.molgenis.data.BulkLoadModeHolder.runInBulkLoadMode;
 import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
 import static org.molgenis.data.meta.model.EntityTypeMetadata.ID;
 import static org.molgenis.util.stream.MapCollectors.toLinkedMap;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.Graphs;
+import com.google.common.graph.MutableGraph;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -25,40 +38,228 @@ import org.molgenis.data.meta.EntityTypeWithoutMappedByAttributes;
 import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.transaction.TransactionManager;
 import org.molgenis.util.UnexpectedEnumException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Persists entity types one after another in topological order.
+ *
+ * <p>Data of existing entity types, i.e. without metadata changes, is persisted concurrently for
+ * entity types that don't reference each other. Each thread persists a group of entity types in its
+ * own transaction. The transactions only commit when all groups were persisted and their deferred
+ * constraints were checked, otherwise all of them roll back. A commit can then only fail because of
+ * an infrastructure failure, e.g. a lost database connection.
+ */
 @Component
 public class DataPersisterImpl implements DataPersister {
+  private static final Logger LOG = LoggerFactory.getLogger(DataPersisterImpl.class);
+
   private final MetaDataService metaDataService;
   private final DataService dataService;
   private final EntityTypeDependencyResolver entityTypeDependencyResolver;
+  private final TransactionManager transactionManager;
+  private final int nrPersistThreads;
 
+  /**
+   * @param nrPersistThreads maximum number of threads that persist data of existing entity types
+   *     concurrently for one import
+   */
   DataPersisterImpl(
       MetaDataService metaDataService,
       DataService dataService,
-      EntityTypeDependencyResolver entityTypeDependencyResolver) {
+      EntityTypeDependencyResolver entityTypeDependencyResolver,
+      TransactionManager transactionManager,
+      @Value("${import.persist.threads:4}") int nrPersistThreads) {
     this.metaDataService = requireNonNull(metaDataService);
     this.dataService = requireNonNull(dataService);
     this.entityTypeDependencyResolver = requireNonNull(entityTypeDependencyResolver);
+    this.transactionManager = requireNonNull(transactionManager);
+    this.nrPersistThreads = nrPersistThreads;
   }
 
   @Transactional
   @Override
   public PersistResult persist(
-      DataProvider dataProvider, MetadataMode metadataMode, DataMode dataMode) {
+      DataProvider dataProvider,
+      MetadataMode metadataMode,
+      DataMode dataMode,
+      PersistProgress progress) {
     List<EntityType> sortedEntityTypes =
         getTopologicalSortedEntityTypes(dataProvider.getEntityTypes());
 
+    if (metadataMode == MetadataMode.NONE && nrPersistThreads > 1) {
+      List<List<EntityType>> entityTypeGroups =
+          getIndependentEntityTypeGroups(dataProvider, sortedEntityTypes);
+      if (entityTypeGroups.size() > 1) {
+        return persistConcurrently(
+            dataProvider, dataMode, sortedEntityTypes, entityTypeGroups, progress);
+      }
+    }
+
     preProcessEntityTypes(sortedEntityTypes, metadataMode);
     PersistResult persistResult =
-        persistFirstPass(dataProvider, metadataMode, dataMode, sortedEntityTypes);
+        persistFirstPass(dataProvider, metadataMode, dataMode, sortedEntityTypes, progress);
     persistSecondPass(dataProvider, sortedEntityTypes, metadataMode);
 
     return persistResult;
   }
 
+  /**
+   * Groups the entity types with entities so that entity types that reference each other are in the
+   * same group, with at most one group per persist thread. Groups keep the topological order.
+   */
+  private List<List<EntityType>> getIndependentEntityTypeGroups(
+      DataProvider dataProvider, List<EntityType> sortedEntityTypes) {
+    List<EntityType> entityTypes =
+        sortedEntityTypes.stream().filter(dataProvider::hasEntities).collect(toList());
+
+    MutableGraph<String> referenceGraph = GraphBuilder.undirected().allowsSelfLoops(true).build();
+    entityTypes.forEach(entityType -> referenceGraph.addNode(entityType.getId()));
+    entityTypes.forEach(
+        entityType ->
+            stream(entityType.getAtomicAttributes())
+                .filter(Attribute::hasRefEntity)
+                .map(attr -> attr.getRefEntity().getId())
+                .filter(referenceGraph.nodes()::contains)
+                .forEach(
+                    refEntityTypeId ->
+                        referenceGraph.putEdge(entityType.getId(), refEntityTypeId)));
+
+    Map<String, Integer> componentIndices = new HashMap<>();
+    int nrComponents = 0;
+    for (EntityType entityType : entityTypes) {
+      if (!componentIndices.containsKey(entityType.getId())) {
+        int componentIndex = nrComponents++;
+        Graphs.reachableNodes(referenceGraph, entityType.getId())
+            .forEach(entityTypeId -> componentIndices.put(entityTypeId, componentIndex));
+      }
+    }
+
+    int nrGroups = Math.min(nrComponents, nrPersistThreads);
+    List<List<EntityType>> entityTypeGroups = new ArrayList<>(nrGroups);
+    for (int i = 0; i < nrGroups; i++) {
+      entityTypeGroups.add(new ArrayList<>());
+    }
+    entityTypes.forEach(
+        entityType ->
+            entityTypeGroups
+                .get(componentIndices.get(entityType.getId()) % nrGroups)
+                .add(entityType));
+    return entityTypeGroups;
+  }
+
+  private PersistResult persistConcurrently(
+      DataProvider dataProvider,
+      DataMode dataMode,
+      List<EntityType> sortedEntityTypes,
+      List<List<EntityType>> entityTypeGroups,
+      PersistProgress progress) {
+    PersistProgress synchronizedProgress = synchronizedPersistProgress(progress);
+    CoordinatedCommit coordinatedCommit = new CoordinatedCommit(entityTypeGroups.size());
+
+    // one thread per group, because each group waits for the other groups before committing
+    ExecutorService executorService =
+        new DelegatingSecurityContextExecutorService(
+            Executors.newFixedThreadPool(
+                entityTypeGroups.size(),
+                new ThreadFactoryBuilder().setNameFormat("molgenis-import-persist-%d").build()));
+    Map<String, Long> nrPersistedEntitiesMap = new HashMap<>();
+    try {
+      List<Future<PersistResult>> futures =
+          entityTypeGroups.stream()
+              .map(
+                  entityTypes ->
+                      executorService.submit(
+                          () ->
+                              persistGroup(
+                                  dataProvider,
+                                  dataMode,
+                                  entityTypes,
+                                  synchronizedProgress,
+                                  coordinatedCommit)))
+              .collect(toList());
+      Throwable failure = null;
+      for (Future<PersistResult> future : futures) {
+        try {
+          nrPersistedEntitiesMap.putAll(future.get().getNrPersistedEntitiesMap());
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+      }
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      } else if (failure != null) {
+        throw (RuntimeException) failure;
+      }
+    } catch (InterruptedException e) {
+      coordinatedCommit.abort();
+      Thread.currentThread().interrupt();
+      throw new MolgenisDataException("Interrupted while persisting entities", e);
+    } finally {
+      executorService.shutdown();
+    }
+
+    ImmutableMap.Builder<String, Long> persistResultBuilder = ImmutableMap.builder();
+    sortedEntityTypes.stream()
+        .map(EntityType::getId)
+        .filter(nrPersistedEntitiesMap::containsKey)
+        .forEach(
+            entityTypeId ->
+                persistResultBuilder.put(entityTypeId, nrPersistedEntitiesMap.get(entityTypeId)));
+    return PersistResult.create(persistResultBuilder.build());
+  }
+
+  private PersistResult persistGroup(
+      DataProvider dataProvider,
+      DataMode dataMode,
+      List<EntityType> entityTypes,
+      PersistProgress progress,
+      CoordinatedCommit coordinatedCommit) {
+    return new TransactionTemplate(transactionManager)
+        .execute(
+            status -> {
+              PersistResult persistResult;
+              try {
+                persistResult =
+                    persistFirstPass(
+                        dataProvider, MetadataMode.NONE, dataMode, entityTypes, progress);
+                persistSecondPass(dataProvider, entityTypes, MetadataMode.NONE);
+                transactionManager.checkDeferredConstraints();
+              } catch (RuntimeException | Error e) {
+                coordinatedCommit.failed();
+                throw e;
+              }
+              coordinatedCommit.persisted();
+              if (!coordinatedCommit.awaitCommit()) {
+                status.setRollbackOnly();
+              }
+              return persistResult;
+            });
+  }
+
+  private static PersistProgress synchronizedPersistProgress(PersistProgress progress) {
+    return new PersistProgress() {
+      @Override
+      public synchronized void persistingEntities(EntityType entityType) {
+        progress.persistingEntities(entityType);
+      }
+
+      @Override
+      public synchronized void persistedEntities(EntityType entityType, long nrPersistedEntities) {
+        progress.persistedEntities(entityType, nrPersistedEntities);
+      }
+    };
+  }
+
   private void preProcessEntityTypes(List<EntityType> entityTypes, MetadataMode metadataMode) {
     switch (metadataMode) {
       case ADD:
@@ -78,7 +279,8 @@ public class DataPersisterImpl implements DataPersister {
       DataProvider dataProvider,
       MetadataMode metadataMode,
       DataMode dataMode,
-      List<EntityType> topologicalSortedEntityTypes) {
+      List<EntityType> topologicalSortedEntityTypes,
+      PersistProgress progress) {
     ImmutableMap.Builder<String, Long> persistResultBuilder = ImmutableMap.builder();
     topologicalSortedEntityTypes.forEach(
         entityType -> {
@@ -90,9 +292,17 @@ public class DataPersisterImpl implements DataPersister {
                       "Abstract entity type '%s' with id '%s' cannot contain entities",
                       entityType.getLabel(), entityType.getId()));
             }
-            Stream<Entity> entities = dataProvider.getEntities(entityType);
-            long nrPersistedEntities =
-                persistEntitiesFirstPass(persistedEntityType, entities, dataMode);
+            progress.persistingEntities(entityType);
+            long nrPersistedEntities;
+            try (Stream<Entity> entities = dataProvider.getEntities(entityType)) {
+              nrPersistedEntities =
+                  persistEntitiesFirstPass(persistedEntityType, entities, dataMode);
+            }
+            LOG.info(
+                "Persisted {} entities of entity type '{}'",
+                nrPersistedEntities,
+                entityType.getId());
+            progress.persistedEntities(entityType, nrPersistedEntities);
             persistResultBuilder.put(entityType.getId(), nrPersistedEntities);
           }
         });
@@ -119,9 +329,10 @@ public class DataPersisterImpl implements DataPersister {
               throw new UnexpectedEnumException(metadataMode);
           }
 
-          if (dataProvider.hasEntities(entityType)) {
-            Stream<Entity> entities = dataProvider.getEntities(entityType);
-            persistEntitiesSecondPass(persistedEntityType, entities);
+          if (persistedEntityType.hasMappedByAttributes() && dataProvider.hasEntities(entityType)) {
+            try (Stream<Entity> entities = dataProvider.getEntities(entityType)) {
+              persistEntitiesSecondPass(persistedEntityType, entities);
+            }
           }
         });
   }
@@ -183,7 +394,7 @@ public class DataPersisterImpl implements DataPersister {
 
   private void addEntitiesFirstPass(EntityType entityType, Stream<Entity> entities) {
     String entityTypeId = entityType.getId();
-    dataService.add(entityTypeId, entities);
+    runInBulkLoadMode(() -> dataService.add(entityTypeId, entities));
   }
 
   private void updateEntitiesFirstPass(EntityType entityType, Stream<Entity> entities) {
@@ -198,10 +409,8 @@ public class DataPersisterImpl implements DataPersister {
   }
 
   private void persistEntitiesSecondPass(EntityType entityType, Stream<Entity> entities) {
-    if (entityType.hasMappedByAttributes()) {
-      String entityTypeId = entityType.getId();
-      dataService.update(entityTypeId, entities);
-    }
+    String entityTypeId = entityType.getId();
+    dataService.update(entityTypeId, entities);
   }
 
   private EntityType persistEntityTypeFirstPass(EntityType entityType, MetadataMode metadataMode) {
@@ -282,4 +491,45 @@ public class DataPersisterImpl implements DataPersister {
   private List<EntityType> getTopologicalSortedEntityTypes(Stream<EntityType> entityTypeStream) {
     return entityTypeDependencyResolver.resolve(entityTypeStream.collect(toList()));
   }
+
+  /**
+   * Lets the transactions of concurrently persisted groups commit if all groups were persisted and
+   * roll back otherwise.
+   */
+  private static class CoordinatedCommit {
+    private final CountDownLatch persistedLatch;
+    private volatile boolean failed;
+
+    CoordinatedCommit(int nrGroups) {
+      this.persistedLatch = new CountDownLatch(nrGroups);
+    }
+
+    void persisted() {
+      persistedLatch.countDown();
+    }
+
+    void failed() {
+      failed = true;
+      persistedLatch.countDown();
+    }
+
+    void abort() {
+      failed = true;
+    }
+
+    /**
+     * Waits until all groups were persisted or failed.
+     *
+     * @return <code>true</code> if the transaction of the group may commit
+     */
+    boolean awaitCommit() {
+      try {
+        persistedLatch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      return !failed;
+    }
+  }
 }
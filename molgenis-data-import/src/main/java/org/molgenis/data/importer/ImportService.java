@@ -10,6 +10,7 @@ import javax.annotation.Nullable;
 import org.molgenis.data.DataAction;
 import org.molgenis.data.RepositoryCollection;
 import org.molgenis.data.meta.MetaDataService;
+import org.molgenis.jobs.Progress;
 import org.springframework.core.Ordered;
 
 public interface ImportService extends Ordered {
@@ -23,6 +24,24 @@ public interface ImportService extends Ordered {
       DataAction dataAction,
       @Nullable @CheckForNull String packageId);
 
+  /**
+   * Imports the source and reports the progress of the import to the given job progress. Import
+   * services that don't report progress import the source as {@link #doImport(RepositoryCollection,
+   * MetadataAction, DataAction, String)} does.
+   */
+  @Timed(
+      value = "service.import",
+      description = "Timing information for the import service.",
+      histogram = true)
+  default EntityImportReport doImport(
+      RepositoryCollection source,
+      MetadataAction metadataAction,
+      DataAction dataAction,
+      @Nullable @CheckForNull String packageId,
+      Progress progress) {
+    return doImport(source, metadataAction, dataAction, packageId);
+  }
+
   EntitiesValidationReport validateImport(RepositoryCollection source);
 
   boolean canImport(File file, RepositoryCollection source);
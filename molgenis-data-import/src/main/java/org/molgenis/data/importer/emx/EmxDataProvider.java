@@ -2,6 +2,7 @@ package org.molgenis.data.importer.emx;
 
 import static com.google.common.collect.Streams.stream;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.synchronizedList;
 import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.EntityManager.CreationMode.POPULATE;
 import static org.molgenis.data.meta.model.Package.PACKAGE_SEPARATOR;
@@ -23,13 +24,24 @@ import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.util.UnexpectedEnumException;
 
-class EmxDataProvider implements DataProvider {
+/**
+ * Provides the data of an {@link EmxImportJob}. Closing the provider closes the entity streams it
+ * returned, which stops prefetching entities for consumers that stopped reading, e.g. because the
+ * import failed.
+ *
+ * <p>Entity types can be read concurrently by different threads.
+ */
+class EmxDataProvider implements DataProvider, AutoCloseable {
   private final EmxImportJob job;
   private final EntityManager entityManager;
+  private final EntityPrefetcher entityPrefetcher;
+  private final List<Stream<Entity>> entityStreams = synchronizedList(new ArrayList<>());
 
-  EmxDataProvider(EmxImportJob job, EntityManager entityManager) {
+  EmxDataProvider(
+      EmxImportJob job, EntityManager entityManager, EntityPrefetcher entityPrefetcher) {
     this.job = requireNonNull(job);
     this.entityManager = requireNonNull(entityManager);
+    this.entityPrefetcher = requireNonNull(entityPrefetcher);
   }
 
   @Override
@@ -71,7 +83,18 @@ class EmxDataProvider implements DataProvider {
     if (repository == null) {
       throw new UnknownRepositoryException(entityType.getId());
     }
-    return stream(repository).map(sourceEntity -> toEntity(entityType, sourceEntity));
+    // sheets of one source can't be read concurrently
+    Stream<Entity> entities = entityPrefetcher.prefetch(stream(repository), job.getSource());
+    entityStreams.add(entities);
+    return entities.map(sourceEntity -> toEntity(entityType, sourceEntity));
+  }
+
+  @Override
+  public void close() {
+    synchronized (entityStreams) {
+      entityStreams.forEach(Stream::close);
+      entityStreams.clear();
+    }
   }
 
   /**
@@ -2,6 +2,7 @@ package org.molgenis.data.importer.emx;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newLinkedHashMap;
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.importer.emx.EmxMetadataParser.EMX_ATTRIBUTES;
 import static org.molgenis.data.importer.emx.EmxMetadataParser.EMX_I18NSTRINGS;
@@ -19,6 +20,7 @@ import javax.annotation.Nullable;
 import org.molgenis.data.DataAction;
 import org.molgenis.data.DataService;
 import org.molgenis.data.RepositoryCollection;
+import org.molgenis.data.importer.DataPersister.PersistProgress;
 import org.molgenis.data.importer.EntitiesValidationReport;
 import org.molgenis.data.importer.EntityImportReport;
 import org.molgenis.data.importer.ImportService;
@@ -28,6 +30,7 @@ import org.molgenis.data.importer.ParsedMetaData;
 import org.molgenis.data.importer.emx.exception.NoFilenameExtensionException;
 import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.jobs.Progress;
 import org.molgenis.js.magma.WithJsMagmaScriptContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +39,7 @@ import org.springframework.util.StringUtils;
 
 public class EmxImportService implements ImportService {
   private static final Logger LOG = LoggerFactory.getLogger(EmxImportService.class);
+  private static final PersistProgress NO_PROGRESS = new PersistProgress() {};
 
   private final MetadataParser parser;
   private final ImportWriter writer;
@@ -82,11 +86,32 @@ public class EmxImportService implements ImportService {
       MetadataAction metadataAction,
       DataAction dataAction,
       @Nullable @CheckForNull String packageId) {
+    return doImport(source, metadataAction, dataAction, packageId, NO_PROGRESS);
+  }
+
+  @Override
+  @WithJsMagmaScriptContext
+  public EntityImportReport doImport(
+      RepositoryCollection source,
+      MetadataAction metadataAction,
+      DataAction dataAction,
+      @Nullable @CheckForNull String packageId,
+      Progress progress) {
+    return doImport(source, metadataAction, dataAction, packageId, toPersistProgress(progress));
+  }
+
+  private EntityImportReport doImport(
+      RepositoryCollection source,
+      MetadataAction metadataAction,
+      DataAction dataAction,
+      @Nullable @CheckForNull String packageId,
+      PersistProgress persistProgress) {
     ParsedMetaData parsedMetaData = parser.parse(source, packageId);
 
     // TODO altered entities (merge, see getEntityType)
     return doImport(
-        new EmxImportJob(metadataAction, dataAction, source, parsedMetaData, packageId));
+        new EmxImportJob(metadataAction, dataAction, source, parsedMetaData, packageId),
+        persistProgress);
   }
 
   /**
@@ -95,15 +120,29 @@ public class EmxImportService implements ImportService {
    *
    * @return {@link EntityImportReport} describing what happened
    */
-  public EntityImportReport doImport(EmxImportJob job) {
+  public EntityImportReport doImport(EmxImportJob job, PersistProgress persistProgress) {
     try {
-      return writer.doImport(job);
+      return writer.doImport(job, persistProgress);
     } catch (Exception e) {
       LOG.error("Error handling EmxImportJob", e);
       throw e;
     }
   }
 
+  private static PersistProgress toPersistProgress(Progress progress) {
+    return new PersistProgress() {
+      @Override
+      public void persistingEntities(EntityType entityType) {
+        progress.status(format("Importing %s...", entityType.getId()));
+      }
+
+      @Override
+      public void persistedEntities(EntityType entityType, long nrPersistedEntities) {
+        progress.status(format("Imported %d %s entities", nrPersistedEntities, entityType.getId()));
+      }
+    };
+  }
+
   @Override
   public EntitiesValidationReport validateImport(RepositoryCollection source) {
     return parser.validate(source);
@@ -0,0 +1,227 @@
+package org.molgenis.data.importer.emx;
+
+import static com.google.common.collect.Streams.stream;
+import static java.util.Collections.emptyIterator;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads import source entities on a separate thread while the import transaction persists the
+ * previously read entities, so that parsing the source file and writing to the database overlap.
+ *
+ * <p>Only source entities are prefetched. Converting them to MOLGENIS entities and persisting them
+ * happens on the calling thread, because it requires the import transaction.
+ */
+@Component
+class EntityPrefetcher {
+  private static final Object END_OF_STREAM = new Object();
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  private final ExecutorService executorService;
+  private final int batchSize;
+  private final int queueCapacity;
+
+  EntityPrefetcher(
+      @Value("${import.prefetch.threads:4}") int nrThreads,
+      @Value("${import.prefetch.batch-size:1000}") int batchSize,
+      @Value("${import.prefetch.queue-capacity:4}") int queueCapacity) {
+    this.executorService =
+        Executors.newFixedThreadPool(
+            nrThreads, new ThreadFactoryBuilder().setNameFormat("molgenis-import-%d").build());
+    this.batchSize = batchSize;
+    this.queueCapacity = queueCapacity;
+  }
+
+  @PreDestroy
+  void preDestroy() {
+    ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
+  }
+
+  /**
+   * Returns a stream of the given entities that are read ahead in batches on a separate thread. At
+   * most queue capacity batches are read ahead. Closing the returned stream stops reading and
+   * closes the given stream.
+   */
+  Stream<Entity> prefetch(Stream<Entity> entities) {
+    return prefetch(entities, new Object());
+  }
+
+  /**
+   * Returns a stream of the given entities like {@link #prefetch(Stream)}. Prefetches with the same
+   * source lock read one batch at a time, for sources that can't be read by multiple threads, e.g.
+   * sheets of one Excel workbook.
+   */
+  Stream<Entity> prefetch(Stream<Entity> entities, Object sourceLock) {
+    Prefetch prefetch = new Prefetch(entities, sourceLock, new ArrayBlockingQueue<>(queueCapacity));
+    prefetch.start(executorService);
+    return stream(new PrefetchIterator(prefetch.queue)).onClose(prefetch::close);
+  }
+
+  /** Reads entities into a queue until all entities are read or until the prefetch is closed. */
+  private class Prefetch {
+    private final Stream<Entity> entities;
+    private final Object sourceLock;
+    private final BlockingQueue<Object> queue;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private volatile boolean closed;
+    private Future<?> future;
+
+    Prefetch(Stream<Entity> entities, Object sourceLock, BlockingQueue<Object> queue) {
+      this.entities = entities;
+      this.sourceLock = sourceLock;
+      this.queue = queue;
+    }
+
+    void start(ExecutorService executorService) {
+      future = executorService.submit(this::read);
+    }
+
+    void close() {
+      closed = true;
+      if (claimed.compareAndSet(false, true)) {
+        // reading didn't start, so the entities have to be closed here
+        entities.close();
+      }
+      future.cancel(true);
+    }
+
+    private void read() {
+      if (!claimed.compareAndSet(false, true)) {
+        return;
+      }
+      try (entities) {
+        Iterator<List<Entity>> batches = Iterators.partition(entities.iterator(), batchSize);
+        boolean offered = true;
+        List<Entity> batch = readBatch(batches);
+        while (offered && batch != null) {
+          offered = offer(batch);
+          if (offered) {
+            batch = readBatch(batches);
+          }
+        }
+        if (offered) {
+          offer(END_OF_STREAM);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException | Error e) {
+        try {
+          offer(new ReadFailure(e));
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    /** Returns the next batch or <code>null</code> if all entities were read */
+    private List<Entity> readBatch(Iterator<List<Entity>> batches) {
+      synchronized (sourceLock) {
+        if (!batches.hasNext()) {
+          return null;
+        }
+        List<Entity> batch = batches.next();
+        // read lazily read values, e.g. Excel cell values, on this thread
+        batch.forEach(entity -> entity.getAttributeNames().forEach(entity::get));
+        return batch;
+      }
+    }
+
+    /**
+     * Waits until the item is added to the queue.
+     *
+     * @return <code>false</code> if the prefetch was closed before the item could be added
+     */
+    private boolean offer(Object item) throws InterruptedException {
+      while (!closed) {
+        if (queue.offer(item, OFFER_TIMEOUT_MILLIS, MILLISECONDS)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static class PrefetchIterator implements Iterator<Entity> {
+    private final BlockingQueue<Object> queue;
+    private Iterator<Entity> batchIterator = emptyIterator();
+    private boolean endOfStream;
+
+    PrefetchIterator(BlockingQueue<Object> queue) {
+      this.queue = queue;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean hasNext() {
+      if (batchIterator.hasNext()) {
+        return true;
+      }
+      if (endOfStream) {
+        return false;
+      }
+
+      Object item = take();
+      if (item == END_OF_STREAM) {
+        endOfStream = true;
+        return false;
+      } else if (item instanceof ReadFailure) {
+        endOfStream = true;
+        Throwable cause = ((ReadFailure) item).getCause();
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw (RuntimeException) cause;
+      } else {
+        batchIterator = ((List<Entity>) item).iterator();
+        return true;
+      }
+    }
+
+    @Override
+    public Entity next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return batchIterator.next();
+    }
+
+    private Object take() {
+      try {
+        return queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MolgenisDataException("Interrupted while reading entities", e);
+      }
+    }
+  }
+
+  private static class ReadFailure {
+    private final Throwable cause;
+
+    ReadFailure(Throwable cause) {
+      this.cause = cause;
+    }
+
+    Throwable getCause() {
+      return cause;
+    }
+  }
+}
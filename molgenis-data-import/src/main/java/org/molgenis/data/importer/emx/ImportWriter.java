@@ -18,6 +18,7 @@ import org.molgenis.data.RepositoryCollection;
 import org.molgenis.data.importer.DataPersister;
 import org.molgenis.data.importer.DataPersister.DataMode;
 import org.molgenis.data.importer.DataPersister.MetadataMode;
+import org.molgenis.data.importer.DataPersister.PersistProgress;
 import org.molgenis.data.importer.EntityImportReport;
 import org.molgenis.data.importer.MetadataAction;
 import org.molgenis.data.importer.ParsedMetaData;
@@ -41,22 +42,25 @@ public class ImportWriter {
   private final UserPermissionEvaluator permissionService;
   private final EntityManager entityManager;
   private final DataPersister dataPersister;
+  private final EntityPrefetcher entityPrefetcher;
 
   ImportWriter(
       MetaDataService metaDataService,
       PermissionSystemService permissionSystemService,
       UserPermissionEvaluator permissionService,
       EntityManager entityManager,
-      DataPersister dataPersister) {
+      DataPersister dataPersister,
+      EntityPrefetcher entityPrefetcher) {
     this.metaDataService = requireNonNull(metaDataService);
     this.permissionSystemService = requireNonNull(permissionSystemService);
     this.permissionService = requireNonNull(permissionService);
     this.entityManager = requireNonNull(entityManager);
     this.dataPersister = requireNonNull(dataPersister);
+    this.entityPrefetcher = requireNonNull(entityPrefetcher);
   }
 
   @Transactional
-  public EntityImportReport doImport(EmxImportJob job) {
+  public EntityImportReport doImport(EmxImportJob job, PersistProgress persistProgress) {
     if (job.getMetadataAction() != MetadataAction.IGNORE) {
       importTags(job.parsedMetaData);
       importPackages(job.parsedMetaData);
@@ -66,11 +70,15 @@ public class ImportWriter {
 
     validateEntityTypePermissions(groupedEntityTypes.getUpdatedEntityTypes());
 
-    PersistResult persistResult =
-        dataPersister.persist(
-            new EmxDataProvider(job, entityManager),
-            toMetadataMode(job.getMetadataAction()),
-            toDataMode(job.getDataAction()));
+    PersistResult persistResult;
+    try (EmxDataProvider dataProvider = new EmxDataProvider(job, entityManager, entityPrefetcher)) {
+      persistResult =
+          dataPersister.persist(
+              dataProvider,
+              toMetadataMode(job.getMetadataAction()),
+              toDataMode(job.getDataAction()),
+              persistProgress);
+    }
     if (job.getMetadataAction() != MetadataAction.IGNORE) {
       permissionSystemService.giveUserWriteMetaPermissions(groupedEntityTypes.getNewEntityTypes());
     }
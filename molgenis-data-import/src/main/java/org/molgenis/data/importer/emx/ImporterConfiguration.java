@@ -41,6 +41,7 @@ public class ImporterConfiguration {
   private final TagValidator tagValidator;
   private final EntityTypeDependencyResolver entityTypeDependencyResolver;
   private final DataPersister dataPersister;
+  private final EntityPrefetcher entityPrefetcher;
 
   public ImporterConfiguration(
       PackageFactory packageFactory,
@@ -58,7 +59,8 @@ public class ImporterConfiguration {
       TagFactory tagFactory,
       LanguageFactory languageFactory,
       L10nStringFactory l10nStringFactory,
-      EntityManager entityManager) {
+      EntityManager entityManager,
+      EntityPrefetcher entityPrefetcher) {
     this.packageFactory = requireNonNull(packageFactory);
     this.dataService = requireNonNull(dataService);
     this.metaDataService = requireNonNull(metaDataService);
@@ -75,6 +77,7 @@ public class ImporterConfiguration {
     this.languageFactory = requireNonNull(languageFactory);
     this.l10nStringFactory = requireNonNull(l10nStringFactory);
     this.entityManager = requireNonNull(entityManager);
+    this.entityPrefetcher = requireNonNull(entityPrefetcher);
   }
 
   @Bean
@@ -85,7 +88,12 @@ public class ImporterConfiguration {
   @Bean
   public ImportWriter importWriter() {
     return new ImportWriter(
-        metaDataService, permissionSystemService, permissionService, entityManager, dataPersister);
+        metaDataService,
+        permissionSystemService,
+        permissionService,
+        entityManager,
+        dataPersister,
+        entityPrefetcher);
   }
 
   @Bean
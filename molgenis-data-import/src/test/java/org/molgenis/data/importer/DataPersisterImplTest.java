@@ -2,25 +2,35 @@ package org.molgenis.data.importer;
 
 import static com.google.common.collect.ImmutableMap.of;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.synchronizedList;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.importer.PersistResult.create;
 import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
 
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,18 +45,24 @@ import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.importer.DataPersister.DataMode;
 import org.molgenis.data.importer.DataPersister.MetadataMode;
+import org.molgenis.data.importer.DataPersister.PersistProgress;
 import org.molgenis.data.meta.EntityTypeDependencyResolver;
 import org.molgenis.data.meta.EntityTypeWithoutMappedByAttributes;
 import org.molgenis.data.meta.MetaDataService;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeMetadata;
+import org.molgenis.data.transaction.TransactionManager;
 import org.molgenis.test.AbstractMockitoTest;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 class DataPersisterImplTest extends AbstractMockitoTest {
   @Mock private MetaDataService metaDataService;
   private DataService dataService;
   @Mock private EntityTypeDependencyResolver entityTypeDependencyResolver;
+  @Mock private TransactionManager transactionManager;
 
   private DataPersisterImpl dataPersisterImpl;
 
@@ -54,13 +70,15 @@ class DataPersisterImplTest extends AbstractMockitoTest {
   @Mock private EntityType entityType0;
   @Mock private EntityType entityType1;
   @Mock private EntityType entityType2;
+  @Mock private PersistProgress persistProgress;
 
   @SuppressWarnings("unchecked")
   @BeforeEach
   void setUpBeforeMethod() {
     dataService = mock(DataService.class);
     dataPersisterImpl =
-        new DataPersisterImpl(metaDataService, dataService, entityTypeDependencyResolver);
+        new DataPersisterImpl(
+            metaDataService, dataService, entityTypeDependencyResolver, transactionManager, 1);
 
     String entityTypeId0 = "entityTypeId0";
     entityType0 = mock(EntityType.class);
@@ -119,14 +137,27 @@ class DataPersisterImplTest extends AbstractMockitoTest {
 
   @Test
   void testGenericDataPersisterImpl() {
-    assertThrows(NullPointerException.class, () -> new DataPersisterImpl(null, null, null));
+    assertThrows(
+        NullPointerException.class, () -> new DataPersisterImpl(null, null, null, null, 1));
+  }
+
+  @Test
+  void testPersistProgress() {
+    dataPersisterImpl.persist(dataProvider, MetadataMode.NONE, DataMode.ADD, persistProgress);
+
+    InOrder inOrder = inOrder(persistProgress);
+    inOrder.verify(persistProgress).persistingEntities(entityType1);
+    inOrder.verify(persistProgress).persistedEntities(entityType1, 3L);
+    inOrder.verify(persistProgress).persistingEntities(entityType0);
+    inOrder.verify(persistProgress).persistedEntities(entityType0, 2L);
+    inOrder.verifyNoMoreInteractions();
   }
 
   @SuppressWarnings("unchecked")
   @Test
   void testPersistMetaNoneDataAdd() {
     PersistResult persistResult =
-        dataPersisterImpl.persist(dataProvider, MetadataMode.NONE, DataMode.ADD);
+        dataPersisterImpl.persist(dataProvider, MetadataMode.NONE, DataMode.ADD, persistProgress);
     assertEquals(create(of(entityType0.getId(), 2L, entityType1.getId(), 3L)), persistResult);
 
     InOrder inOrder = inOrder(metaDataService, dataService);
@@ -146,7 +177,9 @@ class DataPersisterImplTest extends AbstractMockitoTest {
     Exception exception =
         assertThrows(
             MolgenisDataException.class,
-            () -> dataPersisterImpl.persist(dataProvider, MetadataMode.NONE, DataMode.ADD));
+            () ->
+                dataPersisterImpl.persist(
+                    dataProvider, MetadataMode.NONE, DataMode.ADD, persistProgress));
     assertThat(exception.getMessage())
         .containsPattern(
             "Abstract entity type 'Entity type #0' with id 'entityTypeId0' cannot contain entities");
@@ -156,7 +189,8 @@ class DataPersisterImplTest extends AbstractMockitoTest {
   @Test
   void testPersistMetaNoneDataUpdate() {
     PersistResult persistResult =
-        dataPersisterImpl.persist(dataProvider, MetadataMode.NONE, DataMode.UPDATE);
+        dataPersisterImpl.persist(
+            dataProvider, MetadataMode.NONE, DataMode.UPDATE, persistProgress);
     assertEquals(create(of(entityType0.getId(), 2L, entityType1.getId(), 3L)), persistResult);
 
     InOrder inOrder = inOrder(metaDataService, dataService);
@@ -174,7 +208,8 @@ class DataPersisterImplTest extends AbstractMockitoTest {
     when(entityType0.hasMappedByAttributes()).thenReturn(true);
 
     PersistResult persistResult =
-        dataPersisterImpl.persist(dataProvider, MetadataMode.NONE, DataMode.UPDATE);
+        dataPersisterImpl.persist(
+            dataProvider, MetadataMode.NONE, DataMode.UPDATE, persistProgress);
     assertEquals(create(of(entityType0.getId(), 2L, entityType1.getId(), 3L)), persistResult);
 
     InOrder inOrder = inOrder(metaDataService, dataService);
@@ -198,7 +233,8 @@ class DataPersisterImplTest extends AbstractMockitoTest {
     when(dataService.getRepository(entityType1.getId())).thenReturn(repository1);
 
     PersistResult persistResult =
-        dataPersisterImpl.persist(dataProvider, MetadataMode.NONE, DataMode.UPSERT);
+        dataPersisterImpl.persist(
+            dataProvider, MetadataMode.NONE, DataMode.UPSERT, persistProgress);
     assertEquals(create(of(entityType0.getId(), 2L, entityType1.getId(), 3L)), persistResult);
 
     InOrder inOrder = inOrder(metaDataService, repository0, repository1);
@@ -212,7 +248,7 @@ class DataPersisterImplTest extends AbstractMockitoTest {
   @Test
   void testPersistMetaAddDataAdd() {
     PersistResult persistResult =
-        dataPersisterImpl.persist(dataProvider, MetadataMode.ADD, DataMode.ADD);
+        dataPersisterImpl.persist(dataProvider, MetadataMode.ADD, DataMode.ADD, persistProgress);
     assertEquals(create(of(entityType0.getId(), 2L, entityType1.getId(), 3L)), persistResult);
 
     InOrder inOrder = inOrder(metaDataService, dataService);
@@ -233,7 +269,7 @@ class DataPersisterImplTest extends AbstractMockitoTest {
     when(entityType0.hasMappedByAttributes()).thenReturn(true);
 
     PersistResult persistResult =
-        dataPersisterImpl.persist(dataProvider, MetadataMode.ADD, DataMode.ADD);
+        dataPersisterImpl.persist(dataProvider, MetadataMode.ADD, DataMode.ADD, persistProgress);
     assertEquals(create(of(entityType0.getId(), 2L, entityType1.getId(), 3L)), persistResult);
 
     InOrder inOrder = inOrder(metaDataService, dataService);
@@ -274,7 +310,7 @@ class DataPersisterImplTest extends AbstractMockitoTest {
         .thenReturn(Stream.of(existingEntityType2, existingEntityType1, existingEntityType0));
 
     PersistResult persistResult =
-        dataPersisterImpl.persist(dataProvider, MetadataMode.UPDATE, DataMode.ADD);
+        dataPersisterImpl.persist(dataProvider, MetadataMode.UPDATE, DataMode.ADD, persistProgress);
     assertEquals(create(of(entityType0.getId(), 2L, entityType1.getId(), 3L)), persistResult);
 
     InOrder inOrder = inOrder(metaDataService, dataService);
@@ -316,7 +352,7 @@ class DataPersisterImplTest extends AbstractMockitoTest {
         .thenReturn(Stream.of(existingEntityType2, existingEntityType1, existingEntityType0));
 
     PersistResult persistResult =
-        dataPersisterImpl.persist(dataProvider, MetadataMode.UPSERT, DataMode.ADD);
+        dataPersisterImpl.persist(dataProvider, MetadataMode.UPSERT, DataMode.ADD, persistProgress);
     assertEquals(create(of(entityType0.getId(), 2L, entityType1.getId(), 3L)), persistResult);
 
     InOrder inOrder = inOrder(metaDataService, dataService);
@@ -329,4 +365,99 @@ class DataPersisterImplTest extends AbstractMockitoTest {
     // verifyNoMoreInteractions on dataService not possible due to data service reads
     verifyNoMoreInteractions(metaDataService);
   }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testPersistMetaNoneConcurrently() {
+    List<TransactionStatus> transactionStatuses = mockTransactions();
+
+    PersistResult persistResult =
+        createConcurrentDataPersister()
+            .persist(dataProvider, MetadataMode.NONE, DataMode.ADD, persistProgress);
+    assertEquals(create(of(entityType1.getId(), 3L, entityType0.getId(), 2L)), persistResult);
+
+    verify(dataService).add(eq(entityType1.getId()), any(Stream.class));
+    verify(dataService).add(eq(entityType0.getId()), any(Stream.class));
+    verify(persistProgress).persistedEntities(entityType1, 3L);
+    verify(persistProgress).persistedEntities(entityType0, 2L);
+    verify(transactionManager, times(2)).checkDeferredConstraints();
+    assertEquals(2, transactionStatuses.size());
+    transactionStatuses.forEach(
+        transactionStatus -> {
+          verify(transactionManager).commit(transactionStatus);
+          assertFalse(transactionStatus.isRollbackOnly());
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testPersistMetaNoneConcurrentlyRollsBackAllGroups() {
+    List<TransactionStatus> transactionStatuses = mockTransactions();
+    MolgenisDataException exception = new MolgenisDataException("add failed");
+    String entityTypeId0 = entityType0.getId();
+    doThrow(exception).when(dataService).add(eq(entityTypeId0), any(Stream.class));
+
+    DataPersisterImpl concurrentDataPersister = createConcurrentDataPersister();
+    assertEquals(
+        exception,
+        assertThrows(
+            MolgenisDataException.class,
+            () ->
+                concurrentDataPersister.persist(
+                    dataProvider, MetadataMode.NONE, DataMode.ADD, persistProgress)));
+
+    assertEquals(2, transactionStatuses.size());
+    verify(transactionManager).rollback(any(TransactionStatus.class));
+    verify(transactionManager).commit(argThat(TransactionStatus::isRollbackOnly));
+    verify(transactionManager, never())
+        .commit(argThat(transactionStatus -> !transactionStatus.isRollbackOnly()));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testPersistMetaNoneConcurrentlyReferencingEntityTypes() {
+    Attribute attribute = mock(Attribute.class);
+    when(attribute.hasRefEntity()).thenReturn(true);
+    when(attribute.getRefEntity()).thenReturn(entityType1);
+    when(entityType0.getAtomicAttributes()).thenReturn(singletonList(attribute));
+
+    PersistResult persistResult =
+        createConcurrentDataPersister()
+            .persist(dataProvider, MetadataMode.NONE, DataMode.ADD, persistProgress);
+    assertEquals(create(of(entityType1.getId(), 3L, entityType0.getId(), 2L)), persistResult);
+
+    InOrder inOrder = inOrder(dataService);
+    inOrder.verify(dataService).add(eq(entityType1.getId()), any(Stream.class));
+    inOrder.verify(dataService).add(eq(entityType0.getId()), any(Stream.class));
+    verifyNoInteractions(transactionManager);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testPersistMetaAddNotConcurrently() {
+    createConcurrentDataPersister()
+        .persist(dataProvider, MetadataMode.ADD, DataMode.ADD, persistProgress);
+
+    InOrder inOrder = inOrder(dataService);
+    inOrder.verify(dataService).add(eq(entityType1.getId()), any(Stream.class));
+    inOrder.verify(dataService).add(eq(entityType0.getId()), any(Stream.class));
+    verifyNoInteractions(transactionManager);
+  }
+
+  private DataPersisterImpl createConcurrentDataPersister() {
+    return new DataPersisterImpl(
+        metaDataService, dataService, entityTypeDependencyResolver, transactionManager, 2);
+  }
+
+  private List<TransactionStatus> mockTransactions() {
+    List<TransactionStatus> transactionStatuses = synchronizedList(new ArrayList<>());
+    when(transactionManager.getTransaction(any()))
+        .thenAnswer(
+            invocation -> {
+              TransactionStatus transactionStatus = new SimpleTransactionStatus();
+              transactionStatuses.add(transactionStatus);
+              return transactionStatus;
+            });
+    return transactionStatuses;
+  }
 }
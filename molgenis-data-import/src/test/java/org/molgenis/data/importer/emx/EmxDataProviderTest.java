@@ -6,14 +6,19 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -34,11 +39,18 @@ class EmxDataProviderTest extends AbstractMockitoTest {
 
   @Mock private EntityManager entityManager;
 
+  private EntityPrefetcher entityPrefetcher;
   private EmxDataProvider emxDataProvider;
 
   @BeforeEach
   void setUpBeforeMethod() {
-    emxDataProvider = new EmxDataProvider(emxImportJob, entityManager);
+    entityPrefetcher = new EntityPrefetcher(1, 10, 2);
+    emxDataProvider = new EmxDataProvider(emxImportJob, entityManager, entityPrefetcher);
+  }
+
+  @AfterEach
+  void tearDownAfterMethod() {
+    entityPrefetcher.preDestroy();
   }
 
   @Test
@@ -125,6 +137,28 @@ class EmxDataProviderTest extends AbstractMockitoTest {
     assertEquals(emptyList(), emxDataProvider.getEntities(entityType).collect(toList()));
   }
 
+  @Test
+  void testCloseClosesEntityStreams() {
+    EntityType entityType = mock(EntityType.class);
+    RepositoryCollection repositoryCollection = mock(RepositoryCollection.class);
+    @SuppressWarnings("unchecked")
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.spliterator()).thenReturn(Collections.<Entity>emptyList().spliterator());
+    when(repositoryCollection.getRepository(entityType)).thenReturn(repository);
+    when(emxImportJob.getSource()).thenReturn(repositoryCollection);
+    Runnable closeHandler = mock(Runnable.class);
+    EntityPrefetcher closingEntityPrefetcher = mock(EntityPrefetcher.class);
+    when(closingEntityPrefetcher.prefetch(any(), eq(repositoryCollection)))
+        .thenReturn(Stream.<Entity>empty().onClose(closeHandler));
+
+    EmxDataProvider closingDataProvider =
+        new EmxDataProvider(emxImportJob, entityManager, closingEntityPrefetcher);
+    closingDataProvider.getEntities(entityType);
+    closingDataProvider.close();
+
+    verify(closeHandler).run();
+  }
+
   @Test
   void testGetEntitiesAlternativeEntityTypeId() {
     String entityTypeId = "base_EntityTypeId";
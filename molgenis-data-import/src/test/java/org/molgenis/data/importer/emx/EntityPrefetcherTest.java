@@ -0,0 +1,139 @@
+package org.molgenis.data.importer.emx;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.test.AbstractMockitoTest;
+
+class EntityPrefetcherTest extends AbstractMockitoTest {
+  private EntityPrefetcher entityPrefetcher;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    entityPrefetcher = new EntityPrefetcher(1, 2, 1);
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    entityPrefetcher.preDestroy();
+  }
+
+  @Test
+  void testPrefetch() {
+    List<Entity> entities =
+        IntStream.range(0, 5).mapToObj(i -> mock(Entity.class)).collect(toList());
+    try (Stream<Entity> prefetchedEntities = entityPrefetcher.prefetch(entities.stream())) {
+      assertEquals(entities, prefetchedEntities.collect(toList()));
+    }
+  }
+
+  @Test
+  void testPrefetchReadsValues() {
+    Entity entity = mock(Entity.class);
+    when(entity.getAttributeNames()).thenReturn(List.of("attr"));
+    try (Stream<Entity> prefetchedEntities = entityPrefetcher.prefetch(Stream.of(entity))) {
+      assertEquals(List.of(entity), prefetchedEntities.collect(toList()));
+    }
+    verify(entity).get("attr");
+  }
+
+  @Test
+  void testPrefetchReadsWithSourceLock() {
+    Object sourceLock = new Object();
+    Entity entity = mock(Entity.class);
+    when(entity.getAttributeNames()).thenReturn(List.of("attr"));
+    AtomicBoolean holdsSourceLock = new AtomicBoolean();
+    when(entity.get("attr"))
+        .thenAnswer(invocation -> holdsSourceLock.getAndSet(Thread.holdsLock(sourceLock)));
+    try (Stream<Entity> prefetchedEntities =
+        entityPrefetcher.prefetch(Stream.of(entity), sourceLock)) {
+      assertEquals(List.of(entity), prefetchedEntities.collect(toList()));
+    }
+    assertTrue(holdsSourceLock.get());
+  }
+
+  @Test
+  void testPrefetchEmpty() {
+    try (Stream<Entity> prefetchedEntities = entityPrefetcher.prefetch(Stream.empty())) {
+      assertEquals(List.of(), prefetchedEntities.collect(toList()));
+    }
+  }
+
+  @Test
+  void testPrefetchReadFailure() {
+    Stream<Entity> entities =
+        Stream.of(mock(Entity.class))
+            .map(
+                entity -> {
+                  throw new MolgenisDataException("read failure");
+                });
+    try (Stream<Entity> prefetchedEntities = entityPrefetcher.prefetch(entities)) {
+      Exception exception =
+          assertThrows(MolgenisDataException.class, () -> prefetchedEntities.collect(toList()));
+      assertEquals("read failure", exception.getMessage());
+    }
+  }
+
+  @Test
+  void testPrefetchClose() throws InterruptedException {
+    CountDownLatch closed = new CountDownLatch(1);
+    Runnable closeHandler = mock(Runnable.class);
+    Stream<Entity> entities =
+        Stream.generate(() -> mock(Entity.class)).onClose(closeHandler).onClose(closed::countDown);
+
+    Stream<Entity> prefetchedEntities = entityPrefetcher.prefetch(entities);
+    assertEquals(3, prefetchedEntities.limit(3).count());
+    prefetchedEntities.close();
+
+    // reading stops and the source stream is closed
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+    verify(closeHandler, timeout(5000)).run();
+  }
+
+  @Test
+  void testPrefetchCloseBeforeReading() {
+    // the single prefetch thread is busy reading entities that are never consumed
+    Stream<Entity> busyEntities =
+        entityPrefetcher.prefetch(Stream.generate(() -> mock(Entity.class)));
+    Runnable closeHandler = mock(Runnable.class);
+
+    Stream<Entity> prefetchedEntities =
+        entityPrefetcher.prefetch(Stream.of(mock(Entity.class)).onClose(closeHandler));
+    prefetchedEntities.close();
+
+    verify(closeHandler).run();
+    busyEntities.close();
+  }
+
+  @Test
+  void testPrefetchConsumerStopsReading() throws InterruptedException {
+    CountDownLatch closed = new CountDownLatch(1);
+    Stream<Entity> entities = Stream.generate(() -> mock(Entity.class)).onClose(closed::countDown);
+
+    Stream<Entity> prefetchedEntities = entityPrefetcher.prefetch(entities);
+    prefetchedEntities.iterator().next();
+    // the producer is blocked on a full queue until the consumer closes the stream
+    assertFalse(closed.await(200, TimeUnit.MILLISECONDS));
+    prefetchedEntities.close();
+
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+  }
+}
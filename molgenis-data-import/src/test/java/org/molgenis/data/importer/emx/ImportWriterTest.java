@@ -15,6 +15,7 @@ import org.mockito.Mock;
 import org.molgenis.data.DataAction;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.importer.DataPersister;
+import org.molgenis.data.importer.DataPersister.PersistProgress;
 import org.molgenis.data.importer.EntityImportReport;
 import org.molgenis.data.importer.MetadataAction;
 import org.molgenis.data.importer.ParsedMetaData;
@@ -34,6 +35,7 @@ class ImportWriterTest extends AbstractMockitoTest {
   @Mock private UserPermissionEvaluator userPermissionEvaluator;
   @Mock private EntityManager entityManager;
   @Mock private DataPersister dataPersister;
+  @Mock private EntityPrefetcher entityPrefetcher;
 
   private ImportWriter importWriter;
 
@@ -45,12 +47,14 @@ class ImportWriterTest extends AbstractMockitoTest {
             permissionSystemService,
             userPermissionEvaluator,
             entityManager,
-            dataPersister);
+            dataPersister,
+            entityPrefetcher);
   }
 
   @Test
   void testImportWriter() {
-    assertThrows(NullPointerException.class, () -> new ImportWriter(null, null, null, null, null));
+    assertThrows(
+        NullPointerException.class, () -> new ImportWriter(null, null, null, null, null, null));
   }
 
   // regression test for https://github.com/molgenis/molgenis/issues/7611
@@ -65,12 +69,16 @@ class ImportWriterTest extends AbstractMockitoTest {
     EntityImportReport entityImportReport = mock(EntityImportReport.class);
     when(emxImportJob.getEntityImportReport()).thenReturn(entityImportReport);
     PersistResult persistResult = mock(PersistResult.class);
+    PersistProgress persistProgress = mock(PersistProgress.class);
     when(dataPersister.persist(
-            any(), eq(DataPersister.MetadataMode.NONE), eq(DataPersister.DataMode.UPSERT)))
+            any(),
+            eq(DataPersister.MetadataMode.NONE),
+            eq(DataPersister.DataMode.UPSERT),
+            eq(persistProgress)))
         .thenReturn(persistResult);
     when(persistResult.getNrPersistedEntitiesMap()).thenReturn(ImmutableMap.of());
 
-    importWriter.doImport(emxImportJob);
+    importWriter.doImport(emxImportJob, persistProgress);
     verifyNoInteractions(metaDataService, permissionSystemService);
   }
 }
@@ -3,6 +3,8 @@ package org.molgenis.data.index;
 import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.index.job.IndexJobExecutionMetadata.INDEX_JOB_EXECUTION;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.annotation.PostConstruct;
 import org.molgenis.data.DataService;
 import org.molgenis.data.index.job.IndexJobExecution;
@@ -18,15 +20,18 @@ import org.molgenis.data.index.meta.IndexActionMetadata;
 import org.molgenis.data.index.meta.IndexPackage;
 import org.molgenis.data.index.transaction.IndexTransactionListener;
 import org.molgenis.data.meta.model.EntityTypeFactory;
+import org.molgenis.data.transaction.CacheInvalidationBus;
 import org.molgenis.data.transaction.TransactionManager;
 import org.molgenis.jobs.Job;
 import org.molgenis.jobs.JobExecutor;
 import org.molgenis.jobs.JobFactory;
 import org.molgenis.jobs.model.JobExecutionMetaData;
 import org.molgenis.jobs.model.JobPackage;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 
 // TODO: These imported classes should be in separate config and this is the IndexJobConfig
 @Import({
@@ -51,6 +56,9 @@ public class IndexConfig {
   private final IndexJobExecutionFactory indexJobExecutionFactory;
   private final EntityTypeFactory entityTypeFactory;
   private final JobExecutor jobExecutor;
+  private final CacheInvalidationBus cacheInvalidationBus;
+  private final int indexJobThreads;
+  private final int indexJobCoalesceThreshold;
 
   public IndexConfig(
       IndexActionRegisterService indexActionRegisterService,
@@ -59,7 +67,10 @@ public class IndexConfig {
       IndexService indexService,
       IndexJobExecutionFactory indexJobExecutionFactory,
       EntityTypeFactory entityTypeFactory,
-      JobExecutor jobExecutor) {
+      JobExecutor jobExecutor,
+      CacheInvalidationBus cacheInvalidationBus,
+      @Value("${index.job.threads:4}") int indexJobThreads,
+      @Value("${index.job.coalesce.threshold:10000}") int indexJobCoalesceThreshold) {
     this.indexActionRegisterService = requireNonNull(indexActionRegisterService);
     this.transactionManager = requireNonNull(transactionManager);
     this.dataService = requireNonNull(dataService);
@@ -67,6 +78,9 @@ public class IndexConfig {
     this.indexJobExecutionFactory = requireNonNull(indexJobExecutionFactory);
     this.entityTypeFactory = requireNonNull(entityTypeFactory);
     this.jobExecutor = requireNonNull(jobExecutor);
+    this.cacheInvalidationBus = requireNonNull(cacheInvalidationBus);
+    this.indexJobThreads = indexJobThreads;
+    this.indexJobCoalesceThreshold = indexJobCoalesceThreshold;
   }
 
   @PostConstruct
@@ -89,7 +103,16 @@ public class IndexConfig {
 
   @Bean
   public IndexJobService indexJobService() {
-    return new IndexJobService(dataService, indexService, entityTypeFactory);
+    // index actions run with the authentication of the index job
+    ExecutorService executorService =
+        new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(indexJobThreads));
+    return new IndexJobService(
+        dataService,
+        indexService,
+        entityTypeFactory,
+        executorService,
+        cacheInvalidationBus,
+        indexJobCoalesceThreshold);
   }
 
   @Bean
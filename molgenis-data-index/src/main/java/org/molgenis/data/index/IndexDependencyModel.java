@@ -24,13 +24,13 @@ import org.molgenis.data.util.GenericDependencyResolver;
  * Models the dependencies between {@link EntityType}s for the purpose of indexing. These
  * dependencies depend on the indexing depth of the entity types.
  */
-class IndexDependencyModel {
+public class IndexDependencyModel {
   private final Map<String, EntityType> entityTypes;
   private final GenericDependencyResolver genericDependencyResolver =
       new GenericDependencyResolver();
 
   /** The fetch to use when retrieving the {@link EntityType}s fed to this DependencyModel. */
-  static final Fetch ENTITY_TYPE_FETCH =
+  public static final Fetch ENTITY_TYPE_FETCH =
       new Fetch()
           .field(ID)
           .field(IS_ABSTRACT)
@@ -49,7 +49,7 @@ class IndexDependencyModel {
    *
    * @param entityTypes the EntityTypes for which the DependencyModel is created
    */
-  IndexDependencyModel(List<EntityType> entityTypes) {
+  public IndexDependencyModel(List<EntityType> entityTypes) {
     this.entityTypes = uniqueIndex(entityTypes, EntityType::getId);
   }
 
@@ -108,7 +108,38 @@ class IndexDependencyModel {
         .anyMatch(entityTypeId::equals);
   }
 
-  Stream<String> getEntityTypesDependentOn(String entityTypeId) {
+  /**
+   * Returns the non-abstract entity types that have an attribute that directly references an entity
+   * type.
+   */
+  Stream<String> getEntityTypesReferencing(String entityTypeId) {
+    return getReferencingEntities(entityTypeId).stream();
+  }
+
+  /**
+   * Returns the attributes of an entity type, including inherited attributes, that reference
+   * another entity type.
+   */
+  Stream<Attribute> getReferencingAttributes(String entityTypeId, String refEntityTypeId) {
+    EntityType entityType = entityTypes.get(entityTypeId);
+    if (entityType == null) {
+      return Stream.empty();
+    }
+    return stream(entityType.getAtomicAttributes())
+        .filter(Attribute::hasRefEntity)
+        .filter(attribute -> refEntityTypeId.equals(attribute.getRefEntity().getId()));
+  }
+
+  int getIndexingDepth(String entityTypeId) {
+    EntityType entityType = entityTypes.get(entityTypeId);
+    return entityType != null ? entityType.getIndexingDepth() : 0;
+  }
+
+  /**
+   * Returns the entity types whose documents contain data of an entity type, taking the indexing
+   * depth of the dependent entity types into account.
+   */
+  public Stream<String> getEntityTypesDependentOn(String entityTypeId) {
     return genericDependencyResolver
         .getAllDependants(
             entityTypeId,
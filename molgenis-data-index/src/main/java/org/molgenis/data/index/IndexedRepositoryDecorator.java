@@ -1,24 +1,39 @@
 package org.molgenis.data.index;
 
+import static com.google.common.collect.Iterators.partition;
+import static com.google.common.collect.Streams.stream;
 import static java.lang.String.format;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.molgenis.data.QueryRule.Operator.AND;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.QueryUtils.containsAnyOperator;
 import static org.molgenis.data.QueryUtils.containsComputedAttribute;
 import static org.molgenis.data.QueryUtils.containsNestedQueryRuleField;
+import static org.molgenis.data.QueryUtils.containsOperator;
 import static org.molgenis.data.RepositoryCapability.AGGREGATEABLE;
 import static org.molgenis.data.RepositoryCapability.QUERYABLE;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.molgenis.data.AbstractRepositoryDecorator;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
@@ -26,6 +41,8 @@ import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.index.exception.UnknownIndexException;
 import org.molgenis.data.index.job.IndexJobScheduler;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.support.QueryImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,6 +54,7 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
   private static final Logger LOG = LoggerFactory.getLogger(IndexedRepositoryDecorator.class);
   private static final String INDEX_REPOSITORY = "Index Repository";
   private static final String DECORATED_REPOSITORY = "Decorated Repository";
+  private static final int PERMITTED_BATCH_SIZE = 1000;
 
   private final SearchService searchService;
   private final IndexJobScheduler indexJobScheduler;
@@ -71,6 +89,9 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
           q,
           getEntityType().getId(),
           INDEX_REPOSITORY);
+      if (containsOperator(q, PERMITTED)) {
+        return findAllPermittedInIndex(new QueryImpl<>(q).setPageSize(1)).findFirst().orElse(null);
+      }
       Object entityId = tryTwice(() -> searchService.searchOne(getEntityType(), q));
       return entityId != null ? delegate().findOneById(entityId, q.getFetch()) : null;
     }
@@ -91,6 +112,9 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
           q,
           getEntityType().getId(),
           INDEX_REPOSITORY);
+      if (containsOperator(q, PERMITTED)) {
+        return findAllPermittedInIndex(q);
+      }
       Stream<Object> entityIds = tryTwice(() -> searchService.search(getEntityType(), q));
       return delegate().findAll(entityIds, q.getFetch());
     }
@@ -132,13 +156,111 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
           q,
           getEntityType().getId(),
           INDEX_REPOSITORY);
+      if (containsOperator(q, PERMITTED)) {
+        return countPermittedInIndex(q);
+      }
       return tryTwice(() -> searchService.count(getEntityType(), q));
     }
   }
 
+  /**
+   * Searches the index for a query with {@link Operator#PERMITTED} rules. The index doesn't know
+   * about permissions, so all entities matching the other rules are retrieved from the index and
+   * filtered on permission by the decorated repository in batches, after which the query offset and
+   * page size are applied.
+   */
+  private Stream<Entity> findAllPermittedInIndex(Query<Entity> q) {
+    List<QueryRule> permittedRules = getPermittedRules(q);
+    Query<Entity> indexQuery = withoutPermittedRules(q);
+    Stream<Object> entityIds = tryTwice(() -> searchService.search(getEntityType(), indexQuery));
+    Stream<Entity> entities =
+        stream(partition(entityIds.iterator(), PERMITTED_BATCH_SIZE))
+            .flatMap(batch -> findAllPermitted(batch, permittedRules, q.getFetch()));
+    if (q.getOffset() > 0) {
+      entities = entities.skip(q.getOffset());
+    }
+    if (q.getPageSize() > 0) {
+      entities = entities.limit(q.getPageSize());
+    }
+    return entities;
+  }
+
+  private long countPermittedInIndex(Query<Entity> q) {
+    List<QueryRule> permittedRules = getPermittedRules(q);
+    Query<Entity> indexQuery = withoutPermittedRules(q);
+    Stream<Object> entityIds = tryTwice(() -> searchService.search(getEntityType(), indexQuery));
+    return stream(partition(entityIds.iterator(), PERMITTED_BATCH_SIZE))
+        .mapToLong(batch -> delegate().count(createPermittedQuery(batch, permittedRules)))
+        .sum();
+  }
+
+  /** Retrieves the permitted entities from the decorated repository in the given id order */
+  private Stream<Entity> findAllPermitted(
+      List<Object> entityIds, List<QueryRule> permittedRules, @Nullable Fetch fetch) {
+    Query<Entity> query = createPermittedQuery(entityIds, permittedRules);
+    query.fetch(fetch);
+    Map<Object, Entity> entities =
+        delegate().findAll(query).collect(toMap(Entity::getIdValue, identity()));
+    return entityIds.stream().map(entities::get).filter(Objects::nonNull);
+  }
+
+  private Query<Entity> createPermittedQuery(
+      List<Object> entityIds, List<QueryRule> permittedRules) {
+    QueryImpl<Entity> query = new QueryImpl<>();
+    query.in(getEntityType().getIdAttribute().getName(), entityIds);
+    permittedRules.forEach(
+        permittedRule -> {
+          query.and();
+          query.addRule(permittedRule);
+        });
+    return query;
+  }
+
+  private static List<QueryRule> getPermittedRules(Query<Entity> q) {
+    return q.getRules().stream().filter(rule -> rule.getOperator() == PERMITTED).collect(toList());
+  }
+
+  /**
+   * Removes the {@link Operator#PERMITTED} rules and the offset and page size from a query. The
+   * rules are expected to be combined with the other query rules using {@link Operator#AND}.
+   */
+  private static Query<Entity> withoutPermittedRules(Query<Entity> q) {
+    List<QueryRule> rules = new ArrayList<>();
+    for (QueryRule rule : q.getRules()) {
+      if (rule.getOperator() == PERMITTED) {
+        if (!rules.isEmpty() && rules.get(rules.size() - 1).getOperator() == AND) {
+          rules.remove(rules.size() - 1);
+        }
+      } else if (!(rules.isEmpty() && rule.getOperator() == AND)) {
+        rules.add(rule);
+      }
+    }
+    if (containsAnyOperator(rules, EnumSet.of(PERMITTED))) {
+      throw new UnsupportedOperationException(
+          format("Nested query operator [%s] not supported by index", PERMITTED));
+    }
+    QueryImpl<Entity> query = new QueryImpl<>(rules);
+    query.setSort(q.getSort());
+    return query;
+  }
+
   @Override
   public AggregateResult aggregate(AggregateQuery aggregateQuery) {
-    return tryTwice(() -> searchService.aggregate(getEntityType(), aggregateQuery));
+    if (aggregateQuerySupported(aggregateQuery)) {
+      LOG.debug(
+          "public AggregateResult aggregate({}) entityTypeId: [{}] repository: [{}]",
+          aggregateQuery,
+          getEntityType().getId(),
+          DECORATED_REPOSITORY);
+      return delegate().aggregate(aggregateQuery);
+    } else {
+      LOG.debug(
+          "public AggregateResult aggregate({}) entityTypeId: [{}] repository: [{}]",
+          aggregateQuery,
+          getEntityType().getId(),
+          INDEX_REPOSITORY);
+      return tryTwice(() -> searchService.aggregate(getEntityType(), aggregateQuery));
+    }
   }
 
   /**
@@ -179,6 +301,27 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
         && !containsNestedQueryRuleField(q);
   }
 
+  /**
+   * Checks if the underlying repository can handle this aggregate query. The underlying repository
+   * is preferred because its results are always up-to-date, whereas the index might still be
+   * processing recent changes.
+   */
+  private boolean aggregateQuerySupported(AggregateQuery aggregateQuery) {
+    if (!delegate().getCapabilities().contains(AGGREGATEABLE)) {
+      return false;
+    }
+    Query<Entity> q = aggregateQuery.getQuery();
+    if (q != null && !querySupported(q)) {
+      return false;
+    }
+    return Stream.of(
+            aggregateQuery.getAttributeX(),
+            aggregateQuery.getAttributeY(),
+            aggregateQuery.getAttributeDistinct())
+        .filter(Objects::nonNull)
+        .noneMatch(Attribute::hasExpression);
+  }
+
   private void waitForIndexToBeStable() {
     try {
       indexJobScheduler.waitForIndexToBeStableIncludingReferences(getEntityType());
@@ -1,22 +1,69 @@
 package org.molgenis.data.index;
 
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
-import static com.google.common.collect.Sets.union;
+import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.partitioningBy;
+import static java.util.stream.Collectors.toList;
+import static org.molgenis.data.index.Impact.createSingleEntityImpact;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.stream.Stream;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityCountEstimator;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.QueryImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-/** Determines the impact of changes. */
+/**
+ * Determines the impact of changes.
+ *
+ * <p>Changes to single entities only impact the entities that reference them. These entities are
+ * found by querying the referencing attributes, so that only the affected documents are indexed. If
+ * the number of impacted entities of an entity type exceeds a fraction of the total number of
+ * entities, the whole repository is rebuilt instead. The total number of entities is estimated by
+ * an {@link EntityCountEstimator} if possible, so that determining the impact on the commit path
+ * doesn't count large tables.
+ *
+ * <p>The referencing entities are queried after the changes are committed, so entities that
+ * referenced the changed entities before the change are not found. Their documents are only
+ * affected by such a change if they contain the changed entities through a mapped by attribute,
+ * e.g. the previous parent of a child that was moved or deleted. Entity types that reference
+ * changed entities through mapped by attributes are therefore rebuilt as a whole.
+ */
 @Component
 public class IndexingStrategy {
   private static final Logger LOG = LoggerFactory.getLogger(IndexingStrategy.class);
+  private static final int REFERENCE_QUERY_BATCH_SIZE = 1000;
+
+  private final DataService dataService;
+  private final List<EntityCountEstimator> entityCountEstimators;
+  private final double maxImpactFraction;
+
+  IndexingStrategy(
+      DataService dataService,
+      List<EntityCountEstimator> entityCountEstimators,
+      @Value("${index.incremental.max.fraction:0.1}") double maxImpactFraction) {
+    this.dataService = requireNonNull(dataService);
+    this.entityCountEstimators = requireNonNull(entityCountEstimators);
+    this.maxImpactFraction = maxImpactFraction;
+  }
 
   /**
    * Determines which {@link Impact}s follow from a set of changes.
@@ -30,42 +77,177 @@ public class IndexingStrategy {
     Stopwatch sw = Stopwatch.createStarted();
     Map<Boolean, List<Impact>> split =
         changes.stream().collect(partitioningBy(Impact::isWholeRepository));
-    ImmutableSet<String> allEntityTypeIds =
-        changes.stream().map(Impact::getEntityTypeId).collect(toImmutableSet());
-    Set<String> dependentEntities =
-        allEntityTypeIds.stream()
+    List<Impact> singleEntityChanges = split.get(false);
+    List<Impact> wholeRepoChanges = split.get(true);
+
+    Set<String> wholeRepoIds = new LinkedHashSet<>();
+    wholeRepoChanges.stream().map(Impact::getEntityTypeId).forEach(wholeRepoIds::add);
+    wholeRepoChanges.stream()
+        .map(Impact::getEntityTypeId)
+        .distinct()
+        .flatMap(dependencyModel::getEntityTypesDependentOn)
+        .forEach(wholeRepoIds::add);
+
+    Set<String> dependentEntityIds =
+        singleEntityChanges.stream()
+            .map(Impact::getEntityTypeId)
+            .distinct()
             .flatMap(dependencyModel::getEntityTypesDependentOn)
             .collect(toImmutableSet());
-    Set<Impact> result = collectResult(split.get(false), split.get(true), dependentEntities);
+    SetMultimap<String, Object> impactedEntityIds =
+        determineReferencingImpact(
+            singleEntityChanges, wholeRepoIds, dependentEntityIds, dependencyModel);
+
+    Set<Impact> result = collectResult(singleEntityChanges, wholeRepoIds, impactedEntityIds);
     if (LOG.isDebugEnabled()) {
       LOG.debug("Determined {} necessary actions in {}", result.size(), sw);
     }
     return result;
   }
 
+  /**
+   * Determines the entities that reference the changed entities, generation by generation, up to
+   * the maximum indexing depth of the dependent entity types. If too many entities of a dependent
+   * entity type are impacted, or if it references the entities through a mapped by attribute, it is
+   * added to the entity types that are impacted as a whole. The entity types that reference such an
+   * entity type are impacted as a whole as well.
+   *
+   * @param singleEntityChanges {@link Impact}s for changes made to specific Entity instances
+   * @param wholeRepoIds the entity types that are impacted as a whole, gets extended with the
+   *     dependent entity types of which too many entities are impacted
+   * @param dependentEntityIds the entity types that depend on the changed entity types
+   * @param dependencyModel {@link IndexDependencyModel} to determine which entities reference which
+   *     entities
+   * @return the ids of the impacted entities of dependent entity types
+   */
+  private SetMultimap<String, Object> determineReferencingImpact(
+      List<Impact> singleEntityChanges,
+      Set<String> wholeRepoIds,
+      Set<String> dependentEntityIds,
+      IndexDependencyModel dependencyModel) {
+    int maxDepth =
+        dependentEntityIds.stream().mapToInt(dependencyModel::getIndexingDepth).max().orElse(0);
+    Map<String, Long> maxImpactedEntities = new HashMap<>();
+    Set<String> exceededEntityTypeIds = new LinkedHashSet<>(wholeRepoIds);
+    SetMultimap<String, Object> impactedEntityIds = LinkedHashMultimap.create();
+
+    SetMultimap<String, Object> generation = LinkedHashMultimap.create();
+    for (Impact impact : singleEntityChanges) {
+      generation.put(impact.getEntityTypeId(), impact.getId());
+    }
+    Set<String> exceededGeneration = new LinkedHashSet<>();
+    for (int depth = 0;
+        depth < maxDepth && !(generation.isEmpty() && exceededGeneration.isEmpty());
+        depth++) {
+      SetMultimap<String, Object> nextGeneration = LinkedHashMultimap.create();
+      Set<String> nextExceededGeneration = new LinkedHashSet<>();
+
+      exceededGeneration.stream()
+          .flatMap(dependencyModel::getEntityTypesReferencing)
+          .filter(entityTypeId -> !exceededEntityTypeIds.contains(entityTypeId))
+          .forEach(nextExceededGeneration::add);
+      for (String refEntityTypeId : generation.keySet()) {
+        Set<Object> refEntityIds = generation.get(refEntityTypeId);
+        dependencyModel
+            .getEntityTypesReferencing(refEntityTypeId)
+            .filter(entityTypeId -> !exceededEntityTypeIds.contains(entityTypeId))
+            .filter(entityTypeId -> !nextExceededGeneration.contains(entityTypeId))
+            .forEach(
+                entityTypeId -> {
+                  List<Attribute> attributes =
+                      dependencyModel
+                          .getReferencingAttributes(entityTypeId, refEntityTypeId)
+                          .collect(toList());
+                  if (attributes.stream().anyMatch(Attribute::isMappedBy)) {
+                    LOG.debug(
+                        "[{}] references [{}] through a mapped by attribute",
+                        entityTypeId,
+                        refEntityTypeId);
+                    nextExceededGeneration.add(entityTypeId);
+                    return;
+                  }
+                  attributes.stream()
+                      .flatMap(
+                          attribute ->
+                              findReferencingEntityIds(entityTypeId, attribute, refEntityIds))
+                      .filter(entityId -> impactedEntityIds.put(entityTypeId, entityId))
+                      .forEach(entityId -> nextGeneration.put(entityTypeId, entityId));
+                  int nrImpactedEntities = impactedEntityIds.get(entityTypeId).size();
+                  if (nrImpactedEntities > 0
+                      && nrImpactedEntities
+                          > maxImpactedEntities.computeIfAbsent(
+                              entityTypeId, this::getMaxImpactedEntities)) {
+                    nextExceededGeneration.add(entityTypeId);
+                  }
+                });
+      }
+
+      for (String entityTypeId : nextExceededGeneration) {
+        exceededEntityTypeIds.add(entityTypeId);
+        if (dependentEntityIds.contains(entityTypeId)) {
+          LOG.debug("Too many impacted entities of [{}], rebuilding repository", entityTypeId);
+          wholeRepoIds.add(entityTypeId);
+        }
+        impactedEntityIds.removeAll(entityTypeId);
+        nextGeneration.removeAll(entityTypeId);
+      }
+      generation = nextGeneration;
+      exceededGeneration = nextExceededGeneration;
+    }
+
+    // entity types that don't depend on the changes only link changed and dependent entity types
+    impactedEntityIds.keySet().retainAll(dependentEntityIds);
+    return impactedEntityIds;
+  }
+
+  private long getMaxImpactedEntities(String entityTypeId) {
+    EntityType entityType = dataService.getEntityType(entityTypeId);
+    long count =
+        entityCountEstimators.stream()
+            .map(
+                entityCountEstimator ->
+                    entityCountEstimator.estimateCount(entityType, new QueryImpl<>()))
+            .filter(OptionalLong::isPresent)
+            .findFirst()
+            .orElseGet(() -> OptionalLong.of(dataService.count(entityTypeId)))
+            .getAsLong();
+    return (long) (maxImpactFraction * count);
+  }
+
+  /** Finds the ids of the entities that reference one of the given entities. */
+  private Stream<Object> findReferencingEntityIds(
+      String entityTypeId, Attribute attribute, Set<Object> refEntityIds) {
+    EntityType entityType = dataService.getEntityType(entityTypeId);
+    Fetch fetch = new Fetch().field(entityType.getIdAttribute().getName());
+
+    Set<Object> entityIds = new LinkedHashSet<>();
+    for (List<Object> batch : Iterables.partition(refEntityIds, REFERENCE_QUERY_BATCH_SIZE)) {
+      Query<Entity> query = new QueryImpl<>().in(attribute.getName(), batch).fetch(fetch);
+      dataService.findAll(entityTypeId, query).map(Entity::getIdValue).forEach(entityIds::add);
+    }
+    return entityIds.stream();
+  }
+
   /**
    * Combines the results.
    *
    * @param singleEntityChanges {@link Impact}s for changes made to specific Entity instances
-   * @param wholeRepoActions {@link Impact}s for changes made to entire repositories
-   * @param dependentEntityIds {@link Impact}s for entitytypes that are dependent on one or more of
-   *     the changes
+   * @param wholeRepoIds entity types that are impacted as a whole
+   * @param impactedEntityIds the ids of the impacted entities of dependent entity types
    * @return Set with the {@link Impact}s
    */
   private Set<Impact> collectResult(
       List<Impact> singleEntityChanges,
-      List<Impact> wholeRepoActions,
-      Set<String> dependentEntityIds) {
-    Set<String> wholeRepoIds =
-        union(
-            wholeRepoActions.stream().map(Impact::getEntityTypeId).collect(toImmutableSet()),
-            dependentEntityIds);
-
+      Set<String> wholeRepoIds,
+      SetMultimap<String, Object> impactedEntityIds) {
     ImmutableSet.Builder<Impact> result = ImmutableSet.builder();
-    result.addAll(wholeRepoActions);
-    dependentEntityIds.stream().map(Impact::createWholeRepositoryImpact).forEach(result::add);
+    wholeRepoIds.stream().map(Impact::createWholeRepositoryImpact).forEach(result::add);
     singleEntityChanges.stream()
-        .filter(action -> !wholeRepoIds.contains(action.getEntityTypeId()))
+        .filter(impact -> !wholeRepoIds.contains(impact.getEntityTypeId()))
+        .forEach(result::add);
+    impactedEntityIds.entries().stream()
+        .filter(entry -> !wholeRepoIds.contains(entry.getKey()))
+        .map(entry -> createSingleEntityImpact(entry.getKey(), entry.getValue()))
         .forEach(result::add);
     return result.build();
   }
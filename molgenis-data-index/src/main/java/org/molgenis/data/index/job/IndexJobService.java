@@ -2,16 +2,40 @@ package org.molgenis.data.index.job;
 
 import static java.text.MessageFormat.format;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
+import static org.molgenis.data.index.IndexDependencyModel.ENTITY_TYPE_FETCH;
 import static org.molgenis.data.index.meta.IndexActionGroupMetadata.INDEX_ACTION_GROUP;
 import static org.molgenis.data.index.meta.IndexActionMetadata.ACTION_ORDER;
+import static org.molgenis.data.index.meta.IndexActionMetadata.CREATION_DATE_TIME;
 import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION;
-import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION_GROUP_ATTR;
+import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_STATUS;
+import static org.molgenis.data.index.meta.IndexActionMetadata.IndexStatus.FAILED;
+import static org.molgenis.data.index.meta.IndexActionMetadata.IndexStatus.FINISHED;
+import static org.molgenis.data.index.meta.IndexActionMetadata.IndexStatus.PENDING;
+import static org.molgenis.data.index.meta.IndexActionMetadata.IndexStatus.STARTED;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
 import static org.molgenis.data.util.EntityUtils.getTypedValue;
 
+import com.google.common.util.concurrent.Futures;
 import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.MolgenisDataException;
@@ -19,30 +43,75 @@ import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.Sort;
+import org.molgenis.data.index.IndexDependencyModel;
 import org.molgenis.data.index.IndexService;
 import org.molgenis.data.index.meta.IndexAction;
 import org.molgenis.data.index.meta.IndexActionGroup;
 import org.molgenis.data.index.meta.IndexActionMetadata;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeFactory;
 import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
 import org.molgenis.jobs.Progress;
+import org.molgenis.util.ExecutorServiceUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Executes the {@link IndexAction}s stored in an {@link IndexActionGroup}. */
+/**
+ * Executes the {@link IndexAction}s stored in an {@link IndexActionGroup}.
+ *
+ * <p>Index actions of transactions that are waiting to be indexed are coalesced: an index job
+ * executes all pending index actions, so that the jobs of the other transactions find nothing left
+ * to do. Index actions are deduplicated per entity type and entity. Single entity actions are
+ * folded into a rebuild of the whole repository if there is a whole repository action for the same
+ * entity type or if the number of entities exceeds a threshold, otherwise the entities are indexed
+ * in bulk.
+ *
+ * <p>Entity types are indexed in waves determined by the {@link IndexDependencyModel}: an entity
+ * type is indexed after the entity types its documents depend on, the entity types of one wave are
+ * indexed in parallel.
+ *
+ * <p>Queries that the decorated repository can't handle are answered by the index, which lags
+ * behind committed changes. Once the index is refreshed the indexed entity types are published on
+ * the {@link CacheInvalidationBus}, so that data versions change again and cached results that were
+ * read from the outdated index are evicted on all nodes.
+ */
 public class IndexJobService {
   private static final Logger LOG = LoggerFactory.getLogger(IndexJobService.class);
 
   private final DataService dataService;
   private final IndexService indexService;
   private final EntityTypeFactory entityTypeFactory;
+  private final ExecutorService executorService;
+  private final CacheInvalidationBus cacheInvalidationBus;
+  private final int coalesceThreshold;
 
+  /**
+   * @param executorService executes the index actions of entity types of the same wave in parallel
+   * @param cacheInvalidationBus notified of the entity types of which the index was updated
+   * @param coalesceThreshold number of entities of one entity type above which the whole repository
+   *     is rebuilt instead of indexing the entities one by one
+   */
   public IndexJobService(
-      DataService dataService, IndexService indexService, EntityTypeFactory entityTypeFactory) {
+      DataService dataService,
+      IndexService indexService,
+      EntityTypeFactory entityTypeFactory,
+      ExecutorService executorService,
+      CacheInvalidationBus cacheInvalidationBus,
+      int coalesceThreshold) {
     this.dataService = requireNonNull(dataService);
     this.indexService = requireNonNull(indexService);
     this.entityTypeFactory = requireNonNull(entityTypeFactory);
+    this.executorService = requireNonNull(executorService);
+    this.cacheInvalidationBus = requireNonNull(cacheInvalidationBus);
+    this.coalesceThreshold = coalesceThreshold;
+  }
+
+  @PreDestroy
+  void preDestroy() {
+    ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
   }
 
   @Timed(
@@ -54,9 +123,8 @@ public class IndexJobService {
     IndexActionGroup indexActionGroup =
         dataService.findOneById(INDEX_ACTION_GROUP, transactionId, IndexActionGroup.class);
     if (indexActionGroup != null && indexActionGroup.getCount() > 0) {
-      progress.setProgressMax(indexActionGroup.getCount());
       progress.status(format("Start indexing for transaction id: [{0}]", transactionId));
-      performIndexActions(progress, transactionId);
+      performIndexActions(progress);
       progress.status(format("Finished indexing for transaction id: [{0}]", transactionId));
     } else {
       progress.status(format("No index actions found for transaction id: [{0}]", transactionId));
@@ -65,27 +133,47 @@ public class IndexJobService {
   }
 
   /**
-   * Performs the IndexActions.
+   * Performs the pending IndexActions of all transactions.
    *
    * @param progress {@link Progress} instance to log progress information to
    */
-  private void performIndexActions(Progress progress, String transactionId) {
+  private void performIndexActions(Progress progress) {
     List<IndexAction> indexActions =
         dataService
-            .findAll(INDEX_ACTION, createQueryGetAllIndexActions(transactionId), IndexAction.class)
+            .findAll(INDEX_ACTION, createQueryGetPendingIndexActions(), IndexAction.class)
             .collect(toList());
+    if (indexActions.isEmpty()) {
+      progress.status("Index actions were already executed by a previous index job");
+      return;
+    }
+
+    progress.setProgressMax(indexActions.size());
+    Set<String> entityTypeIds =
+        indexActions.stream()
+            .map(IndexAction::getEntityTypeId)
+            .collect(toCollection(LinkedHashSet::new));
     try {
-      boolean success = true;
-      int count = 0;
-      for (IndexAction indexAction : indexActions) {
-        success &= performAction(progress, count++, indexAction);
-      }
-      if (success) {
-        progress.progress(count, "Executed all index actions, cleaning up the actions...");
-        dataService.delete(INDEX_ACTION, indexActions.stream());
-        dataService.deleteById(INDEX_ACTION_GROUP, transactionId);
-        progress.progress(count, "Cleaned up the actions.");
+      AtomicInteger count = new AtomicInteger();
+      Map<String, List<IndexAction>> indexActionsPerEntityType =
+          indexActions.stream()
+              .collect(groupingBy(IndexAction::getEntityTypeId, LinkedHashMap::new, toList()));
+      for (List<String> wave : createIndexWaves(indexActionsPerEntityType.keySet())) {
+        List<Future<?>> futures =
+            wave.stream()
+                .map(indexActionsPerEntityType::get)
+                .<Future<?>>map(
+                    entityTypeIndexActions ->
+                        executorService.submit(
+                            () ->
+                                performEntityTypeActions(progress, count, entityTypeIndexActions)))
+                .collect(toList());
+        futures.forEach(Futures::getUnchecked);
       }
+
+      reportProgress(
+          progress, count.get(), "Executed all index actions, cleaning up the actions...");
+      deleteFinishedIndexActions(indexActions);
+      reportProgress(progress, count.get(), "Cleaned up the actions.");
     } catch (Exception ex) {
       LOG.error("Error performing index actions", ex);
       throw ex;
@@ -93,67 +181,208 @@ public class IndexJobService {
       progress.status("Refresh index start");
       indexService.refreshIndex();
       progress.status("Refresh index done");
+      cacheInvalidationBus.publish(CacheInvalidation.create(entityTypeIds, Set.of()));
+    }
+  }
+
+  private List<List<String>> createIndexWaves(Collection<String> entityTypeIds) {
+    if (entityTypeIds.size() == 1) {
+      return List.of(List.copyOf(entityTypeIds));
+    }
+    Query<EntityType> query = new QueryImpl<EntityType>().fetch(ENTITY_TYPE_FETCH);
+    List<EntityType> entityTypes =
+        dataService.findAll(ENTITY_TYPE_META_DATA, query, EntityType.class).collect(toList());
+    return createIndexWaves(entityTypeIds, new IndexDependencyModel(entityTypes));
+  }
+
+  /**
+   * Divides entity types in waves, each entity type is placed in a wave after the waves of the
+   * entity types it depends on. Entity types that depend on each other in a cycle are placed in
+   * waves of their own in the given order.
+   *
+   * @param entityTypeIds ids of the entity types to index in index action order
+   * @return waves of entity type ids
+   */
+  static List<List<String>> createIndexWaves(
+      Collection<String> entityTypeIds, IndexDependencyModel dependencyModel) {
+    Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+    entityTypeIds.forEach(entityTypeId -> dependencies.put(entityTypeId, new HashSet<>()));
+    for (String entityTypeId : entityTypeIds) {
+      dependencyModel
+          .getEntityTypesDependentOn(entityTypeId)
+          .filter(dependentId -> !dependentId.equals(entityTypeId))
+          .map(dependencies::get)
+          .filter(Objects::nonNull)
+          .forEach(dependentIds -> dependentIds.add(entityTypeId));
+    }
+
+    List<List<String>> waves = new ArrayList<>();
+    while (!dependencies.isEmpty()) {
+      List<String> wave =
+          dependencies.entrySet().stream()
+              .filter(entry -> entry.getValue().isEmpty())
+              .map(Map.Entry::getKey)
+              .collect(toList());
+      if (wave.isEmpty()) {
+        wave = List.of(dependencies.keySet().iterator().next());
+      }
+      dependencies.keySet().removeAll(wave);
+      for (Set<String> dependencyIds : dependencies.values()) {
+        dependencyIds.removeAll(wave);
+      }
+      waves.add(wave);
+    }
+    return waves;
+  }
+
+  /** Coalesces and performs the IndexActions of a single entity type in order. */
+  private void performEntityTypeActions(
+      Progress progress, AtomicInteger count, List<IndexAction> indexActions) {
+    String entityTypeId = indexActions.get(0).getEntityTypeId();
+    Map<String, List<IndexAction>> indexActionsPerEntity =
+        indexActions.stream()
+            .filter(indexAction -> indexAction.getEntityId() != null)
+            .collect(groupingBy(IndexAction::getEntityId, LinkedHashMap::new, toList()));
+
+    boolean wholeRepository =
+        indexActions.stream().anyMatch(indexAction -> indexAction.getEntityId() == null);
+    if (wholeRepository || indexActionsPerEntity.size() > coalesceThreshold) {
+      performAction(progress, count, entityTypeId, null, indexActions);
+    } else if (indexActionsPerEntity.size() == 1
+        || !performEntitiesAction(
+            progress, count, entityTypeId, indexActionsPerEntity.keySet(), indexActions)) {
+      indexActionsPerEntity.forEach(
+          (entityId, entityIndexActions) ->
+              performAction(progress, count, entityTypeId, entityId, entityIndexActions));
     }
   }
 
   /**
-   * Performs a single IndexAction
+   * Indexes multiple entities of an entity type in bulk.
+   *
+   * @return <code>true</code> if the entities were indexed, <code>false</code> if indexing failed
+   *     and the IndexActions should be performed one by one to determine which of them fail
+   */
+  private boolean performEntitiesAction(
+      Progress progress,
+      AtomicInteger count,
+      String entityTypeId,
+      Collection<String> entityIds,
+      List<IndexAction> indexActions) {
+    if (!dataService.hasEntityType(entityTypeId)) {
+      return false;
+    }
+    updateIndexActionStatus(indexActions, STARTED);
+    try {
+      reportProgress(
+          progress,
+          count.get(),
+          format("Indexing {0} entities of {1}", entityIds.size(), entityTypeId));
+      rebuildIndexEntities(entityTypeId, entityIds);
+    } catch (Exception ex) {
+      LOG.warn("Bulk indexing entities of [{}] failed, indexing one by one", entityTypeId, ex);
+      return false;
+    }
+    count.addAndGet(indexActions.size());
+    updateIndexActionStatus(indexActions, FINISHED);
+    return true;
+  }
+
+  /**
+   * Performs a single (coalesced) IndexAction
    *
    * @param progress {@link Progress} to report progress to
-   * @param progressCount the progress count for this IndexAction
-   * @param indexAction Entity of type IndexActionMetaData
-   * @return boolean indicating success or failure
+   * @param count the progress count
+   * @param entityTypeId the id of the entity type to index
+   * @param entityId the id of the entity to index or <code>null</code> to index the whole
+   *     repository
+   * @param indexActions the IndexActions that are performed by this action
    */
-  private boolean performAction(Progress progress, int progressCount, IndexAction indexAction) {
-    requireNonNull(indexAction);
-    String entityTypeId = indexAction.getEntityTypeId();
-    updateIndexActionStatus(indexAction, IndexActionMetadata.IndexStatus.STARTED);
+  private void performAction(
+      Progress progress,
+      AtomicInteger count,
+      String entityTypeId,
+      @Nullable String entityId,
+      List<IndexAction> indexActions) {
+    int progressCount = count.getAndAdd(indexActions.size());
+    updateIndexActionStatus(indexActions, STARTED);
     try {
       if (dataService.hasEntityType(entityTypeId)) {
         EntityType entityType = dataService.getEntityType(entityTypeId);
-        if (indexAction.getEntityId() != null) {
-          progress.progress(
-              progressCount,
-              format("Indexing {0}.{1}", entityType.getId(), indexAction.getEntityId()));
-          rebuildIndexOneEntity(entityTypeId, indexAction.getEntityId());
+        if (entityId != null) {
+          reportProgress(
+              progress, progressCount, format("Indexing {0}.{1}", entityType.getId(), entityId));
+          rebuildIndexOneEntity(entityTypeId, entityId);
         } else {
-          progress.progress(progressCount, format("Indexing {0}", entityType.getId()));
+          reportProgress(progress, progressCount, format("Indexing {0}", entityType.getId()));
           final Repository<Entity> repository = dataService.getRepository(entityType.getId());
           indexService.rebuildIndex(repository);
         }
       } else {
-        EntityType entityType = getEntityType(indexAction);
+        EntityType entityType = entityTypeFactory.create(entityTypeId);
         if (indexService.hasIndex(entityType)) {
-          progress.progress(
-              progressCount, format("Dropping entityType with id: {0}", entityType.getId()));
+          reportProgress(
+              progress,
+              progressCount,
+              format("Dropping entityType with id: {0}", entityType.getId()));
           indexService.deleteIndex(entityType);
         } else {
           // Index Job is finished, here we concluded that we don't have enough info to continue the
           // index job
-          progress.progress(
+          reportProgress(
+              progress,
               progressCount,
-              format("Skip index entity {0}.{1}", entityType.getId(), indexAction.getEntityId()));
+              format("Skip index entity {0}.{1}", entityType.getId(), entityId));
         }
       }
-      updateIndexActionStatus(indexAction, IndexActionMetadata.IndexStatus.FINISHED);
-      return true;
+      updateIndexActionStatus(indexActions, FINISHED);
     } catch (Exception ex) {
       LOG.error("Index job failed", ex);
-      updateIndexActionStatus(indexAction, IndexActionMetadata.IndexStatus.FAILED);
-      return false;
+      updateIndexActionStatus(indexActions, FAILED);
+    }
+  }
+
+  /** Progress is reported from multiple threads */
+  private static void reportProgress(Progress progress, int progressCount, String message) {
+    synchronized (progress) {
+      progress.progress(progressCount, message);
     }
   }
 
   /**
-   * Updates the {@link IndexStatus} of a IndexAction and stores the change.
+   * Updates the {@link IndexStatus} of IndexActions and stores the change.
    *
-   * @param indexAction the IndexAction of which the status is updated
+   * @param indexActions the IndexActions of which the status is updated
    * @param status the new {@link IndexStatus}
    */
   private void updateIndexActionStatus(
-      IndexAction indexAction, IndexActionMetadata.IndexStatus status) {
-    indexAction.setIndexStatus(status);
-    dataService.update(INDEX_ACTION, indexAction);
+      List<IndexAction> indexActions, IndexActionMetadata.IndexStatus status) {
+    indexActions.forEach(indexAction -> indexAction.setIndexStatus(status));
+    dataService.update(INDEX_ACTION, indexActions.stream());
+  }
+
+  /**
+   * Deletes the IndexActionGroups of which all IndexActions finished, including their IndexActions.
+   */
+  private void deleteFinishedIndexActions(List<IndexAction> indexActions) {
+    Map<String, List<IndexAction>> indexActionsPerGroup =
+        indexActions.stream()
+            .collect(
+                groupingBy(
+                    indexAction -> indexAction.getIndexActionGroup().getId(),
+                    LinkedHashMap::new,
+                    toList()));
+    indexActionsPerGroup.forEach(
+        (indexActionGroupId, groupIndexActions) -> {
+          IndexActionGroup indexActionGroup = groupIndexActions.get(0).getIndexActionGroup();
+          boolean finished =
+              groupIndexActions.stream()
+                  .allMatch(indexAction -> indexAction.getIndexStatus() == FINISHED);
+          if (finished && groupIndexActions.size() == indexActionGroup.getCount()) {
+            dataService.delete(INDEX_ACTION, groupIndexActions.stream());
+            dataService.deleteById(INDEX_ACTION_GROUP, indexActionGroupId);
+          }
+        });
   }
 
   /**
@@ -193,15 +422,49 @@ public class IndexJobService {
     }
   }
 
-  /** Retrieves the query to get all index actions sorted */
-  static Query<IndexAction> createQueryGetAllIndexActions(String transactionId) {
-    QueryRule rule = new QueryRule(INDEX_ACTION_GROUP_ATTR, EQUALS, transactionId);
-    QueryImpl<IndexAction> q = new QueryImpl<>(rule);
-    q.setSort(new Sort(ACTION_ORDER));
-    return q;
+  /**
+   * Indexes the entities that exist in a single bulk request and deletes the documents of the
+   * entities that no longer exist.
+   */
+  private void rebuildIndexEntities(String entityTypeId, Collection<String> untypedEntityIds) {
+    LOG.trace("Indexing [{}].{}... ", entityTypeId, untypedEntityIds);
+
+    EntityType entityType = dataService.getEntityType(entityTypeId);
+    if (entityType == null) {
+      throw new MolgenisDataException("Unknown EntityType for entityTypeId: " + entityTypeId);
+    }
+    Attribute idAttribute = entityType.getIdAttribute();
+    List<Object> entityIds =
+        untypedEntityIds.stream()
+            .map(untypedEntityId -> getTypedValue(untypedEntityId, idAttribute))
+            .collect(toList());
+
+    if (!indexService.hasIndex(entityType)) {
+      LOG.debug("Create mapping of repository [{}] because it was not exist yet", entityTypeId);
+      indexService.createIndex(entityType);
+    }
+
+    Set<Object> existingEntityIds = new HashSet<>();
+    Stream<Entity> entities =
+        dataService
+            .findAll(entityTypeId, entityIds.stream())
+            .filter(entity -> existingEntityIds.add(entity.getIdValue()));
+    long nrIndexed = indexService.index(entityType, entities);
+    LOG.debug("Indexed {} entities of [{}].", nrIndexed, entityTypeId);
+
+    List<Object> deletedEntityIds =
+        entityIds.stream().filter(id -> !existingEntityIds.contains(id)).collect(toList());
+    if (!deletedEntityIds.isEmpty()) {
+      LOG.debug("Index delete {} entities of [{}].", deletedEntityIds.size(), entityTypeId);
+      indexService.deleteAll(entityType, deletedEntityIds.stream());
+    }
   }
 
-  private EntityType getEntityType(IndexAction indexAction) {
-    return entityTypeFactory.create(indexAction.getEntityTypeId());
+  /** Retrieves the query to get all pending index actions sorted */
+  static Query<IndexAction> createQueryGetPendingIndexActions() {
+    QueryRule rule = new QueryRule(INDEX_STATUS, EQUALS, PENDING);
+    QueryImpl<IndexAction> q = new QueryImpl<>(rule);
+    q.setSort(new Sort(CREATION_DATE_TIME).on(ACTION_ORDER));
+    return q;
   }
 }
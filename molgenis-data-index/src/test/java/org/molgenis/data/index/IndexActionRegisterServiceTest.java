@@ -1,6 +1,7 @@
 package org.molgenis.data.index;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -54,7 +55,10 @@ class IndexActionRegisterServiceTest extends AbstractMockitoTest {
         TransactionConstants.TRANSACTION_ID_RESOURCE_NAME, "1");
     indexActionRegisterServiceImpl =
         new IndexActionRegisterServiceImpl(
-            dataService, indexActionFactory, indexActionGroupFactory, new IndexingStrategy());
+            dataService,
+            indexActionFactory,
+            indexActionGroupFactory,
+            new IndexingStrategy(dataService, emptyList(), 0.1));
   }
 
   @AfterEach
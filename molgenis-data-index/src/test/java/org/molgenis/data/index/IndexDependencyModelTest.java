@@ -1,6 +1,7 @@
 package org.molgenis.data.index;
 
 import static com.google.common.collect.ImmutableSet.of;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
@@ -107,6 +108,23 @@ class IndexDependencyModelTest extends AbstractMockitoTest {
     assertEquals(of(), dependencies);
   }
 
+  @Test
+  void testGetReferencingAttributes() {
+    when(entity0.getId()).thenReturn("0");
+    when(entity1.getId()).thenReturn("1");
+    Attribute refAttribute = Mockito.mock(Attribute.class);
+    when(refAttribute.hasRefEntity()).thenReturn(true);
+    when(refAttribute.getRefEntity()).thenReturn(entity0);
+    Attribute attribute = Mockito.mock(Attribute.class);
+    when(entity1.getAtomicAttributes()).thenReturn(ImmutableList.of(refAttribute, attribute));
+
+    IndexDependencyModel dependencyModel =
+        new IndexDependencyModel(ImmutableList.of(entity0, entity1));
+    assertEquals(
+        List.of(refAttribute),
+        dependencyModel.getReferencingAttributes("1", "0").collect(toList()));
+  }
+
   private void addReferences(EntityType referringEntity, List<EntityType> refEntities) {
     ImmutableList.Builder<Attribute> attributes = ImmutableList.builder();
 
@@ -2,6 +2,7 @@ package org.molgenis.data.index;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
 import static java.util.Collections.singletonList;
 import static java.util.EnumSet.allOf;
 import static java.util.EnumSet.of;
@@ -23,6 +24,7 @@ import static org.molgenis.data.QueryRule.Operator.FUZZY_MATCH;
 import static org.molgenis.data.QueryRule.Operator.IN;
 import static org.molgenis.data.QueryRule.Operator.LESS;
 import static org.molgenis.data.QueryRule.Operator.OR;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.RepositoryCapability.AGGREGATEABLE;
 import static org.molgenis.data.RepositoryCapability.MANAGABLE;
 import static org.molgenis.data.RepositoryCapability.QUERYABLE;
@@ -36,6 +38,7 @@ import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.molgenis.data.AclFilter;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
@@ -51,6 +54,7 @@ import org.molgenis.data.index.job.IndexJobScheduler;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.AggregateQueryImpl;
+import org.molgenis.data.support.QueryImpl;
 
 class IndexedRepositoryDecoratorTest {
   private IndexedRepositoryDecorator indexedRepositoryDecorator;
@@ -143,6 +147,44 @@ class IndexedRepositoryDecoratorTest {
     verify(searchService).aggregate(repositoryEntityType, aggregateQuery);
   }
 
+  @Test
+  void aggregateDelegate() {
+    when(delegateRepository.getCapabilities())
+        .thenReturn(EnumSet.of(QUERYABLE, AGGREGATEABLE, MANAGABLE));
+    Attribute xAttr = mock(Attribute.class);
+    Attribute yAttr = mock(Attribute.class);
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(xAttr).attrY(yAttr).query(query);
+    AggregateResult aggregateResult = mock(AggregateResult.class);
+    when(delegateRepository.aggregate(aggregateQuery)).thenReturn(aggregateResult);
+
+    assertEquals(aggregateResult, indexedRepositoryDecorator.aggregate(aggregateQuery));
+    verifyZeroInteractions(searchService);
+  }
+
+  @Test
+  void aggregateDelegateUnsupportedQuery() {
+    when(delegateRepository.getCapabilities())
+        .thenReturn(EnumSet.of(QUERYABLE, AGGREGATEABLE, MANAGABLE));
+    Attribute xAttr = mock(Attribute.class);
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(xAttr).query(unsupportedQuery);
+
+    indexedRepositoryDecorator.aggregate(aggregateQuery);
+    verify(searchService).aggregate(repositoryEntityType, aggregateQuery);
+    verify(delegateRepository, never()).aggregate(aggregateQuery);
+  }
+
+  @Test
+  void aggregateDelegateComputedAttribute() {
+    when(delegateRepository.getCapabilities())
+        .thenReturn(EnumSet.of(QUERYABLE, AGGREGATEABLE, MANAGABLE));
+    Attribute xAttr = when(mock(Attribute.class).hasExpression()).thenReturn(true).getMock();
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(xAttr);
+
+    indexedRepositoryDecorator.aggregate(aggregateQuery);
+    verify(searchService).aggregate(repositoryEntityType, aggregateQuery);
+    verify(delegateRepository, never()).aggregate(aggregateQuery);
+  }
+
   @Test
   void aggregateUnknownIndexExceptionRecoverable() {
     AggregateQuery aggregateQuery = mock(AggregateQuery.class);
@@ -381,6 +423,49 @@ class IndexedRepositoryDecoratorTest {
     verify(delegateRepository).findAll(any(Stream.class), isNull());
   }
 
+  @Test
+  void findAllQueryUnsupportedPermitted() {
+    AclFilter aclFilter = AclFilter.create("entity-entity", "user", emptySet(), 1);
+    QueryImpl<Entity> permittedQuery = new QueryImpl<>();
+    permittedQuery.search("term");
+    permittedQuery.and();
+    permittedQuery.addRule(new QueryRule(PERMITTED, aclFilter));
+    permittedQuery.setOffset(1);
+
+    when(searchService.search(repositoryEntityType, new QueryImpl<>().search("term")))
+        .thenReturn(Stream.of("id0", "id1", "id2"));
+    QueryImpl<Entity> delegateQuery = new QueryImpl<>();
+    delegateQuery.in(idAttrName, asList("id0", "id1", "id2"));
+    delegateQuery.and();
+    delegateQuery.addRule(new QueryRule(PERMITTED, aclFilter));
+    Entity entity0 = when(mock(Entity.class).getIdValue()).thenReturn("id0").getMock();
+    Entity entity2 = when(mock(Entity.class).getIdValue()).thenReturn("id2").getMock();
+    when(delegateRepository.findAll(delegateQuery)).thenReturn(Stream.of(entity2, entity0));
+
+    assertEquals(
+        singletonList(entity2),
+        indexedRepositoryDecorator.findAll(permittedQuery).collect(toList()));
+  }
+
+  @Test
+  void countQueryUnsupportedPermitted() {
+    AclFilter aclFilter = AclFilter.create("entity-entity", "user", emptySet(), 1);
+    QueryImpl<Entity> permittedQuery = new QueryImpl<>();
+    permittedQuery.addRule(new QueryRule(PERMITTED, aclFilter));
+    permittedQuery.and();
+    permittedQuery.search("term");
+
+    when(searchService.search(repositoryEntityType, new QueryImpl<>().search("term")))
+        .thenReturn(Stream.of("id0", "id1"));
+    QueryImpl<Entity> delegateQuery = new QueryImpl<>();
+    delegateQuery.in(idAttrName, asList("id0", "id1"));
+    delegateQuery.and();
+    delegateQuery.addRule(new QueryRule(PERMITTED, aclFilter));
+    when(delegateRepository.count(delegateQuery)).thenReturn(1L);
+
+    assertEquals(1L, indexedRepositoryDecorator.count(permittedQuery));
+  }
+
   @SuppressWarnings("unchecked")
   @Test
   void findAllUnknownIndexExceptionRecoverable() {
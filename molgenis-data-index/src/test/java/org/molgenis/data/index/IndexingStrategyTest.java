@@ -4,30 +4,46 @@ import static com.google.common.collect.ImmutableSet.of;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.index.Impact.createSingleEntityImpact;
 import static org.molgenis.data.index.Impact.createWholeRepositoryImpact;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityCountEstimator;
+import org.molgenis.data.Query;
 import org.molgenis.data.index.config.IndexTestConfig;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.test.AbstractMockitoTest;
 import org.springframework.test.context.ContextConfiguration;
 
 @ContextConfiguration(classes = {IndexTestConfig.class})
 class IndexingStrategyTest extends AbstractMockitoTest {
   @Mock private IndexDependencyModel dependencyModel;
+  @Mock private DataService dataService;
+  @Mock private EntityCountEstimator entityCountEstimator;
 
   IndexingStrategy indexingStrategy;
 
   @BeforeEach
   private void beforeMethod() {
-    indexingStrategy = new IndexingStrategy();
+    indexingStrategy = new IndexingStrategy(dataService, List.of(entityCountEstimator), 0.1);
     reset(dependencyModel);
   }
 
@@ -40,16 +56,108 @@ class IndexingStrategyTest extends AbstractMockitoTest {
   void testDetermineImpact() {
     Impact indexAction = createSingleEntityImpact("A", "id");
     Set<Impact> registeredIndexActions = singleton(indexAction);
-    when(dependencyModel.getEntityTypesDependentOn("A")).thenReturn(Stream.of("A", "B", "C"));
+    setUpReferences();
+    when(dataService.count("B")).thenReturn(100L);
+    when(dataService.count("C")).thenReturn(100L);
+    Entity entityB = mock(Entity.class);
+    when(entityB.getIdValue()).thenReturn("b0");
+    when(dataService.findAll(eq("B"), ArgumentMatchers.<Query<Entity>>any()))
+        .thenReturn(Stream.of(entityB));
+    Entity entityC = mock(Entity.class);
+    when(entityC.getIdValue()).thenReturn("c0");
+    when(dataService.findAll(eq("C"), ArgumentMatchers.<Query<Entity>>any()))
+        .thenReturn(Stream.of(entityC));
+
     Set<Impact> actual = indexingStrategy.determineImpact(registeredIndexActions, dependencyModel);
     assertEquals(
         of(
-            createWholeRepositoryImpact("A"),
+            createSingleEntityImpact("A", "id"),
+            createSingleEntityImpact("B", "b0"),
+            createSingleEntityImpact("C", "c0")),
+        actual);
+  }
+
+  @Test
+  void testDetermineImpactTooManyReferencingEntities() {
+    Impact indexAction = createSingleEntityImpact("A", "id");
+    Set<Impact> registeredIndexActions = singleton(indexAction);
+    setUpReferences();
+    when(dataService.count("B")).thenReturn(5L);
+    Entity entityB = mock(Entity.class);
+    when(entityB.getIdValue()).thenReturn("b0");
+    when(dataService.findAll(eq("B"), ArgumentMatchers.<Query<Entity>>any()))
+        .thenReturn(Stream.of(entityB));
+
+    Set<Impact> actual = indexingStrategy.determineImpact(registeredIndexActions, dependencyModel);
+    assertEquals(
+        of(
+            createSingleEntityImpact("A", "id"),
             createWholeRepositoryImpact("B"),
             createWholeRepositoryImpact("C")),
         actual);
   }
 
+  @Test
+  void testDetermineImpactEstimatedCount() {
+    Impact indexAction = createSingleEntityImpact("A", "id");
+    setUpReferences();
+    when(entityCountEstimator.estimateCount(any(), any())).thenReturn(OptionalLong.of(5L));
+    Entity entityB = mock(Entity.class);
+    when(entityB.getIdValue()).thenReturn("b0");
+    when(dataService.findAll(eq("B"), ArgumentMatchers.<Query<Entity>>any()))
+        .thenReturn(Stream.of(entityB));
+
+    Set<Impact> actual = indexingStrategy.determineImpact(singleton(indexAction), dependencyModel);
+    assertEquals(
+        of(
+            createSingleEntityImpact("A", "id"),
+            createWholeRepositoryImpact("B"),
+            createWholeRepositoryImpact("C")),
+        actual);
+    verify(dataService, never()).count("B");
+  }
+
+  @Test
+  void testDetermineImpactMappedBy() {
+    Impact indexAction = createSingleEntityImpact("A", "id");
+    when(dependencyModel.getEntityTypesDependentOn("A")).thenReturn(Stream.of("B", "C"));
+    when(dependencyModel.getIndexingDepth("B")).thenReturn(1);
+    when(dependencyModel.getIndexingDepth("C")).thenReturn(2);
+    when(dependencyModel.getEntityTypesReferencing("A")).thenAnswer(invocation -> Stream.of("B"));
+    when(dependencyModel.getEntityTypesReferencing("B")).thenAnswer(invocation -> Stream.of("C"));
+    Attribute mappedByAttribute = mock(Attribute.class);
+    when(mappedByAttribute.isMappedBy()).thenReturn(true);
+    when(dependencyModel.getReferencingAttributes("B", "A"))
+        .thenAnswer(invocation -> Stream.of(mappedByAttribute));
+
+    Set<Impact> actual = indexingStrategy.determineImpact(singleton(indexAction), dependencyModel);
+    assertEquals(
+        of(
+            createSingleEntityImpact("A", "id"),
+            createWholeRepositoryImpact("B"),
+            createWholeRepositoryImpact("C")),
+        actual);
+    verify(dataService, never()).findAll(eq("B"), ArgumentMatchers.<Query<Entity>>any());
+  }
+
+  /** C references B references A */
+  private void setUpReferences() {
+    when(dependencyModel.getEntityTypesDependentOn("A")).thenReturn(Stream.of("B", "C"));
+    when(dependencyModel.getIndexingDepth("B")).thenReturn(1);
+    when(dependencyModel.getIndexingDepth("C")).thenReturn(2);
+    when(dependencyModel.getEntityTypesReferencing("A")).thenAnswer(invocation -> Stream.of("B"));
+    when(dependencyModel.getEntityTypesReferencing("B")).thenAnswer(invocation -> Stream.of("C"));
+    Attribute refAttribute = mock(Attribute.class);
+    when(refAttribute.getName()).thenReturn("ref");
+    when(dependencyModel.getReferencingAttributes(any(), any()))
+        .thenAnswer(invocation -> Stream.of(refAttribute));
+    Attribute idAttribute = mock(Attribute.class);
+    when(idAttribute.getName()).thenReturn("id");
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getIdAttribute()).thenReturn(idAttribute);
+    when(dataService.getEntityType(any())).thenReturn(entityType);
+  }
+
   @Test
   void testDetermineImpact2() {
     Impact change = createSingleEntityImpact("A", null);
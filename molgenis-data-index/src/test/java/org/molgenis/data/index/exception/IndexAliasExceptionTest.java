@@ -0,0 +1,39 @@
+package org.molgenis.data.index.exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.molgenis.util.exception.CodedRuntimeException;
+import org.molgenis.util.exception.ExceptionMessageTest;
+
+class IndexAliasExceptionTest extends ExceptionMessageTest {
+  @BeforeEach
+  void setUp() {
+    messageSource.addMolgenisNamespaces("index");
+  }
+
+  @ParameterizedTest
+  @MethodSource("languageMessageProvider")
+  @Override
+  protected void testGetLocalizedMessage(String lang, String message) {
+    ExceptionMessageTest.assertExceptionMessageEquals(
+        new IndexAliasException(List.of("index")), lang, message);
+  }
+
+  @Test
+  void testGetMessage() {
+    CodedRuntimeException ex = new IndexAliasException(List.of("index"));
+    assertEquals("indices:index", ex.getMessage());
+  }
+
+  public static Object[][] languageMessageProvider() {
+    return new Object[][] {
+      new Object[] {"en", "Error updating aliases of index 'index'."},
+      new Object[] {"nl", "Fout bij het bijwerken van de aliassen van index 'index'."}
+    };
+  }
+}
@@ -31,6 +31,7 @@ import org.molgenis.data.index.IndexConfig;
 import org.molgenis.data.index.IndexService;
 import org.molgenis.data.index.config.IndexTestConfig;
 import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.CacheInvalidationBus;
 import org.molgenis.data.transaction.TransactionListener;
 import org.molgenis.data.transaction.TransactionManager;
 import org.molgenis.jobs.JobExecutor;
@@ -109,12 +110,14 @@ class IndexJobSchedulerTest extends AbstractMolgenisSpringTest {
 
     @Mock private IndexService indexService;
 
+    @Mock private CacheInvalidationBus cacheInvalidationBus;
+
     Config() {
       org.mockito.MockitoAnnotations.initMocks(this);
     }
 
     private void resetMocks() {
-      reset(jobExecutor, mailSender, transactionManager, indexService);
+      reset(jobExecutor, mailSender, transactionManager, indexService, cacheInvalidationBus);
     }
 
     @Bean
@@ -136,5 +139,10 @@ class IndexJobSchedulerTest extends AbstractMolgenisSpringTest {
     MailSender mailSender() {
       return mailSender;
     }
+
+    @Bean
+    CacheInvalidationBus cacheInvalidationBus() {
+      return cacheInvalidationBus;
+    }
   }
 }
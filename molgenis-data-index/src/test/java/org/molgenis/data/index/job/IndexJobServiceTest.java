@@ -1,15 +1,17 @@
 package org.molgenis.data.index.job;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Stream.empty;
 import static java.util.stream.Stream.of;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -21,13 +23,17 @@ import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION;
 import static org.molgenis.data.index.meta.IndexActionMetadata.IndexStatus.FAILED;
 import static org.molgenis.data.index.meta.IndexActionMetadata.IndexStatus.FINISHED;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.molgenis.data.AbstractMolgenisSpringTest;
@@ -37,6 +43,7 @@ import org.molgenis.data.EntityTestHarness;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.TestHarnessConfig;
+import org.molgenis.data.index.IndexDependencyModel;
 import org.molgenis.data.index.IndexService;
 import org.molgenis.data.index.config.IndexTestConfig;
 import org.molgenis.data.index.meta.IndexAction;
@@ -47,6 +54,8 @@ import org.molgenis.data.index.meta.IndexActionMetadata;
 import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeFactory;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
 import org.molgenis.jobs.Progress;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -69,6 +78,7 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
   @Autowired private EntityTestHarness harness;
   @Autowired private IndexActionFactory indexActionFactory;
   @Autowired private IndexActionGroupFactory indexActionGroupFactory;
+  @Autowired private CacheInvalidationBus cacheInvalidationBus;
 
   @Autowired private EntityTypeFactory entityTypeFactory;
   private final String transactionId = "aabbcc";
@@ -80,7 +90,14 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
   @BeforeEach
   void beforeMethod() {
     config.resetMocks();
-    indexJobService = new IndexJobService(dataService, indexService, entityTypeFactory);
+    indexJobService =
+        new IndexJobService(
+            dataService,
+            indexService,
+            entityTypeFactory,
+            newDirectExecutorService(),
+            cacheInvalidationBus,
+            3);
     indexActionGroup = indexActionGroupFactory.create(transactionId).setCount(0);
     when(dataService.findOneById(INDEX_ACTION_GROUP, transactionId, IndexActionGroup.class))
         .thenReturn(indexActionGroup);
@@ -117,15 +134,15 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
   }
 
   private void mockGetAllIndexActions(Stream<IndexAction> entities) {
-    Query<IndexAction> q = IndexJobService.createQueryGetAllIndexActions(transactionId);
+    Query<IndexAction> q = IndexJobService.createQueryGetPendingIndexActions();
     when(dataService.findAll(INDEX_ACTION, q, IndexAction.class)).thenReturn(entities);
   }
 
   @Test
-  void testCreateQueryGetAllIndexActions() {
-    Query<IndexAction> q = IndexJobService.createQueryGetAllIndexActions("testme");
+  void testCreateQueryGetPendingIndexActions() {
+    Query<IndexAction> q = IndexJobService.createQueryGetPendingIndexActions();
     assertEquals(
-        "rules=['indexActionGroup' = 'testme'], sort=Sort [orders=[Order [attr=actionOrder, direction=ASC]]]",
+        "rules=['indexStatus' = 'PENDING'], sort=Sort [orders=[Order [attr=creationDateTime, direction=ASC], Order [attr=actionOrder, direction=ASC]]]",
         q.toString());
   }
 
@@ -160,7 +177,7 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
     verify(indexService).refreshIndex();
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService, times(2)).update(eq(INDEX_ACTION), Mockito.<Stream<IndexAction>>any());
   }
 
   @Test
@@ -190,7 +207,7 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService, times(2)).update(eq(INDEX_ACTION), Mockito.<Stream<IndexAction>>any());
   }
 
   @Test
@@ -221,7 +238,7 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService, times(2)).update(eq(INDEX_ACTION), Mockito.<Stream<IndexAction>>any());
 
     // make sure both the actions and the action job got deleted
     verify(dataService).delete(eq(INDEX_ACTION), streamCaptor.capture());
@@ -255,7 +272,7 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService, times(2)).update(eq(INDEX_ACTION), Mockito.<Stream<IndexAction>>any());
 
     // make sure both the actions and the action job got deleted
     verify(dataService).delete(eq(INDEX_ACTION), streamCaptor.capture());
@@ -304,7 +321,7 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService, times(2)).update(eq(INDEX_ACTION), Mockito.<Stream<IndexAction>>any());
   }
 
   @Test
@@ -340,6 +357,7 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     indexActionGroup.setCount(3);
 
     MolgenisDataException mde = new MolgenisDataException("Random unrecoverable exception");
+    doThrow(mde).when(indexService).deleteAll(eq(testEntityType), any());
     doThrow(mde).when(indexService).deleteById(testEntityType, "entityId2");
 
     when(dataService.hasRepository("TypeTestRefDynamic")).thenReturn(true);
@@ -359,11 +377,161 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     // Make sure the action status got updated and that the actionJob didn't get deleted
     assertEquals(FINISHED, indexAction1.getIndexStatus());
     assertEquals(FAILED, indexAction2.getIndexStatus());
-    verify(dataService, atLeast(1)).update(INDEX_ACTION, indexAction1);
-    verify(dataService, atLeast(1)).update(INDEX_ACTION, indexAction2);
+    verify(dataService, times(7)).update(eq(INDEX_ACTION), Mockito.<Stream<IndexAction>>any());
     verify(dataService, never()).delete(INDEX_ACTION_GROUP, indexActionGroup);
   }
 
+  @Test
+  void testIndexActionsAlreadyExecuted() {
+    indexActionGroup.setCount(1);
+    mockGetAllIndexActions(empty());
+
+    indexJobService.executeJob(progress, transactionId);
+
+    verify(progress).status("Index actions were already executed by a previous index job");
+    verify(indexService, never()).refreshIndex();
+  }
+
+  @Test
+  void testCoalesceIndexActionsOfMultipleTransactions() {
+    IndexActionGroup otherIndexActionGroup = indexActionGroupFactory.create("ddeeff").setCount(1);
+    IndexAction indexAction = createIndexAction(indexActionGroup, "entityId", 0);
+    IndexAction otherIndexAction = createIndexAction(otherIndexActionGroup, "entityId", 0);
+    mockGetAllIndexActions(of(indexAction, otherIndexAction));
+    indexActionGroup.setCount(1);
+
+    indexJobService.executeJob(progress, transactionId);
+
+    verify(indexService).index(testEntityType, toIndexEntity);
+    verify(progress).progress(0, "Indexing TypeTestRefDynamic.entityId");
+    verify(progress).progress(2, "Executed all index actions, cleaning up the actions...");
+    assertEquals(FINISHED, indexAction.getIndexStatus());
+    assertEquals(FINISHED, otherIndexAction.getIndexStatus());
+    verify(dataService).deleteById(INDEX_ACTION_GROUP, transactionId);
+    verify(dataService).deleteById(INDEX_ACTION_GROUP, "ddeeff");
+  }
+
+  @Test
+  void testPublishIndexedEntityTypesAfterRefresh() {
+    mockGetAllIndexActions(of(createIndexAction(indexActionGroup, "entityId", 0)));
+    indexActionGroup.setCount(1);
+
+    indexJobService.executeJob(progress, transactionId);
+
+    InOrder inOrder = inOrder(indexService, cacheInvalidationBus);
+    inOrder.verify(indexService).refreshIndex();
+    inOrder
+        .verify(cacheInvalidationBus)
+        .publish(CacheInvalidation.create(Set.of("entityType"), Set.of()));
+  }
+
+  @Test
+  void testPublishIndexedEntityTypesAfterFailure() {
+    mockGetAllIndexActions(of(createIndexAction(indexActionGroup, null, 0)));
+    indexActionGroup.setCount(1);
+    doThrow(new MolgenisDataException("delete failed"))
+        .when(dataService)
+        .delete(eq(INDEX_ACTION), Mockito.<Stream<Entity>>any());
+
+    assertThrows(
+        MolgenisDataException.class, () -> indexJobService.executeJob(progress, transactionId));
+
+    verify(cacheInvalidationBus).publish(CacheInvalidation.create(Set.of("entityType"), Set.of()));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testIndexEntitiesInBulk() {
+    IndexAction indexAction0 = createIndexAction(indexActionGroup, "0", 0);
+    IndexAction indexAction1 = createIndexAction(indexActionGroup, "1", 1);
+    mockGetAllIndexActions(of(indexAction0, indexAction1));
+    indexActionGroup.setCount(2);
+    when(dataService.findAll(eq("entityType"), Mockito.<Stream<Object>>any()))
+        .thenReturn(of(toIndexEntity));
+    when(indexService.index(eq(testEntityType), Mockito.<Stream<Entity>>any()))
+        .thenAnswer(invocation -> invocation.<Stream<Entity>>getArgument(1).count());
+
+    indexJobService.executeJob(progress, transactionId);
+
+    verify(progress).progress(0, "Indexing 2 entities of entityType");
+    ArgumentCaptor<Stream<Object>> idCaptor = ArgumentCaptor.forClass(Stream.class);
+    verify(indexService).deleteAll(eq(testEntityType), idCaptor.capture());
+    assertEquals(List.of("1"), idCaptor.getValue().collect(toList()));
+    verify(indexService, never()).index(any(), any(Entity.class));
+    assertEquals(FINISHED, indexAction0.getIndexStatus());
+    assertEquals(FINISHED, indexAction1.getIndexStatus());
+    verify(dataService).deleteById(INDEX_ACTION_GROUP, transactionId);
+  }
+
+  @Test
+  void testCoalesceSingleEntityActionsAboveThreshold() {
+    mockGetAllIndexActions(
+        of(
+            createIndexAction(indexActionGroup, "entityId1", 0),
+            createIndexAction(indexActionGroup, "entityId2", 1),
+            createIndexAction(indexActionGroup, "entityId3", 2),
+            createIndexAction(indexActionGroup, "entityId4", 3)));
+    indexActionGroup.setCount(4);
+
+    indexJobService.executeJob(progress, transactionId);
+
+    verify(indexService).rebuildIndex(any());
+    verify(indexService, never()).index(any(), any(Entity.class));
+    verify(indexService, never()).deleteById(any(), any());
+    verify(progress).progress(0, "Indexing TypeTestRefDynamic");
+  }
+
+  @Test
+  void testCoalesceWholeRepositoryAndSingleEntityActions() {
+    IndexAction indexAction = createIndexAction(indexActionGroup, "entityId", 0);
+    IndexAction wholeRepositoryIndexAction = createIndexAction(indexActionGroup, null, 1);
+    mockGetAllIndexActions(of(indexAction, wholeRepositoryIndexAction));
+    indexActionGroup.setCount(2);
+
+    indexJobService.executeJob(progress, transactionId);
+
+    verify(indexService).rebuildIndex(any());
+    verify(indexService, never()).index(any(), any(Entity.class));
+    assertEquals(FINISHED, indexAction.getIndexStatus());
+    assertEquals(FINISHED, wholeRepositoryIndexAction.getIndexStatus());
+    verify(dataService).deleteById(INDEX_ACTION_GROUP, transactionId);
+  }
+
+  @Test
+  void testCreateIndexWaves() {
+    IndexDependencyModel dependencyModel = mock(IndexDependencyModel.class);
+    when(dependencyModel.getEntityTypesDependentOn("A")).thenReturn(of("B", "C", "D"));
+    when(dependencyModel.getEntityTypesDependentOn("B")).thenReturn(of("C"));
+    when(dependencyModel.getEntityTypesDependentOn("C")).thenReturn(empty());
+    when(dependencyModel.getEntityTypesDependentOn("E")).thenReturn(empty());
+
+    assertEquals(
+        List.of(List.of("A", "E"), List.of("B"), List.of("C")),
+        IndexJobService.createIndexWaves(List.of("C", "B", "A", "E"), dependencyModel));
+  }
+
+  @Test
+  void testCreateIndexWavesCyclicDependencies() {
+    IndexDependencyModel dependencyModel = mock(IndexDependencyModel.class);
+    when(dependencyModel.getEntityTypesDependentOn("A")).thenReturn(of("A", "B", "C"));
+    when(dependencyModel.getEntityTypesDependentOn("B")).thenReturn(of("A", "B", "C"));
+    when(dependencyModel.getEntityTypesDependentOn("C")).thenReturn(empty());
+
+    assertEquals(
+        List.of(List.of("B"), List.of("A"), List.of("C")),
+        IndexJobService.createIndexWaves(List.of("B", "A", "C"), dependencyModel));
+  }
+
+  private IndexAction createIndexAction(IndexActionGroup group, String entityId, int actionOrder) {
+    return indexActionFactory
+        .create()
+        .setIndexActionGroup(group)
+        .setEntityTypeId("entityType")
+        .setEntityId(entityId)
+        .setActionOrder(actionOrder)
+        .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+  }
+
   @SuppressWarnings("java:S5979") // mocks are initialized
   @Configuration
   @Import({IndexTestConfig.class, TestHarnessConfig.class})
@@ -374,6 +542,7 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     @Mock private Authentication authentication;
     @Mock private IndexService indexService;
     @Mock private MetaDataService mds;
+    @Mock private CacheInvalidationBus cacheInvalidationBus;
 
     public Config() {
       org.mockito.MockitoAnnotations.initMocks(this);
@@ -399,8 +568,13 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
       return mds;
     }
 
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus() {
+      return cacheInvalidationBus;
+    }
+
     void resetMocks() {
-      reset(progress, authentication, indexService, mds);
+      reset(progress, authentication, indexService, mds, cacheInvalidationBus);
     }
   }
 }
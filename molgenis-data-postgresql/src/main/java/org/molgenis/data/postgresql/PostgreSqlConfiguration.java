@@ -13,6 +13,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 @Configuration
 public class PostgreSqlConfiguration {
   private final PostgreSqlEntityFactory postgreSqlEntityFactory;
+  private final PostgreSqlQueryTemplateCache queryTemplateCache;
   private final DataSource dataSource;
   private final DataService dataService;
   private final PostgreSqlExceptionTranslator postgreSqlExceptionTranslator;
@@ -20,11 +21,13 @@ public class PostgreSqlConfiguration {
 
   public PostgreSqlConfiguration(
       PostgreSqlEntityFactory postgreSqlEntityFactory,
+      PostgreSqlQueryTemplateCache queryTemplateCache,
       DataSource dataSource,
       DataService dataService,
       PostgreSqlExceptionTranslator postgreSqlExceptionTranslator,
       EntityTypeRegistry entityTypeRegistry) {
     this.postgreSqlEntityFactory = requireNonNull(postgreSqlEntityFactory);
+    this.queryTemplateCache = requireNonNull(queryTemplateCache);
     this.dataSource = requireNonNull(dataSource);
     this.dataService = requireNonNull(dataService);
     this.postgreSqlExceptionTranslator = requireNonNull(postgreSqlExceptionTranslator);
@@ -42,7 +45,8 @@ public class PostgreSqlConfiguration {
   public RepositoryCollection postgreSqlRepositoryCollection() {
     return new PostgreSqlRepositoryCollectionDecorator(
         new PostgreSqlRepositoryCollection(
-            postgreSqlEntityFactory, dataSource, jdbcTemplate(), dataService),
-        entityTypeRegistry);
+            postgreSqlEntityFactory, queryTemplateCache, dataSource, jdbcTemplate(), dataService),
+        entityTypeRegistry,
+        queryTemplateCache);
   }
 }
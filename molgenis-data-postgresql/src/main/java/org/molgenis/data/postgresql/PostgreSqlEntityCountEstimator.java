@@ -0,0 +1,107 @@
+package org.molgenis.data.postgresql;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.QueryUtils.containsAnyOperator;
+import static org.molgenis.data.QueryUtils.containsComputedAttribute;
+import static org.molgenis.data.QueryUtils.containsNestedQueryRuleField;
+import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getTableName;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSelectIds;
+import static org.molgenis.data.postgresql.PostgreSqlRepository.QUERY_OPERATORS;
+import static org.molgenis.data.postgresql.PostgreSqlRepositoryCollection.POSTGRESQL;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityCountEstimator;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule.Operator;
+import org.molgenis.data.meta.model.EntityType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Estimates the number of rows of entity type tables that match a query.
+ *
+ * <p>The number of rows of a table is read from the planner statistics in <code>pg_class</code>,
+ * which are updated by (auto)vacuum and analyze. Tables that were never analyzed don't have an
+ * estimate.
+ *
+ * <p>Rows that match query rules are counted up to a threshold, so that the cost of counting is
+ * bounded. Below the threshold the count is exact, above the threshold the row estimate of the
+ * query plan is used with the threshold as lower bound. Queries that PostgreSQL can't answer, e.g.
+ * search queries that are answered by the index, aren't estimated.
+ */
+@Component
+class PostgreSqlEntityCountEstimator implements EntityCountEstimator {
+  private static final String SQL_ESTIMATE_COUNT =
+      "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+  private static final Pattern PLAN_ROWS_PATTERN = Pattern.compile(" rows=(\\d+) ");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Set<Operator> unsupportedOperators;
+  private final int countThreshold;
+
+  /** @param countThreshold number of rows matching query rules up to which rows are counted */
+  PostgreSqlEntityCountEstimator(
+      JdbcTemplate jdbcTemplate, @Value("${count.estimate.threshold:10000}") int countThreshold) {
+    this.jdbcTemplate = requireNonNull(jdbcTemplate);
+    this.unsupportedOperators = EnumSet.complementOf(EnumSet.copyOf(QUERY_OPERATORS));
+    this.countThreshold = countThreshold;
+  }
+
+  @Override
+  public OptionalLong estimateCount(EntityType entityType, Query<Entity> query) {
+    if (!POSTGRESQL.equals(entityType.getBackend()) || entityType.isAbstract()) {
+      return OptionalLong.empty();
+    }
+    if (query.getRules().isEmpty()) {
+      return estimateTableCount(entityType);
+    }
+    if (containsAnyOperator(query, unsupportedOperators)
+        || containsNestedQueryRuleField(query)
+        || containsComputedAttribute(query.getRules(), entityType)) {
+      return OptionalLong.empty();
+    }
+    return estimateQueryCount(entityType, query);
+  }
+
+  private OptionalLong estimateTableCount(EntityType entityType) {
+    List<Long> estimates =
+        jdbcTemplate.queryForList(SQL_ESTIMATE_COUNT, Long.class, getTableName(entityType));
+    Long estimate = !estimates.isEmpty() ? estimates.get(0) : null;
+    // reltuples is -1 (PostgreSQL 14+) or 0 for tables that were never analyzed
+    return estimate != null && estimate > 0 ? OptionalLong.of(estimate) : OptionalLong.empty();
+  }
+
+  private OptionalLong estimateQueryCount(EntityType entityType, Query<Entity> query) {
+    List<Object> parameters = new ArrayList<>();
+    String sqlSelectIds = getSqlSelectIds(entityType, query, parameters);
+    Object[] args = parameters.toArray();
+
+    String sqlCount =
+        "SELECT COUNT(*) FROM (" + sqlSelectIds + " LIMIT " + countThreshold + ") AS bounded";
+    Long count = jdbcTemplate.queryForObject(sqlCount, args, Long.class);
+    if (count == null) {
+      return OptionalLong.empty();
+    }
+    if (count < countThreshold) {
+      return OptionalLong.of(count);
+    }
+
+    List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sqlSelectIds, args, String.class);
+    long planRows = 0;
+    if (!plan.isEmpty()) {
+      Matcher matcher = PLAN_ROWS_PATTERN.matcher(plan.get(0));
+      if (matcher.find()) {
+        planRows = Long.parseLong(matcher.group(1));
+      }
+    }
+    return OptionalLong.of(Math.max(countThreshold, planRows));
+  }
+}
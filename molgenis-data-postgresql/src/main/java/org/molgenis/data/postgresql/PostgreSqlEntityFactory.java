@@ -4,7 +4,9 @@ import static java.time.ZoneOffset.UTC;
 import static java.util.Arrays.asList;
 import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.meta.AttributeType.ONE_TO_MANY;
 import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getColumnName;
+import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
 import static org.molgenis.data.util.MolgenisDateFormat.parseInstant;
 import static org.molgenis.data.util.MolgenisDateFormat.parseLocalDate;
 
@@ -48,6 +50,23 @@ class PostgreSqlEntityFactory {
     return entityManager.getReferences(refEntityType, ids);
   }
 
+  /**
+   * Maps a result set column that contains values of the given attribute to an aggregate label.
+   * Values of reference attributes are mapped to (lazy) entities. For multiple reference attributes
+   * the column is expected to contain a single referenced entity id.
+   */
+  Object getAggregateLabel(
+      ResultSet resultSet, EntityType entityType, Attribute attr, String colName)
+      throws SQLException {
+    EntityMapper entityMapper = new EntityMapper(entityManager, entityType, null);
+    if (isMultipleReferenceType(attr) || attr.getDataType() == ONE_TO_MANY) {
+      EntityType refEntityType = attr.getRefEntity();
+      Object refIdValue = entityMapper.mapValue(resultSet, refEntityType.getIdAttribute(), colName);
+      return refIdValue != null ? entityManager.getReference(refEntityType, refIdValue) : null;
+    }
+    return entityMapper.mapValue(resultSet, attr, colName);
+  }
+
   static class EntityMapper implements RowMapper<Entity> {
     private final EntityManager entityManager;
     private final EntityType entityType;
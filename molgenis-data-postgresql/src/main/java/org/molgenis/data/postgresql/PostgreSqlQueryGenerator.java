@@ -3,6 +3,7 @@ package org.molgenis.data.postgresql;
 import static com.google.common.collect.Streams.stream;
 import static java.lang.String.format;
 import static java.time.ZoneOffset.UTC;
+import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.IntStream.range;
@@ -13,6 +14,7 @@ import static org.molgenis.data.QueryRule.Operator.LESS;
 import static org.molgenis.data.QueryRule.Operator.LESS_EQUAL;
 import static org.molgenis.data.QueryRule.Operator.LIKE;
 import static org.molgenis.data.QueryRule.Operator.NESTED;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.QueryRule.Operator.RANGE;
 import static org.molgenis.data.QueryUtils.isTaggedType;
 import static org.molgenis.data.meta.AttributeType.BOOL;
@@ -34,6 +36,7 @@ import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.ColumnMode.I
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getPersistedAttributes;
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getTableAttributes;
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.isPersistedInPostgreSql;
+import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.isTableAttribute;
 import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isSingleReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isStringType;
@@ -44,20 +47,25 @@ import java.text.MessageFormat;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
+import org.molgenis.data.AclFilter;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Sort;
 import org.molgenis.data.UnknownAttributeException;
+import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.Attribute;
@@ -82,6 +90,9 @@ class PostgreSqlQueryGenerator {
       "Can't use %s without specifying an attribute";
 
   static final String ERR_CODE_READONLY_VIOLATION = "23506";
+  static final String AGGREGATE_X_COLUMN = "x";
+  static final String AGGREGATE_Y_COLUMN = "y";
+  static final String AGGREGATE_COUNT_COLUMN = "n";
   public static final int MAX_VARCHAR_LENGTH = 10 * 1024 * 1024;
 
   private PostgreSqlQueryGenerator() {}
@@ -453,6 +464,29 @@ class PostgreSqlQueryGenerator {
         + ") VALUES (?,?,?)";
   }
 
+  static String getSqlCopy(EntityType entityType) {
+    return "COPY "
+        + getTableName(entityType)
+        + " ("
+        + getTableAttributes(entityType)
+            .map(PostgreSqlNameGenerator::getColumnName)
+            .collect(joining(", "))
+        + ") FROM STDIN WITH (FORMAT csv)";
+  }
+
+  static String getSqlCopyJunction(EntityType entityType, Attribute attr) {
+    String junctionTableName = getJunctionTableName(entityType, attr);
+    return "COPY "
+        + junctionTableName
+        + " ("
+        + getJunctionTableOrderColumnName()
+        + ','
+        + getColumnName(entityType.getIdAttribute())
+        + ','
+        + getColumnName(attr)
+        + ") FROM STDIN WITH (FORMAT csv)";
+  }
+
   static String getSqlDeleteAll(EntityType entityType) {
     return "DELETE FROM " + getTableName(entityType);
   }
@@ -544,6 +578,93 @@ class PostgreSqlQueryGenerator {
 
   static <E extends Entity> String getSqlSelect(
       EntityType entityType, Query<E> q, List<Object> parameters, boolean includeMrefs) {
+    return getSqlSelect(entityType, q, parameters, includeMrefs, null);
+  }
+
+  /**
+   * Produces SQL to select the entities that match the given query. If a previous entity is given
+   * the query offset is ignored and the rows directly following the previous entity in keyset sort
+   * order are selected (keyset or seek pagination).
+   *
+   * @param entityType entity meta data
+   * @param q query
+   * @param parameters prepared statement parameters
+   * @param includeMrefs whether to select values of attributes stored in junction tables
+   * @param previous entity after which to start selecting or <code>null</code> to use the query
+   *     offset
+   * @return SQL string
+   * @see #getKeysetSort(EntityType, Query)
+   */
+  static <E extends Entity> String getSqlSelect(
+      EntityType entityType,
+      Query<E> q,
+      List<Object> parameters,
+      boolean includeMrefs,
+      @Nullable E previous) {
+    return getSqlSelect(
+        entityType, q, parameters, getSqlSelectTemplate(entityType, q, includeMrefs), previous);
+  }
+
+  /**
+   * Produces SQL to select the entities that match the given query based on a previously generated
+   * template for queries of the same shape.
+   *
+   * @param entityType entity meta data
+   * @param q query
+   * @param parameters prepared statement parameters
+   * @param template select template for the query, see {@link #getSqlSelectTemplate(EntityType,
+   *     Query, boolean)}
+   * @param previous entity after which to start selecting or <code>null</code> to use the query
+   *     offset
+   * @return SQL string
+   */
+  static <E extends Entity> String getSqlSelect(
+      EntityType entityType,
+      Query<E> q,
+      List<Object> parameters,
+      SqlSelectTemplate template,
+      @Nullable E previous) {
+    StringBuilder result = new StringBuilder(template.getSelectFrom());
+    // where
+    String where = getSqlWhere(entityType, q, parameters, new AtomicInteger());
+    if (previous != null) {
+      Sort keysetSort = getKeysetSort(entityType, q);
+      if (keysetSort == null) {
+        throw new MolgenisDataException(
+            format("Query [%s] does not support keyset pagination", q.toString()));
+      }
+      String keysetWhere = getSqlKeysetWhere(entityType, keysetSort, previous, parameters);
+      where = where.isEmpty() ? keysetWhere : '(' + where + ") AND " + keysetWhere;
+    }
+    if (where.length() > 0) {
+      result.append(" WHERE ").append(where);
+    }
+    // order by
+    result.append(' ').append(template.getOrderBy());
+
+    // limit
+    if (q.getPageSize() > 0) {
+      result.append(" LIMIT ").append(q.getPageSize());
+    }
+    if (previous == null && q.getOffset() > 0) {
+      result.append(" OFFSET ").append(q.getOffset());
+    }
+
+    return result.toString().trim();
+  }
+
+  /**
+   * Produces the parts of the SQL to select the entities that match the given query that do not
+   * depend on query rule values. The template only depends on the entity type, the query fetch, the
+   * query sort and the fields of the query rules.
+   *
+   * @param entityType entity meta data
+   * @param q query
+   * @param includeMrefs whether to select values of attributes stored in junction tables
+   * @return select template
+   */
+  static <E extends Entity> SqlSelectTemplate getSqlSelectTemplate(
+      EntityType entityType, Query<E> q, boolean includeMrefs) {
     final StringBuilder select = new StringBuilder("SELECT ");
     if (isDistinctSelectRequired(entityType, q)) {
       select.append("DISTINCT ");
@@ -616,24 +737,8 @@ class PostgreSqlQueryGenerator {
             });
 
     // from
-    StringBuilder result = new StringBuilder().append(select).append(getSqlFrom(entityType, q));
-    // where
-    String where = getSqlWhere(entityType, q, parameters, new AtomicInteger());
-    if (where.length() > 0) {
-      result.append(" WHERE ").append(where);
-    }
-    // order by
-    result.append(' ').append(getSqlSort(entityType, q));
-
-    // limit
-    if (q.getPageSize() > 0) {
-      result.append(" LIMIT ").append(q.getPageSize());
-    }
-    if (q.getOffset() > 0) {
-      result.append(" OFFSET ").append(q.getOffset());
-    }
-
-    return result.toString().trim();
+    select.append(getSqlFrom(entityType, q));
+    return new SqlSelectTemplate(select.toString(), getSqlSort(entityType, q));
   }
 
   static String getSqlUpdate(EntityType entityType) {
@@ -690,6 +795,147 @@ class PostgreSqlQueryGenerator {
     return sqlBuilder.toString();
   }
 
+  /**
+   * Produces SQL to select the ids of the entities that match the query rules. Offset, page size,
+   * sort and fetch of the query are ignored.
+   *
+   * @param q query
+   * @param parameters prepared statement parameters
+   * @return SQL string
+   */
+  static <E extends Entity> String getSqlSelectIds(
+      EntityType entityType, Query<E> q, List<Object> parameters) {
+    StringBuilder sqlBuilder = new StringBuilder("SELECT ");
+    if (isDistinctSelectRequired(entityType, q)) {
+      sqlBuilder.append("DISTINCT ");
+    }
+    sqlBuilder
+        .append("this.")
+        .append(getColumnName(entityType.getIdAttribute()))
+        .append(getSqlFrom(entityType, q));
+
+    List<QueryRule> queryRules = q.getRules();
+    if (queryRules != null && !queryRules.isEmpty()) {
+      String where = getSqlWhere(entityType, q, parameters, new AtomicInteger());
+      sqlBuilder.append(" WHERE ").append(where);
+    }
+    return sqlBuilder.toString();
+  }
+
+  /**
+   * Produces SQL to count the entities that match the aggregate query grouped by the values of
+   * attribute x and, if specified, attribute y. Values of multiple reference attributes are read
+   * from their junction table or referenced table, each value forms a separate group. If a distinct
+   * attribute is specified the number of distinct values of that attribute is counted instead of
+   * the number of entities.
+   *
+   * @param aggregateQuery aggregate query
+   * @param parameters prepared statement parameters
+   * @return SQL string with columns {@value #AGGREGATE_X_COLUMN}, {@value #AGGREGATE_Y_COLUMN} (if
+   *     attribute y is specified) and {@value #AGGREGATE_COUNT_COLUMN}
+   */
+  static String getSqlAggregate(
+      EntityType entityType, AggregateQuery aggregateQuery, List<Object> parameters) {
+    Attribute xAttr = aggregateQuery.getAttributeX();
+    if (xAttr == null) {
+      throw new MolgenisDataException("Missing aggregate attribute x");
+    }
+    Attribute yAttr = aggregateQuery.getAttributeY();
+    Attribute distinctAttr = aggregateQuery.getAttributeDistinct();
+
+    StringBuilder from =
+        new StringBuilder(" FROM ").append(getTableName(entityType)).append(" AS this");
+    String xColumn = getSqlAggregateColumn(entityType, xAttr, "agg_x", from);
+    String yColumn = yAttr != null ? getSqlAggregateColumn(entityType, yAttr, "agg_y", from) : null;
+
+    String count;
+    if (distinctAttr != null) {
+      count =
+          "COUNT(DISTINCT "
+              + getSqlAggregateColumn(entityType, distinctAttr, "agg_distinct", from)
+              + ')';
+    } else if (isPersistedInOtherTable(xAttr)
+        || (yAttr != null && isPersistedInOtherTable(yAttr))) {
+      count = "COUNT(DISTINCT this." + getColumnName(entityType.getIdAttribute()) + ')';
+    } else {
+      count = "COUNT(*)";
+    }
+
+    StringBuilder sql = new StringBuilder("SELECT ").append(xColumn).append(" AS ");
+    sql.append(AGGREGATE_X_COLUMN).append(", ");
+    if (yColumn != null) {
+      sql.append(yColumn).append(" AS ").append(AGGREGATE_Y_COLUMN).append(", ");
+    }
+    sql.append(count).append(" AS ").append(AGGREGATE_COUNT_COLUMN).append(from);
+
+    Query<Entity> q = aggregateQuery.getQuery();
+    if (q != null && !q.getRules().isEmpty()) {
+      String where = getSqlWhere(entityType, q, parameters, new AtomicInteger());
+      if (getJoinQueryAttrs(entityType, q).isEmpty()) {
+        sql.append(" WHERE ").append(where);
+      } else {
+        // filter in a sub-query so that rows joined for the query rules are not counted
+        String idColumn = getColumnName(entityType.getIdAttribute());
+        sql.append(" WHERE this.")
+            .append(idColumn)
+            .append(" IN (SELECT this.")
+            .append(idColumn)
+            .append(getSqlFrom(entityType, q))
+            .append(" WHERE ")
+            .append(where)
+            .append(')');
+      }
+    }
+
+    // group by column position, column aliases might be ambiguous with table column names
+    sql.append(yColumn != null ? " GROUP BY 1, 2" : " GROUP BY 1");
+    return sql.toString();
+  }
+
+  /**
+   * Returns the column that contains the values of the given attribute. Appends a join to the given
+   * from clause for attributes that are persisted in another table.
+   */
+  private static String getSqlAggregateColumn(
+      EntityType entityType, Attribute attr, String alias, StringBuilder from) {
+    if (attr.hasExpression()) {
+      throw new MolgenisDataException(
+          format("Can't aggregate on computed attribute '%s'", attr.getName()));
+    }
+
+    String idColumn = getColumnName(entityType.getIdAttribute());
+    if (attr.getDataType() == ONE_TO_MANY && attr.isMappedBy()) {
+      EntityType refEntityType = attr.getRefEntity();
+      from.append(" LEFT JOIN ")
+          .append(getTableName(refEntityType))
+          .append(" AS ")
+          .append(alias)
+          .append(" ON (this.")
+          .append(idColumn)
+          .append(" = ")
+          .append(alias)
+          .append('.')
+          .append(getColumnName(attr.getMappedBy()))
+          .append(')');
+      return alias + '.' + getColumnName(refEntityType.getIdAttribute());
+    } else if (isMultipleReferenceType(attr)) {
+      from.append(" LEFT JOIN ")
+          .append(getJunctionTableName(entityType, attr))
+          .append(" AS ")
+          .append(alias)
+          .append(" ON (this.")
+          .append(idColumn)
+          .append(" = ")
+          .append(alias)
+          .append('.')
+          .append(idColumn)
+          .append(')');
+      return alias + '.' + getColumnName(attr);
+    } else {
+      return "this." + getColumnName(attr);
+    }
+  }
+
   private static String getSqlColumn(EntityType entityType, Attribute attr, ColumnMode columnMode) {
     StringBuilder sqlBuilder = new StringBuilder(getColumnName(attr)).append(' ');
 
@@ -736,6 +982,28 @@ class PostgreSqlQueryGenerator {
     EXCLUDE_DEFAULT_CONSTRAINT
   }
 
+  /**
+   * Parts of the SQL to select entities that don't depend on query rule values: the selected
+   * columns, the joined tables and the sort order.
+   */
+  static final class SqlSelectTemplate {
+    private final String selectFrom;
+    private final String orderBy;
+
+    SqlSelectTemplate(String selectFrom, String orderBy) {
+      this.selectFrom = requireNonNull(selectFrom);
+      this.orderBy = requireNonNull(orderBy);
+    }
+
+    String getSelectFrom() {
+      return selectFrom;
+    }
+
+    String getOrderBy() {
+      return orderBy;
+    }
+  }
+
   static boolean generateSqlColumnDefaultConstraint(Attribute attr) {
     return attr.getDefaultValue() != null && !EntityTypeUtils.isMultipleReferenceType(attr);
   }
@@ -1035,6 +1303,20 @@ class PostgreSqlQueryGenerator {
 
           parameters.add(PostgreSqlUtils.getPostgreSqlQueryValue(r.getValue(), attr));
 
+          if (result.length() > 0
+              && !result.toString().endsWith(" OR ")
+              && !result.toString().endsWith(" AND ")
+              && !result.toString().endsWith(" NOT ")) {
+            result.append(" AND ");
+          }
+          result.append(predicate);
+          break;
+        case PERMITTED:
+          if (!(r.getValue() instanceof AclFilter)) {
+            throw new MolgenisDataException(
+                format("%s query rule value is not an [AclFilter]", PERMITTED));
+          }
+          predicate.append(getSqlPermitted(entityType, (AclFilter) r.getValue(), parameters));
           if (result.length() > 0
               && !result.toString().endsWith(" OR ")
               && !result.toString().endsWith(" AND ")
@@ -1062,6 +1344,45 @@ class PostgreSqlQueryGenerator {
     return result.toString().trim();
   }
 
+  /**
+   * Produces SQL to select the rows whose access control list contains a granting entry for one of
+   * the security identities with a permission mask that shares a bit with the requested mask. Row
+   * access control lists only contain granting entries and do not inherit entries from a parent.
+   */
+  private static String getSqlPermitted(
+      EntityType entityType, AclFilter aclFilter, List<Object> parameters) {
+    StringBuilder sql =
+        new StringBuilder(
+            "EXISTS (SELECT 1 FROM acl_object_identity AS acl_oi"
+                + " JOIN acl_class AS acl_c ON acl_oi.object_id_class = acl_c.id"
+                + " JOIN acl_entry AS acl_e ON acl_e.acl_object_identity = acl_oi.id"
+                + " JOIN acl_sid AS acl_s ON acl_e.sid = acl_s.id"
+                + " WHERE acl_c.class = ? AND acl_oi.object_id_identity = CAST(this.");
+    sql.append(getColumnName(entityType.getIdAttribute()))
+        .append(" AS VARCHAR) AND acl_e.granting AND (acl_e.mask & ?) <> 0 AND (");
+    parameters.add(aclFilter.getAclClass());
+    parameters.add(aclFilter.getMask());
+
+    List<String> sidPredicates = new ArrayList<>(2);
+    String principal = aclFilter.getPrincipal();
+    if (principal != null) {
+      sidPredicates.add("(acl_s.principal AND acl_s.sid = ?)");
+      parameters.add(principal);
+    }
+    Set<String> authorities = aclFilter.getAuthorities();
+    if (!authorities.isEmpty()) {
+      sidPredicates.add(
+          "(NOT acl_s.principal AND acl_s.sid IN ("
+              + authorities.stream().map(authority -> "?").collect(joining(", "))
+              + "))");
+      parameters.addAll(authorities);
+    }
+    if (sidPredicates.isEmpty()) {
+      sidPredicates.add("FALSE");
+    }
+    return sql.append(String.join(" OR ", sidPredicates)).append("))").toString();
+  }
+
   private static void getSqlWhereForInQueryRule(
       QueryRule r,
       EntityType entityType,
@@ -1117,6 +1438,29 @@ class PostgreSqlQueryGenerator {
   static <E extends Entity> String getSqlSort(EntityType entityType, Query<E> q) {
     StringBuilder sortSql = new StringBuilder();
 
+    Sort sort = getDeterministicSort(entityType, q);
+    for (Sort.Order o : sort) {
+      Attribute attr = entityType.getAttribute(o.getAttr());
+      sortSql.append(", ").append(getColumnName(attr));
+      if (o.getDirection().equals(Sort.Direction.DESC)) {
+        sortSql.append(" DESC");
+      } else {
+        sortSql.append(" ASC");
+      }
+    }
+
+    if (sortSql.length() > 0) {
+      sortSql = new StringBuilder("ORDER BY ").append(sortSql.substring(2));
+    }
+
+    return sortSql.toString();
+  }
+
+  /**
+   * Returns the query sort extended with the id attribute if the query sort does not constrain the
+   * result rows into a unique order.
+   */
+  private static <E extends Entity> Sort getDeterministicSort(EntityType entityType, Query<E> q) {
     // https://www.postgresql.org/docs/9.6/static/queries-limit.html
     // When using LIMIT, it is important to use an ORDER BY clause that constrains the result rows
     // into a unique order.
@@ -1135,22 +1479,66 @@ class PostgreSqlQueryGenerator {
     } else {
       sort = q.getSort();
     }
+    return sort;
+  }
 
-    for (Sort.Order o : sort) {
-      Attribute attr = entityType.getAttribute(o.getAttr());
-      sortSql.append(", ").append(getColumnName(attr));
-      if (o.getDirection().equals(Sort.Direction.DESC)) {
-        sortSql.append(" DESC");
-      } else {
-        sortSql.append(" ASC");
+  /**
+   * Returns the sort to use for keyset (seek) pagination of the query results or <code>null
+   * </code> if the query results can only be paged using OFFSET. Keyset pagination requires that
+   * all sort attributes are non-nillable columns of the entity table that are sorted in the same
+   * direction and that are included in the query fetch.
+   *
+   * @param entityType entity meta data
+   * @param q query
+   * @return keyset pagination sort or <code>null</code>
+   */
+  @Nullable
+  static <E extends Entity> Sort getKeysetSort(EntityType entityType, Query<E> q) {
+    String idAttributeName = entityType.getIdAttribute().getName();
+    Fetch fetch = q.getFetch();
+
+    Sort sort = getDeterministicSort(entityType, q);
+    Sort.Direction direction = null;
+    for (Sort.Order order : sort) {
+      Attribute attr = entityType.getAttribute(order.getAttr());
+      if (attr == null
+          || attr.getExpression() != null
+          || !isTableAttribute(attr)
+          || (attr.isNillable() && !attr.getName().equals(idAttributeName))
+          || (fetch != null && !fetch.hasField(attr.getName()))) {
+        return null;
+      }
+      if (direction == null) {
+        direction = order.getDirection();
+      } else if (direction != order.getDirection()) {
+        return null;
       }
     }
+    return sort;
+  }
 
-    if (sortSql.length() > 0) {
-      sortSql = new StringBuilder("ORDER BY ").append(sortSql.substring(2));
+  /**
+   * Produces the SQL predicate that selects the rows directly following the given entity in keyset
+   * sort order, e.g. '(this."a", this."id") > (?, ?)'.
+   */
+  private static String getSqlKeysetWhere(
+      EntityType entityType, Sort keysetSort, Entity previous, List<Object> parameters) {
+    StringBuilder columns = new StringBuilder();
+    StringBuilder values = new StringBuilder();
+    Sort.Direction direction = null;
+    for (Sort.Order order : keysetSort) {
+      Attribute attr = entityType.getAttribute(order.getAttr());
+      if (columns.length() > 0) {
+        columns.append(", ");
+        values.append(", ");
+      }
+      columns.append("this.").append(getColumnName(attr));
+      values.append('?');
+      parameters.add(PostgreSqlUtils.getPostgreSqlValue(previous, attr));
+      direction = order.getDirection();
     }
-
-    return sortSql.toString();
+    String operator = direction == Sort.Direction.DESC ? " < " : " > ";
+    return '(' + columns.toString() + ')' + operator + '(' + values + ')';
   }
 
   private static boolean hasUniqueSortAttribute(EntityType entityType, Sort sort) {
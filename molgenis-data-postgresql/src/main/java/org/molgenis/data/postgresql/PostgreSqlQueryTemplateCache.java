@@ -0,0 +1,197 @@
+package org.molgenis.data.postgresql;
+
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.molgenis.data.meta.model.AttributeMetadata.ATTRIBUTE_META_DATA;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSelectTemplate;
+import static org.molgenis.data.transaction.TransactionConstants.TRANSACTION_ID_RESOURCE_NAME;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.Sort;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.postgresql.PostgreSqlQueryGenerator.SqlSelectTemplate;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
+import org.molgenis.data.transaction.CacheInvalidationListener;
+import org.molgenis.data.transaction.TransactionListener;
+import org.molgenis.data.transaction.TransactionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache of the parts of select queries that don't depend on query rule values, so that the SQL of
+ * frequently executed queries such as find by id is not regenerated for every call. Templates are
+ * keyed on entity type, fetch, sort and query rule fields. Query rule values are always bound as
+ * parameters.
+ *
+ * <p>Metadata changes evict all templates once the transaction that made the changes commits, the
+ * transaction itself does not use the cache. Metadata changes committed by other nodes are evicted
+ * through the {@link CacheInvalidationBus}. Each eviction starts a new cache generation and
+ * templates are keyed on the generation in which they were requested, so that a template built from
+ * metadata read before an eviction is never returned after it.
+ */
+@Component
+class PostgreSqlQueryTemplateCache implements TransactionListener, CacheInvalidationListener {
+  private static final Logger LOG = LoggerFactory.getLogger(PostgreSqlQueryTemplateCache.class);
+  private static final String CACHE_NAME = "sql";
+
+  private final Cache<SelectTemplateKey, SqlSelectTemplate> cache;
+  /** ids of transactions that changed metadata, see {@link #metadataChanged()} */
+  private final Set<String> metadataTransactionIds = newConcurrentHashSet();
+
+  private final AtomicLong generation = new AtomicLong();
+
+  PostgreSqlQueryTemplateCache(
+      TransactionManager transactionManager,
+      CacheInvalidationBus cacheInvalidationBus,
+      MeterRegistry meterRegistry,
+      @Value("${cache.ttl.minutes:60}") long timeToLiveMinutes,
+      @Value("${cache.sql.max.size:10000}") long maxSize) {
+    this.cache =
+        Caffeine.newBuilder()
+            .recordStats()
+            .expireAfterWrite(timeToLiveMinutes, MINUTES)
+            .maximumSize(maxSize)
+            .executor(Runnable::run)
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    requireNonNull(transactionManager).addTransactionListener(this);
+    requireNonNull(cacheInvalidationBus).addCacheInvalidationListener(this);
+  }
+
+  /**
+   * Returns the select template for the query from the cache or generates it.
+   *
+   * @see PostgreSqlQueryGenerator#getSqlSelectTemplate(EntityType, Query, boolean)
+   */
+  SqlSelectTemplate getSelectTemplate(
+      EntityType entityType, Query<Entity> q, boolean includeMrefs) {
+    String transactionId = getTransactionId();
+    if (transactionId != null && metadataTransactionIds.contains(transactionId)) {
+      return getSqlSelectTemplate(entityType, q, includeMrefs);
+    }
+    SelectTemplateKey key =
+        SelectTemplateKey.create(generation.get(), entityType.getId(), q, includeMrefs);
+    return cache.get(key, k -> getSqlSelectTemplate(entityType, q, includeMrefs));
+  }
+
+  /**
+   * Notifies the cache that the metadata of entity types changed in the current transaction.
+   * Templates are evicted when the transaction commits.
+   */
+  void metadataChanged() {
+    String transactionId = getTransactionId();
+    if (transactionId != null) {
+      metadataTransactionIds.add(transactionId);
+    } else {
+      invalidateAll();
+    }
+  }
+
+  @Override
+  public void afterCommitTransaction(String transactionId) {
+    if (metadataTransactionIds.remove(transactionId)) {
+      invalidateAll();
+    }
+  }
+
+  @Override
+  public void doCleanupAfterCompletion(String transactionId) {
+    metadataTransactionIds.remove(transactionId);
+  }
+
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    Set<String> dirtyRepositories = cacheInvalidation.getDirtyRepositories();
+    if (dirtyRepositories.contains(ENTITY_TYPE_META_DATA)
+        || dirtyRepositories.contains(ATTRIBUTE_META_DATA)) {
+      invalidateAll();
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    LOG.trace("Evicting all select templates");
+    generation.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  private static String getTransactionId() {
+    return (String) TransactionSynchronizationManager.getResource(TRANSACTION_ID_RESOURCE_NAME);
+  }
+
+  /**
+   * Value object that describes the shape of a query. Fetch and sort are copied because they are
+   * mutable.
+   */
+  @AutoValue
+  // Abstract classes without fields should be converted to interfaces
+  @SuppressWarnings("java:S1610")
+  abstract static class SelectTemplateKey {
+    /** generation of the cache when the template was requested */
+    abstract long getGeneration();
+
+    abstract String getEntityTypeId();
+
+    /** names of the fetched attributes or <code>null</code> to fetch all attributes */
+    @Nullable
+    @CheckForNull
+    abstract ImmutableSet<String> getFetchFields();
+
+    @Nullable
+    @CheckForNull
+    abstract ImmutableList<Sort.Order> getSortOrders();
+
+    /** fields of the query rules and nested query rules in query rule order */
+    abstract ImmutableList<String> getRuleFields();
+
+    abstract boolean isIncludeMrefs();
+
+    static SelectTemplateKey create(
+        long generation, String entityTypeId, Query<Entity> q, boolean includeMrefs) {
+      Fetch fetch = q.getFetch();
+      Sort sort = q.getSort();
+      ImmutableList.Builder<String> ruleFields = ImmutableList.builder();
+      addRuleFields(q.getRules(), ruleFields);
+      return new AutoValue_PostgreSqlQueryTemplateCache_SelectTemplateKey(
+          generation,
+          entityTypeId,
+          fetch != null ? ImmutableSet.copyOf(fetch.getFields()) : null,
+          sort != null ? ImmutableList.copyOf(sort) : null,
+          ruleFields.build(),
+          includeMrefs);
+    }
+
+    private static void addRuleFields(
+        List<QueryRule> rules, ImmutableList.Builder<String> ruleFields) {
+      for (QueryRule rule : rules) {
+        if (rule.getField() != null) {
+          ruleFields.add(rule.getField());
+        }
+        if (rule.getNestedRules() != null) {
+          addRuleFields(rule.getNestedRules(), ruleFields);
+        }
+      }
+    }
+  }
+}
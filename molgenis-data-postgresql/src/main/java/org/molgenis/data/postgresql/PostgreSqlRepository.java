@@ -5,12 +5,19 @@ import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Streams.stream;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.unmodifiableSet;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.nullsLast;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
+import static org.molgenis.data.BulkLoadModeHolder.isBulkLoadMode;
 import static org.molgenis.data.QueryRule.Operator.AND;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
 import static org.molgenis.data.QueryRule.Operator.GREATER;
@@ -22,7 +29,9 @@ import static org.molgenis.data.QueryRule.Operator.LIKE;
 import static org.molgenis.data.QueryRule.Operator.NESTED;
 import static org.molgenis.data.QueryRule.Operator.NOT;
 import static org.molgenis.data.QueryRule.Operator.OR;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.QueryRule.Operator.RANGE;
+import static org.molgenis.data.RepositoryCapability.AGGREGATEABLE;
 import static org.molgenis.data.RepositoryCapability.CACHEABLE;
 import static org.molgenis.data.RepositoryCapability.MANAGABLE;
 import static org.molgenis.data.RepositoryCapability.QUERYABLE;
@@ -31,9 +40,17 @@ import static org.molgenis.data.RepositoryCapability.VALIDATE_READONLY_CONSTRAIN
 import static org.molgenis.data.RepositoryCapability.VALIDATE_REFERENCE_CONSTRAINT;
 import static org.molgenis.data.RepositoryCapability.VALIDATE_UNIQUE_CONSTRAINT;
 import static org.molgenis.data.RepositoryCapability.WRITABLE;
+import static org.molgenis.data.StreamingModeHolder.isStreamingMode;
 import static org.molgenis.data.meta.AttributeType.ONE_TO_MANY;
 import static org.molgenis.data.postgresql.PostgreSqlExceptionTranslator.VALUE_TOO_LONG_MSG;
 import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getJunctionTableOrderColumnName;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.AGGREGATE_COUNT_COLUMN;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.AGGREGATE_X_COLUMN;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.AGGREGATE_Y_COLUMN;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getKeysetSort;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlAggregate;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCopy;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCopyJunction;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCount;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlDelete;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlDeleteAll;
@@ -46,6 +63,7 @@ import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getJunctionTable
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getTableAttributes;
 import static org.molgenis.data.postgresql.PostgreSqlUtils.getPostgreSqlValue;
 import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.isActualTransactionActive;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ArrayListMultimap;
@@ -54,12 +72,19 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -67,29 +92,39 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.postgresql.PostgreSqlEntityFactory.EntityMapper;
+import org.molgenis.data.postgresql.PostgreSqlQueryGenerator.SqlSelectTemplate;
 import org.molgenis.data.support.AbstractRepository;
 import org.molgenis.data.support.BatchingQueryResult;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.validation.MolgenisValidationException;
 import org.molgenis.util.UnexpectedEnumException;
 import org.molgenis.validation.ConstraintViolation;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 
 /**
  * Repository that persists entities in a PostgreSQL database
@@ -105,6 +140,8 @@ class PostgreSqlRepository extends AbstractRepository {
 
   /** JDBC batch operation size */
   static final int BATCH_SIZE = 1000;
+  /** Number of entities copied per COPY operation */
+  static final int COPY_BATCH_SIZE = 10000;
   /** Repository capabilities */
   private static final Set<RepositoryCapability> REPO_CAPABILITIES =
       unmodifiableSet(
@@ -112,6 +149,7 @@ class PostgreSqlRepository extends AbstractRepository {
               WRITABLE,
               MANAGABLE,
               QUERYABLE,
+              AGGREGATEABLE,
               VALIDATE_REFERENCE_CONSTRAINT,
               VALIDATE_UNIQUE_CONSTRAINT,
               VALIDATE_NOTNULL_CONSTRAINT,
@@ -119,7 +157,7 @@ class PostgreSqlRepository extends AbstractRepository {
               CACHEABLE));
 
   /** Supported query operators */
-  private static final Set<Operator> QUERY_OPERATORS =
+  static final Set<Operator> QUERY_OPERATORS =
       unmodifiableSet(
           EnumSet.of(
               EQUALS,
@@ -133,19 +171,23 @@ class PostgreSqlRepository extends AbstractRepository {
               NOT,
               AND,
               OR,
-              NESTED));
+              NESTED,
+              PERMITTED));
 
   private final PostgreSqlEntityFactory postgreSqlEntityFactory;
+  private final PostgreSqlQueryTemplateCache queryTemplateCache;
   private final JdbcTemplate jdbcTemplate;
   private final DataSource dataSource;
   private final EntityType entityType;
 
   PostgreSqlRepository(
       PostgreSqlEntityFactory postgreSqlEntityFactory,
+      PostgreSqlQueryTemplateCache queryTemplateCache,
       JdbcTemplate jdbcTemplate,
       DataSource dataSource,
       EntityType entityType) {
     this.postgreSqlEntityFactory = requireNonNull(postgreSqlEntityFactory);
+    this.queryTemplateCache = requireNonNull(queryTemplateCache);
     this.jdbcTemplate = requireNonNull(jdbcTemplate);
     this.dataSource = requireNonNull(dataSource);
     this.entityType = requireNonNull(entityType);
@@ -187,14 +229,96 @@ class PostgreSqlRepository extends AbstractRepository {
         sql, parameters.toArray(new Object[parameters.size()]), Long.class);
   }
 
+  @Override
+  public AggregateResult aggregate(AggregateQuery aggregateQuery) {
+    List<Object> parameters = Lists.newArrayList();
+    String sql = getSqlAggregate(entityType, aggregateQuery, parameters);
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Aggregating [{}] rows for query [{}]", getName(), aggregateQuery);
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("SQL: {}, parameters: {}", sql, parameters);
+      }
+    }
+
+    Attribute xAttr = aggregateQuery.getAttributeX();
+    Attribute yAttr = aggregateQuery.getAttributeY();
+    Map<Object, Object> xLabels = new HashMap<>();
+    Map<Object, Object> yLabels = new HashMap<>();
+    Map<Object, Map<Object, Long>> counts = new HashMap<>();
+    jdbcTemplate.query(
+        sql,
+        parameters.toArray(new Object[0]),
+        (RowCallbackHandler)
+            resultSet -> {
+              Object xLabel =
+                  postgreSqlEntityFactory.getAggregateLabel(
+                      resultSet, entityType, xAttr, AGGREGATE_X_COLUMN);
+              Object xKey = getAggregateLabelKey(xLabel);
+              xLabels.put(xKey, xLabel);
+
+              Object yKey = null;
+              if (yAttr != null) {
+                Object yLabel =
+                    postgreSqlEntityFactory.getAggregateLabel(
+                        resultSet, entityType, yAttr, AGGREGATE_Y_COLUMN);
+                yKey = getAggregateLabelKey(yLabel);
+                yLabels.put(yKey, yLabel);
+              }
+
+              counts
+                  .computeIfAbsent(xKey, key -> new HashMap<>())
+                  .put(yKey, resultSet.getLong(AGGREGATE_COUNT_COLUMN));
+            });
+
+    // like the index, always report a missing value label for nillable attributes
+    if (xAttr.isNillable()) {
+      xLabels.putIfAbsent(null, null);
+    }
+    if (yAttr != null && yAttr.isNillable()) {
+      yLabels.putIfAbsent(null, null);
+    }
+
+    List<Object> xKeys = getSortedAggregateLabelKeys(xLabels);
+    List<Object> yKeys = yAttr != null ? getSortedAggregateLabelKeys(yLabels) : singletonList(null);
+    List<List<Long>> matrix =
+        xKeys.stream()
+            .map(
+                xKey -> {
+                  Map<Object, Long> xCounts = counts.getOrDefault(xKey, emptyMap());
+                  return yKeys.stream()
+                      .map(yKey -> xCounts.getOrDefault(yKey, 0L))
+                      .collect(toList());
+                })
+            .collect(toList());
+    return new AggregateResult(
+        matrix,
+        xKeys.stream().map(xLabels::get).collect(toList()),
+        yAttr != null ? yKeys.stream().map(yLabels::get).collect(toList()) : emptyList());
+  }
+
+  private static Object getAggregateLabelKey(@Nullable Object label) {
+    return label instanceof Entity ? ((Entity) label).getIdValue() : label;
+  }
+
+  /** Sorts labels keys in the same order as the index does, the missing value key comes last. */
+  private static List<Object> getSortedAggregateLabelKeys(Map<Object, Object> labels) {
+    List<Object> keys = new ArrayList<>(labels.keySet());
+    keys.sort(nullsLast(comparing(Object::toString)));
+    return keys;
+  }
+
   @Override
   public Stream<Entity> findAll(Query<Entity> q) {
+    if (q.getPageSize() == 0 && isStreamingMode() && isActualTransactionActive()) {
+      return findAllStreaming(q);
+    }
     return stream(findAllBatching(q));
   }
 
   @Override
   public Entity findOne(Query<Entity> q) {
-    Iterator<Entity> iterator = findAll(q).iterator();
+    Iterator<Entity> iterator = findAllBatching(q).iterator();
     if (iterator.hasNext()) {
       return iterator.next();
     }
@@ -280,6 +404,9 @@ class PostgreSqlRepository extends AbstractRepository {
 
   @Override
   public Integer add(Stream<Entity> entities) {
+    if (isBulkLoadMode()) {
+      return addCopying(entities.iterator());
+    }
     return addBatching(entities.iterator());
   }
 
@@ -448,27 +575,83 @@ class PostgreSqlRepository extends AbstractRepository {
     };
   }
 
+  /**
+   * Returns a lazy stream of query results read from a server-side cursor. Rows are fetched from
+   * the database in chunks of {@link #BATCH_SIZE} rows while the stream is consumed, so large
+   * result sets are processed in constant memory. PostgreSQL only uses a cursor if auto-commit is
+   * disabled, so this method requires an active transaction. The cursor is closed when the stream
+   * is closed or exhausted and at the latest when the transaction ends.
+   *
+   * <p>Only used in {@link org.molgenis.data.StreamingModeHolder streaming mode}: transactions
+   * opened around a single find, e.g. by the data service, end before the returned stream is
+   * consumed.
+   */
+  private Stream<Entity> findAllStreaming(Query<Entity> q) {
+    List<Object> parameters = new ArrayList<>();
+
+    String sql = getSqlSelect(getEntityType(), q, parameters, getSelectTemplate(q), null);
+    RowMapper<Entity> entityMapper =
+        postgreSqlEntityFactory.createRowMapper(getEntityType(), q.getFetch());
+    LOG.debug("Streaming [{}] data for query [{}]", getName(), q);
+    LOG.trace("SQL: {}, parameters: {}", sql, parameters);
+
+    Stream<Entity> entities =
+        jdbcTemplate.queryForStream(
+            connection -> {
+              PreparedStatement preparedStatement = connection.prepareStatement(sql);
+              preparedStatement.setFetchSize(BATCH_SIZE);
+              return preparedStatement;
+            },
+            new ArgumentPreparedStatementSetter(parameters.toArray()),
+            entityMapper);
+    return stream(new ClosingIterator<>(entities)).onClose(entities::close);
+  }
+
+  /**
+   * Returns query results in batches. If the query sort allows for it, batches following the first
+   * batch are selected using keyset pagination so that iterating over large tables does not get
+   * slower with every batch as is the case with OFFSET.
+   */
   private BatchingQueryResult<Entity> findAllBatching(Query<Entity> q) {
     return new BatchingQueryResult<Entity>(BATCH_SIZE, q) {
       @Override
       protected List<Entity> getBatch(Query<Entity> batchQuery) {
-        List<Object> parameters = new ArrayList<>();
+        return findBatch(batchQuery, null);
+      }
 
-        String sql = getSqlSelect(getEntityType(), batchQuery, parameters, true);
-        RowMapper<Entity> entityMapper =
-            postgreSqlEntityFactory.createRowMapper(getEntityType(), batchQuery.getFetch());
-        LOG.debug("Fetching [{}] data for query [{}]", getName(), batchQuery);
-        LOG.trace("SQL: {}, parameters: {}", sql, parameters);
-        Stopwatch sw = createStarted();
-        List<Entity> result =
-            jdbcTemplate.query(
-                sql, parameters.toArray(new Object[parameters.size()]), entityMapper);
-        LOG.trace("That took {}", sw);
-        return result;
+      @Override
+      protected boolean isKeysetPaginated() {
+        return getKeysetSort(getEntityType(), q) != null;
+      }
+
+      @Override
+      protected List<Entity> getBatch(Query<Entity> batchQuery, Entity previous) {
+        return findBatch(new QueryImpl<>(batchQuery).setOffset(0), previous);
       }
     };
   }
 
+  private List<Entity> findBatch(Query<Entity> batchQuery, @Nullable Entity previous) {
+    List<Object> parameters = new ArrayList<>();
+
+    String sql =
+        getSqlSelect(
+            getEntityType(), batchQuery, parameters, getSelectTemplate(batchQuery), previous);
+    RowMapper<Entity> entityMapper =
+        postgreSqlEntityFactory.createRowMapper(getEntityType(), batchQuery.getFetch());
+    LOG.debug("Fetching [{}] data for query [{}]", getName(), batchQuery);
+    LOG.trace("SQL: {}, parameters: {}", sql, parameters);
+    Stopwatch sw = createStarted();
+    List<Entity> result =
+        jdbcTemplate.query(sql, parameters.toArray(new Object[parameters.size()]), entityMapper);
+    LOG.trace("That took {}", sw);
+    return result;
+  }
+
+  private SqlSelectTemplate getSelectTemplate(Query<Entity> q) {
+    return queryTemplateCache.getSelectTemplate(getEntityType(), q, true);
+  }
+
   private Integer addBatching(Iterator<? extends Entity> entities) {
     AtomicInteger count = new AtomicInteger();
 
@@ -511,6 +694,135 @@ class PostgreSqlRepository extends AbstractRepository {
     return count.get();
   }
 
+  /**
+   * Adds entities using the PostgreSQL COPY protocol, which is considerably faster than batched
+   * INSERT statements for large numbers of entities. Entity table rows and junction table rows are
+   * copied per batch of {@link #COPY_BATCH_SIZE} entities.
+   */
+  private Integer addCopying(Iterator<? extends Entity> entities) {
+    AtomicInteger count = new AtomicInteger();
+
+    final Attribute idAttr = entityType.getIdAttribute();
+    final List<Attribute> tableAttrs = getTableAttributes(entityType).collect(toList());
+    final List<Attribute> junctionTableAttrs =
+        getJunctionTableAttributes(entityType).collect(toList());
+    final String copySql = getSqlCopy(entityType);
+
+    Iterators.partition(entities, COPY_BATCH_SIZE)
+        .forEachRemaining(
+            entitiesBatch -> {
+              if (LOG.isDebugEnabled()) {
+                LOG.debug("Copying {} [{}] entities", entitiesBatch.size(), getName());
+                if (LOG.isTraceEnabled()) {
+                  LOG.trace("SQL: {}", copySql);
+                }
+              }
+
+              // copy values to entity table
+              copy(
+                  copySql,
+                  writer -> {
+                    for (Entity entity : entitiesBatch) {
+                      writeCopyRow(
+                          writer,
+                          tableAttrs.stream().map(attr -> getPostgreSqlValue(entity, attr)));
+                    }
+                  });
+
+              // copy values to entity junction table
+              if (!junctionTableAttrs.isEmpty()) {
+                Map<String, List<Map<String, Object>>> mrefs =
+                    createMrefMap(idAttr, junctionTableAttrs, entitiesBatch);
+
+                for (Attribute attr : junctionTableAttrs) {
+                  List<Map<String, Object>> attrMrefs = mrefs.get(attr.getName());
+                  if (attrMrefs != null && !attrMrefs.isEmpty()) {
+                    copyMrefs(attrMrefs, attr);
+                  }
+                }
+              }
+
+              count.addAndGet(entitiesBatch.size());
+            });
+
+    return count.get();
+  }
+
+  private void copyMrefs(List<Map<String, Object>> mrefs, Attribute attr) {
+    final Attribute idAttr = entityType.getIdAttribute();
+    String copyMrefSql = getSqlCopyJunction(entityType, attr);
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(
+          "Copying junction table entries for entity [{}] attribute [{}]",
+          getName(),
+          attr.getName());
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("SQL: {}", copyMrefSql);
+      }
+    }
+
+    copy(
+        copyMrefSql,
+        writer -> {
+          for (Map<String, Object> mref : mrefs) {
+            writeCopyRow(writer, Arrays.stream(getJunctionTableRowValues(mref, attr, idAttr)));
+          }
+        });
+  }
+
+  private static void writeCopyRow(Writer writer, Stream<Object> postgreSqlValues)
+      throws IOException {
+    writer.write(
+        postgreSqlValues.map(PostgreSqlUtils::getPostgreSqlCopyValue).collect(joining(",")));
+    writer.write('\n');
+  }
+
+  /** Writes rows in CSV format to a COPY operation */
+  @FunctionalInterface
+  private interface CopyRowsWriter {
+    void writeRows(Writer writer) throws IOException;
+  }
+
+  /**
+   * Streams the rows written by the given writer to the database, so that the rows of a batch are
+   * not kept in memory. The COPY operation is cancelled if writing the rows fails.
+   */
+  private void copy(String copySql, CopyRowsWriter rowsWriter) {
+    Connection connection = DataSourceUtils.getConnection(dataSource);
+    try {
+      PGCopyOutputStream copyOutputStream =
+          new PGCopyOutputStream(connection.unwrap(PGConnection.class), copySql);
+      try {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(copyOutputStream, UTF_8));
+        rowsWriter.writeRows(writer);
+        writer.flush();
+        copyOutputStream.endCopy();
+      } finally {
+        if (copyOutputStream.isActive()) {
+          copyOutputStream.cancelCopy();
+        }
+      }
+    } catch (SQLException e) {
+      throw translateCopyException(copySql, e);
+    } catch (IOException e) {
+      if (e.getCause() instanceof SQLException) {
+        throw translateCopyException(copySql, (SQLException) e.getCause());
+      }
+      throw new UncheckedIOException(e);
+    } finally {
+      DataSourceUtils.releaseConnection(connection, dataSource);
+    }
+  }
+
+  private DataAccessException translateCopyException(String copySql, SQLException e) {
+    DataAccessException dataAccessException =
+        requireNonNull(jdbcTemplate.getExceptionTranslator()).translate("COPY", copySql, e);
+    return dataAccessException != null
+        ? dataAccessException
+        : new UncategorizedSQLException("COPY", copySql, e);
+  }
+
   private static Map<String, List<Map<String, Object>>> createMrefMap(
       Attribute idAttr, List<Attribute> junctionTableAttrs, List<? extends Entity> entitiesBatch) {
     Map<String, List<Map<String, Object>>> mrefs =
@@ -555,6 +867,26 @@ class PostgreSqlRepository extends AbstractRepository {
     return mref;
   }
 
+  /**
+   * Returns the PostgreSQL values of a junction table row: the order, the entity id and the
+   * referenced entity id.
+   */
+  private static Object[] getJunctionTableRowValues(
+      Map<String, Object> mref, Attribute attr, Attribute idAttr) {
+    Object idValue0;
+    Object idValue1;
+    if (attr.isMappedBy()) {
+      Entity mrefEntity = (Entity) mref.get(attr.getName());
+      idValue0 = getPostgreSqlValue(mrefEntity, attr.getRefEntity().getIdAttribute());
+      idValue1 = mref.get(idAttr.getName());
+    } else {
+      idValue0 = mref.get(idAttr.getName());
+      Entity mrefEntity = (Entity) mref.get(attr.getName());
+      idValue1 = getPostgreSqlValue(mrefEntity, mrefEntity.getEntityType().getIdAttribute());
+    }
+    return new Object[] {mref.get(getJunctionTableOrderColumnName()), idValue0, idValue1};
+  }
+
   private void updateBatching(Iterator<? extends Entity> entities) {
     final Attribute idAttr = entityType.getIdAttribute();
     final List<Attribute> tableAttrs = getTableAttributes(entityType).collect(toList());
@@ -682,6 +1014,31 @@ class PostgreSqlRepository extends AbstractRepository {
         deleteMrefSql, new BatchJunctionTableDeletePreparedStatementSetter(ids));
   }
 
+  /** Iterator that closes the stream it iterates over once all elements have been consumed. */
+  private static class ClosingIterator<E> implements Iterator<E> {
+    private final Stream<E> stream;
+    private final Iterator<E> iterator;
+
+    ClosingIterator(Stream<E> stream) {
+      this.stream = stream;
+      this.iterator = stream.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      boolean hasNext = iterator.hasNext();
+      if (!hasNext) {
+        stream.close();
+      }
+      return hasNext;
+    }
+
+    @Override
+    public E next() {
+      return iterator.next();
+    }
+  }
+
   private static class BatchAddPreparedStatementSetter implements BatchPreparedStatementSetter {
     private final List<? extends Entity> entities;
     private final List<Attribute> tableAttrs;
@@ -772,22 +1129,10 @@ class PostgreSqlRepository extends AbstractRepository {
 
     @Override
     public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
-      Map<String, Object> mref = mrefs.get(i);
-
-      Object idValue0;
-      Object idValue1;
-      if (attr.isMappedBy()) {
-        Entity mrefEntity = (Entity) mref.get(attr.getName());
-        idValue0 = getPostgreSqlValue(mrefEntity, attr.getRefEntity().getIdAttribute());
-        idValue1 = mref.get(idAttr.getName());
-      } else {
-        idValue0 = mref.get(idAttr.getName());
-        Entity mrefEntity = (Entity) mref.get(attr.getName());
-        idValue1 = getPostgreSqlValue(mrefEntity, mrefEntity.getEntityType().getIdAttribute());
-      }
-      preparedStatement.setInt(1, (int) mref.get(getJunctionTableOrderColumnName()));
-      preparedStatement.setObject(2, idValue0);
-      preparedStatement.setObject(3, idValue1);
+      Object[] values = getJunctionTableRowValues(mrefs.get(i), attr, idAttr);
+      preparedStatement.setInt(1, (int) values[0]);
+      preparedStatement.setObject(2, values[1]);
+      preparedStatement.setObject(3, values[2]);
     }
 
     @Override
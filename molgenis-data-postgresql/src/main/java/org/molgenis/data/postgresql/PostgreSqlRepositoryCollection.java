@@ -93,16 +93,19 @@ public class PostgreSqlRepositoryCollection extends AbstractRepositoryCollection
   public static final String POSTGRESQL = "PostgreSQL";
 
   private final PostgreSqlEntityFactory postgreSqlEntityFactory;
+  private final PostgreSqlQueryTemplateCache queryTemplateCache;
   private final DataSource dataSource;
   private final JdbcTemplate jdbcTemplate;
   private final DataService dataService;
 
   PostgreSqlRepositoryCollection(
       PostgreSqlEntityFactory postgreSqlEntityFactory,
+      PostgreSqlQueryTemplateCache queryTemplateCache,
       DataSource dataSource,
       JdbcTemplate jdbcTemplate,
       DataService dataService) {
     this.postgreSqlEntityFactory = requireNonNull(postgreSqlEntityFactory);
+    this.queryTemplateCache = requireNonNull(queryTemplateCache);
     this.dataSource = requireNonNull(dataSource);
     this.jdbcTemplate = requireNonNull(jdbcTemplate);
     this.dataService = requireNonNull(dataService);
@@ -699,7 +702,8 @@ public class PostgreSqlRepositoryCollection extends AbstractRepositoryCollection
 
   /** Return a new PostgreSQL repository */
   private PostgreSqlRepository createPostgreSqlRepository(EntityType entityType) {
-    return new PostgreSqlRepository(postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType);
+    return new PostgreSqlRepository(
+        postgreSqlEntityFactory, queryTemplateCache, jdbcTemplate, dataSource, entityType);
   }
 
   private boolean isTableExists(EntityType entityType) {
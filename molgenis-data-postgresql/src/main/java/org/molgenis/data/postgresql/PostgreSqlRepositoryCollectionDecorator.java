@@ -11,22 +11,27 @@ import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.postgresql.identifier.EntityTypeRegistry;
 
 /**
- * Repository collection decorator that updates {@link EntityTypeRegistry} when entity types are
- * create, updated or deleted.
+ * Repository collection decorator that updates {@link EntityTypeRegistry} and notifies the {@link
+ * PostgreSqlQueryTemplateCache} when entity types are create, updated or deleted.
  */
 public class PostgreSqlRepositoryCollectionDecorator extends AbstractRepositoryCollectionDecorator {
   private final EntityTypeRegistry entityTypeRegistry;
+  private final PostgreSqlQueryTemplateCache queryTemplateCache;
 
   PostgreSqlRepositoryCollectionDecorator(
-      RepositoryCollection delegateRepositoryCollection, EntityTypeRegistry entityTypeRegistry) {
+      RepositoryCollection delegateRepositoryCollection,
+      EntityTypeRegistry entityTypeRegistry,
+      PostgreSqlQueryTemplateCache queryTemplateCache) {
     super(delegateRepositoryCollection);
     this.entityTypeRegistry = requireNonNull(entityTypeRegistry);
+    this.queryTemplateCache = requireNonNull(queryTemplateCache);
   }
 
   @Override
   public Repository<Entity> createRepository(EntityType entityType) {
     Repository<Entity> repo = delegate().createRepository(entityType);
     entityTypeRegistry.registerEntityType(entityType);
+    queryTemplateCache.metadataChanged();
     return repo;
   }
 
@@ -34,29 +39,34 @@ public class PostgreSqlRepositoryCollectionDecorator extends AbstractRepositoryC
   public void deleteRepository(EntityType entityType) {
     delegate().deleteRepository(entityType);
     entityTypeRegistry.unregisterEntityType(entityType);
+    queryTemplateCache.metadataChanged();
   }
 
   @Override
   public void updateRepository(EntityType entityType, EntityType updatedEntityType) {
     delegate().updateRepository(entityType, updatedEntityType);
     entityTypeRegistry.registerEntityType(updatedEntityType);
+    queryTemplateCache.metadataChanged();
   }
 
   @Override
   public void addAttribute(EntityType entityType, Attribute attribute) {
     entityTypeRegistry.addAttribute(entityType, attribute);
+    queryTemplateCache.metadataChanged();
     delegate().addAttribute(entityType, attribute);
   }
 
   @Override
   public void updateAttribute(EntityType entityType, Attribute attr, Attribute updatedAttr) {
     entityTypeRegistry.updateAttribute(entityType, attr, updatedAttr);
+    queryTemplateCache.metadataChanged();
     delegate().updateAttribute(entityType, attr, updatedAttr);
   }
 
   @Override
   public void deleteAttribute(EntityType entityType, Attribute attr) {
     entityTypeRegistry.deleteAttribute(entityType, attr);
+    queryTemplateCache.metadataChanged();
     delegate().deleteAttribute(entityType, attr);
   }
 }
@@ -189,6 +189,26 @@ class PostgreSqlUtils {
     }
   }
 
+  /**
+   * Returns the representation of a PostgreSQL value in the CSV format of the PostgreSQL COPY
+   * command. Strings are always quoted to distinguish empty strings from null values.
+   *
+   * @param postgreSqlValue PostgreSQL value as returned by {@link #getPostgreSqlValue(Entity,
+   *     Attribute)}
+   * @return CSV value
+   */
+  static String getPostgreSqlCopyValue(Object postgreSqlValue) {
+    if (postgreSqlValue == null) {
+      return "";
+    } else if (postgreSqlValue instanceof String) {
+      return '"' + ((String) postgreSqlValue).replace("\"", "\"\"") + '"';
+    } else if (postgreSqlValue instanceof Boolean) {
+      return Boolean.TRUE.equals(postgreSqlValue) ? "t" : "f";
+    } else {
+      return postgreSqlValue.toString();
+    }
+  }
+
   private static Object throwExceptionUnexpectedQueryValueType(
       String attrName, Object actualType, String expectedType) {
     throw new MolgenisDataException(
@@ -0,0 +1,272 @@
+package org.molgenis.data.postgresql.transaction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import com.google.gson.Gson;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import org.molgenis.data.EntityKey;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
+import org.molgenis.data.transaction.CacheInvalidationListener;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionListener;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link CacheInvalidationBus} based on PostgreSQL LISTEN/NOTIFY.
+ *
+ * <p>The changes of a transaction are sent on the {@link #CHANNEL} channel while committing the
+ * transaction. PostgreSQL only delivers the notification to the other nodes if the transaction
+ * commits successfully. Each node listens on the channel using a dedicated connection and notifies
+ * its {@link CacheInvalidationListener}s. Changes that are not made by a transaction are {@link
+ * #publish published} directly.
+ */
+@Component
+public class PostgreSqlCacheInvalidationBus implements CacheInvalidationBus, TransactionListener {
+  private static final Logger LOG = LoggerFactory.getLogger(PostgreSqlCacheInvalidationBus.class);
+
+  static final String CHANNEL = "molgenis_cache_invalidation";
+  /** PostgreSQL notification payloads must be shorter than 8000 bytes */
+  static final int MAX_PAYLOAD_BYTES = 7999;
+
+  private static final int NOTIFICATION_TIMEOUT_MILLIS = 5000;
+  private static final int RECONNECT_DELAY_MILLIS = 10000;
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final List<CacheInvalidationListener> cacheInvalidationListeners =
+      new CopyOnWriteArrayList<>();
+  private final Gson gson = new Gson();
+
+  private final TransactionInformation transactionInformation;
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final boolean enabled;
+
+  private ExecutorService executorService;
+  private volatile boolean listening;
+
+  public PostgreSqlCacheInvalidationBus(
+      TransactionManager transactionManager,
+      TransactionInformation transactionInformation,
+      DataSource dataSource,
+      @Value("${cache.invalidation.enabled:false}") boolean enabled) {
+    this.transactionInformation = requireNonNull(transactionInformation);
+    this.dataSource = requireNonNull(dataSource);
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.enabled = enabled;
+    if (enabled) {
+      requireNonNull(transactionManager).addTransactionListener(this);
+    }
+  }
+
+  @Override
+  public void addCacheInvalidationListener(CacheInvalidationListener cacheInvalidationListener) {
+    cacheInvalidationListeners.add(cacheInvalidationListener);
+  }
+
+  /**
+   * Sends the changes of the transaction to the other nodes. The notification is part of the
+   * transaction, so it is discarded if the transaction rolls back.
+   */
+  @Override
+  public void commitTransaction(String transactionId) {
+    CacheInvalidation cacheInvalidation = CacheInvalidation.create(transactionInformation);
+    if (!cacheInvalidation.isEmpty()) {
+      String payload = createPayload(cacheInvalidation);
+      LOG.trace("Notify cache invalidation for transaction [{}]: {}", transactionId, payload);
+      jdbcTemplate.queryForRowSet("SELECT pg_notify(?, ?)", CHANNEL, payload);
+    }
+  }
+
+  /**
+   * Notifies the listeners of this node and sends the changes to the other nodes. The notification
+   * is sent immediately unless a transaction is active, in which case it is sent on commit.
+   */
+  @Override
+  public void publish(CacheInvalidation cacheInvalidation) {
+    if (cacheInvalidation.isEmpty()) {
+      return;
+    }
+    notifyInvalidate(cacheInvalidation);
+    if (enabled) {
+      String payload = createPayload(cacheInvalidation);
+      LOG.trace("Notify cache invalidation: {}", payload);
+      jdbcTemplate.queryForRowSet("SELECT pg_notify(?, ?)", CHANNEL, payload);
+    }
+  }
+
+  @PostConstruct
+  void startListening() {
+    if (enabled) {
+      listening = true;
+      executorService = Executors.newSingleThreadExecutor();
+      executorService.submit(this::listen);
+    }
+  }
+
+  @PreDestroy
+  void stopListening() {
+    listening = false;
+    if (executorService != null) {
+      ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
+    }
+  }
+
+  private void listen() {
+    while (listening) {
+      try (Connection connection = dataSource.getConnection()) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        // changes committed by other nodes while not listening are unknown
+        notifyInvalidateAll();
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (listening) {
+          PGNotification[] notifications =
+              pgConnection.getNotifications(NOTIFICATION_TIMEOUT_MILLIS);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              handlePayload(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException e) {
+        if (listening) {
+          LOG.error("Error listening for cache invalidation notifications, reconnecting", e);
+          sleepBeforeReconnect();
+        }
+      }
+    }
+  }
+
+  private void sleepBeforeReconnect() {
+    try {
+      Thread.sleep(RECONNECT_DELAY_MILLIS);
+    } catch (InterruptedException e) {
+      listening = false;
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  void handlePayload(String payload) {
+    try {
+      CacheInvalidationMessage message = gson.fromJson(payload, CacheInvalidationMessage.class);
+      if (nodeId.equals(message.node)) {
+        // caches of this node were already invalidated after commit
+        return;
+      }
+      if (message.all) {
+        notifyInvalidateAll();
+      } else {
+        notifyInvalidate(toCacheInvalidation(message));
+      }
+    } catch (RuntimeException e) {
+      LOG.error("Error handling cache invalidation notification '{}'", payload, e);
+      notifyInvalidateAll();
+    }
+  }
+
+  private void notifyInvalidate(CacheInvalidation cacheInvalidation) {
+    LOG.debug("Invalidating caches: {}", cacheInvalidation);
+    cacheInvalidationListeners.forEach(listener -> listener.invalidate(cacheInvalidation));
+  }
+
+  private void notifyInvalidateAll() {
+    LOG.debug("Invalidating all caches");
+    cacheInvalidationListeners.forEach(CacheInvalidationListener::invalidateAll);
+  }
+
+  /**
+   * Creates the notification payload. If the payload would exceed the maximum payload size the
+   * granularity is reduced to entire repositories or, if that doesn't suffice either, everything.
+   */
+  String createPayload(CacheInvalidation cacheInvalidation) {
+    CacheInvalidationMessage message = new CacheInvalidationMessage();
+    message.node = nodeId;
+    message.repositories = cacheInvalidation.getEntirelyDirtyRepositories();
+    message.entities =
+        cacheInvalidation.getDirtyEntities().stream()
+            .map(PostgreSqlCacheInvalidationBus::toEntityKeyValues)
+            .collect(toList());
+    String payload = gson.toJson(message);
+    if (payload.getBytes(UTF_8).length > MAX_PAYLOAD_BYTES) {
+      message.repositories = cacheInvalidation.getDirtyRepositories();
+      message.entities = List.of();
+      payload = gson.toJson(message);
+    }
+    if (payload.getBytes(UTF_8).length > MAX_PAYLOAD_BYTES) {
+      message.repositories = Set.of();
+      message.all = true;
+      payload = gson.toJson(message);
+    }
+    return payload;
+  }
+
+  private static CacheInvalidation toCacheInvalidation(CacheInvalidationMessage message) {
+    Set<EntityKey> entityKeys =
+        message.entities.stream().map(PostgreSqlCacheInvalidationBus::toEntityKey).collect(toSet());
+    return CacheInvalidation.create(message.repositories, entityKeys);
+  }
+
+  /** Entity key values are stored as entity type id, id type and id to preserve the id type */
+  private static List<String> toEntityKeyValues(EntityKey entityKey) {
+    Object id = entityKey.getId();
+    String idType;
+    if (id instanceof Integer) {
+      idType = "int";
+    } else if (id instanceof Long) {
+      idType = "long";
+    } else {
+      idType = "string";
+    }
+    return List.of(entityKey.getEntityTypeId(), idType, id.toString());
+  }
+
+  private static EntityKey toEntityKey(List<String> entityKeyValues) {
+    String idValue = entityKeyValues.get(2);
+    Object id;
+    switch (entityKeyValues.get(1)) {
+      case "int":
+        id = Integer.valueOf(idValue);
+        break;
+      case "long":
+        id = Long.valueOf(idValue);
+        break;
+      default:
+        id = idValue;
+        break;
+    }
+    return EntityKey.create(entityKeyValues.get(0), id);
+  }
+
+  @SuppressWarnings("java:S1104") // Gson data transfer object
+  private static class CacheInvalidationMessage {
+    String node;
+    boolean all;
+    Set<String> repositories = Set.of();
+    List<List<String>> entities = List.of();
+  }
+}
@@ -3,6 +3,9 @@ package org.molgenis.data.postgresql.transaction;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import javax.sql.DataSource;
@@ -17,8 +20,10 @@ import org.molgenis.data.transaction.TransactionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.DefaultTransactionStatus;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
@@ -35,6 +40,8 @@ public class PostgreSqlTransactionManager extends DataSourceTransactionManager
     implements TransactionManager {
   private static final long serialVersionUID = 1L;
   private static final Logger LOG = LoggerFactory.getLogger(PostgreSqlTransactionManager.class);
+  private static final String SQL_CHECK_DEFERRED_CONSTRAINTS = "SET CONSTRAINTS ALL IMMEDIATE";
+
   private final IdGenerator idGenerator;
   private final List<TransactionListener> transactionListeners = new ArrayList<>();
   private final TransactionExceptionTranslatorRegistry transactionExceptionTranslatorRegistry;
@@ -56,6 +63,20 @@ public class PostgreSqlTransactionManager extends DataSourceTransactionManager
     transactionListeners.add(transactionListener);
   }
 
+  @Override
+  public void checkDeferredConstraints() {
+    DataSource dataSource = obtainDataSource();
+    Connection connection = DataSourceUtils.getConnection(dataSource);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(SQL_CHECK_DEFERRED_CONSTRAINTS);
+    } catch (SQLException e) {
+      throw translateTransactionException(
+          new TransactionSystemException("Could not check deferred constraints", e));
+    } finally {
+      DataSourceUtils.releaseConnection(connection, dataSource);
+    }
+  }
+
   @Override
   protected Object doGetTransaction() {
     Object dataSourceTransactionManager = super.doGetTransaction();
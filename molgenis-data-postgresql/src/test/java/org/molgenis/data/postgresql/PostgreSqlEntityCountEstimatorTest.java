@@ -0,0 +1,159 @@
+package org.molgenis.data.postgresql;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.STRING;
+import static org.molgenis.data.postgresql.PostgreSqlRepositoryCollection.POSTGRESQL;
+
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.test.AbstractMockitoTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class PostgreSqlEntityCountEstimatorTest extends AbstractMockitoTest {
+  private static final String SQL =
+      "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+  private static final String TABLE_NAME = "\"entityTypeId#c34894ba\"";
+  private static final String SQL_SELECT_IDS =
+      "SELECT this.\"id\" FROM \"entityTypeId#c34894ba\" AS this WHERE this.\"attr\" = ?";
+  private static final String SQL_BOUNDED_COUNT =
+      "SELECT COUNT(*) FROM (" + SQL_SELECT_IDS + " LIMIT 100) AS bounded";
+  private static final String SQL_EXPLAIN = "EXPLAIN " + SQL_SELECT_IDS;
+
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private EntityType entityType;
+  private PostgreSqlEntityCountEstimator entityCountEstimator;
+
+  @BeforeEach
+  void setUpBeforeMethod() {
+    entityCountEstimator = new PostgreSqlEntityCountEstimator(jdbcTemplate, 100);
+  }
+
+  @Test
+  void testEstimateCount() {
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(jdbcTemplate.queryForList(SQL, Long.class, TABLE_NAME)).thenReturn(singletonList(123L));
+    assertEquals(
+        OptionalLong.of(123L), entityCountEstimator.estimateCount(entityType, new QueryImpl<>()));
+  }
+
+  @Test
+  void testEstimateCountNeverAnalyzed() {
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(jdbcTemplate.queryForList(SQL, Long.class, TABLE_NAME)).thenReturn(singletonList(-1L));
+    assertEquals(
+        OptionalLong.empty(), entityCountEstimator.estimateCount(entityType, new QueryImpl<>()));
+  }
+
+  @Test
+  void testEstimateCountUnknownTable() {
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(jdbcTemplate.queryForList(SQL, Long.class, TABLE_NAME)).thenReturn(singletonList(null));
+    assertEquals(
+        OptionalLong.empty(), entityCountEstimator.estimateCount(entityType, new QueryImpl<>()));
+  }
+
+  @Test
+  void testEstimateCountNoRows() {
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(jdbcTemplate.queryForList(SQL, Long.class, TABLE_NAME)).thenReturn(emptyList());
+    assertEquals(
+        OptionalLong.empty(), entityCountEstimator.estimateCount(entityType, new QueryImpl<>()));
+  }
+
+  @Test
+  void testEstimateCountAbstract() {
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    when(entityType.isAbstract()).thenReturn(true);
+    assertEquals(
+        OptionalLong.empty(), entityCountEstimator.estimateCount(entityType, new QueryImpl<>()));
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void testEstimateCountOtherBackend() {
+    when(entityType.getBackend()).thenReturn("ElasticSearch");
+    assertEquals(
+        OptionalLong.empty(), entityCountEstimator.estimateCount(entityType, new QueryImpl<>()));
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void testEstimateCountQueryBelowThreshold() {
+    mockQueryEntityType();
+    when(jdbcTemplate.queryForObject(SQL_BOUNDED_COUNT, new Object[] {"value"}, Long.class))
+        .thenReturn(12L);
+    assertEquals(
+        OptionalLong.of(12L),
+        entityCountEstimator.estimateCount(entityType, new QueryImpl<>().eq("attr", "value")));
+  }
+
+  @Test
+  void testEstimateCountQueryAboveThreshold() {
+    mockQueryEntityType();
+    when(jdbcTemplate.queryForObject(SQL_BOUNDED_COUNT, new Object[] {"value"}, Long.class))
+        .thenReturn(100L);
+    when(jdbcTemplate.queryForList(SQL_EXPLAIN, new Object[] {"value"}, String.class))
+        .thenReturn(
+            singletonList(
+                "Seq Scan on \"entityTypeId#c34894ba\" this  (cost=0.00..1234.00 rows=5000 width=4)"));
+    assertEquals(
+        OptionalLong.of(5000L),
+        entityCountEstimator.estimateCount(entityType, new QueryImpl<>().eq("attr", "value")));
+  }
+
+  @Test
+  void testEstimateCountQueryAboveThresholdPlanUnderestimate() {
+    mockQueryEntityType();
+    when(jdbcTemplate.queryForObject(SQL_BOUNDED_COUNT, new Object[] {"value"}, Long.class))
+        .thenReturn(100L);
+    when(jdbcTemplate.queryForList(SQL_EXPLAIN, new Object[] {"value"}, String.class))
+        .thenReturn(
+            singletonList(
+                "Seq Scan on \"entityTypeId#c34894ba\" this  (cost=0.00..1234.00 rows=8 width=4)"));
+    assertEquals(
+        OptionalLong.of(100L),
+        entityCountEstimator.estimateCount(entityType, new QueryImpl<>().eq("attr", "value")));
+  }
+
+  @Test
+  void testEstimateCountQueryUnsupportedOperator() {
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    assertEquals(
+        OptionalLong.empty(),
+        entityCountEstimator.estimateCount(entityType, new QueryImpl<>().search("value")));
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void testEstimateCountQueryNestedField() {
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    assertEquals(
+        OptionalLong.empty(),
+        entityCountEstimator.estimateCount(entityType, new QueryImpl<>().eq("ref.attr", "value")));
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  private void mockQueryEntityType() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("id").getMock();
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getDataType()).thenReturn(STRING);
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+  }
+}
@@ -3,9 +3,13 @@ package org.molgenis.data.postgresql;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.singleton;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.INT;
+import static org.molgenis.data.meta.AttributeType.MREF;
 import static org.molgenis.data.meta.AttributeType.ONE_TO_MANY;
 import static org.molgenis.data.meta.AttributeType.STRING;
 import static org.molgenis.data.meta.AttributeType.XREF;
@@ -124,4 +128,73 @@ class PostgreSqlEntityFactoryTest {
         entity, postgreSqlEntityFactory.createRowMapper(entityType, null).mapRow(rs, rowNum));
     verify(entity).set(xrefAttr, refEntity);
   }
+
+  @Test
+  void getAggregateLabelString() throws Exception {
+    Attribute attr = mock(Attribute.class);
+    when(attr.getDataType()).thenReturn(STRING);
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getString("x")).thenReturn("value");
+
+    assertEquals(
+        "value", postgreSqlEntityFactory.getAggregateLabel(rs, mock(EntityType.class), attr, "x"));
+  }
+
+  @Test
+  void getAggregateLabelXref() throws Exception {
+    Attribute refIdAttr = mock(Attribute.class);
+    when(refIdAttr.getDataType()).thenReturn(STRING);
+    EntityType refEntityType = mock(EntityType.class);
+    when(refEntityType.getIdAttribute()).thenReturn(refIdAttr);
+
+    Attribute xrefAttr = mock(Attribute.class);
+    when(xrefAttr.getDataType()).thenReturn(XREF);
+    when(xrefAttr.getRefEntity()).thenReturn(refEntityType);
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getString("x")).thenReturn("id0");
+
+    Entity refEntity = mock(Entity.class);
+    when(entityManager.getReference(refEntityType, "id0")).thenReturn(refEntity);
+    assertEquals(
+        refEntity,
+        postgreSqlEntityFactory.getAggregateLabel(rs, mock(EntityType.class), xrefAttr, "x"));
+  }
+
+  @Test
+  void getAggregateLabelMref() throws Exception {
+    Attribute refIdAttr = mock(Attribute.class);
+    when(refIdAttr.getDataType()).thenReturn(INT);
+    EntityType refEntityType = mock(EntityType.class);
+    when(refEntityType.getIdAttribute()).thenReturn(refIdAttr);
+
+    Attribute mrefAttr = mock(Attribute.class);
+    when(mrefAttr.getDataType()).thenReturn(MREF);
+    when(mrefAttr.getRefEntity()).thenReturn(refEntityType);
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getInt("y")).thenReturn(3);
+
+    // the column contains a single referenced entity id instead of an array
+    Entity refEntity = mock(Entity.class);
+    when(entityManager.getReference(refEntityType, 3)).thenReturn(refEntity);
+    assertEquals(
+        refEntity,
+        postgreSqlEntityFactory.getAggregateLabel(rs, mock(EntityType.class), mrefAttr, "y"));
+  }
+
+  @Test
+  void getAggregateLabelMrefMissingValue() throws Exception {
+    Attribute refIdAttr = mock(Attribute.class);
+    when(refIdAttr.getDataType()).thenReturn(STRING);
+    EntityType refEntityType = mock(EntityType.class);
+    when(refEntityType.getIdAttribute()).thenReturn(refIdAttr);
+
+    Attribute mrefAttr = mock(Attribute.class);
+    when(mrefAttr.getDataType()).thenReturn(MREF);
+    when(mrefAttr.getRefEntity()).thenReturn(refEntityType);
+    ResultSet rs = mock(ResultSet.class);
+
+    assertNull(
+        postgreSqlEntityFactory.getAggregateLabel(rs, mock(EntityType.class), mrefAttr, "x"));
+    verifyNoInteractions(entityManager);
+  }
 }
@@ -3,7 +3,9 @@ package org.molgenis.data.postgresql;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -11,6 +13,7 @@ import static org.molgenis.data.QueryRule.Operator.AND;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
 import static org.molgenis.data.QueryRule.Operator.NESTED;
 import static org.molgenis.data.QueryRule.Operator.OR;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.meta.AttributeType.BOOL;
 import static org.molgenis.data.meta.AttributeType.CATEGORICAL;
 import static org.molgenis.data.meta.AttributeType.CATEGORICAL_MREF;
@@ -33,8 +36,11 @@ import static org.molgenis.data.meta.AttributeType.TEXT;
 import static org.molgenis.data.meta.AttributeType.XREF;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.ColumnMode.EXCLUDE_DEFAULT_CONSTRAINT;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.ColumnMode.INCLUDE_DEFAULT_CONSTRAINT;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getKeysetSort;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCount;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlJunctionTableSelect;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSelect;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSelectIds;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSort;
 
 import com.google.common.collect.Lists;
@@ -42,22 +48,26 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.molgenis.data.AclFilter;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.Sort;
+import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.Package;
 import org.molgenis.data.postgresql.PostgreSqlQueryGenerator.ColumnMode;
+import org.molgenis.data.support.AggregateQueryImpl;
 import org.molgenis.data.support.QueryImpl;
 
 class PostgreSqlQueryGeneratorTest {
@@ -455,6 +465,21 @@ class PostgreSqlQueryGeneratorTest {
         PostgreSqlQueryGenerator.getSqlInsertJunction(entityType, attr));
   }
 
+  @Test
+  void getSqlCopyJunction() {
+    EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
+    when(entityType.getId()).thenReturn("entityTypeId");
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(MREF);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    assertEquals(
+        "COPY \"entityTypeId#c34894ba_attr\" (\"order\",\"idAttr\",\"attr\") FROM STDIN WITH (FORMAT csv)",
+        PostgreSqlQueryGenerator.getSqlCopyJunction(entityType, attr));
+  }
+
   @Test
   void getSqlInsertJunctionInversedBy() {
     EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
@@ -499,6 +524,228 @@ class PostgreSqlQueryGeneratorTest {
     assertEquals(emptyList(), parameters);
   }
 
+  @Test
+  void getSqlSelectKeyset() {
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(INT);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(idAttr.isUnique()).thenReturn(true);
+
+    EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getAtomicAttributes()).thenReturn(newArrayList(idAttr, attr));
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+    when(entityType.getAttribute("idAttr")).thenReturn(idAttr);
+
+    Entity previous = mock(Entity.class);
+    when(previous.getInt("attr")).thenReturn(3);
+    when(previous.getString("idAttr")).thenReturn("id3");
+
+    Query<Entity> q = new QueryImpl<>().eq("attr", 1).or().eq("attr", 3);
+    q.sort(new Sort("attr", Sort.Direction.DESC).on("idAttr", Sort.Direction.DESC));
+    q.pageSize(1000);
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT this.\"idAttr\", this.\"attr\" FROM \"entityTypeId#c34894ba\" AS this WHERE (this.\"attr\" = ?  OR this.\"attr\" = ?) AND (this.\"attr\", this.\"idAttr\") < (?, ?) ORDER BY \"attr\" DESC, \"idAttr\" DESC LIMIT 1000",
+        getSqlSelect(entityType, q, parameters, true, previous));
+    assertEquals(asList(1, 3, 3, "id3"), parameters);
+  }
+
+  @Test
+  void getSqlCountPermitted() {
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(INT);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+
+    EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+
+    AclFilter aclFilter = AclFilter.create("entity-entityTypeId", "user", Set.of("ROLE_USER"), 1);
+    QueryImpl<Entity> q =
+        new QueryImpl<>(new QueryRule(singletonList(new QueryRule("attr", EQUALS, 1))));
+    q.and();
+    q.addRule(new QueryRule(PERMITTED, aclFilter));
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT COUNT(*) FROM \"entityTypeId#c34894ba\" AS this WHERE (this.\"attr\" = ?) AND EXISTS ("
+            + "SELECT 1 FROM acl_object_identity AS acl_oi"
+            + " JOIN acl_class AS acl_c ON acl_oi.object_id_class = acl_c.id"
+            + " JOIN acl_entry AS acl_e ON acl_e.acl_object_identity = acl_oi.id"
+            + " JOIN acl_sid AS acl_s ON acl_e.sid = acl_s.id"
+            + " WHERE acl_c.class = ? AND acl_oi.object_id_identity = CAST(this.\"idAttr\" AS VARCHAR)"
+            + " AND acl_e.granting AND (acl_e.mask & ?) <> 0"
+            + " AND ((acl_s.principal AND acl_s.sid = ?) OR (NOT acl_s.principal AND acl_s.sid IN (?))))",
+        getSqlCount(entityType, q, parameters));
+    assertEquals(asList(1, "entity-entityTypeId", 1, "user", "ROLE_USER"), parameters);
+  }
+
+  @Test
+  void testGetSqlSelectIds() {
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(INT);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+
+    Query<Entity> q = new QueryImpl<>().eq("attr", 1).or().eq("attr", 3);
+    q.sort(new Sort("attr"));
+    q.pageSize(1000);
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT this.\"idAttr\" FROM \"entityTypeId#c34894ba\" AS this WHERE this.\"attr\" = ?  OR this.\"attr\" = ?",
+        getSqlSelectIds(entityType, q, parameters));
+    assertEquals(asList(1, 3), parameters);
+  }
+
+  @Test
+  void getSqlAggregate() {
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(INT);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+
+    AggregateQuery aggregateQuery =
+        new AggregateQueryImpl().attrX(attr).query(new QueryImpl<>().eq("attr", 1));
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT this.\"attr\" AS x, COUNT(*) AS n FROM \"entityTypeId#c34894ba\" AS this WHERE this.\"attr\" = ? GROUP BY 1",
+        PostgreSqlQueryGenerator.getSqlAggregate(entityType, aggregateQuery, parameters));
+    assertEquals(singletonList(1), parameters);
+  }
+
+  @Test
+  void getSqlAggregateMrefDistinct() {
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(INT);
+
+    Attribute mrefAttr = when(mock(Attribute.class).getName()).thenReturn("mrefAttr").getMock();
+    when(mrefAttr.getIdentifier()).thenReturn("mrefAttrId");
+    when(mrefAttr.getDataType()).thenReturn(MREF);
+
+    Attribute distinctAttr =
+        when(mock(Attribute.class).getName()).thenReturn("distinctAttr").getMock();
+    when(distinctAttr.getIdentifier()).thenReturn("distinctAttrId");
+    when(distinctAttr.getDataType()).thenReturn(STRING);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+
+    AggregateQuery aggregateQuery =
+        new AggregateQueryImpl().attrX(attr).attrY(mrefAttr).attrDistinct(distinctAttr);
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT this.\"attr\" AS x, agg_y.\"mrefAttr\" AS y, COUNT(DISTINCT this.\"distinctAttr\") AS n FROM \"entityTypeId#c34894ba\" AS this LEFT JOIN \"entityTypeId#c34894ba_mrefAttr\" AS agg_y ON (this.\"idAttr\" = agg_y.\"idAttr\") GROUP BY 1, 2",
+        PostgreSqlQueryGenerator.getSqlAggregate(entityType, aggregateQuery, parameters));
+    assertEquals(emptyList(), parameters);
+  }
+
+  @Test
+  void getSqlAggregateMrefCountsEntities() {
+    Attribute mrefAttr = when(mock(Attribute.class).getName()).thenReturn("mrefAttr").getMock();
+    when(mrefAttr.getIdentifier()).thenReturn("mrefAttrId");
+    when(mrefAttr.getDataType()).thenReturn(MREF);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(mrefAttr);
+    assertEquals(
+        "SELECT agg_x.\"mrefAttr\" AS x, COUNT(DISTINCT this.\"idAttr\") AS n FROM \"entityTypeId#c34894ba\" AS this LEFT JOIN \"entityTypeId#c34894ba_mrefAttr\" AS agg_x ON (this.\"idAttr\" = agg_x.\"idAttr\") GROUP BY 1",
+        PostgreSqlQueryGenerator.getSqlAggregate(entityType, aggregateQuery, Lists.newArrayList()));
+  }
+
+  @Test
+  void getSqlAggregateComputedAttribute() {
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.hasExpression()).thenReturn(true);
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(attr);
+    List<Object> parameters = Lists.newArrayList();
+    assertThrows(
+        MolgenisDataException.class,
+        () -> PostgreSqlQueryGenerator.getSqlAggregate(entityType, aggregateQuery, parameters));
+  }
+
+  @Test
+  void getKeysetSortMixedDirections() {
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getDataType()).thenReturn(INT);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(idAttr.isUnique()).thenReturn(true);
+
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+    when(entityType.getAttribute("idAttr")).thenReturn(idAttr);
+
+    Query<Entity> q = new QueryImpl<>().sort(new Sort("attr", Sort.Direction.DESC));
+    assertNull(getKeysetSort(entityType, q));
+  }
+
+  @Test
+  void getKeysetSortNillableAttribute() {
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getDataType()).thenReturn(INT);
+    when(attr.isNillable()).thenReturn(true);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+
+    Query<Entity> q = new QueryImpl<>().sort(new Sort("attr"));
+    assertNull(getKeysetSort(entityType, q));
+  }
+
+  @Test
+  void getKeysetSortNoSort() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getDataType()).thenReturn(STRING);
+
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("idAttr")).thenReturn(idAttr);
+
+    assertEquals(new Sort("idAttr"), getKeysetSort(entityType, new QueryImpl<>()));
+  }
+
   @Test
   void getSqlSelectXrefInversed() {
     Attribute refAttr = when(mock(Attribute.class).getName()).thenReturn("refAttr").getMock();
@@ -0,0 +1,165 @@
+package org.molgenis.data.postgresql;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.INT;
+import static org.molgenis.data.meta.AttributeType.STRING;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
+import static org.molgenis.data.transaction.TransactionConstants.TRANSACTION_ID_RESOURCE_NAME;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.postgresql.PostgreSqlQueryGenerator.SqlSelectTemplate;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.test.AbstractMockitoTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PostgreSqlQueryTemplateCacheTest extends AbstractMockitoTest {
+  @Mock private TransactionManager transactionManager;
+  @Mock private CacheInvalidationBus cacheInvalidationBus;
+  @Mock private EntityType entityType;
+  @Mock private Attribute idAttr;
+  @Mock private Attribute attr;
+  private PostgreSqlQueryTemplateCache queryTemplateCache;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    when(idAttr.getName()).thenReturn("id");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(idAttr.isUnique()).thenReturn(true);
+    when(attr.getName()).thenReturn("attr");
+    when(attr.getDataType()).thenReturn(INT);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(List.of(idAttr, attr));
+    when(entityType.getAttribute("id")).thenReturn(idAttr);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+
+    queryTemplateCache =
+        new PostgreSqlQueryTemplateCache(
+            transactionManager, cacheInvalidationBus, new SimpleMeterRegistry(), 60, 100);
+  }
+
+  @Test
+  void testPostgreSqlQueryTemplateCache() {
+    verify(transactionManager).addTransactionListener(queryTemplateCache);
+    verify(cacheInvalidationBus).addCacheInvalidationListener(queryTemplateCache);
+  }
+
+  @Test
+  void testGetSelectTemplate() {
+    SqlSelectTemplate template =
+        queryTemplateCache.getSelectTemplate(entityType, new QueryImpl<>().eq("attr", 1), true);
+    assertEquals(
+        "SELECT this.\"id\", this.\"attr\" FROM \"entityTypeId#c34894ba\" AS this",
+        template.getSelectFrom());
+    assertEquals("ORDER BY \"id\" ASC", template.getOrderBy());
+  }
+
+  @Test
+  void testGetSelectTemplateSameShape() {
+    SqlSelectTemplate template =
+        queryTemplateCache.getSelectTemplate(entityType, new QueryImpl<>().eq("attr", 1), true);
+    assertSame(
+        template,
+        queryTemplateCache.getSelectTemplate(entityType, new QueryImpl<>().eq("attr", 2), true));
+  }
+
+  @Test
+  void testGetSelectTemplateOtherFetch() {
+    Fetch fetch = new Fetch().field("id");
+    SqlSelectTemplate template =
+        queryTemplateCache.getSelectTemplate(
+            entityType, new QueryImpl<>().eq("id", "a").fetch(fetch), true);
+
+    fetch.field("attr");
+    SqlSelectTemplate otherTemplate =
+        queryTemplateCache.getSelectTemplate(
+            entityType, new QueryImpl<>().eq("id", "a").fetch(fetch), true);
+    assertNotSame(template, otherTemplate);
+    assertEquals(
+        "SELECT this.\"id\", this.\"attr\" FROM \"entityTypeId#c34894ba\" AS this",
+        otherTemplate.getSelectFrom());
+  }
+
+  @Test
+  void testMetadataChangedOutsideTransaction() {
+    SqlSelectTemplate template = getSelectTemplate();
+    queryTemplateCache.metadataChanged();
+    assertNotSame(template, getSelectTemplate());
+  }
+
+  @Test
+  void testMetadataChangedInTransaction() {
+    SqlSelectTemplate template = getSelectTemplate();
+
+    TransactionSynchronizationManager.bindResource(TRANSACTION_ID_RESOURCE_NAME, "transactionId");
+    try {
+      queryTemplateCache.metadataChanged();
+      SqlSelectTemplate transactionTemplate = getSelectTemplate();
+      assertNotSame(template, transactionTemplate);
+      assertNotSame(transactionTemplate, getSelectTemplate());
+    } finally {
+      TransactionSynchronizationManager.unbindResource(TRANSACTION_ID_RESOURCE_NAME);
+    }
+    assertSame(template, getSelectTemplate());
+
+    queryTemplateCache.afterCommitTransaction("transactionId");
+    assertNotSame(template, getSelectTemplate());
+  }
+
+  @Test
+  void testMetadataChangedWhileGeneratingTemplate() {
+    // metadata changes are committed after the template generation read the entity type
+    AtomicBoolean commitMetadataChange = new AtomicBoolean(true);
+    when(entityType.getAtomicAttributes())
+        .thenAnswer(
+            invocation -> {
+              if (commitMetadataChange.getAndSet(false)) {
+                queryTemplateCache.metadataChanged();
+              }
+              return List.of(idAttr, attr);
+            });
+
+    SqlSelectTemplate staleTemplate = getSelectTemplate();
+    assertNotSame(staleTemplate, getSelectTemplate());
+  }
+
+  @Test
+  void testInvalidateMetadata() {
+    SqlSelectTemplate template = getSelectTemplate();
+    queryTemplateCache.invalidate(
+        CacheInvalidation.create(singleton(ENTITY_TYPE_META_DATA), emptySet()));
+    assertNotSame(template, getSelectTemplate());
+  }
+
+  @Test
+  void testInvalidateData() {
+    SqlSelectTemplate template = getSelectTemplate();
+    queryTemplateCache.invalidate(CacheInvalidation.create(singleton("entityTypeId"), emptySet()));
+    assertSame(template, getSelectTemplate());
+  }
+
+  private SqlSelectTemplate getSelectTemplate() {
+    return queryTemplateCache.getSelectTemplate(entityType, new QueryImpl<Entity>(), true);
+  }
+}
@@ -18,14 +18,16 @@ class PostgreSqlRepositoryCollectionDecoratorTest extends AbstractMockitoTest {
   @Mock private Attribute updatedAttr;
   @Mock private RepositoryCollection repoCollection;
   @Mock private EntityTypeRegistry entityTypeRegistry;
+  @Mock private PostgreSqlQueryTemplateCache queryTemplateCache;
   private PostgreSqlRepositoryCollectionDecorator repoCollectionDecorator;
   private InOrder inOrder;
 
   @BeforeEach
   void setUpBeforeMethod() {
     repoCollectionDecorator =
-        new PostgreSqlRepositoryCollectionDecorator(repoCollection, entityTypeRegistry);
-    inOrder = inOrder(repoCollection, entityTypeRegistry);
+        new PostgreSqlRepositoryCollectionDecorator(
+            repoCollection, entityTypeRegistry, queryTemplateCache);
+    inOrder = inOrder(repoCollection, entityTypeRegistry, queryTemplateCache);
   }
 
   @Test
@@ -34,6 +36,7 @@ class PostgreSqlRepositoryCollectionDecoratorTest extends AbstractMockitoTest {
 
     inOrder.verify(repoCollection).createRepository(entityType);
     inOrder.verify(entityTypeRegistry).registerEntityType(entityType);
+    inOrder.verify(queryTemplateCache).metadataChanged();
   }
 
   @Test
@@ -42,6 +45,7 @@ class PostgreSqlRepositoryCollectionDecoratorTest extends AbstractMockitoTest {
 
     inOrder.verify(repoCollection).deleteRepository(entityType);
     inOrder.verify(entityTypeRegistry).unregisterEntityType(entityType);
+    inOrder.verify(queryTemplateCache).metadataChanged();
   }
 
   @Test
@@ -49,6 +53,7 @@ class PostgreSqlRepositoryCollectionDecoratorTest extends AbstractMockitoTest {
     repoCollectionDecorator.addAttribute(entityType, attr);
 
     inOrder.verify(entityTypeRegistry).addAttribute(entityType, attr);
+    inOrder.verify(queryTemplateCache).metadataChanged();
     inOrder.verify(repoCollection).addAttribute(entityType, attr);
   }
 
@@ -57,6 +62,7 @@ class PostgreSqlRepositoryCollectionDecoratorTest extends AbstractMockitoTest {
     repoCollectionDecorator.updateAttribute(entityType, attr, updatedAttr);
 
     inOrder.verify(entityTypeRegistry).updateAttribute(entityType, attr, updatedAttr);
+    inOrder.verify(queryTemplateCache).metadataChanged();
     inOrder.verify(repoCollection).updateAttribute(entityType, attr, updatedAttr);
   }
 
@@ -65,6 +71,7 @@ class PostgreSqlRepositoryCollectionDecoratorTest extends AbstractMockitoTest {
     repoCollectionDecorator.deleteAttribute(entityType, attr);
 
     inOrder.verify(entityTypeRegistry).deleteAttribute(entityType, attr);
+    inOrder.verify(queryTemplateCache).metadataChanged();
     inOrder.verify(repoCollection).deleteAttribute(entityType, attr);
   }
 }
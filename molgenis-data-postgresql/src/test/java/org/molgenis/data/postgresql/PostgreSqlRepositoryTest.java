@@ -2,21 +2,32 @@ package org.molgenis.data.postgresql;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockitoSession;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.quality.Strictness.STRICT_STUBS;
+import static org.molgenis.data.BulkLoadModeHolder.callInBulkLoadMode;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
+import static org.molgenis.data.StreamingModeHolder.callInStreamingMode;
 import static org.molgenis.data.meta.AttributeType.INT;
 import static org.molgenis.data.meta.AttributeType.LONG;
 import static org.molgenis.data.meta.AttributeType.MREF;
@@ -24,16 +35,23 @@ import static org.molgenis.data.meta.AttributeType.ONE_TO_MANY;
 import static org.molgenis.data.meta.AttributeType.STRING;
 import static org.molgenis.data.meta.AttributeType.XREF;
 import static org.molgenis.data.postgresql.PostgreSqlExceptionTranslator.VALUE_TOO_LONG_MSG;
+import static org.molgenis.data.postgresql.PostgreSqlRepository.COPY_BATCH_SIZE;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import javax.sql.DataSource;
 import org.junit.jupiter.api.AfterEach;
@@ -46,17 +64,27 @@ import org.mockito.MockitoSession;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
+import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.postgresql.PostgreSqlEntityFactory.EntityMapper;
+import org.molgenis.data.support.AggregateQueryImpl;
+import org.molgenis.data.transaction.CacheInvalidationBus;
+import org.molgenis.data.transaction.TransactionManager;
 import org.molgenis.data.validation.MolgenisValidationException;
 import org.molgenis.util.UnexpectedEnumException;
 import org.molgenis.validation.ConstraintViolation;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @SuppressWarnings("java:S5979") // mocks are initialized
 class PostgreSqlRepositoryTest {
@@ -67,14 +95,23 @@ class PostgreSqlRepositoryTest {
   @Mock private EntityType entityType;
   @Mock private Query<Entity> query;
   @Mock private EntityMapper rowMapper;
+  private PostgreSqlQueryTemplateCache queryTemplateCache;
 
   private MockitoSession mockitoSession;
 
   @BeforeEach
   void setUpBeforeMethod() throws Exception {
     mockitoSession = mockitoSession().initMocks(this).strictness(STRICT_STUBS).startMocking();
+    queryTemplateCache =
+        new PostgreSqlQueryTemplateCache(
+            mock(TransactionManager.class),
+            mock(CacheInvalidationBus.class),
+            new SimpleMeterRegistry(),
+            60,
+            100);
     postgreSqlRepo =
-        new PostgreSqlRepository(postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType);
+        new PostgreSqlRepository(
+            postgreSqlEntityFactory, queryTemplateCache, jdbcTemplate, dataSource, entityType);
   }
 
   @AfterEach
@@ -163,7 +200,8 @@ class PostgreSqlRepositoryTest {
     when(entityType.getAtomicAttributes()).thenReturn(newArrayList(idAttr, oneToManyAttr));
     EntityType entityType = this.entityType;
     postgreSqlRepo =
-        new PostgreSqlRepository(postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType);
+        new PostgreSqlRepository(
+            postgreSqlEntityFactory, queryTemplateCache, jdbcTemplate, dataSource, entityType);
 
     int queryValue = 2;
     QueryRule queryRule = new QueryRule(oneToManyAttrName, EQUALS, queryValue);
@@ -179,6 +217,203 @@ class PostgreSqlRepositoryTest {
     assertEquals(singletonList(entity0), postgreSqlRepo.findAll(query).collect(toList()));
   }
 
+  @Test
+  void findAllQueryInTransactionStreamsFromCursor() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("entityId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+
+    when(entityType.getId()).thenReturn("entityId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("entityId")).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(idAttr));
+
+    when(postgreSqlEntityFactory.createRowMapper(entityType, null)).thenReturn(rowMapper);
+    Entity entity0 = mock(Entity.class);
+    Entity entity1 = mock(Entity.class);
+    Stream<Entity> entities = Stream.of(entity0, entity1);
+    doReturn(entities)
+        .when(jdbcTemplate)
+        .queryForStream(
+            any(PreparedStatementCreator.class), any(PreparedStatementSetter.class), eq(rowMapper));
+
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try {
+      assertEquals(
+          asList(entity0, entity1),
+          callInStreamingMode(() -> postgreSqlRepo.findAll(query).collect(toList())));
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+  }
+
+  @Test
+  void findAllQueryConsumedAfterTransactionEnded() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("entityId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+
+    when(entityType.getId()).thenReturn("entityId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("entityId")).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(idAttr));
+
+    when(postgreSqlEntityFactory.createRowMapper(entityType, null)).thenReturn(rowMapper);
+    Entity entity0 = mock(Entity.class);
+    String sql =
+        "SELECT this.\"entityId\" FROM \"entityId#fc2928f6\" AS this ORDER BY \"entityId\" ASC LIMIT 1000";
+    when(jdbcTemplate.query(sql, new Object[0], rowMapper)).thenReturn(singletonList(entity0));
+
+    // e.g. the read-only transaction of DataService.findAll that ends when findAll returns
+    Stream<Entity> entities;
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try {
+      entities = postgreSqlRepo.findAll(query);
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    assertEquals(singletonList(entity0), entities.collect(toList()));
+    verify(jdbcTemplate, never())
+        .queryForStream(
+            any(PreparedStatementCreator.class), any(PreparedStatementSetter.class), eq(rowMapper));
+  }
+
+  @Test
+  void aggregateX() throws SQLException {
+    mockAggregateEntityType();
+    Attribute xAttr = mockAggregateAttribute("xAttr", STRING);
+    String sql =
+        "SELECT this.\"xAttr\" AS x, COUNT(*) AS n FROM \"entityTypeId#c34894ba\" AS this GROUP BY 1";
+    mockAggregateRows(
+        sql,
+        mockAggregateRow(xAttr, "b", null, null, 2L),
+        mockAggregateRow(xAttr, "a", null, null, 3L));
+
+    AggregateResult expected =
+        new AggregateResult(
+            asList(singletonList(3L), singletonList(2L)), asList("a", "b"), emptyList());
+    assertEquals(expected, postgreSqlRepo.aggregate(new AggregateQueryImpl().attrX(xAttr)));
+  }
+
+  @Test
+  void aggregateXYZeroFilled() throws SQLException {
+    mockAggregateEntityType();
+    Attribute xAttr = mockAggregateAttribute("xAttr", STRING);
+    Attribute yAttr = mockAggregateAttribute("yAttr", INT);
+    String sql =
+        "SELECT this.\"xAttr\" AS x, this.\"yAttr\" AS y, COUNT(*) AS n FROM \"entityTypeId#c34894ba\" AS this GROUP BY 1, 2";
+    mockAggregateRows(
+        sql,
+        mockAggregateRow(xAttr, "a", yAttr, 1, 1L),
+        mockAggregateRow(xAttr, "b", yAttr, 2, 4L),
+        mockAggregateRow(xAttr, "a", yAttr, 3, 5L));
+
+    AggregateResult expected =
+        new AggregateResult(
+            asList(asList(1L, 0L, 5L), asList(0L, 4L, 0L)), asList("a", "b"), asList(1, 2, 3));
+    assertEquals(
+        expected, postgreSqlRepo.aggregate(new AggregateQueryImpl().attrX(xAttr).attrY(yAttr)));
+  }
+
+  @Test
+  void aggregateXYMissingValues() throws SQLException {
+    mockAggregateEntityType();
+    Attribute xAttr = mockAggregateAttribute("xAttr", STRING);
+    when(xAttr.isNillable()).thenReturn(true);
+    Attribute yAttr = mockAggregateAttribute("yAttr", STRING);
+    when(yAttr.isNillable()).thenReturn(true);
+    String sql =
+        "SELECT this.\"xAttr\" AS x, this.\"yAttr\" AS y, COUNT(*) AS n FROM \"entityTypeId#c34894ba\" AS this GROUP BY 1, 2";
+    mockAggregateRows(
+        sql,
+        mockAggregateRow(xAttr, null, yAttr, "c", 2L),
+        mockAggregateRow(xAttr, "a", yAttr, "c", 3L));
+
+    // the missing value label comes last and is reported for nillable attributes without rows
+    AggregateResult expected =
+        new AggregateResult(
+            asList(asList(3L, 0L), asList(2L, 0L)), asList("a", null), asList("c", null));
+    assertEquals(
+        expected, postgreSqlRepo.aggregate(new AggregateQueryImpl().attrX(xAttr).attrY(yAttr)));
+  }
+
+  @Test
+  void aggregateXrefLabels() throws SQLException {
+    mockAggregateEntityType();
+    Attribute xAttr = mockAggregateAttribute("xAttr", XREF);
+    String sql =
+        "SELECT this.\"xAttr\" AS x, COUNT(*) AS n FROM \"entityTypeId#c34894ba\" AS this GROUP BY 1";
+    Entity refEntity0 = when(mock(Entity.class).getIdValue()).thenReturn("ref0").getMock();
+    Entity refEntity1 = when(mock(Entity.class).getIdValue()).thenReturn("ref1").getMock();
+    mockAggregateRows(
+        sql,
+        mockAggregateRow(xAttr, refEntity1, null, null, 2L),
+        mockAggregateRow(xAttr, refEntity0, null, null, 3L));
+
+    AggregateResult expected =
+        new AggregateResult(
+            asList(singletonList(3L), singletonList(2L)),
+            asList(refEntity0, refEntity1),
+            emptyList());
+    assertEquals(expected, postgreSqlRepo.aggregate(new AggregateQueryImpl().attrX(xAttr)));
+  }
+
+  @Test
+  void aggregateDistinct() throws SQLException {
+    mockAggregateEntityType();
+    Attribute xAttr = mockAggregateAttribute("xAttr", STRING);
+    Attribute distinctAttr = mockAggregateAttribute("distinctAttr", STRING);
+    String sql =
+        "SELECT this.\"xAttr\" AS x, COUNT(DISTINCT this.\"distinctAttr\") AS n FROM \"entityTypeId#c34894ba\" AS this GROUP BY 1";
+    mockAggregateRows(sql, mockAggregateRow(xAttr, "a", null, null, 2L));
+
+    AggregateResult expected =
+        new AggregateResult(singletonList(singletonList(2L)), singletonList("a"), emptyList());
+    assertEquals(
+        expected,
+        postgreSqlRepo.aggregate(new AggregateQueryImpl().attrX(xAttr).attrDistinct(distinctAttr)));
+  }
+
+  private void mockAggregateEntityType() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+  }
+
+  private Attribute mockAggregateAttribute(String name, AttributeType type) {
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn(name).getMock();
+    when(attr.getDataType()).thenReturn(type);
+    return attr;
+  }
+
+  private ResultSet mockAggregateRow(
+      Attribute xAttr, Object xLabel, Attribute yAttr, Object yLabel, long count)
+      throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(postgreSqlEntityFactory.getAggregateLabel(resultSet, entityType, xAttr, "x"))
+        .thenReturn(xLabel);
+    if (yAttr != null) {
+      when(postgreSqlEntityFactory.getAggregateLabel(resultSet, entityType, yAttr, "y"))
+          .thenReturn(yLabel);
+    }
+    when(resultSet.getLong("n")).thenReturn(count);
+    return resultSet;
+  }
+
+  private void mockAggregateRows(String sql, ResultSet... rows) {
+    doAnswer(
+            invocation -> {
+              RowCallbackHandler rowCallbackHandler = invocation.getArgument(2);
+              for (ResultSet row : rows) {
+                rowCallbackHandler.processRow(row);
+              }
+              return null;
+            })
+        .when(jdbcTemplate)
+        .query(eq(sql), eq(new Object[0]), any(RowCallbackHandler.class));
+  }
+
   @Test
   void testUpdateEntitiesExist() {
     Attribute idAttr = mock(Attribute.class);
@@ -315,4 +550,171 @@ class PostgreSqlRepositoryTest {
         UnexpectedEnumException.class,
         () -> mrefIdRowCallbackHandler.processRow(mock(ResultSet.class)));
   }
+
+  @Test
+  void testAddCopyingEscapesValues() throws SQLException {
+    Attribute idAttr = createAttribute("id", STRING);
+    Attribute stringAttr = createAttribute("string", STRING);
+    when(entityType.getId()).thenReturn("entity");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(asList(idAttr, stringAttr));
+    Map<String, ByteArrayOutputStream> copies = mockCopy();
+
+    Entity entity0 = mock(Entity.class);
+    when(entity0.getString("id")).thenReturn("id0");
+    when(entity0.getString("string")).thenReturn("tab\tbackslash\\quote\"newline\n");
+    Entity entity1 = mock(Entity.class);
+    when(entity1.getString("id")).thenReturn("id1");
+
+    assertEquals(2, callInBulkLoadMode(() -> postgreSqlRepo.add(Stream.of(entity0, entity1))));
+    assertEquals(
+        ImmutableMap.of(
+            "COPY \"entity#6844280e\" (\"id\", \"string\") FROM STDIN WITH (FORMAT csv)",
+            "\"id0\",\"tab\tbackslash\\quote\"\"newline\n\"\n\"id1\",\n"),
+        toStrings(copies));
+  }
+
+  @Test
+  void testAddCopyingJunctionTableRows() throws SQLException {
+    Attribute idAttr = createAttribute("id", STRING);
+    Attribute mrefAttr = createAttribute("mref", MREF);
+    when(entityType.getId()).thenReturn("entity");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(asList(idAttr, mrefAttr));
+    Map<String, ByteArrayOutputStream> copies = mockCopy();
+
+    Attribute refIdAttr = createAttribute("refId", STRING);
+    EntityType refEntityType = mock(EntityType.class);
+    when(refEntityType.getIdAttribute()).thenReturn(refIdAttr);
+    Entity refEntity0 = mock(Entity.class);
+    when(refEntity0.getEntityType()).thenReturn(refEntityType);
+    when(refEntity0.getString("refId")).thenReturn("ref0");
+    Entity refEntity1 = mock(Entity.class);
+    when(refEntity1.getEntityType()).thenReturn(refEntityType);
+    when(refEntity1.getString("refId")).thenReturn("ref\t1");
+    Entity entity = mock(Entity.class);
+    when(entity.get("id")).thenReturn("id0");
+    when(entity.getString("id")).thenReturn("id0");
+    when(entity.getEntities("mref")).thenReturn(asList(refEntity0, refEntity1));
+
+    assertEquals(1, callInBulkLoadMode(() -> postgreSqlRepo.add(Stream.of(entity))));
+    assertEquals(
+        ImmutableMap.of(
+            "COPY \"entity#6844280e\" (\"id\") FROM STDIN WITH (FORMAT csv)",
+            "\"id0\"\n",
+            "COPY \"entity#6844280e_mref\" (\"order\",\"id\",\"mref\") FROM STDIN WITH (FORMAT csv)",
+            "0,\"id0\",\"ref0\"\n1,\"id0\",\"ref\t1\"\n"),
+        toStrings(copies));
+  }
+
+  @Test
+  void testAddCopyingBatches() throws SQLException {
+    Attribute idAttr = createAttribute("id", INT);
+    when(entityType.getId()).thenReturn("entity");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(idAttr));
+    List<String> copiedRows = new ArrayList<>();
+    CopyIn copyIn = mockCopyIn();
+    doAnswer(
+            invocation -> {
+              copiedRows.add(
+                  new String(
+                      invocation.getArgument(0),
+                      invocation.<Integer>getArgument(1),
+                      invocation.<Integer>getArgument(2),
+                      UTF_8));
+              return null;
+            })
+        .when(copyIn)
+        .writeToCopy(any(byte[].class), anyInt(), anyInt());
+
+    Entity entity = mock(Entity.class);
+    AtomicInteger id = new AtomicInteger();
+    when(entity.getInt("id")).thenAnswer(invocation -> id.getAndIncrement());
+    Stream<Entity> entities = Stream.generate(() -> entity).limit(COPY_BATCH_SIZE + 1L);
+
+    assertEquals(COPY_BATCH_SIZE + 1, callInBulkLoadMode(() -> postgreSqlRepo.add(entities)));
+    verify(copyIn, times(2)).endCopy();
+    String rows = String.join("", copiedRows);
+    assertEquals(COPY_BATCH_SIZE + 1, rows.split("\n").length);
+    assertThat(rows).endsWith("\n" + (COPY_BATCH_SIZE - 1) + "\n" + COPY_BATCH_SIZE + "\n");
+  }
+
+  @Test
+  void testAddCopyingCancelsCopyOnFailure() throws SQLException {
+    Attribute idAttr = createAttribute("id", STRING);
+    when(entityType.getId()).thenReturn("entity");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(idAttr));
+    CopyIn copyIn = mockCopyIn();
+    when(copyIn.isActive()).thenReturn(true);
+
+    Entity entity = mock(Entity.class);
+    IllegalStateException exception = new IllegalStateException();
+    when(entity.getString("id")).thenThrow(exception);
+
+    Stream<Entity> entities = Stream.of(entity);
+    assertSame(
+        exception,
+        assertThrows(
+            IllegalStateException.class,
+            () -> callInBulkLoadMode(() -> postgreSqlRepo.add(entities))));
+    verify(copyIn).cancelCopy();
+    verify(copyIn, never()).endCopy();
+  }
+
+  private static Attribute createAttribute(String name, AttributeType type) {
+    Attribute attr = mock(Attribute.class);
+    when(attr.getName()).thenReturn(name);
+    when(attr.getDataType()).thenReturn(type);
+    return attr;
+  }
+
+  private CopyIn mockCopyIn() throws SQLException {
+    CopyManager copyManager = mockCopyManager();
+    CopyIn copyIn = mock(CopyIn.class);
+    when(copyManager.copyIn(any(String.class))).thenReturn(copyIn);
+    return copyIn;
+  }
+
+  /** Returns the bytes copied per COPY statement */
+  private Map<String, ByteArrayOutputStream> mockCopy() throws SQLException {
+    CopyManager copyManager = mockCopyManager();
+    Map<String, ByteArrayOutputStream> copies = new LinkedHashMap<>();
+    when(copyManager.copyIn(any(String.class)))
+        .thenAnswer(
+            invocation -> {
+              ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+              copies.put(invocation.getArgument(0), bytes);
+              CopyIn copyIn = mock(CopyIn.class);
+              doAnswer(
+                      writeInvocation -> {
+                        bytes.write(
+                            writeInvocation.getArgument(0),
+                            writeInvocation.<Integer>getArgument(1),
+                            writeInvocation.<Integer>getArgument(2));
+                        return null;
+                      })
+                  .when(copyIn)
+                  .writeToCopy(any(byte[].class), anyInt(), anyInt());
+              return copyIn;
+            });
+    return copies;
+  }
+
+  private CopyManager mockCopyManager() throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    PGConnection pgConnection = mock(PGConnection.class);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+    CopyManager copyManager = mock(CopyManager.class);
+    when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+    return copyManager;
+  }
+
+  private static Map<String, String> toStrings(Map<String, ByteArrayOutputStream> copies) {
+    Map<String, String> result = new LinkedHashMap<>();
+    copies.forEach((sql, bytes) -> result.put(sql, bytes.toString(UTF_8)));
+    return result;
+  }
 }
@@ -493,6 +493,24 @@ class PostgreSqlUtilsTest {
         MolgenisDataException.class, () -> PostgreSqlUtils.getPostgreSqlQueryValue(value, attr));
   }
 
+  static Iterator<Object[]> getPostgreSqlCopyValueProvider() {
+    return asList(
+            new Object[] {null, ""},
+            new Object[] {"", "\"\""},
+            new Object[] {"a,\"b\"\nc", "\"a,\"\"b\"\"\nc\""},
+            new Object[] {Boolean.TRUE, "t"},
+            new Object[] {Boolean.FALSE, "f"},
+            new Object[] {123, "123"},
+            new Object[] {LocalDate.of(2012, Month.DECEMBER, 21), "2012-12-21"})
+        .iterator();
+  }
+
+  @ParameterizedTest
+  @MethodSource("getPostgreSqlCopyValueProvider")
+  void getPostgreSqlCopyValue(Object value, String expectedCopyValue) {
+    assertEquals(expectedCopyValue, PostgreSqlUtils.getPostgreSqlCopyValue(value));
+  }
+
   private static Attribute createAttr(String attrName, AttributeType attrType) {
     Attribute attr = mock(Attribute.class);
     when(attr.getName()).thenReturn(attrName);
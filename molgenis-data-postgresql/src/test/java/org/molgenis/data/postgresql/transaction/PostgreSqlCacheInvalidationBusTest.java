@@ -0,0 +1,128 @@
+package org.molgenis.data.postgresql.transaction;
+
+import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toSet;
+import static org.apache.commons.lang3.StringUtils.repeat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.Set;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.EntityKey;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationListener;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionManager;
+
+class PostgreSqlCacheInvalidationBusTest {
+  private PostgreSqlCacheInvalidationBus cacheInvalidationBus;
+  private PostgreSqlCacheInvalidationBus otherNodeCacheInvalidationBus;
+  private CacheInvalidationListener cacheInvalidationListener;
+  private CacheInvalidationListener otherNodeCacheInvalidationListener;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    cacheInvalidationBus = createCacheInvalidationBus();
+    cacheInvalidationListener = mock(CacheInvalidationListener.class);
+    cacheInvalidationBus.addCacheInvalidationListener(cacheInvalidationListener);
+
+    otherNodeCacheInvalidationBus = createCacheInvalidationBus();
+    otherNodeCacheInvalidationListener = mock(CacheInvalidationListener.class);
+    otherNodeCacheInvalidationBus.addCacheInvalidationListener(otherNodeCacheInvalidationListener);
+  }
+
+  @Test
+  void handlePayload() {
+    CacheInvalidation cacheInvalidation =
+        CacheInvalidation.create(
+            Set.of("entityType0"),
+            Set.of(
+                EntityKey.create("entityType1", "id\"0\n"),
+                EntityKey.create("entityType1", 1),
+                EntityKey.create("entityType2", 2L)));
+
+    otherNodeCacheInvalidationBus.handlePayload(
+        cacheInvalidationBus.createPayload(cacheInvalidation));
+
+    verify(otherNodeCacheInvalidationListener).invalidate(cacheInvalidation);
+  }
+
+  @Test
+  void handlePayloadOwnNode() {
+    CacheInvalidation cacheInvalidation =
+        CacheInvalidation.create(Set.of("entityType0"), emptySet());
+
+    cacheInvalidationBus.handlePayload(cacheInvalidationBus.createPayload(cacheInvalidation));
+
+    verifyNoInteractions(cacheInvalidationListener);
+  }
+
+  @Test
+  void handlePayloadTooManyEntities() {
+    Set<EntityKey> entityKeys =
+        IntStream.range(0, 1000)
+            .mapToObj(id -> EntityKey.create("entityType0", id))
+            .collect(toSet());
+    CacheInvalidation cacheInvalidation = CacheInvalidation.create(emptySet(), entityKeys);
+
+    otherNodeCacheInvalidationBus.handlePayload(
+        cacheInvalidationBus.createPayload(cacheInvalidation));
+
+    verify(otherNodeCacheInvalidationListener)
+        .invalidate(CacheInvalidation.create(Set.of("entityType0"), emptySet()));
+  }
+
+  @Test
+  void handlePayloadTooManyRepositories() {
+    Set<String> entityTypeIds =
+        IntStream.range(0, 1000).mapToObj(id -> repeat('x', 10) + id).collect(toSet());
+    CacheInvalidation cacheInvalidation = CacheInvalidation.create(entityTypeIds, emptySet());
+
+    otherNodeCacheInvalidationBus.handlePayload(
+        cacheInvalidationBus.createPayload(cacheInvalidation));
+
+    verify(otherNodeCacheInvalidationListener).invalidateAll();
+  }
+
+  @Test
+  void handlePayloadInvalid() {
+    otherNodeCacheInvalidationBus.handlePayload("invalid");
+
+    verify(otherNodeCacheInvalidationListener).invalidateAll();
+  }
+
+  @Test
+  void publishDisabled() {
+    PostgreSqlCacheInvalidationBus disabledCacheInvalidationBus = createCacheInvalidationBus(false);
+    disabledCacheInvalidationBus.addCacheInvalidationListener(cacheInvalidationListener);
+    CacheInvalidation cacheInvalidation =
+        CacheInvalidation.create(Set.of("entityType0"), emptySet());
+
+    disabledCacheInvalidationBus.publish(cacheInvalidation);
+
+    verify(cacheInvalidationListener).invalidate(cacheInvalidation);
+  }
+
+  @Test
+  void publishEmpty() {
+    cacheInvalidationBus.publish(CacheInvalidation.create(emptySet(), emptySet()));
+
+    verifyNoInteractions(cacheInvalidationListener);
+  }
+
+  private static PostgreSqlCacheInvalidationBus createCacheInvalidationBus() {
+    return createCacheInvalidationBus(true);
+  }
+
+  private static PostgreSqlCacheInvalidationBus createCacheInvalidationBus(boolean enabled) {
+    return new PostgreSqlCacheInvalidationBus(
+        mock(TransactionManager.class),
+        mock(TransactionInformation.class),
+        mock(DataSource.class),
+        enabled);
+  }
+}
@@ -1,28 +1,39 @@
 package org.molgenis.data.postgresql.transaction;
 
+import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import javax.sql.DataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.molgenis.data.populate.IdGenerator;
 import org.molgenis.data.transaction.MolgenisTransaction;
+import org.molgenis.data.transaction.TransactionExceptionTranslator;
 import org.molgenis.data.transaction.TransactionExceptionTranslatorRegistry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionSystemException;
 
 class PostgreSqlTransactionManagerTest {
   private PostgreSqlTransactionManager molgenisTransactionManager;
   private IdGenerator idGenerator;
+  private DataSource dataSource;
+  private TransactionExceptionTranslatorRegistry transactionExceptionTranslatorRegistry;
 
   @BeforeEach
   void setUpBeforeMethod() {
     idGenerator = mock(IdGenerator.class);
-    DataSource dataSource = mock(DataSource.class);
-    TransactionExceptionTranslatorRegistry transactionExceptionTranslatorRegistry =
-        mock(TransactionExceptionTranslatorRegistry.class);
+    dataSource = mock(DataSource.class);
+    transactionExceptionTranslatorRegistry = mock(TransactionExceptionTranslatorRegistry.class);
     molgenisTransactionManager =
         new PostgreSqlTransactionManager(
             idGenerator, dataSource, transactionExceptionTranslatorRegistry);
@@ -39,4 +50,41 @@ class PostgreSqlTransactionManagerTest {
     MolgenisTransaction molgenisTransaction = (MolgenisTransaction) trans;
     assertEquals(id, molgenisTransaction.getId());
   }
+
+  @Test
+  void testCheckDeferredConstraints() throws SQLException {
+    Connection connection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.createStatement()).thenReturn(statement);
+
+    molgenisTransactionManager.checkDeferredConstraints();
+
+    verify(statement).execute("SET CONSTRAINTS ALL IMMEDIATE");
+    verify(statement).close();
+    verify(connection).close();
+  }
+
+  @Test
+  void testCheckDeferredConstraintsViolated() throws SQLException {
+    Connection connection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.createStatement()).thenReturn(statement);
+    SQLException sqlException = new SQLException("violation");
+    when(statement.execute("SET CONSTRAINTS ALL IMMEDIATE")).thenThrow(sqlException);
+    TransactionExceptionTranslator transactionExceptionTranslator =
+        mock(TransactionExceptionTranslator.class);
+    DataAccessException translatedException = mock(DataAccessException.class);
+    when(transactionExceptionTranslator.doTranslate(any(TransactionSystemException.class)))
+        .thenReturn(translatedException);
+    when(transactionExceptionTranslatorRegistry.getTransactionExceptionTranslators())
+        .thenReturn(singletonList(transactionExceptionTranslator));
+
+    Exception exception =
+        assertThrows(
+            DataAccessException.class, () -> molgenisTransactionManager.checkDeferredConstraints());
+    assertEquals(translatedException, exception);
+    verify(connection).close();
+  }
 }
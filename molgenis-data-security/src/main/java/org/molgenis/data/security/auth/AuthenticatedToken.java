@@ -0,0 +1,31 @@
+package org.molgenis.data.security.auth;
+
+import static java.time.Instant.now;
+
+import com.google.auto.value.AutoValue;
+import java.time.Instant;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/** User details and expiration date of a {@link Token}, see {@link TokenCache}. */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+public abstract class AuthenticatedToken {
+  public abstract UserDetails getUserDetails();
+
+  /** expiration date or <code>null</code> if the token doesn't expire */
+  @Nullable
+  @CheckForNull
+  public abstract Instant getExpirationDate();
+
+  public boolean isExpired() {
+    Instant expirationDate = getExpirationDate();
+    return expirationDate != null && expirationDate.isBefore(now());
+  }
+
+  public static AuthenticatedToken create(
+      UserDetails userDetails, @Nullable @CheckForNull Instant expirationDate) {
+    return new AutoValue_AuthenticatedToken(userDetails, expirationDate);
+  }
+}
@@ -13,14 +13,17 @@ public class RoleMembershipDecorator extends AbstractRepositoryDecorator<RoleMem
 
   private final RoleMembershipValidator roleMembershipValidator;
   private final SessionSecurityContextUpdater sessionSecurityContextUpdater;
+  private final TokenCache tokenCache;
 
   RoleMembershipDecorator(
       Repository<RoleMembership> delegateRepository,
       RoleMembershipValidator roleMembershipValidator,
-      SessionSecurityContextUpdater securityContextUpdater) {
+      SessionSecurityContextUpdater securityContextUpdater,
+      TokenCache tokenCache) {
     super(delegateRepository);
     this.roleMembershipValidator = requireNonNull(roleMembershipValidator);
     this.sessionSecurityContextUpdater = requireNonNull(securityContextUpdater);
+    this.tokenCache = requireNonNull(tokenCache);
   }
 
   @Override
@@ -76,6 +79,7 @@ public class RoleMembershipDecorator extends AbstractRepositoryDecorator<RoleMem
   private boolean preAdd(RoleMembership roleMembership) {
     roleMembershipValidator.validate(roleMembership);
     sessionSecurityContextUpdater.resetAuthorities(roleMembership.getUser());
+    tokenCache.markTokenCacheDirty();
     return true;
   }
 
@@ -84,6 +88,7 @@ public class RoleMembershipDecorator extends AbstractRepositoryDecorator<RoleMem
     sessionSecurityContextUpdater.resetAuthorities(currentRoleMembership.getUser());
     sessionSecurityContextUpdater.resetAuthorities(roleMembership.getUser());
     roleMembershipValidator.validate(roleMembership);
+    tokenCache.markTokenCacheDirty();
     return true;
   }
 
@@ -97,6 +102,7 @@ public class RoleMembershipDecorator extends AbstractRepositoryDecorator<RoleMem
 
   private boolean preDelete(RoleMembership roleMembership) {
     sessionSecurityContextUpdater.resetAuthorities(roleMembership.getUser());
+    tokenCache.markTokenCacheDirty();
     return true;
   }
 }
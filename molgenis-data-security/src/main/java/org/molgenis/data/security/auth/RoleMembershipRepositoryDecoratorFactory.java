@@ -14,20 +14,23 @@ public class RoleMembershipRepositoryDecoratorFactory
 
   private final RoleMembershipValidator roleMembershipValidator;
   private final SessionSecurityContextUpdater sessionSecurityContextUpdater;
+  private final TokenCache tokenCache;
 
   public RoleMembershipRepositoryDecoratorFactory(
       RoleMembershipMetadata roleMembershipMetadata,
       RoleMembershipValidator roleMembershipValidator,
-      SessionSecurityContextUpdater sessionSecurityContextUpdater) {
+      SessionSecurityContextUpdater sessionSecurityContextUpdater,
+      TokenCache tokenCache) {
     super(roleMembershipMetadata);
     this.roleMembershipValidator = requireNonNull(roleMembershipValidator);
     this.sessionSecurityContextUpdater = requireNonNull(sessionSecurityContextUpdater);
+    this.tokenCache = requireNonNull(tokenCache);
   }
 
   @Override
   public Repository<RoleMembership> createDecoratedRepository(
       Repository<RoleMembership> repository) {
     return new RoleMembershipDecorator(
-        repository, roleMembershipValidator, sessionSecurityContextUpdater);
+        repository, roleMembershipValidator, sessionSecurityContextUpdater, tokenCache);
   }
 }
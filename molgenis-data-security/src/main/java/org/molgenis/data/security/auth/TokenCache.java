@@ -0,0 +1,123 @@
+package org.molgenis.data.security.auth;
+
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.molgenis.data.security.auth.RoleMembershipMetadata.ROLE_MEMBERSHIP;
+import static org.molgenis.data.security.auth.TokenMetadata.TOKEN;
+import static org.molgenis.data.security.auth.UserMetadata.USER;
+import static org.molgenis.data.transaction.TransactionConstants.TRANSACTION_ID_RESOURCE_NAME;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Set;
+import java.util.function.Function;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
+import org.molgenis.data.transaction.CacheInvalidationListener;
+import org.molgenis.data.transaction.TransactionListener;
+import org.molgenis.data.transaction.TransactionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Short-lived cache of authenticated tokens, so that authenticating API requests with the same
+ * token doesn't query the token and user for every request.
+ *
+ * <p>Changes to tokens, users and role memberships mark the cache dirty: the cache is cleared
+ * immediately and once more when the transaction that made the changes commits, the transaction
+ * itself does not use the cache. Changes committed by other nodes are evicted through the {@link
+ * CacheInvalidationBus}.
+ */
+@Component
+public class TokenCache implements TransactionListener, CacheInvalidationListener {
+  private static final Logger LOG = LoggerFactory.getLogger(TokenCache.class);
+  private static final String CACHE_NAME = "token";
+
+  private final Cache<String, AuthenticatedToken> cache;
+  /** ids of transactions that marked the cache dirty, see {@link #markTokenCacheDirty()} */
+  private final Set<String> dirtyTransactionIds = newConcurrentHashSet();
+
+  TokenCache(
+      TransactionManager transactionManager,
+      CacheInvalidationBus cacheInvalidationBus,
+      MeterRegistry meterRegistry,
+      @Value("${security.token.cache.ttl.seconds:60}") long timeToLiveSeconds,
+      @Value("${security.token.cache.max.size:1000}") long maxSize) {
+    this.cache =
+        Caffeine.newBuilder()
+            .recordStats()
+            .expireAfterWrite(timeToLiveSeconds, SECONDS)
+            .maximumSize(maxSize)
+            .executor(Runnable::run)
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    requireNonNull(transactionManager).addTransactionListener(this);
+    requireNonNull(cacheInvalidationBus).addCacheInvalidationListener(this);
+  }
+
+  /**
+   * Returns the authenticated token from the cache or loads it. Exceptions thrown by the loader,
+   * e.g. for unknown tokens, are propagated and nothing is cached.
+   */
+  public AuthenticatedToken get(String token, Function<String, AuthenticatedToken> loader) {
+    String transactionId = getTransactionId();
+    if (transactionId != null && dirtyTransactionIds.contains(transactionId)) {
+      return loader.apply(token);
+    }
+    return cache.get(token, loader);
+  }
+
+  /** Evicts one token, e.g. because it expired. */
+  public void invalidate(String token) {
+    cache.invalidate(token);
+  }
+
+  /**
+   * Notifies the cache that tokens, users or role memberships changed in the current transaction.
+   */
+  public void markTokenCacheDirty() {
+    String transactionId = getTransactionId();
+    if (transactionId != null) {
+      dirtyTransactionIds.add(transactionId);
+    }
+    invalidateAll();
+  }
+
+  @Override
+  public void afterCommitTransaction(String transactionId) {
+    if (dirtyTransactionIds.remove(transactionId)) {
+      invalidateAll();
+    }
+  }
+
+  @Override
+  public void doCleanupAfterCompletion(String transactionId) {
+    dirtyTransactionIds.remove(transactionId);
+  }
+
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    Set<String> dirtyRepositories = cacheInvalidation.getDirtyRepositories();
+    if (dirtyRepositories.contains(TOKEN)
+        || dirtyRepositories.contains(USER)
+        || dirtyRepositories.contains(ROLE_MEMBERSHIP)) {
+      invalidateAll();
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    LOG.trace("Evicting all authenticated tokens");
+    cache.invalidateAll();
+  }
+
+  private static String getTransactionId() {
+    return (String) TransactionSynchronizationManager.getResource(TRANSACTION_ID_RESOURCE_NAME);
+  }
+}
@@ -0,0 +1,59 @@
+package org.molgenis.data.security.auth;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.stream.Stream;
+import org.molgenis.data.AbstractRepositoryDecorator;
+import org.molgenis.data.Repository;
+
+/** Marks the {@link TokenCache} dirty when tokens are updated or deleted. */
+public class TokenRepositoryDecorator extends AbstractRepositoryDecorator<Token> {
+  private final TokenCache tokenCache;
+
+  TokenRepositoryDecorator(Repository<Token> delegateRepository, TokenCache tokenCache) {
+    super(delegateRepository);
+    this.tokenCache = requireNonNull(tokenCache);
+  }
+
+  @Override
+  public void update(Token token) {
+    tokenCache.markTokenCacheDirty();
+    super.update(token);
+  }
+
+  @Override
+  public void update(Stream<Token> tokenStream) {
+    tokenCache.markTokenCacheDirty();
+    super.update(tokenStream);
+  }
+
+  @Override
+  public void delete(Token token) {
+    tokenCache.markTokenCacheDirty();
+    super.delete(token);
+  }
+
+  @Override
+  public void delete(Stream<Token> tokenStream) {
+    tokenCache.markTokenCacheDirty();
+    super.delete(tokenStream);
+  }
+
+  @Override
+  public void deleteById(Object id) {
+    tokenCache.markTokenCacheDirty();
+    super.deleteById(id);
+  }
+
+  @Override
+  public void deleteAll(Stream<Object> ids) {
+    tokenCache.markTokenCacheDirty();
+    super.deleteAll(ids);
+  }
+
+  @Override
+  public void deleteAll() {
+    tokenCache.markTokenCacheDirty();
+    super.deleteAll();
+  }
+}
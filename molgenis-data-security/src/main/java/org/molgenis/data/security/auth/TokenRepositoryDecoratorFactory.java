@@ -0,0 +1,24 @@
+package org.molgenis.data.security.auth;
+
+import static java.util.Objects.requireNonNull;
+
+import org.molgenis.data.AbstractSystemRepositoryDecoratorFactory;
+import org.molgenis.data.Repository;
+import org.springframework.stereotype.Component;
+
+@SuppressWarnings("unused")
+@Component
+public class TokenRepositoryDecoratorFactory
+    extends AbstractSystemRepositoryDecoratorFactory<Token, TokenMetadata> {
+  private final TokenCache tokenCache;
+
+  public TokenRepositoryDecoratorFactory(TokenMetadata tokenMetadata, TokenCache tokenCache) {
+    super(tokenMetadata);
+    this.tokenCache = requireNonNull(tokenCache);
+  }
+
+  @Override
+  public Repository<Token> createDecoratedRepository(Repository<Token> repository) {
+    return new TokenRepositoryDecorator(repository, tokenCache);
+  }
+}
@@ -14,10 +14,13 @@ public class UserRepositoryDecorator extends AbstractRepositoryDecorator<User> {
 
   private static final int BATCH_SIZE = 1000;
   private final PasswordEncoder passwordEncoder;
+  private final TokenCache tokenCache;
 
-  UserRepositoryDecorator(Repository<User> delegateRepository, PasswordEncoder passwordEncoder) {
+  UserRepositoryDecorator(
+      Repository<User> delegateRepository, PasswordEncoder passwordEncoder, TokenCache tokenCache) {
     super(delegateRepository);
     this.passwordEncoder = requireNonNull(passwordEncoder);
+    this.tokenCache = requireNonNull(tokenCache);
   }
 
   @Override
@@ -28,6 +31,7 @@ public class UserRepositoryDecorator extends AbstractRepositoryDecorator<User> {
 
   @Override
   public void update(User entity) {
+    tokenCache.markTokenCacheDirty();
     updatePassword(entity);
     updateActivationCode(entity);
     delegate().update(entity);
@@ -49,6 +53,7 @@ public class UserRepositoryDecorator extends AbstractRepositoryDecorator<User> {
 
   @Override
   public void update(Stream<User> entities) {
+    tokenCache.markTokenCacheDirty();
     entities =
         entities.filter(
             entity -> {
@@ -13,17 +13,23 @@ public class UserRepositoryDecoratorFactory
     extends AbstractSystemRepositoryDecoratorFactory<User, UserMetadata> {
   private final PasswordEncoder passwordEncoder;
   private final UserValidator userValidator;
+  private final TokenCache tokenCache;
 
   public UserRepositoryDecoratorFactory(
-      UserMetadata userMetadata, PasswordEncoder passwordEncoder, UserValidator userValidator) {
+      UserMetadata userMetadata,
+      PasswordEncoder passwordEncoder,
+      UserValidator userValidator,
+      TokenCache tokenCache) {
     super(userMetadata);
     this.passwordEncoder = requireNonNull(passwordEncoder);
     this.userValidator = requireNonNull(userValidator);
+    this.tokenCache = requireNonNull(tokenCache);
   }
 
   @Override
   public Repository<User> createDecoratedRepository(Repository<User> repository) {
-    Repository<User> decoratedRepository = new UserRepositoryDecorator(repository, passwordEncoder);
+    Repository<User> decoratedRepository =
+        new UserRepositoryDecorator(repository, passwordEncoder, tokenCache);
     decoratedRepository = new UserRepositoryValidationDecorator(decoratedRepository, userValidator);
     return decoratedRepository;
   }
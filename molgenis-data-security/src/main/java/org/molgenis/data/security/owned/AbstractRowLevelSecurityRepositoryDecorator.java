@@ -58,13 +58,7 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
   public void forEachBatched(Fetch fetch, Consumer<List<E>> consumer, int batchSize) {
     delegate()
         .forEachBatched(
-            fetch,
-            entities ->
-                consumer.accept(
-                    entities.stream()
-                        .filter(entity -> isActionPermitted(entity, READ))
-                        .collect(toList())),
-            batchSize);
+            fetch, entities -> consumer.accept(filterPermitted(entities, READ)), batchSize);
   }
 
   @Override
@@ -108,14 +102,12 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
 
   @Override
   public Stream<E> findAll(Stream<Object> ids) {
-    Stream<E> entities = delegate().findAll(ids);
-    entities = entities.filter(entity -> isActionPermitted(entity, READ));
-    return entities;
+    return filterPermitted(delegate().findAll(ids), READ);
   }
 
   @Override
   public Stream<E> findAll(Stream<Object> ids, Fetch fetch) {
-    return delegate().findAll(ids, fetch).filter(entity -> isActionPermitted(entity, READ));
+    return filterPermitted(delegate().findAll(ids, fetch), READ);
   }
 
   @Override
@@ -197,8 +189,7 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
   }
 
   private void deleteBatch(List<E> entities) {
-    List<E> filteredEntities =
-        entities.stream().filter(entity -> isActionPermitted(entity, DELETE)).collect(toList());
+    List<E> filteredEntities = filterPermitted(entities, DELETE);
     delegate().delete(filteredEntities.stream());
     filteredEntities.forEach(this::deleteAcl);
   }
@@ -242,6 +233,24 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
     return permittedEntityStream;
   }
 
+  /** Filters the permitted entities in batches, so that permissions can be checked in bulk. */
+  private Stream<E> filterPermitted(Stream<E> entities, Action action) {
+    return stream(partition(entities.iterator(), BATCH_SIZE))
+        .flatMap(batch -> filterPermitted(batch, action).stream());
+  }
+
+  /**
+   * Returns the entities on which an action is permitted. Override this method to check the
+   * permissions of multiple entities at once.
+   *
+   * @param entities the entities to check
+   * @param action the action being performed
+   * @return the permitted entities in the order of the given entities
+   */
+  public List<E> filterPermitted(List<E> entities, Action action) {
+    return entities.stream().filter(entity -> isActionPermitted(entity, action)).collect(toList());
+  }
+
   void deleteAcl(ObjectIdentity objectIdentity) {
     mutableAclService.deleteAcl(objectIdentity, true);
   }
@@ -0,0 +1,56 @@
+package org.molgenis.data.security.owned;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.molgenis.data.AclFilter;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.EntityIdentityUtils;
+import org.molgenis.data.security.EntityPermission;
+import org.molgenis.security.core.PermissionRegistry;
+import org.molgenis.security.core.PermissionSet;
+import org.springframework.security.acls.domain.GrantedAuthoritySid;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates {@link AclFilter}s for the current user with the same security identities and permission
+ * masks that are used to evaluate the permissions of single entities.
+ */
+@Component
+public class AclFilterFactory {
+  private final SidRetrievalStrategy sidRetrievalStrategy;
+  private final PermissionRegistry permissionRegistry;
+
+  AclFilterFactory(
+      SidRetrievalStrategy sidRetrievalStrategy, PermissionRegistry permissionRegistry) {
+    this.sidRetrievalStrategy = requireNonNull(sidRetrievalStrategy);
+    this.permissionRegistry = requireNonNull(permissionRegistry);
+  }
+
+  public AclFilter create(EntityType entityType, EntityPermission permission) {
+    String principal = null;
+    Set<String> authorities = new LinkedHashSet<>();
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null) {
+      for (Sid sid : sidRetrievalStrategy.getSids(authentication)) {
+        if (sid instanceof PrincipalSid) {
+          principal = ((PrincipalSid) sid).getPrincipal();
+        } else if (sid instanceof GrantedAuthoritySid) {
+          authorities.add(((GrantedAuthoritySid) sid).getGrantedAuthority());
+        }
+      }
+    }
+
+    int mask =
+        permissionRegistry.getPermissions(permission).stream()
+            .mapToInt(PermissionSet::getMask)
+            .reduce(0, (mask1, mask2) -> mask1 | mask2);
+    return AclFilter.create(EntityIdentityUtils.toType(entityType), principal, authorities, mask);
+  }
+}
@@ -1,13 +1,23 @@
 package org.molgenis.data.security.owned;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.molgenis.security.core.utils.SecurityUtils.currentUserIsSuOrSystem;
 
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.molgenis.data.AclFilter;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityAlreadyExistsException;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Repository;
 import org.molgenis.data.security.EntityIdentity;
 import org.molgenis.data.security.EntityPermission;
 import org.molgenis.data.security.exception.EntityPermissionDeniedException;
+import org.molgenis.data.support.QueryImpl;
 import org.molgenis.security.core.PermissionSet;
 import org.molgenis.security.core.SidUtils;
 import org.molgenis.security.core.UserPermissionEvaluator;
@@ -20,19 +30,81 @@ import org.springframework.security.acls.model.Sid;
 /**
  * RepositoryDecorator that works on EntityTypes that are row-level secured. It is reponsible to
  * check that the {@link EntityPermission}s on Entities in this repository are allowed.
+ *
+ * <p>If the decorated repository supports the {@link Operator#PERMITTED} query operator, queries
+ * and counts are rewritten to let the decorated repository select the readable entities instead of
+ * checking the permission of each entity. This way the query offset and page size are applied by
+ * the decorated repository as well.
  */
 public class RowLevelSecurityRepositoryDecorator
     extends AbstractRowLevelSecurityRepositoryDecorator<Entity> {
   private final UserPermissionEvaluator userPermissionEvaluator;
   private final MutableAclService mutableAclService;
+  private final AclFilterFactory aclFilterFactory;
+  private final boolean queryFilterEnabled;
 
   RowLevelSecurityRepositoryDecorator(
       Repository<Entity> delegateRepository,
       UserPermissionEvaluator userPermissionEvaluator,
-      MutableAclService mutableAclService) {
+      MutableAclService mutableAclService,
+      AclFilterFactory aclFilterFactory,
+      boolean queryFilterEnabled) {
     super(delegateRepository, mutableAclService);
     this.userPermissionEvaluator = requireNonNull(userPermissionEvaluator);
     this.mutableAclService = requireNonNull(mutableAclService);
+    this.aclFilterFactory = requireNonNull(aclFilterFactory);
+    this.queryFilterEnabled = queryFilterEnabled;
+  }
+
+  @Override
+  public long count() {
+    return isQueryFilterSupported() ? count(new QueryImpl<>()) : super.count();
+  }
+
+  @Override
+  public long count(Query<Entity> q) {
+    return isQueryFilterSupported() ? delegate().count(createPermittedQuery(q)) : super.count(q);
+  }
+
+  @Override
+  public Stream<Entity> findAll(Query<Entity> q) {
+    return isQueryFilterSupported()
+        ? delegate().findAll(createPermittedQuery(q))
+        : super.findAll(q);
+  }
+
+  @Override
+  public Entity findOne(Query<Entity> q) {
+    return isQueryFilterSupported()
+        ? delegate().findOne(createPermittedQuery(q))
+        : super.findOne(q);
+  }
+
+  private boolean isQueryFilterSupported() {
+    return queryFilterEnabled && delegate().getQueryOperators().contains(Operator.PERMITTED);
+  }
+
+  /**
+   * Combines the query rules with a rule that selects the readable entities. Superusers and the
+   * system are allowed to read all entities.
+   */
+  private Query<Entity> createPermittedQuery(Query<Entity> q) {
+    if (currentUserIsSuOrSystem()) {
+      return q;
+    }
+    QueryImpl<Entity> permittedQuery = new QueryImpl<>();
+    List<QueryRule> rules = q.getRules();
+    if (!rules.isEmpty()) {
+      permittedQuery.addRule(new QueryRule(rules));
+      permittedQuery.and();
+    }
+    AclFilter aclFilter = aclFilterFactory.create(getEntityType(), EntityPermission.READ);
+    permittedQuery.addRule(new QueryRule(Operator.PERMITTED, aclFilter));
+    permittedQuery.setPageSize(q.getPageSize());
+    permittedQuery.setOffset(q.getOffset());
+    permittedQuery.setSort(q.getSort());
+    permittedQuery.setFetch(q.getFetch());
+    return permittedQuery;
   }
 
   @Override
@@ -45,6 +117,20 @@ public class RowLevelSecurityRepositoryDecorator
     return isActionPermitted(toEntityIdentity(id), operation);
   }
 
+  @Override
+  public List<Entity> filterPermitted(List<Entity> entities, Action action) {
+    if (action == Action.CREATE) {
+      return entities;
+    }
+    List<EntityIdentity> entityIdentities =
+        entities.stream().map(this::toEntityIdentity).collect(toList());
+    Set<EntityIdentity> permittedEntityIdentities =
+        userPermissionEvaluator.getPermitted(entityIdentities, getPermission(action));
+    return entities.stream()
+        .filter(entity -> permittedEntityIdentities.contains(toEntityIdentity(entity)))
+        .collect(toList());
+  }
+
   @Override
   public void throwPermissionException(Entity entity, Action action) {
     throw new EntityPermissionDeniedException(getPermission(action), entity);
@@ -7,6 +7,7 @@ import org.molgenis.data.Repository;
 import org.molgenis.data.security.EntityIdentityUtils;
 import org.molgenis.security.acl.MutableAclClassService;
 import org.molgenis.security.core.UserPermissionEvaluator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.acls.model.MutableAclService;
 import org.springframework.stereotype.Component;
 
@@ -16,14 +17,20 @@ public class RowLevelSecurityRepositoryDecoratorFactory {
   private final UserPermissionEvaluator userPermissionEvaluator;
   private final MutableAclService mutableAclService;
   private final MutableAclClassService mutableAclClassService;
+  private final AclFilterFactory aclFilterFactory;
+  private final boolean queryFilterEnabled;
 
   RowLevelSecurityRepositoryDecoratorFactory(
       UserPermissionEvaluator userPermissionEvaluator,
       MutableAclService mutableAclService,
-      MutableAclClassService mutableAclClassService) {
+      MutableAclClassService mutableAclClassService,
+      AclFilterFactory aclFilterFactory,
+      @Value("${security.row.level.query.filter.enabled:true}") boolean queryFilterEnabled) {
     this.userPermissionEvaluator = requireNonNull(userPermissionEvaluator);
     this.mutableAclService = requireNonNull(mutableAclService);
     this.mutableAclClassService = requireNonNull(mutableAclClassService);
+    this.aclFilterFactory = requireNonNull(aclFilterFactory);
+    this.queryFilterEnabled = queryFilterEnabled;
   }
 
   public Repository<Entity> createDecoratedRepository(Repository<Entity> repository) {
@@ -31,7 +38,11 @@ public class RowLevelSecurityRepositoryDecoratorFactory {
     if (isRowLevelSecured(repository)) {
       decoratedRepository =
           new RowLevelSecurityRepositoryDecorator(
-              repository, userPermissionEvaluator, mutableAclService);
+              repository,
+              userPermissionEvaluator,
+              mutableAclService,
+              aclFilterFactory,
+              queryFilterEnabled);
     } else {
       decoratedRepository = repository;
     }
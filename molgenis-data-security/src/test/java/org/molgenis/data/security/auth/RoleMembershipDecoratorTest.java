@@ -3,6 +3,7 @@ package org.molgenis.data.security.auth;
 import static java.util.Collections.singletonList;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -24,13 +25,14 @@ class RoleMembershipDecoratorTest extends AbstractMockitoTest {
   @Mock private Repository<RoleMembership> delegateRepository;
   @Mock private RoleMembershipValidator roleMembershipValidator;
   @Mock private SessionSecurityContextUpdater sessionSecurityContextUpdater;
+  @Mock private TokenCache tokenCache;
   private RoleMembershipDecorator roleMembershipDecorator;
 
   @BeforeEach
   void setUpBeforeMethod() {
     roleMembershipDecorator =
         new RoleMembershipDecorator(
-            delegateRepository, roleMembershipValidator, sessionSecurityContextUpdater);
+            delegateRepository, roleMembershipValidator, sessionSecurityContextUpdater, tokenCache);
   }
 
   @Test
@@ -42,6 +44,7 @@ class RoleMembershipDecoratorTest extends AbstractMockitoTest {
     roleMembershipDecorator.add(roleMembership);
     verify(roleMembershipValidator).validate(roleMembership);
     verify(sessionSecurityContextUpdater).resetAuthorities(user);
+    verify(tokenCache, atLeastOnce()).markTokenCacheDirty();
   }
 
   @SuppressWarnings("unchecked")
@@ -81,6 +84,7 @@ class RoleMembershipDecoratorTest extends AbstractMockitoTest {
     verify(roleMembershipValidator).validate(updatedRoleMembership);
     verify(sessionSecurityContextUpdater).resetAuthorities(currentUser);
     verify(sessionSecurityContextUpdater).resetAuthorities(updatedUser);
+    verify(tokenCache, atLeastOnce()).markTokenCacheDirty();
   }
 
   @SuppressWarnings("unchecked")
@@ -124,6 +128,7 @@ class RoleMembershipDecoratorTest extends AbstractMockitoTest {
 
     roleMembershipDecorator.delete(roleMembership);
     verify(sessionSecurityContextUpdater).resetAuthorities(user);
+    verify(tokenCache, atLeastOnce()).markTokenCacheDirty();
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,137 @@
+package org.molgenis.data.security.auth;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.security.auth.TokenMetadata.TOKEN;
+import static org.molgenis.data.transaction.TransactionConstants.TRANSACTION_ID_RESOURCE_NAME;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.transaction.CacheInvalidation;
+import org.molgenis.data.transaction.CacheInvalidationBus;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.security.core.token.UnknownTokenException;
+import org.molgenis.test.AbstractMockitoTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class TokenCacheTest extends AbstractMockitoTest {
+  @Mock private TransactionManager transactionManager;
+  @Mock private CacheInvalidationBus cacheInvalidationBus;
+  @Mock private Function<String, AuthenticatedToken> loader;
+  private TokenCache tokenCache;
+
+  @BeforeEach
+  void setUpBeforeMethod() {
+    tokenCache =
+        new TokenCache(transactionManager, cacheInvalidationBus, new SimpleMeterRegistry(), 60, 10);
+  }
+
+  @Test
+  void testTokenCache() {
+    verify(transactionManager).addTransactionListener(tokenCache);
+    verify(cacheInvalidationBus).addCacheInvalidationListener(tokenCache);
+  }
+
+  @Test
+  void testGet() {
+    AuthenticatedToken authenticatedToken = createAuthenticatedToken();
+    when(loader.apply("token")).thenReturn(authenticatedToken);
+
+    assertEquals(authenticatedToken, tokenCache.get("token", loader));
+    assertEquals(authenticatedToken, tokenCache.get("token", loader));
+    verify(loader, times(1)).apply("token");
+  }
+
+  @Test
+  void testGetUnknownTokenNotCached() {
+    when(loader.apply("token")).thenThrow(new UnknownTokenException("Invalid token"));
+
+    assertThrows(UnknownTokenException.class, () -> tokenCache.get("token", loader));
+    assertThrows(UnknownTokenException.class, () -> tokenCache.get("token", loader));
+    verify(loader, times(2)).apply("token");
+  }
+
+  @Test
+  void testInvalidate() {
+    when(loader.apply("token")).thenReturn(createAuthenticatedToken());
+
+    tokenCache.get("token", loader);
+    tokenCache.invalidate("token");
+    tokenCache.get("token", loader);
+    verify(loader, times(2)).apply("token");
+  }
+
+  @Test
+  void testMarkTokenCacheDirtyInTransaction() {
+    when(loader.apply("token")).thenReturn(createAuthenticatedToken());
+    tokenCache.get("token", loader);
+
+    TransactionSynchronizationManager.bindResource(TRANSACTION_ID_RESOURCE_NAME, "transactionId");
+    try {
+      tokenCache.markTokenCacheDirty();
+      // the transaction that marked the cache dirty bypasses the cache
+      tokenCache.get("token", loader);
+      tokenCache.get("token", loader);
+    } finally {
+      TransactionSynchronizationManager.unbindResource(TRANSACTION_ID_RESOURCE_NAME);
+    }
+    tokenCache.afterCommitTransaction("transactionId");
+    tokenCache.get("token", loader);
+    verify(loader, times(4)).apply("token");
+  }
+
+  @Test
+  void testMarkTokenCacheDirtyNoTransaction() {
+    when(loader.apply("token")).thenReturn(createAuthenticatedToken());
+
+    tokenCache.get("token", loader);
+    tokenCache.markTokenCacheDirty();
+    tokenCache.get("token", loader);
+    verify(loader, times(2)).apply("token");
+  }
+
+  @Test
+  void testInvalidateCacheInvalidation() {
+    when(loader.apply("token")).thenReturn(createAuthenticatedToken());
+
+    tokenCache.get("token", loader);
+    tokenCache.invalidate(CacheInvalidation.create(singleton(TOKEN), emptySet()));
+    tokenCache.get("token", loader);
+    verify(loader, times(2)).apply("token");
+  }
+
+  @Test
+  void testInvalidateCacheInvalidationOtherRepository() {
+    when(loader.apply("token")).thenReturn(createAuthenticatedToken());
+
+    tokenCache.get("token", loader);
+    tokenCache.invalidate(CacheInvalidation.create(singleton("MyEntityType"), emptySet()));
+    tokenCache.get("token", loader);
+    verify(loader, times(1)).apply("token");
+  }
+
+  @Test
+  void testAuthenticatedTokenIsExpired() {
+    UserDetails userDetails = mock(UserDetails.class);
+    assertTrue(AuthenticatedToken.create(userDetails, Instant.now().minusSeconds(1)).isExpired());
+    assertFalse(AuthenticatedToken.create(userDetails, Instant.now().plusSeconds(60)).isExpired());
+    assertFalse(AuthenticatedToken.create(userDetails, null).isExpired());
+  }
+
+  private static AuthenticatedToken createAuthenticatedToken() {
+    return AuthenticatedToken.create(mock(UserDetails.class), null);
+  }
+}
@@ -0,0 +1,85 @@
+package org.molgenis.data.security.auth;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.Repository;
+import org.molgenis.test.AbstractMockitoTest;
+
+class TokenRepositoryDecoratorTest extends AbstractMockitoTest {
+  @Mock private Repository<Token> delegateRepository;
+  @Mock private TokenCache tokenCache;
+  private TokenRepositoryDecorator tokenRepositoryDecorator;
+
+  @BeforeEach
+  void setUpBeforeMethod() {
+    tokenRepositoryDecorator = new TokenRepositoryDecorator(delegateRepository, tokenCache);
+  }
+
+  @Test
+  void testAdd() {
+    Token token = mock(Token.class);
+    tokenRepositoryDecorator.add(token);
+    verify(delegateRepository).add(token);
+    verifyNoInteractions(tokenCache);
+  }
+
+  @Test
+  void testUpdate() {
+    Token token = mock(Token.class);
+    tokenRepositoryDecorator.update(token);
+    verify(tokenCache).markTokenCacheDirty();
+    verify(delegateRepository).update(token);
+  }
+
+  @Test
+  void testUpdateStream() {
+    Stream<Token> tokenStream = Stream.empty();
+    tokenRepositoryDecorator.update(tokenStream);
+    verify(tokenCache).markTokenCacheDirty();
+    verify(delegateRepository).update(tokenStream);
+  }
+
+  @Test
+  void testDelete() {
+    Token token = mock(Token.class);
+    tokenRepositoryDecorator.delete(token);
+    verify(tokenCache).markTokenCacheDirty();
+    verify(delegateRepository).delete(token);
+  }
+
+  @Test
+  void testDeleteStream() {
+    Stream<Token> tokenStream = Stream.empty();
+    tokenRepositoryDecorator.delete(tokenStream);
+    verify(tokenCache).markTokenCacheDirty();
+    verify(delegateRepository).delete(tokenStream);
+  }
+
+  @Test
+  void testDeleteById() {
+    tokenRepositoryDecorator.deleteById("id");
+    verify(tokenCache).markTokenCacheDirty();
+    verify(delegateRepository).deleteById("id");
+  }
+
+  @Test
+  void testDeleteAllStream() {
+    Stream<Object> ids = Stream.empty();
+    tokenRepositoryDecorator.deleteAll(ids);
+    verify(tokenCache).markTokenCacheDirty();
+    verify(delegateRepository).deleteAll(ids);
+  }
+
+  @Test
+  void testDeleteAll() {
+    tokenRepositoryDecorator.deleteAll();
+    verify(tokenCache).markTokenCacheDirty();
+    verify(delegateRepository).deleteAll();
+  }
+}
@@ -29,17 +29,19 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 class UserRepositoryDecoratorTest extends AbstractMockitoTest {
   @Mock private Repository<User> delegateRepository;
   @Mock private PasswordEncoder passwordEncoder;
+  @Mock private TokenCache tokenCache;
 
   private UserRepositoryDecorator userRepositoryDecorator;
 
   @BeforeEach
   void setUp() {
-    userRepositoryDecorator = new UserRepositoryDecorator(delegateRepository, passwordEncoder);
+    userRepositoryDecorator =
+        new UserRepositoryDecorator(delegateRepository, passwordEncoder, tokenCache);
   }
 
   @Test
   void testUserRepositoryDecorator() {
-    assertThrows(NullPointerException.class, () -> new UserRepositoryDecorator(null, null));
+    assertThrows(NullPointerException.class, () -> new UserRepositoryDecorator(null, null, null));
   }
 
   @Test
@@ -136,6 +138,7 @@ class UserRepositoryDecoratorTest extends AbstractMockitoTest {
     userRepositoryDecorator.update(entities);
     assertEquals(singletonList(user), captor.getValue().collect(toList()));
     verify(user).setPassword("passwordHash");
+    verify(tokenCache).markTokenCacheDirty();
   }
 
   @SuppressWarnings({"unchecked", "rawtypes"})
@@ -0,0 +1,68 @@
+package org.molgenis.data.security.owned;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.molgenis.security.core.PermissionSet.READ;
+import static org.molgenis.security.core.PermissionSet.WRITE;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.AclFilter;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.EntityPermission;
+import org.molgenis.security.core.PermissionRegistry;
+import org.molgenis.test.AbstractMockitoSpringContextTests;
+import org.springframework.security.acls.domain.GrantedAuthoritySid;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.test.context.annotation.SecurityTestExecutionListeners;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = {AclFilterFactoryTest.Config.class})
+@SecurityTestExecutionListeners
+class AclFilterFactoryTest extends AbstractMockitoSpringContextTests {
+  @Mock private SidRetrievalStrategy sidRetrievalStrategy;
+  @Mock private PermissionRegistry permissionRegistry;
+  @Mock private EntityType entityType;
+  private AclFilterFactory aclFilterFactory;
+
+  @BeforeEach
+  void setUpBeforeMethod() {
+    aclFilterFactory = new AclFilterFactory(sidRetrievalStrategy, permissionRegistry);
+  }
+
+  @Test
+  void testAclFilterFactory() {
+    assertThrows(NullPointerException.class, () -> new AclFilterFactory(null, null));
+  }
+
+  @WithMockUser(username = "user")
+  @Test
+  void testCreate() {
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(sidRetrievalStrategy.getSids(any(Authentication.class)))
+        .thenReturn(
+            List.of(
+                new PrincipalSid("user"),
+                new GrantedAuthoritySid("ROLE_USER"),
+                new GrantedAuthoritySid("ROLE_VIEWER")));
+    when(permissionRegistry.getPermissions(EntityPermission.READ)).thenReturn(Set.of(READ, WRITE));
+
+    AclFilter aclFilter =
+        AclFilter.create(
+            "entity-entityTypeId",
+            "user",
+            Set.of("ROLE_USER", "ROLE_VIEWER"),
+            READ.getMask() | WRITE.getMask());
+    assertEquals(aclFilter, aclFilterFactory.create(entityType, EntityPermission.READ));
+  }
+
+  static class Config {}
+}
@@ -21,20 +21,25 @@ class RowLevelSecurityRepositoryDecoratorFactoryTest extends AbstractMockitoTest
   @Mock private UserPermissionEvaluator userPermissionEvaluator;
   @Mock private MutableAclService mutableAclService;
   @Mock private MutableAclClassService mutableAclClassService;
+  @Mock private AclFilterFactory aclFilterFactory;
   private RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory;
 
   @BeforeEach
   void setUpBeforeMethod() {
     rowLevelSecurityRepositoryDecoratorFactory =
         new RowLevelSecurityRepositoryDecoratorFactory(
-            userPermissionEvaluator, mutableAclService, mutableAclClassService);
+            userPermissionEvaluator,
+            mutableAclService,
+            mutableAclClassService,
+            aclFilterFactory,
+            true);
   }
 
   @Test
   void testRowLevelSecurityRepositoryDecoratorFactory() {
     assertThrows(
         NullPointerException.class,
-        () -> new RowLevelSecurityRepositoryDecoratorFactory(null, null, null));
+        () -> new RowLevelSecurityRepositoryDecoratorFactory(null, null, null, null, true));
   }
 
   @Test
@@ -3,6 +3,8 @@ package org.molgenis.data.security.owned;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Stream.of;
@@ -17,9 +19,13 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.QueryRule.Operator.AND;
+import static org.molgenis.data.QueryRule.Operator.EQUALS;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.security.EntityPermission.READ;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -27,10 +33,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.molgenis.data.AclFilter;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityAlreadyExistsException;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
@@ -58,20 +66,21 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
   @Mock private Repository<Entity> delegateRepository;
   @Mock private UserPermissionEvaluator userPermissionEvaluator;
   @Mock private MutableAclService mutableAclService;
+  @Mock private AclFilterFactory aclFilterFactory;
   private RowLevelSecurityRepositoryDecorator rowLevelSecurityRepositoryDecorator;
 
   @BeforeEach
   void setUpBeforeMethod() {
     rowLevelSecurityRepositoryDecorator =
         new RowLevelSecurityRepositoryDecorator(
-            delegateRepository, userPermissionEvaluator, mutableAclService);
+            delegateRepository, userPermissionEvaluator, mutableAclService, aclFilterFactory, true);
   }
 
   @Test
   void testRowLevelSecurityRepositoryDecorator() {
     assertThrows(
         NullPointerException.class,
-        () -> new RowLevelSecurityRepositoryDecorator(null, null, null));
+        () -> new RowLevelSecurityRepositoryDecorator(null, null, null, null, true));
   }
 
   @WithMockUser(username = USERNAME)
@@ -191,8 +200,10 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
   @Test
   void testDeleteStream() {
     Entity entity = getEntityMock();
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), EntityPermission.DELETE))
-        .thenReturn(true);
+    EntityIdentity entityIdentity = new EntityIdentity(entity);
+    when(userPermissionEvaluator.getPermitted(
+            singletonList(entityIdentity), EntityPermission.DELETE))
+        .thenReturn(singleton(entityIdentity));
     rowLevelSecurityRepositoryDecorator.delete(Stream.of(entity));
 
     @SuppressWarnings("unchecked")
@@ -259,9 +270,11 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
         .when(delegateRepository)
         .forEachBatched(any(), eq(1000));
 
-    when(userPermissionEvaluator.hasPermission(
-            new EntityIdentity(permittedEntity), EntityPermission.DELETE))
-        .thenReturn(true);
+    EntityIdentity permittedEntityIdentity = new EntityIdentity(permittedEntity);
+    EntityIdentity notPermittedEntityIdentity = new EntityIdentity(notPermittedEntity);
+    when(userPermissionEvaluator.getPermitted(
+            asList(permittedEntityIdentity, notPermittedEntityIdentity), EntityPermission.DELETE))
+        .thenReturn(singleton(permittedEntityIdentity));
     rowLevelSecurityRepositoryDecorator.deleteAll();
     ArgumentCaptor<Stream<Entity>> entityStreamCaptor = ArgumentCaptor.forClass(Stream.class);
     verify(delegateRepository).delete(entityStreamCaptor.capture());
@@ -423,7 +436,9 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     Object entityId = "entityId";
     Entity entity = getEntityMock();
     when(delegateRepository.findAll(any(Stream.class))).thenAnswer(invocation -> Stream.of(entity));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    EntityIdentity entityIdentity = new EntityIdentity(entity);
+    when(userPermissionEvaluator.getPermitted(singletonList(entityIdentity), READ))
+        .thenReturn(singleton(entityIdentity));
     assertEquals(
         singletonList(entity),
         rowLevelSecurityRepositoryDecorator.findAll(of(entityId)).collect(toList()));
@@ -447,7 +462,9 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     Fetch fetch = mock(Fetch.class);
     when(delegateRepository.findAll(any(Stream.class), eq(fetch)))
         .thenAnswer(invocation -> Stream.of(entity));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    EntityIdentity entityIdentity = new EntityIdentity(entity);
+    when(userPermissionEvaluator.getPermitted(singletonList(entityIdentity), READ))
+        .thenReturn(singleton(entityIdentity));
     assertEquals(
         singletonList(entity),
         rowLevelSecurityRepositoryDecorator.findAll(of(entityId), fetch).collect(toList()));
@@ -506,6 +523,56 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     assertEquals(0L, rowLevelSecurityRepositoryDecorator.count(query));
   }
 
+  @WithMockUser(username = USERNAME)
+  @Test
+  void testCountQueryFilter() {
+    EntityType entityType = mock(EntityType.class);
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(EQUALS, AND, PERMITTED));
+    AclFilter aclFilter = AclFilter.create("entity-entityTypeId", USERNAME, emptySet(), 1);
+    when(aclFilterFactory.create(entityType, READ)).thenReturn(aclFilter);
+    QueryImpl<Entity> permittedQuery =
+        new QueryImpl<>(new QueryRule(singletonList(new QueryRule("attr", EQUALS, "value"))));
+    permittedQuery.and();
+    permittedQuery.addRule(new QueryRule(PERMITTED, aclFilter));
+    when(delegateRepository.count(permittedQuery)).thenReturn(3L);
+
+    assertEquals(
+        3L, rowLevelSecurityRepositoryDecorator.count(new QueryImpl<>().eq("attr", "value")));
+  }
+
+  @WithMockUser(username = USERNAME)
+  @Test
+  void testFindAllQueryFilter() {
+    EntityType entityType = mock(EntityType.class);
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(EQUALS, AND, PERMITTED));
+    AclFilter aclFilter = AclFilter.create("entity-entityTypeId", USERNAME, emptySet(), 1);
+    when(aclFilterFactory.create(entityType, READ)).thenReturn(aclFilter);
+    Entity entity = mock(Entity.class);
+    when(delegateRepository.findAll(
+            new QueryImpl<>(new QueryRule(PERMITTED, aclFilter)).setOffset(10).setPageSize(5)))
+        .thenAnswer(invocation -> Stream.of(entity));
+
+    assertEquals(
+        singletonList(entity),
+        rowLevelSecurityRepositoryDecorator
+            .findAll(new QueryImpl<>().offset(10).pageSize(5))
+            .collect(toList()));
+  }
+
+  @WithMockUser(
+      username = USERNAME,
+      roles = {"SU"})
+  @Test
+  void testCountQueryFilterSuperuser() {
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(PERMITTED));
+    Query<Entity> query = new QueryImpl<>();
+    when(delegateRepository.count(query)).thenReturn(3L);
+
+    assertEquals(3L, rowLevelSecurityRepositoryDecorator.count());
+  }
+
   @Test
   void testIterator() {
     Entity entity = getEntityMock();
@@ -535,7 +602,9 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
             })
         .when(delegateRepository)
         .forEachBatched(eq(fetch), any(), eq(1000));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    EntityIdentity entityIdentity = new EntityIdentity(entity);
+    when(userPermissionEvaluator.getPermitted(singletonList(entityIdentity), READ))
+        .thenReturn(singleton(entityIdentity));
     rowLevelSecurityRepositoryDecorator.forEachBatched(fetch, actualEntities::addAll, 1000);
     assertEquals(singletonList(entity), actualEntities);
   }
@@ -1,11 +1,13 @@
 package org.molgenis.data.validation;
 
+import static com.google.common.collect.Iterators.partition;
 import static com.google.common.collect.Streams.stream;
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Collections.unmodifiableMap;
 import static java.util.Collections.unmodifiableSet;
@@ -19,13 +21,16 @@ import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isSingleReferenceType;
 
+import com.google.common.collect.Iterables;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 import java.util.stream.Stream;
 import org.molgenis.data.AbstractRepositoryDecorator;
 import org.molgenis.data.DataConverter;
@@ -41,7 +46,21 @@ import org.molgenis.util.HugeMap;
 import org.molgenis.util.HugeSet;
 import org.molgenis.validation.ConstraintViolation;
 
+/**
+ * Validates entities before they are added or updated.
+ *
+ * <p>Entities are validated in batches. The ids referenced by a batch and the unique attribute
+ * values of a batch are looked up with one query per referenced entity type and unique attribute.
+ * Only if a batch is large relative to the queried table all ids or values of the table are loaded
+ * instead, after which the following batches don't require queries.
+ */
 public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<Entity> {
+  private static final int VALIDATION_BATCH_SIZE = 1000;
+  /** Tables are only loaded entirely for at least this number of values to look up */
+  private static final int MIN_PRELOAD_SIZE = 100;
+  /** Tables are loaded entirely if the values to look up exceed 1/PRELOAD_RATIO of the rows */
+  private static final int PRELOAD_RATIO = 10;
+
   private enum ValidationMode {
     ADD,
     UPDATE
@@ -137,17 +156,24 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
     ValidationProfile validationProfile = new ValidationProfile().invoke();
 
     // add validation operation to stream
-    return entities.filter(
-        entity -> {
-          validate(entity, validationResource, validationMode, validationProfile);
-
-          return true;
-        });
+    return stream(partition(entities.iterator(), VALIDATION_BATCH_SIZE))
+        .flatMap(
+            batch -> {
+              prepareValidation(batch, validationResource);
+              return batch.stream()
+                  .filter(
+                      entity -> {
+                        validate(entity, validationResource, validationMode, validationProfile);
+
+                        return true;
+                      });
+            });
   }
 
   private void validate(
       Entity entity, ValidationResource validationResource, ValidationMode validationMode) {
     initValidation(validationResource, validationMode);
+    prepareValidation(singletonList(entity), validationResource);
     validate(entity, validationResource, validationMode, new ValidationProfile().invoke());
   }
 
@@ -229,27 +255,13 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
               .collect(toList());
     }
 
-    // get referenced entity ids
+    // referenced entity ids are looked up per batch
     if (!refAttrs.isEmpty()) {
       Map<String, HugeSet<Object>> refEntitiesIds = new HashMap<>();
       refAttrs.forEach(
-          refAttr -> {
-            EntityType refEntityType = refAttr.getRefEntity();
-            String refEntityName = refEntityType.getId();
-            HugeSet<Object> refEntityIds = refEntitiesIds.get(refEntityName);
-            if (refEntityIds == null) {
-              refEntityIds = new HugeSet<>();
-              refEntitiesIds.put(refEntityName, refEntityIds);
-
-              Query<Entity> q =
-                  new QueryImpl<>()
-                      .fetch(new Fetch().field(refEntityType.getIdAttribute().getName()));
-              for (Iterator<Entity> it = dataService.findAll(refEntityName, q).iterator();
-                  it.hasNext(); ) {
-                refEntityIds.add(it.next().getIdValue());
-              }
-            }
-          });
+          refAttr ->
+              refEntitiesIds.computeIfAbsent(
+                  refAttr.getRefEntity().getId(), refEntityTypeId -> new HugeSet<>()));
 
       validationResource.setRefEntitiesIds(refEntitiesIds);
     }
@@ -274,35 +286,11 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
               .filter(attr -> attr.isUnique() && attr.getExpression() == null)
               .collect(toList());
 
-      // get existing values for each attributes
+      // existing values are looked up per batch
       if (!uniqueAttrs.isEmpty()) {
         Map<String, HugeMap<Object, Object>> uniqueAttrsValues = new HashMap<>();
-
-        Fetch fetch = new Fetch();
         uniqueAttrs.forEach(
-            uniqueAttr -> {
-              uniqueAttrsValues.put(uniqueAttr.getName(), new HugeMap<>());
-              fetch.field(uniqueAttr.getName());
-            });
-
-        Query<Entity> q = new QueryImpl<>().fetch(fetch);
-        delegate()
-            .findAll(q)
-            .forEach(
-                entity ->
-                    uniqueAttrs.forEach(
-                        uniqueAttr -> {
-                          HugeMap<Object, Object> uniqueAttrValues =
-                              uniqueAttrsValues.get(uniqueAttr.getName());
-                          Object attrValue = entity.get(uniqueAttr.getName());
-                          if (attrValue != null) {
-                            if (isSingleReferenceType(uniqueAttr)) {
-                              attrValue = ((Entity) attrValue).getIdValue();
-                            }
-                            uniqueAttrValues.put(attrValue, entity.getIdValue());
-                          }
-                        }));
-
+            uniqueAttr -> uniqueAttrsValues.put(uniqueAttr.getName(), new HugeMap<>()));
         validationResource.setUniqueAttrsValues(uniqueAttrsValues);
       }
 
@@ -310,6 +298,182 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
     }
   }
 
+  /**
+   * Looks up the referenced entity ids and the existing unique attribute values of a batch of
+   * entities that are not known yet.
+   */
+  private void prepareValidation(List<Entity> entities, ValidationResource validationResource) {
+    prepareReferenceValidation(entities, validationResource);
+    prepareUniqueValidation(entities, validationResource);
+  }
+
+  private void prepareReferenceValidation(
+      List<Entity> entities, ValidationResource validationResource) {
+    Map<String, EntityType> refEntityTypes = new LinkedHashMap<>();
+    Map<String, Set<Object>> unknownRefEntitiesIds = new HashMap<>();
+    for (Attribute refAttr : validationResource.getRefAttrs()) {
+      EntityType refEntityType = refAttr.getRefEntity();
+      String refEntityTypeId = refEntityType.getId();
+      if (validationResource.isRefEntityIdsPreloaded(refEntityTypeId)) {
+        continue;
+      }
+      refEntityTypes.putIfAbsent(refEntityTypeId, refEntityType);
+
+      HugeSet<Object> refEntityIds = validationResource.getRefEntitiesIds().get(refEntityTypeId);
+      Set<Object> unknownRefEntityIds =
+          unknownRefEntitiesIds.computeIfAbsent(refEntityTypeId, id -> new LinkedHashSet<>());
+      for (Entity entity : entities) {
+        for (Entity refEntity : getRefEntities(entity, refAttr)) {
+          Object refEntityId = refEntity.getIdValue();
+          if (!refEntityIds.contains(refEntityId)) {
+            unknownRefEntityIds.add(refEntityId);
+          }
+        }
+      }
+    }
+
+    refEntityTypes.forEach(
+        (refEntityTypeId, refEntityType) -> {
+          Set<Object> unknownRefEntityIds = unknownRefEntitiesIds.get(refEntityTypeId);
+          if (unknownRefEntityIds.isEmpty()) {
+            return;
+          }
+          HugeSet<Object> refEntityIds =
+              validationResource.getRefEntitiesIds().get(refEntityTypeId);
+          String idAttrName = refEntityType.getIdAttribute().getName();
+          if (isPreload(
+              unknownRefEntityIds.size(),
+              () ->
+                  validationResource.getEntityCount(
+                      refEntityTypeId, () -> dataService.count(refEntityTypeId)))) {
+            Query<Entity> q = new QueryImpl<>().fetch(new Fetch().field(idAttrName));
+            dataService
+                .findAll(refEntityTypeId, q)
+                .map(Entity::getIdValue)
+                .forEach(refEntityIds::add);
+            validationResource.setRefEntityIdsPreloaded(refEntityTypeId);
+          } else {
+            for (List<Object> batch :
+                Iterables.partition(unknownRefEntityIds, VALIDATION_BATCH_SIZE)) {
+              Query<Entity> q =
+                  new QueryImpl<>().in(idAttrName, batch).fetch(new Fetch().field(idAttrName));
+              dataService
+                  .findAll(refEntityTypeId, q)
+                  .map(Entity::getIdValue)
+                  .forEach(refEntityIds::add);
+            }
+          }
+        });
+  }
+
+  private void prepareUniqueValidation(
+      List<Entity> entities, ValidationResource validationResource) {
+    List<Attribute> uniqueAttrs = validationResource.getUniqueAttrs();
+    if (uniqueAttrs.isEmpty() || validationResource.isUniqueAttrsValuesPreloaded()) {
+      return;
+    }
+
+    Map<String, Set<Object>> unknownUniqueAttrsValues = new HashMap<>();
+    for (Attribute uniqueAttr : uniqueAttrs) {
+      HugeMap<Object, Object> uniqueAttrValues =
+          validationResource.getUniqueAttrsValues().get(uniqueAttr.getName());
+      Set<Object> unknownUniqueAttrValues = new LinkedHashSet<>();
+      for (Entity entity : entities) {
+        Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
+        if (attrValue != null && !uniqueAttrValues.containsKey(attrValue)) {
+          unknownUniqueAttrValues.add(attrValue);
+        }
+      }
+      unknownUniqueAttrsValues.put(uniqueAttr.getName(), unknownUniqueAttrValues);
+    }
+
+    int maxUnknownValues =
+        unknownUniqueAttrsValues.values().stream().mapToInt(Set::size).max().orElse(0);
+    if (maxUnknownValues == 0) {
+      return;
+    }
+    if (isPreload(
+        maxUnknownValues,
+        () -> validationResource.getEntityCount(getEntityType().getId(), delegate()::count))) {
+      preloadUniqueAttrsValues(validationResource);
+    } else {
+      String idAttrName = getEntityType().getIdAttribute().getName();
+      for (Attribute uniqueAttr : uniqueAttrs) {
+        HugeMap<Object, Object> uniqueAttrValues =
+            validationResource.getUniqueAttrsValues().get(uniqueAttr.getName());
+        Set<Object> unknownUniqueAttrValues = unknownUniqueAttrsValues.get(uniqueAttr.getName());
+        Fetch fetch = new Fetch().field(idAttrName).field(uniqueAttr.getName());
+        for (List<Object> batch :
+            Iterables.partition(unknownUniqueAttrValues, VALIDATION_BATCH_SIZE)) {
+          Query<Entity> q = new QueryImpl<>().in(uniqueAttr.getName(), batch).fetch(fetch);
+          delegate()
+              .findAll(q)
+              .forEach(
+                  entity -> {
+                    Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
+                    if (attrValue != null) {
+                      uniqueAttrValues.putIfAbsent(attrValue, entity.getIdValue());
+                    }
+                  });
+        }
+      }
+    }
+  }
+
+  private void preloadUniqueAttrsValues(ValidationResource validationResource) {
+    List<Attribute> uniqueAttrs = validationResource.getUniqueAttrs();
+    Fetch fetch = new Fetch();
+    uniqueAttrs.forEach(uniqueAttr -> fetch.field(uniqueAttr.getName()));
+
+    Query<Entity> q = new QueryImpl<>().fetch(fetch);
+    delegate()
+        .findAll(q)
+        .forEach(
+            entity ->
+                uniqueAttrs.forEach(
+                    uniqueAttr -> {
+                      Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
+                      if (attrValue != null) {
+                        validationResource
+                            .getUniqueAttrsValues()
+                            .get(uniqueAttr.getName())
+                            .putIfAbsent(attrValue, entity.getIdValue());
+                      }
+                    }));
+    validationResource.setUniqueAttrsValuesPreloaded();
+  }
+
+  /**
+   * Returns whether to load all ids or values of a table instead of looking up the unknown values.
+   */
+  private static boolean isPreload(int nrUnknownValues, LongSupplier countSupplier) {
+    return nrUnknownValues >= MIN_PRELOAD_SIZE
+        && (long) nrUnknownValues * PRELOAD_RATIO >= countSupplier.getAsLong();
+  }
+
+  private static Object getUniqueAttrValue(Entity entity, Attribute uniqueAttr) {
+    Object attrValue = entity.get(uniqueAttr.getName());
+    if (attrValue != null && isSingleReferenceType(uniqueAttr)) {
+      attrValue = ((Entity) attrValue).getIdValue();
+    }
+    return attrValue;
+  }
+
+  private static Iterable<Entity> getRefEntities(Entity entity, Attribute refAttr) {
+    Iterable<Entity> refEntities;
+    if (isSingleReferenceType(refAttr)) {
+      Entity refEntity = entity.getEntity(refAttr.getName());
+      if (refEntity != null) {
+        refEntities = singleton(refEntity);
+      } else {
+        refEntities = emptyList();
+      }
+    } else {
+      refEntities = entity.getEntities(refAttr.getName());
+    }
+    return refEntities;
+  }
+
   private void initReadonlyValidation(ValidationResource validationResource) {
     if (!getCapabilities().contains(VALIDATE_READONLY_CONSTRAINT)) {
       String idAttrName = getEntityType().getIdAttribute().getName();
@@ -362,12 +526,8 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
         .getUniqueAttrs()
         .forEach(
             uniqueAttr -> {
-              Object attrValue = entity.get(uniqueAttr.getName());
+              Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
               if (attrValue != null) {
-                if (isSingleReferenceType(uniqueAttr)) {
-                  attrValue = ((Entity) attrValue).getIdValue();
-                }
-
                 HugeMap<Object, Object> uniqueAttrValues =
                     validationResource.getUniqueAttrsValues().get(uniqueAttr.getName());
                 Object existingEntityId = uniqueAttrValues.get(attrValue);
@@ -397,19 +557,7 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
               HugeSet<Object> refEntityIds =
                   validationResource.getRefEntitiesIds().get(refAttr.getRefEntity().getId());
 
-              Iterable<Entity> refEntities;
-              if (isSingleReferenceType(refAttr)) {
-                Entity refEntity = entity.getEntity(refAttr.getName());
-                if (refEntity != null) {
-                  refEntities = singleton(refEntity);
-                } else {
-                  refEntities = emptyList();
-                }
-              } else {
-                refEntities = entity.getEntities(refAttr.getName());
-              }
-
-              for (Entity refEntity : refEntities) {
+              for (Entity refEntity : getRefEntities(entity, refAttr)) {
                 if (!refEntityIds.contains(refEntity.getIdValue())) {
                   boolean selfReference =
                       entity.getEntityType().getId().equals(refAttr.getRefEntity().getId());
@@ -486,8 +634,11 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
     private List<Attribute> requiredValueAttrs;
     private List<Attribute> refAttrs;
     private Map<String, HugeSet<Object>> refEntitiesIds;
+    private final Set<String> preloadedRefEntityTypeIds = new HashSet<>();
+    private final Map<String, Long> entityCounts = new HashMap<>();
     private List<Attribute> uniqueAttrs;
     private Map<String, HugeMap<Object, Object>> uniqueAttrsValues;
+    private boolean uniqueAttrsValuesPreloaded;
     private List<Attribute> readonlyAttrs;
     private boolean selfReferencing;
     private Set<ConstraintViolation> violations;
@@ -528,6 +679,21 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
       this.refEntitiesIds = refEntitiesIds;
     }
 
+    boolean isRefEntityIdsPreloaded(String refEntityTypeId) {
+      return preloadedRefEntityTypeIds.contains(refEntityTypeId);
+    }
+
+    void setRefEntityIdsPreloaded(String refEntityTypeId) {
+      preloadedRefEntityTypeIds.add(refEntityTypeId);
+    }
+
+    /**
+     * Returns the number of entities of an entity type, which is counted once per validation run.
+     */
+    long getEntityCount(String entityTypeId, LongSupplier counter) {
+      return entityCounts.computeIfAbsent(entityTypeId, id -> counter.getAsLong());
+    }
+
     void addRefEntityId(String name, Object idValue) {
       HugeSet<Object> refEntityIds = refEntitiesIds.get(name);
       // only add entity id if this validation run requires entity
@@ -552,6 +718,14 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
       this.uniqueAttrsValues = uniqueAttrsValues;
     }
 
+    boolean isUniqueAttrsValuesPreloaded() {
+      return uniqueAttrsValuesPreloaded;
+    }
+
+    void setUniqueAttrsValuesPreloaded() {
+      this.uniqueAttrsValuesPreloaded = true;
+    }
+
     List<Attribute> getReadonlyAttrs() {
       return readonlyAttrs != null ? unmodifiableList(readonlyAttrs) : emptyList();
     }
@@ -7,8 +7,12 @@ import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -16,7 +20,9 @@ import static org.molgenis.data.meta.AttributeType.MREF;
 import static org.molgenis.data.meta.AttributeType.STRING;
 import static org.molgenis.data.meta.AttributeType.XREF;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -25,10 +31,12 @@ import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.RepositoryCollection;
@@ -186,19 +194,16 @@ class RepositoryValidationDecoratorTest {
     delegateRepository = mock(Repository.class);
     when(delegateRepository.getEntityType()).thenReturn(entityType);
     when(delegateRepository.getName()).thenReturn(entityTypeId);
-    when(delegateRepository.findAll(
-            new QueryImpl<>()
-                .fetch(new Fetch().field(attrUniqueStringName).field(attrUniqueXrefName))))
-        .thenReturn(Stream.empty());
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(invocation -> Stream.empty());
     refRepo = mock(Repository.class);
     when(refRepo.getEntityType()).thenReturn(refEntityType);
 
     dataService = mock(DataService.class);
     when(dataService.getRepository(entityTypeId)).thenReturn(delegateRepository);
     when(dataService.getRepository(refEntityName)).thenReturn(refRepo);
-    when(dataService.findAll(
-            refEntityName, new QueryImpl<>().fetch(new Fetch().field(refAttrIdName))))
-        .thenReturn(Stream.of(refEntity0, refEntity1));
+    when(dataService.findAll(eq(refEntityName), ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(invocation -> Stream.of(refEntity0, refEntity1));
 
     metaDataService = mock(MetaDataService.class);
     when(dataService.getMeta()).thenReturn(metaDataService);
@@ -491,8 +496,8 @@ class RepositoryValidationDecoratorTest {
     when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
     // actual tests
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0));
+    when(dataService.findAll(eq(entityTypeId), isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entity0));
     repositoryValidationDecorator.add(entity0);
 
     verify(delegateRepository, times(1)).add(entity0);
@@ -641,8 +646,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -699,8 +704,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -751,8 +756,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -821,6 +826,100 @@ class RepositoryValidationDecoratorTest {
     verify(entityAttributesValidator, times(1)).validate(entity0, entityType);
   }
 
+  @Test
+  void addReferenceQueriesReferencedIds() {
+    Entity entity0 = mock(Entity.class);
+    when(entity0.getEntityType()).thenReturn(entityType);
+    when(entity0.getIdValue()).thenReturn("id0");
+    when(entity0.getEntity(attrXrefName)).thenReturn(refEntity0);
+    when(entity0.getEntities(attrMrefName)).thenReturn(Arrays.asList(refEntity1));
+    when(entity0.getEntities(attrNillableMrefName)).thenReturn(emptyList());
+    when(entity0.get(attrIdName)).thenReturn("id0");
+    when(entity0.get(attrXrefName)).thenReturn(refEntity0);
+    when(entity0.get(attrMrefName)).thenReturn(Arrays.asList(refEntity1));
+    when(entity0.get(attrUniqueStringName)).thenReturn("unique0");
+    when(entity0.getEntity(attrUniqueXrefName)).thenReturn(refEntity0);
+    when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
+
+    repositoryValidationDecorator.add(entity0);
+
+    verify(delegateRepository).add(entity0);
+    verify(dataService)
+        .findAll(
+            refEntityName, new QueryImpl<Entity>().in(refAttrIdName, asList("idref0", "idref1")));
+    verify(delegateRepository)
+        .findAll(new QueryImpl<Entity>().in(attrUniqueStringName, singletonList("unique0")));
+    verify(dataService, never()).count(refEntityName);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void addStreamReferencePreload() {
+    when(delegateRepository.getCapabilities())
+        .thenReturn(
+            new HashSet<>(
+                asList(
+                    RepositoryCapability.VALIDATE_NOTNULL_CONSTRAINT,
+                    RepositoryCapability.VALIDATE_UNIQUE_CONSTRAINT)));
+    List<Entity> refEntities = new ArrayList<>();
+    List<Entity> entities = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Entity refEntity = when(mock(Entity.class).getIdValue()).thenReturn("idref" + i).getMock();
+      refEntities.add(refEntity);
+      Entity entity = mock(Entity.class);
+      when(entity.getEntity(attrXrefName)).thenReturn(refEntity);
+      when(entity.getEntities(anyString())).thenReturn(emptyList());
+      entities.add(entity);
+    }
+    when(dataService.count(refEntityName)).thenReturn(500L);
+    when(dataService.findAll(eq(refEntityName), ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(invocation -> refEntities.stream());
+
+    repositoryValidationDecorator.add(entities.stream());
+
+    ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
+    verify(delegateRepository).add(captor.capture());
+    assertEquals(entities, captor.getValue().collect(toList()));
+    verify(dataService).findAll(refEntityName, new QueryImpl<Entity>());
+    verify(dataService, times(1)).findAll(eq(refEntityName), ArgumentMatchers.<Query<Entity>>any());
+  }
+
+  @Test
+  void addStreamReferenceCountOncePerValidation() {
+    when(delegateRepository.getCapabilities())
+        .thenReturn(
+            new HashSet<>(
+                asList(
+                    RepositoryCapability.VALIDATE_NOTNULL_CONSTRAINT,
+                    RepositoryCapability.VALIDATE_UNIQUE_CONSTRAINT)));
+    List<Entity> refEntities = new ArrayList<>();
+    List<Entity> entities = new ArrayList<>();
+    for (int i = 0; i < 1200; i++) {
+      Entity refEntity = when(mock(Entity.class).getIdValue()).thenReturn("idref" + i).getMock();
+      refEntities.add(refEntity);
+      Entity entity = mock(Entity.class);
+      when(entity.getEntity(attrXrefName)).thenReturn(refEntity);
+      when(entity.getEntities(anyString())).thenReturn(emptyList());
+      entities.add(entity);
+    }
+    when(dataService.count(refEntityName)).thenReturn(100000L);
+    when(dataService.findAll(eq(refEntityName), isInQuery()))
+        .thenAnswer(
+            invocation -> {
+              Query<Entity> query = invocation.getArgument(1);
+              Collection<?> ids = (Collection<?>) query.getRules().get(0).getValue();
+              return refEntities.stream().filter(refEntity -> ids.contains(refEntity.getIdValue()));
+            });
+
+    repositoryValidationDecorator.add(entities.stream());
+
+    ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
+    verify(delegateRepository).add(captor.capture());
+    assertEquals(entities, captor.getValue().collect(toList()));
+    verify(dataService, times(2)).findAll(eq(refEntityName), isInQuery());
+    verify(dataService, times(1)).count(refEntityName);
+  }
+
   @SuppressWarnings({"rawtypes", "unchecked"})
   @Test
   void addStreamEntityAttributesValidationError() {
@@ -1032,8 +1131,8 @@ class RepositoryValidationDecoratorTest {
 
     // actual tests
     List<Entity> entities = Arrays.asList(entity0);
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0));
+    when(dataService.findAll(eq(entityTypeId), isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entity0));
     repositoryValidationDecorator.add(entities.stream());
 
     ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
@@ -1091,8 +1190,7 @@ class RepositoryValidationDecoratorTest {
 
     // actual tests
     List<Entity> entities = Arrays.asList(entity0, entity1);
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.empty());
+    when(dataService.findAll(eq(entityTypeId), isInQuery())).thenReturn(Stream.empty());
     repositoryValidationDecorator.add(entities.stream());
 
     ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
@@ -1330,8 +1428,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -1396,8 +1494,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -1517,8 +1615,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -1745,8 +1843,8 @@ class RepositoryValidationDecoratorTest {
     when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
     // actual tests
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0));
+    when(dataService.findAll(eq(entityTypeId), isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entity0));
     repositoryValidationDecorator.update(entity0);
     verify(delegateRepository, times(1)).update(entity0);
     verify(entityAttributesValidator, times(1)).validate(entity0, entityType);
@@ -1894,8 +1992,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -1952,8 +2050,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -2004,8 +2102,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -2753,8 +2851,8 @@ class RepositoryValidationDecoratorTest {
 
     // actual tests
     List<Entity> entities = Arrays.asList(entity0);
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0));
+    when(dataService.findAll(eq(entityTypeId), isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entity0));
     repositoryValidationDecorator.update(entities.stream());
 
     ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
@@ -2812,8 +2910,8 @@ class RepositoryValidationDecoratorTest {
 
     // actual tests
     List<Entity> entities = Arrays.asList(entity0, entity1);
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0, entity1));
+    when(dataService.findAll(eq(entityTypeId), isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entity0, entity1));
     repositoryValidationDecorator.update(entities.stream());
 
     ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
@@ -3051,8 +3149,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -3117,8 +3215,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -3238,8 +3336,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(isInQuery()))
+        .thenAnswer(invocation -> Stream.of(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -3884,4 +3982,11 @@ class RepositoryValidationDecoratorTest {
         MolgenisValidationException.class,
         () -> repositoryValidationDecorator.deleteAll(entityIdStream));
   }
+
+  /** Matches queries that look up the entities with one of the given attribute values. */
+  private static Query<Entity> isInQuery() {
+    return argThat(
+        query ->
+            query.getRules().size() == 1 && query.getRules().get(0).getOperator() == Operator.IN);
+  }
 }
@@ -1,6 +1,7 @@
 package org.molgenis.data.vcf.importer;
 
 import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.BulkLoadModeHolder.runInBulkLoadMode;
 import static org.molgenis.data.meta.model.PackageMetadata.PACKAGE;
 import static org.molgenis.security.core.runas.RunAsSystemAspect.runAsSystem;
 
@@ -176,7 +177,7 @@ public class VcfImporterService implements ImportService {
       AtomicInteger vcfEntityCount = new AtomicInteger();
       inRepository.forEachBatched(
           rowBatch -> {
-            outRepository.add(rowBatch.stream());
+            runInBulkLoadMode(() -> outRepository.add(rowBatch.stream()));
             vcfEntityCount.addAndGet(rowBatch.size());
           },
           VcfRepository.BATCH_SIZE);
@@ -204,7 +205,7 @@ public class VcfImporterService implements ImportService {
                 sampleBatch.add(sample);
 
                 if (sampleBatch.size() == BATCH_SIZE) {
-                  sampleRepository.add(sampleBatch.stream());
+                  runInBulkLoadMode(() -> sampleRepository.add(sampleBatch.stream()));
                   sampleEntityCount.addAndGet(sampleBatch.size());
                   sampleBatch.clear();
                 }
@@ -215,7 +216,7 @@ public class VcfImporterService implements ImportService {
         1000);
 
     if (!sampleBatch.isEmpty()) {
-      sampleRepository.add(sampleBatch.stream());
+      runInBulkLoadMode(() -> sampleRepository.add(sampleBatch.stream()));
       sampleEntityCount.addAndGet(sampleBatch.size());
     }
     return sampleEntityCount.get();
@@ -0,0 +1,36 @@
+package org.molgenis.data;
+
+import com.google.auto.value.AutoValue;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Value object describing which rows of a row-level secured repository are permitted: the rows
+ * whose access control list of the given class contains a granting entry for one of the security
+ * identities with a permission mask that shares a bit with the given mask.
+ *
+ * @see org.molgenis.data.QueryRule.Operator#PERMITTED
+ */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+public abstract class AclFilter {
+  /** Access control list class of the rows, e.g. 'entity-myEntityType' */
+  public abstract String getAclClass();
+
+  /** Principal security identity or <code>null</code> if there is no principal */
+  @CheckForNull
+  @Nullable
+  public abstract String getPrincipal();
+
+  /** Granted authority security identities */
+  public abstract Set<String> getAuthorities();
+
+  /** Cumulative permission mask */
+  public abstract int getMask();
+
+  public static AclFilter create(
+      String aclClass, @Nullable String principal, Set<String> authorities, int mask) {
+    return new AutoValue_AclFilter(aclClass, principal, Set.copyOf(authorities), mask);
+  }
+}
@@ -0,0 +1,44 @@
+package org.molgenis.data;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of whether entities added on the current thread should be bulk loaded.
+ *
+ * <p>Repositories can use a faster write path for entities added in bulk load mode, e.g. the
+ * PostgreSQL COPY protocol instead of batched INSERT statements. Bulk load mode is intended for
+ * adding large numbers of new entities, for example during imports.
+ */
+public class BulkLoadModeHolder {
+  private static final ThreadLocal<Boolean> bulkLoadModeHolder = new ThreadLocal<>();
+
+  private BulkLoadModeHolder() {}
+
+  public static boolean isBulkLoadMode() {
+    return Boolean.TRUE.equals(bulkLoadModeHolder.get());
+  }
+
+  /** Runs the given runnable with bulk load mode enabled on the current thread. */
+  public static void runInBulkLoadMode(Runnable runnable) {
+    callInBulkLoadMode(
+        () -> {
+          runnable.run();
+          return null;
+        });
+  }
+
+  /** Calls the given supplier with bulk load mode enabled on the current thread. */
+  public static <T> T callInBulkLoadMode(Supplier<T> supplier) {
+    Boolean previousBulkLoadMode = bulkLoadModeHolder.get();
+    bulkLoadModeHolder.set(Boolean.TRUE);
+    try {
+      return supplier.get();
+    } finally {
+      if (previousBulkLoadMode != null) {
+        bulkLoadModeHolder.set(previousBulkLoadMode);
+      } else {
+        bulkLoadModeHolder.remove();
+      }
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package org.molgenis.data;
+
+import java.util.OptionalLong;
+import org.molgenis.data.meta.model.EntityType;
+
+/**
+ * Estimates the number of entities of an entity type that match a query without counting all of
+ * them. Used when an approximate total is good enough, e.g. to page through large collections.
+ */
+public interface EntityCountEstimator {
+  /**
+   * Estimates the number of entities of the given entity type that match the query rules, ignoring
+   * row level security.
+   *
+   * @param query query, paging, sorting and fetch are ignored
+   * @return estimated number of entities or empty if the backend of the entity type can't estimate
+   *     the number of entities matching the query
+   */
+  OptionalLong estimateCount(EntityType entityType, Query<Entity> query);
+}
@@ -116,7 +116,13 @@ public class QueryRule {
     FUZZY_MATCH("FUZZY_MATCH"),
 
     /** Fuzzy match operator */
-    FUZZY_MATCH_NGRAM("FUZZY_MATCH_NGRAM");
+    FUZZY_MATCH_NGRAM("FUZZY_MATCH_NGRAM"),
+
+    /**
+     * Entities on which the current user has been granted a permission (value being an {@link
+     * AclFilter}). The parameter 'field' is ommitted.
+     */
+    PERMITTED("PERMITTED");
 
     private String label;
 
@@ -161,7 +167,9 @@ public class QueryRule {
   /** Specific constructor for rules that do not apply to a field such as LIMIT and OFFSET. */
   @SuppressWarnings("unchecked")
   public QueryRule(Operator operator, Object value) {
-    if (operator == Operator.SEARCH || operator == Operator.SEARCH_QUERY) {
+    if (operator == Operator.SEARCH
+        || operator == Operator.SEARCH_QUERY
+        || operator == Operator.PERMITTED) {
       this.operator = operator;
       setValue(value);
     } else if (Operator.NESTED.equals(operator)) {
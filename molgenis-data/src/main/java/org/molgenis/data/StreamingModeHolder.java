@@ -0,0 +1,45 @@
+package org.molgenis.data;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of whether query results found on the current thread may be streamed.
+ *
+ * <p>Repositories can stream unpaged query results from an open database cursor instead of
+ * retrieving them in batches. A cursor only lives as long as the transaction it was opened in, so
+ * callers may only enable streaming mode if they consume the found entities within the given
+ * runnable or supplier and within a transaction that they started themselves.
+ */
+public class StreamingModeHolder {
+  private static final ThreadLocal<Boolean> streamingModeHolder = new ThreadLocal<>();
+
+  private StreamingModeHolder() {}
+
+  public static boolean isStreamingMode() {
+    return Boolean.TRUE.equals(streamingModeHolder.get());
+  }
+
+  /** Runs the given runnable with streaming mode enabled on the current thread. */
+  public static void runInStreamingMode(Runnable runnable) {
+    callInStreamingMode(
+        () -> {
+          runnable.run();
+          return null;
+        });
+  }
+
+  /** Calls the given supplier with streaming mode enabled on the current thread. */
+  public static <T> T callInStreamingMode(Supplier<T> supplier) {
+    Boolean previousStreamingMode = streamingModeHolder.get();
+    streamingModeHolder.set(Boolean.TRUE);
+    try {
+      return supplier.get();
+    } finally {
+      if (previousStreamingMode != null) {
+        streamingModeHolder.set(previousStreamingMode);
+      } else {
+        streamingModeHolder.remove();
+      }
+    }
+  }
+}
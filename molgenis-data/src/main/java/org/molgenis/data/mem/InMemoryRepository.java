@@ -202,7 +202,8 @@ public class InMemoryRepository implements Repository<Entity> {
 
   @Override
   public Set<Operator> getQueryOperators() {
-    return EnumSet.allOf(Operator.class);
+    // rows are not secured by access control lists
+    return EnumSet.complementOf(EnumSet.of(Operator.PERMITTED));
   }
 
   @Override
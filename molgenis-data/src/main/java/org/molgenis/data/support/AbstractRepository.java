@@ -47,7 +47,8 @@ public abstract class AbstractRepository implements Repository<Entity> {
     if (!getCapabilities().contains(RepositoryCapability.QUERYABLE)) {
       return Collections.emptySet();
     } else {
-      return EnumSet.allOf(Operator.class);
+      // rows are not secured by access control lists
+      return EnumSet.complementOf(EnumSet.of(Operator.PERMITTED));
     }
   }
 
@@ -1,6 +1,7 @@
 package org.molgenis.data.support;
 
 import java.util.List;
+import javax.annotation.Nullable;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
 import org.molgenis.data.util.BatchingIterable;
@@ -8,7 +9,9 @@ import org.molgenis.data.util.BatchingIterable;
 /**
  * BatchingIterable that batches a Query.
  *
- * <p>It changes the query's offset and pageSize of each batch.
+ * <p>It changes the query's offset and pageSize of each batch. Implementations that support keyset
+ * (seek) pagination retrieve all but the first batch relative to the last entity of the previous
+ * batch instead of moving the offset forward.
  */
 public abstract class BatchingQueryResult<E extends Entity> extends BatchingIterable<E> {
   private final Query<E> query;
@@ -29,5 +32,35 @@ public abstract class BatchingQueryResult<E extends Entity> extends BatchingIter
     return getBatch(batchQuery);
   }
 
+  @Override
+  protected List<E> getBatch(int offset, int batchSize, @Nullable E previous) {
+    if (previous != null && isKeysetPaginated()) {
+      Query<E> batchQuery = new QueryImpl<>(query).setOffset(offset).setPageSize(batchSize);
+      return getBatch(batchQuery, previous);
+    }
+    return getBatch(offset, batchSize);
+  }
+
   protected abstract List<E> getBatch(Query<E> q);
+
+  /**
+   * Returns whether batches following the first batch are retrieved using {@link #getBatch(Query,
+   * Entity)}
+   */
+  protected boolean isKeysetPaginated() {
+    return false;
+  }
+
+  /**
+   * Returns the batch of query results directly following the given entity in the query sort order.
+   * Only called if {@link #isKeysetPaginated()} returns <code>true</code>. Implementations seek
+   * from the previous entity and ignore the query offset, by default the batch is retrieved using
+   * the offset.
+   *
+   * @param q query with the offset and page size of the batch
+   * @param previous last entity of the previous batch
+   */
+  protected List<E> getBatch(Query<E> q, E previous) {
+    return getBatch(q);
+  }
 }
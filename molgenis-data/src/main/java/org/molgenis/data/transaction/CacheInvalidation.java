@@ -0,0 +1,47 @@
+package org.molgenis.data.transaction;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import java.util.Set;
+import org.molgenis.data.EntityKey;
+
+/**
+ * Value object describing the entities and repositories that were changed by a committed
+ * transaction and that should therefore be evicted from caches.
+ */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+public abstract class CacheInvalidation {
+  /** Ids of entity types of which all cached data should be evicted */
+  public abstract ImmutableSet<String> getEntirelyDirtyRepositories();
+
+  /** Keys of individual entity instances that should be evicted */
+  public abstract ImmutableSet<EntityKey> getDirtyEntities();
+
+  /** Ids of entity types that were changed, either entirely or for one or more entities */
+  public Set<String> getDirtyRepositories() {
+    return Sets.union(
+        getEntirelyDirtyRepositories(),
+        getDirtyEntities().stream().map(EntityKey::getEntityTypeId).collect(toImmutableSet()));
+  }
+
+  public boolean isEmpty() {
+    return getEntirelyDirtyRepositories().isEmpty() && getDirtyEntities().isEmpty();
+  }
+
+  public static CacheInvalidation create(
+      Set<String> entirelyDirtyRepositories, Set<EntityKey> dirtyEntities) {
+    return new AutoValue_CacheInvalidation(
+        ImmutableSet.copyOf(entirelyDirtyRepositories), ImmutableSet.copyOf(dirtyEntities));
+  }
+
+  /** Creates the cache invalidation for the current transaction */
+  public static CacheInvalidation create(TransactionInformation transactionInformation) {
+    return create(
+        transactionInformation.getEntirelyDirtyRepositories(),
+        transactionInformation.getDirtyEntities());
+  }
+}
@@ -0,0 +1,17 @@
+package org.molgenis.data.transaction;
+
+/**
+ * Propagates the changes committed by transactions on this node to the caches of all other MOLGENIS
+ * nodes that share the same database.
+ */
+public interface CacheInvalidationBus {
+  void addCacheInvalidationListener(CacheInvalidationListener cacheInvalidationListener);
+
+  /**
+   * Notifies the listeners of this node and of all other nodes of changes that were not made by a
+   * transaction, e.g. the index of entity types that was updated after the transaction committed.
+   *
+   * @param cacheInvalidation entities and repositories of which cached data should be evicted
+   */
+  void publish(CacheInvalidation cacheInvalidation);
+}
@@ -0,0 +1,22 @@
+package org.molgenis.data.transaction;
+
+/**
+ * Interface that can be implemented by caches that want to be notified of changes committed by
+ * other MOLGENIS nodes that share the same database.
+ *
+ * <p>A CacheInvalidationListener must bootstrap itself by the {@link CacheInvalidationBus}
+ */
+public interface CacheInvalidationListener {
+  /**
+   * Evicts the changed entities and repositories.
+   *
+   * @param cacheInvalidation entities and repositories changed by a transaction on another node
+   */
+  void invalidate(CacheInvalidation cacheInvalidation);
+
+  /**
+   * Evicts all cached data, e.g. because invalidation messages from other nodes might have been
+   * missed.
+   */
+  void invalidateAll();
+}
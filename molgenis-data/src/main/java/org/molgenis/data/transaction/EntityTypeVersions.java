@@ -0,0 +1,88 @@
+package org.molgenis.data.transaction;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a monotonically increasing data version per entity type. The version of an entity type
+ * changes after a transaction that changed its data or metadata commits, based on the {@link
+ * TransactionInformation}. Changes committed by other nodes change versions through the {@link
+ * CacheInvalidationBus}.
+ *
+ * <p>Versions are kept in memory, version tags therefore include an id that is unique for this node
+ * and run.
+ */
+@Component
+public class EntityTypeVersions implements TransactionListener, CacheInvalidationListener {
+  private static final Logger LOG = LoggerFactory.getLogger(EntityTypeVersions.class);
+
+  private final TransactionInformation transactionInformation;
+  private final String instanceId = UUID.randomUUID().toString();
+  private final Map<String, Long> versions = new ConcurrentHashMap<>();
+  /** version of all entity types, see {@link #incrementAll()} */
+  private final AtomicLong globalVersion = new AtomicLong();
+
+  EntityTypeVersions(
+      TransactionManager transactionManager,
+      CacheInvalidationBus cacheInvalidationBus,
+      TransactionInformation transactionInformation) {
+    this.transactionInformation = requireNonNull(transactionInformation);
+    requireNonNull(transactionManager).addTransactionListener(this);
+    requireNonNull(cacheInvalidationBus).addCacheInvalidationListener(this);
+  }
+
+  /**
+   * Returns a tag that changes whenever the data of one of the given entity types changes.
+   *
+   * @param entityTypeIds entity type ids in a stable order
+   */
+  public String getVersionTag(Collection<String> entityTypeIds) {
+    StringBuilder stringBuilder = new StringBuilder(instanceId);
+    stringBuilder.append(':').append(globalVersion.get());
+    entityTypeIds.forEach(
+        entityTypeId ->
+            stringBuilder
+                .append(':')
+                .append(entityTypeId)
+                .append('=')
+                .append(versions.getOrDefault(entityTypeId, 0L)));
+    return stringBuilder.toString();
+  }
+
+  /** Changes the version of all entity types, e.g. because permissions changed. */
+  public void incrementAll() {
+    LOG.trace("Incrementing version of all entity types");
+    globalVersion.incrementAndGet();
+  }
+
+  @Override
+  public void afterCommitTransaction(String transactionId) {
+    increment(transactionInformation.getDirtyRepositories());
+  }
+
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    increment(cacheInvalidation.getDirtyRepositories());
+  }
+
+  @Override
+  public void invalidateAll() {
+    incrementAll();
+  }
+
+  private void increment(Set<String> entityTypeIds) {
+    if (!entityTypeIds.isEmpty()) {
+      LOG.trace("Incrementing version of entity types {}", entityTypeIds);
+      entityTypeIds.forEach(entityTypeId -> versions.merge(entityTypeId, 1L, Long::sum));
+    }
+  }
+}
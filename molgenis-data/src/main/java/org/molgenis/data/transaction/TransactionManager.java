@@ -5,4 +5,10 @@ import org.springframework.transaction.PlatformTransactionManager;
 public interface TransactionManager extends PlatformTransactionManager {
 
   void addTransactionListener(TransactionListener transactionListener);
+
+  /**
+   * Checks the deferred constraints of the current transaction now instead of on commit, so that
+   * constraint violations are reported before the transaction commits.
+   */
+  void checkDeferredConstraints();
 }
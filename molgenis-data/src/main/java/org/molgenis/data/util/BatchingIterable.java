@@ -3,6 +3,7 @@ package org.molgenis.data.util;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
 
 /**
  * Iterable that returns an iterator that retrieves a new batch of objects after a given batchSize
@@ -38,6 +39,8 @@ public abstract class BatchingIterable<T> implements Iterable<T> {
       private int index = offset;
       /** Element iterator for the current batch */
       private Iterator<T> it;
+      /** Last element returned by this iterator */
+      private T previous;
 
       @Override
       public boolean hasNext() {
@@ -70,6 +73,7 @@ public abstract class BatchingIterable<T> implements Iterable<T> {
 
         T element = it.next();
         ++index;
+        previous = element;
         return element;
       }
 
@@ -103,7 +107,7 @@ public abstract class BatchingIterable<T> implements Iterable<T> {
         if (nextBatchSize == 0) {
           return Collections.emptyIterator();
         } else {
-          return getBatch(index, nextBatchSize).iterator();
+          return getBatch(index, nextBatchSize, previous).iterator();
         }
       }
     };
@@ -115,4 +119,15 @@ public abstract class BatchingIterable<T> implements Iterable<T> {
    * @param offset (startIndex)
    */
   protected abstract Iterable<T> getBatch(int offset, int batchSize);
+
+  /**
+   * Return new batch that directly follows the given element. Override to implement keyset (seek)
+   * pagination, by default delegates to {@link #getBatch(int, int)}.
+   *
+   * @param offset (startIndex)
+   * @param previous last element of the previous batch or <code>null</code> for the first batch
+   */
+  protected Iterable<T> getBatch(int offset, int batchSize, @Nullable T previous) {
+    return getBatch(offset, batchSize);
+  }
 }
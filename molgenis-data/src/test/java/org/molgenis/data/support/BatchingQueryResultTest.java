@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,47 @@ class BatchingQueryResultTest {
     assertEquals(4, size(bqr));
   }
 
+  @Test
+  void getBatchKeysetPaginated() {
+    List<Entity> entities = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      entities.add(new DynamicEntity(mock(EntityType.class)));
+    }
+    BatchingQueryResult<Entity> bqr =
+        new BatchingQueryResult<>(2, new QueryImpl<>()) {
+          @Override
+          protected List<Entity> getBatch(Query<Entity> q) {
+            assertEquals(0, q.getOffset());
+            return entities.subList(0, 2);
+          }
+
+          @Override
+          protected boolean isKeysetPaginated() {
+            return true;
+          }
+
+          @Override
+          protected List<Entity> getBatch(Query<Entity> q, Entity previous) {
+            assertEquals(2, q.getPageSize());
+            int fromIndex = entities.indexOf(previous) + 1;
+            return entities.subList(fromIndex, Math.min(fromIndex + 2, entities.size()));
+          }
+        };
+    assertEquals(entities, Lists.newArrayList(bqr));
+  }
+
+  @Test
+  void getBatchKeysetPaginatedOffsetFallback() {
+    BatchingQueryResult<Entity> bqr =
+        new DummyBatchingQueryResult(2) {
+          @Override
+          protected boolean isKeysetPaginated() {
+            return true;
+          }
+        };
+    assertEquals(4, size(bqr));
+  }
+
   private static class DummyBatchingQueryResult extends BatchingQueryResult<Entity> {
     private final int batchSize;
     int batchCount;
@@ -0,0 +1,99 @@
+package org.molgenis.data.transaction;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.test.AbstractMockitoTest;
+
+class EntityTypeVersionsTest extends AbstractMockitoTest {
+  @Mock private TransactionManager transactionManager;
+  @Mock private CacheInvalidationBus cacheInvalidationBus;
+  @Mock private TransactionInformation transactionInformation;
+  private EntityTypeVersions entityTypeVersions;
+
+  @BeforeEach
+  void setUpBeforeMethod() {
+    entityTypeVersions =
+        new EntityTypeVersions(transactionManager, cacheInvalidationBus, transactionInformation);
+  }
+
+  @Test
+  void testEntityTypeVersions() {
+    verify(transactionManager).addTransactionListener(entityTypeVersions);
+    verify(cacheInvalidationBus).addCacheInvalidationListener(entityTypeVersions);
+  }
+
+  @Test
+  void testGetVersionTagStable() {
+    List<String> entityTypeIds = singletonList("MyEntityType");
+    assertEquals(
+        entityTypeVersions.getVersionTag(entityTypeIds),
+        entityTypeVersions.getVersionTag(entityTypeIds));
+  }
+
+  @Test
+  void testGetVersionTagUniquePerInstance() {
+    EntityTypeVersions otherEntityTypeVersions =
+        new EntityTypeVersions(transactionManager, cacheInvalidationBus, transactionInformation);
+    List<String> entityTypeIds = singletonList("MyEntityType");
+    assertNotEquals(
+        entityTypeVersions.getVersionTag(entityTypeIds),
+        otherEntityTypeVersions.getVersionTag(entityTypeIds));
+  }
+
+  @Test
+  void testAfterCommitTransaction() {
+    List<String> entityTypeIds = singletonList("MyEntityType");
+    List<String> otherEntityTypeIds = singletonList("MyOtherEntityType");
+    String versionTag = entityTypeVersions.getVersionTag(entityTypeIds);
+    String otherVersionTag = entityTypeVersions.getVersionTag(otherEntityTypeIds);
+
+    when(transactionInformation.getDirtyRepositories()).thenReturn(singleton("MyEntityType"));
+    entityTypeVersions.afterCommitTransaction("transactionId");
+
+    assertNotEquals(versionTag, entityTypeVersions.getVersionTag(entityTypeIds));
+    assertEquals(otherVersionTag, entityTypeVersions.getVersionTag(otherEntityTypeIds));
+  }
+
+  @Test
+  void testInvalidate() {
+    List<String> entityTypeIds = singletonList("MyEntityType");
+    String versionTag = entityTypeVersions.getVersionTag(entityTypeIds);
+
+    entityTypeVersions.invalidate(CacheInvalidation.create(singleton("MyEntityType"), emptySet()));
+
+    assertNotEquals(versionTag, entityTypeVersions.getVersionTag(entityTypeIds));
+  }
+
+  @Test
+  void testInvalidateAfterIndexUpdate() {
+    List<String> entityTypeIds = singletonList("MyEntityType");
+    when(transactionInformation.getDirtyRepositories()).thenReturn(singleton("MyEntityType"));
+    entityTypeVersions.afterCommitTransaction("transactionId");
+    String committedVersionTag = entityTypeVersions.getVersionTag(entityTypeIds);
+
+    // published by the index job once the index of the committed changes is up to date
+    entityTypeVersions.invalidate(CacheInvalidation.create(singleton("MyEntityType"), emptySet()));
+
+    assertNotEquals(committedVersionTag, entityTypeVersions.getVersionTag(entityTypeIds));
+  }
+
+  @Test
+  void testInvalidateAll() {
+    List<String> entityTypeIds = singletonList("MyEntityType");
+    String versionTag = entityTypeVersions.getVersionTag(entityTypeIds);
+
+    entityTypeVersions.invalidateAll();
+
+    assertNotEquals(versionTag, entityTypeVersions.getVersionTag(entityTypeIds));
+  }
+}
@@ -312,6 +312,7 @@ public class DataExplorerController extends PluginController {
     }
   }
 
+  @Transactional(readOnly = true)
   @PostMapping("/download")
   public void download(
       @RequestParam("dataRequest") String dataRequestStr, HttpServletResponse response)
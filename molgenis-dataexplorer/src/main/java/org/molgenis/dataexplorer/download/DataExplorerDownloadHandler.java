@@ -3,6 +3,7 @@ package org.molgenis.dataexplorer.download;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
+import static org.molgenis.data.StreamingModeHolder.runInStreamingMode;
 
 import com.google.common.collect.Streams;
 import java.io.IOException;
@@ -23,6 +24,10 @@ import org.molgenis.data.support.AbstractWritable.EntityWriteMode;
 import org.molgenis.dataexplorer.controller.DataRequest;
 import org.molgenis.util.UnexpectedEnumException;
 
+/**
+ * Writes data explorer downloads. Entities are written while they are found, so they are streamed
+ * from the database if the download runs in a transaction.
+ */
 public class DataExplorerDownloadHandler {
   // Magic value: https://github.com/molgenis/molgenis/issues/6687
   private static final long MAX_EXCEL_CELLS = 500000L;
@@ -43,7 +48,8 @@ public class DataExplorerDownloadHandler {
         ExcelSheetWriter excelSheetWriter =
             excelWriter.createWritable(entityTypeId, attributes, attributeWriteMode)) {
       excelSheetWriter.setEntityWriteMode(getEntityWriteMode(dataRequest.getEntityValues()));
-      excelSheetWriter.add(dataService.findAll(entityTypeId, dataRequest.getQuery()));
+      runInStreamingMode(
+          () -> excelSheetWriter.add(dataService.findAll(entityTypeId, dataRequest.getQuery())));
     }
   }
 
@@ -77,7 +83,8 @@ public class DataExplorerDownloadHandler {
       csvWriter.setEntityWriteMode(getEntityWriteMode(dataRequest.getEntityValues()));
       String entityTypeId = dataRequest.getEntityName();
       writeCsvHeaders(dataRequest, csvWriter);
-      csvWriter.add(dataService.findAll(entityTypeId, dataRequest.getQuery()));
+      runInStreamingMode(
+          () -> csvWriter.add(dataService.findAll(entityTypeId, dataRequest.getQuery())));
     }
   }
 
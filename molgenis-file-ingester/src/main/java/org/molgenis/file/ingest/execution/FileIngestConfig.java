@@ -13,6 +13,7 @@ import org.molgenis.jobs.JobFactory;
 import org.molgenis.jobs.model.ScheduledJobType;
 import org.molgenis.jobs.model.ScheduledJobTypeFactory;
 import org.molgenis.web.menu.MenuReaderService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -27,18 +28,21 @@ public class FileIngestConfig {
   private final FileIngestJobExecutionMetadata fileIngestJobExecutionMetadata;
   private final MenuReaderService menuReaderService;
   private final Gson gson;
+  private final int maxConcurrency;
 
   public FileIngestConfig(
       FileIngester fileIngester,
       ScheduledJobTypeFactory scheduledJobTypeFactory,
       FileIngestJobExecutionMetadata fileIngestJobExecutionMetadata,
       MenuReaderService menuReaderService,
-      Gson gson) {
+      Gson gson,
+      @Value("${jobs.import.max-concurrency:2}") int maxConcurrency) {
     this.fileIngester = requireNonNull(fileIngester);
     this.scheduledJobTypeFactory = requireNonNull(scheduledJobTypeFactory);
     this.fileIngestJobExecutionMetadata = requireNonNull(fileIngestJobExecutionMetadata);
     this.menuReaderService = requireNonNull(menuReaderService);
     this.gson = requireNonNull(gson);
+    this.maxConcurrency = maxConcurrency;
   }
 
   /** The FileIngestJob Factory bean. */
@@ -57,6 +61,21 @@ public class FileIngestConfig {
             fileIngester.ingest(
                 targetEntityId, url, loader, fileIngestJobExecution.getIdentifier(), progress);
       }
+
+      @Override
+      public int getPriority() {
+        return PRIORITY_LOW;
+      }
+
+      @Override
+      public int getMaxConcurrency() {
+        return maxConcurrency;
+      }
+
+      @Override
+      public String getConcurrencyGroup() {
+        return CONCURRENCY_GROUP_IMPORT;
+      }
     };
   }
 
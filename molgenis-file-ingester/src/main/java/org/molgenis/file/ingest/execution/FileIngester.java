@@ -65,7 +65,8 @@ public class FileIngester {
         fileRepositoryCollectionFactory.createFileRepositoryCollection(file);
     ImportService importService = importServiceFactory.getImportService(file, repoCollection);
     EntityImportReport report =
-        importService.doImport(repoCollection, MetadataAction.UPSERT, ADD_UPDATE_EXISTING, null);
+        importService.doImport(
+            repoCollection, MetadataAction.UPSERT, ADD_UPDATE_EXISTING, null, progress);
 
     progress.status("Ingestion of url '" + url + "' done.");
     Integer count = report.getNrImportedEntitiesMap().get(entityTypeId);
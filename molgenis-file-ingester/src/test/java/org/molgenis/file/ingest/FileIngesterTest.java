@@ -70,7 +70,11 @@ class FileIngesterTest extends AbstractMolgenisSpringTest {
     when(importServiceFactoryMock.getImportService(f, fileRepositoryCollectionMock))
         .thenReturn(importServiceMock);
     when(importServiceMock.doImport(
-            fileRepositoryCollectionMock, MetadataAction.UPSERT, ADD_UPDATE_EXISTING, null))
+            fileRepositoryCollectionMock,
+            MetadataAction.UPSERT,
+            ADD_UPDATE_EXISTING,
+            null,
+            progress))
         .thenReturn(report);
     when(progress.getJobExecution()).thenReturn(mock(FileIngestJobExecution.class));
 
@@ -6,6 +6,7 @@ import org.molgenis.jobs.scheduler.SchedulerConfig;
 import org.molgenis.security.token.RunAsUserTokenFactory;
 import org.molgenis.security.user.UserDetailsServiceImpl;
 import org.molgenis.web.i18n.UserLocaleResolver;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -17,15 +18,18 @@ public class JobConfig {
   private final UserDetailsServiceImpl userDetailsServiceImpl;
   private final RunAsUserTokenFactory runAsUserTokenFactory;
   private final UserLocaleResolver userLocaleResolver;
+  private final long progressFlushIntervalMillis;
 
   @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
   public JobConfig(
       UserDetailsServiceImpl userDetailsServiceImpl,
       RunAsUserTokenFactory runAsUserTokenFactory,
-      UserLocaleResolver userLocaleResolver) {
+      UserLocaleResolver userLocaleResolver,
+      @Value("${jobs.progress.flush-interval:1000}") long progressFlushIntervalMillis) {
     this.userDetailsServiceImpl = requireNonNull(userDetailsServiceImpl);
     this.runAsUserTokenFactory = requireNonNull(runAsUserTokenFactory);
     this.userLocaleResolver = requireNonNull(userLocaleResolver);
+    this.progressFlushIntervalMillis = progressFlushIntervalMillis;
   }
 
   @Bean
@@ -46,6 +50,6 @@ public class JobConfig {
 
   @Bean
   public JobExecutionUpdater jobExecutionUpdater() {
-    return new JobExecutionUpdaterImpl(jobExecutionContextFactory());
+    return new JobExecutionUpdaterImpl(jobExecutionContextFactory(), progressFlushIntervalMillis);
   }
 }
@@ -1,10 +1,12 @@
 package org.molgenis.jobs;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import static java.util.Objects.requireNonNull;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import javax.annotation.PreDestroy;
 import org.molgenis.util.ExecutorServiceUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -12,8 +14,17 @@ import org.springframework.context.annotation.Import;
 @Import({JobFactoryRegistry.class, JobExecutor.class})
 @Configuration
 public class JobExecutionConfig {
+  private final MeterRegistry meterRegistry;
+  private final int maxWorkers;
+
   private ExecutorService executorService;
 
+  public JobExecutionConfig(
+      MeterRegistry meterRegistry, @Value("${jobs.max-workers:4}") int maxWorkers) {
+    this.meterRegistry = requireNonNull(meterRegistry);
+    this.maxWorkers = maxWorkers;
+  }
+
   @PreDestroy
   void preDestroy() {
     if (executorService != null) {
@@ -21,12 +32,14 @@ public class JobExecutionConfig {
     }
   }
 
+  /**
+   * Executor service for jobs that runs at most {@code jobs.max-workers} jobs at the same time.
+   * Jobs that can't be started immediately are queued by priority.
+   */
   @Bean
   public synchronized ExecutorService executorService() {
     if (executorService == null) {
-      executorService =
-          Executors.newCachedThreadPool(
-              new ThreadFactoryBuilder().setNameFormat("molgenis-job-%d").build());
+      executorService = new PrioritizedJobExecutorService(maxWorkers, meterRegistry);
     }
     return executorService;
   }
@@ -1,40 +1,68 @@
 package org.molgenis.jobs;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.molgenis.jobs.model.JobExecution.Status.CANCELED;
+import static org.molgenis.jobs.model.JobExecution.Status.FAILED;
+import static org.molgenis.jobs.model.JobExecution.Status.SUCCESS;
 
-import java.util.concurrent.ExecutorService;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.annotation.PreDestroy;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.support.DynamicEntity;
 import org.molgenis.jobs.model.JobExecution;
+import org.molgenis.jobs.model.JobExecution.Status;
 import org.molgenis.security.core.runas.RunAsSystem;
 import org.molgenis.util.ExecutorServiceUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+/**
+ * Coalesces updates per job execution: only the latest state of a job execution is written. Status
+ * transitions are written immediately, other updates are written at a fixed interval.
+ */
 @Component
 public class JobExecutionUpdaterImpl implements JobExecutionUpdater {
 
   private static final Logger LOG = LoggerFactory.getLogger(JobExecutionUpdaterImpl.class);
+  private static final Set<Status> FINAL_STATUSES = EnumSet.of(SUCCESS, FAILED, CANCELED);
 
   private final JobExecutionContextFactory jobExecutionContextFactory;
-  private final ExecutorService executorService;
+  private final ScheduledExecutorService executorService;
   @Autowired private DataService dataService;
 
-  JobExecutionUpdaterImpl(JobExecutionContextFactory jobExecutionContextFactory) {
+  // guarded by this
+  private final Map<String, PendingUpdate> pendingUpdates;
+  private final Map<String, Status> writtenStatuses;
+
+  JobExecutionUpdaterImpl(
+      JobExecutionContextFactory jobExecutionContextFactory,
+      @Value("${jobs.progress.flush-interval:1000}") long flushIntervalMillis) {
     this.jobExecutionContextFactory = requireNonNull(jobExecutionContextFactory);
-    this.executorService = Executors.newSingleThreadExecutor();
+    this.executorService = Executors.newSingleThreadScheduledExecutor();
+    this.pendingUpdates = new LinkedHashMap<>();
+    this.writtenStatuses = new HashMap<>();
+
+    executorService.scheduleWithFixedDelay(
+        this::flushAll, flushIntervalMillis, flushIntervalMillis, MILLISECONDS);
   }
 
   @PreDestroy
   void preDestroy() {
-    if (executorService != null) {
+    if (executorService != null && !executorService.isShutdown()) {
+      executorService.execute(this::flushAll);
       ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
     }
   }
@@ -47,15 +75,53 @@ public class JobExecutionUpdaterImpl implements JobExecutionUpdater {
         jobExecutionContextFactory.createJobExecutionContextWithAuthentication(
             jobExecution, authentication);
     long callingThreadId = Thread.currentThread().getId();
-    executorService.execute(() -> runJob(jobExecution, jobExecutionContext, callingThreadId));
+
+    String key = getKey(jobExecution);
+    Status status = jobExecution.getStatus();
+    boolean statusChanged;
+    synchronized (this) {
+      pendingUpdates.put(
+          key, new PendingUpdate(jobExecution, jobExecutionContext, callingThreadId));
+      statusChanged = status != writtenStatuses.get(key);
+      if (FINAL_STATUSES.contains(status)) {
+        writtenStatuses.remove(key);
+      } else {
+        writtenStatuses.put(key, status);
+      }
+    }
+    if (statusChanged) {
+      executorService.execute(() -> flush(key));
+    }
+  }
+
+  private static String getKey(JobExecution jobExecution) {
+    return jobExecution.getEntityType().getId() + '/' + jobExecution.getIdentifier();
+  }
+
+  private void flushAll() {
+    Map<String, PendingUpdate> updates;
+    synchronized (this) {
+      updates = new LinkedHashMap<>(pendingUpdates);
+      pendingUpdates.clear();
+    }
+    updates.values().forEach(this::write);
+  }
+
+  private void flush(String key) {
+    PendingUpdate pendingUpdate;
+    synchronized (this) {
+      pendingUpdate = pendingUpdates.remove(key);
+    }
+    if (pendingUpdate != null) {
+      write(pendingUpdate);
+    }
   }
 
-  private void runJob(
-      JobExecution jobExecution, JobExecutionContext jobExecutionContext, long callingThreadId) {
+  private void write(PendingUpdate pendingUpdate) {
     try {
-      updateInternal(jobExecution, jobExecutionContext);
+      updateInternal(pendingUpdate.getJobExecution(), pendingUpdate.getJobExecutionContext());
     } finally {
-      JobUtils.cleanupAfterRunJob(callingThreadId);
+      JobUtils.cleanupAfterRunJob(pendingUpdate.getCallingThreadId());
     }
   }
 
@@ -82,4 +148,34 @@ public class JobExecutionUpdaterImpl implements JobExecutionUpdater {
       LOG.warn("Error updating job execution", ex);
     }
   }
+
+  /** testability */
+  void setDataService(DataService dataService) {
+    this.dataService = requireNonNull(dataService);
+  }
+
+  private static class PendingUpdate {
+    private final JobExecution jobExecution;
+    private final JobExecutionContext jobExecutionContext;
+    private final long callingThreadId;
+
+    PendingUpdate(
+        JobExecution jobExecution, JobExecutionContext jobExecutionContext, long callingThreadId) {
+      this.jobExecution = jobExecution;
+      this.jobExecutionContext = jobExecutionContext;
+      this.callingThreadId = callingThreadId;
+    }
+
+    JobExecution getJobExecution() {
+      return jobExecution;
+    }
+
+    JobExecutionContext getJobExecutionContext() {
+      return jobExecutionContext;
+    }
+
+    long getCallingThreadId() {
+      return callingThreadId;
+    }
+  }
 }
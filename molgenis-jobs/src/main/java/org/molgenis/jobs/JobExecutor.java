@@ -2,6 +2,7 @@ package org.molgenis.jobs;
 
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
+import static java.util.Objects.requireNonNullElse;
 import static org.molgenis.data.EntityManager.CreationMode.POPULATE;
 import static org.molgenis.jobs.model.ScheduledJobMetadata.SCHEDULED_JOB;
 
@@ -10,6 +11,7 @@ import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import javax.annotation.Nullable;
 import org.molgenis.data.DataService;
@@ -103,7 +105,7 @@ public class JobExecutor {
 
   /**
    * Saves execution in the current thread, then creates a Job and submits that for asynchronous
-   * execution.
+   * execution. The job is queued by the priority and concurrency limit of its {@link JobFactory}.
    *
    * @param jobExecution the {@link JobExecution} to save and submit.
    */
@@ -122,6 +124,9 @@ public class JobExecutor {
       JobExecution jobExecution, ExecutorService executorService) {
     overwriteJobExecutionUser(jobExecution);
     Job<?> molgenisJob = saveExecutionAndCreateJob(jobExecution);
+    JobFactory<?> jobFactory = jobFactoryRegistry.getJobFactory(jobExecution);
+    String jobType = jobExecution.getEntityType().getId();
+    String concurrencyGroup = requireNonNullElse(jobFactory.getConcurrencyGroup(), jobType);
 
     long callingThreadId = Thread.currentThread().getId();
     Progress progress = jobExecutionRegistry.registerJobExecution(jobExecution);
@@ -130,7 +135,14 @@ public class JobExecutor {
         CompletableFuture.runAsync(
             () ->
                 runJob(jobExecution, molgenisJob, progress, callingThreadId, currentAuthentication),
-            executorService);
+            command ->
+                executorService.execute(
+                    new JobTask(
+                        jobType,
+                        concurrencyGroup,
+                        jobFactory.getPriority(),
+                        jobFactory.getMaxConcurrency(),
+                        command)));
 
     return completableFuture.handle(
         (voidResult, throwable) -> {
@@ -143,6 +155,22 @@ public class JobExecutor {
         });
   }
 
+  /**
+   * Returns an executor for tasks that don't have a {@link JobExecution}, e.g. import runs. The
+   * tasks are queued on the same workers as jobs, using the given priority and concurrency limit.
+   *
+   * @param type task type, used to tag the queue metrics
+   * @param concurrencyGroup concurrency group, see {@link JobFactory#getConcurrencyGroup()}
+   * @param priority task priority, see {@link JobFactory#getPriority()}
+   * @param maxConcurrency concurrency limit, see {@link JobFactory#getMaxConcurrency()}
+   */
+  public Executor getExecutor(
+      String type, String concurrencyGroup, int priority, int maxConcurrency) {
+    return command ->
+        executorService.execute(
+            new JobTask(type, concurrencyGroup, priority, maxConcurrency, command));
+  }
+
   private void handleJobException(JobExecution jobExecution, Throwable throwable) {
     if (LOG.isErrorEnabled()) {
       LOG.error(
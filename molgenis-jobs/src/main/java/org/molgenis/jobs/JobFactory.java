@@ -1,9 +1,15 @@
 package org.molgenis.jobs;
 
+import javax.annotation.Nullable;
 import org.molgenis.jobs.model.JobExecution;
 
 /** @param <T> Type of the JobExecutions that this factory understands. */
 public abstract class JobFactory<T extends JobExecution> {
+  public static final int PRIORITY_LOW = -1;
+  public static final int PRIORITY_NORMAL = 0;
+  /** Concurrency group shared by all jobs that import data. */
+  public static final String CONCURRENCY_GROUP_IMPORT = "import";
+
   /**
    * Creates a Job instance.
    *
@@ -11,4 +17,35 @@ public abstract class JobFactory<T extends JobExecution> {
    * @return the job
    */
   public abstract Job createJob(T jobExecution);
+
+  /**
+   * Returns the priority of the jobs created by this factory. Queued jobs with a higher priority
+   * are started before queued jobs with a lower priority.
+   *
+   * @return job priority
+   */
+  public int getPriority() {
+    return PRIORITY_NORMAL;
+  }
+
+  /**
+   * Returns the maximum number of jobs in the concurrency group of this factory that are allowed to
+   * run at the same time.
+   *
+   * @return maximum number of concurrently running jobs
+   */
+  public int getMaxConcurrency() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the concurrency group of the jobs created by this factory. Jobs created by factories
+   * with the same concurrency group count towards the same {@link #getMaxConcurrency()} limit.
+   *
+   * @return concurrency group or <code>null</code> if the limit only applies to jobs of this type
+   */
+  @Nullable
+  public String getConcurrencyGroup() {
+    return null;
+  }
 }
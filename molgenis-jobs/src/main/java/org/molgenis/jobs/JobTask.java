@@ -0,0 +1,50 @@
+package org.molgenis.jobs;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Task submitted to a {@link PrioritizedJobExecutorService} that runs a job of a specific type with
+ * a given priority and concurrency limit. The concurrency limit applies to all running tasks in the
+ * same concurrency group.
+ */
+class JobTask implements Runnable {
+  private final String type;
+  private final String concurrencyGroup;
+  private final int priority;
+  private final int maxConcurrency;
+  private final Runnable runnable;
+
+  JobTask(String type, int priority, int maxConcurrency, Runnable runnable) {
+    this(type, type, priority, maxConcurrency, runnable);
+  }
+
+  JobTask(
+      String type, String concurrencyGroup, int priority, int maxConcurrency, Runnable runnable) {
+    this.type = requireNonNull(type);
+    this.concurrencyGroup = requireNonNull(concurrencyGroup);
+    this.priority = priority;
+    this.maxConcurrency = maxConcurrency;
+    this.runnable = requireNonNull(runnable);
+  }
+
+  String getType() {
+    return type;
+  }
+
+  String getConcurrencyGroup() {
+    return concurrencyGroup;
+  }
+
+  int getPriority() {
+    return priority;
+  }
+
+  int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  @Override
+  public void run() {
+    runnable.run();
+  }
+}
@@ -0,0 +1,239 @@
+package org.molgenis.jobs;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link java.util.concurrent.ExecutorService} that runs tasks on a bounded pool of workers.
+ *
+ * <p>Tasks that can't be started immediately are queued. Queued tasks are started in order of
+ * priority and then in order of submission. A {@link JobTask} is only started if fewer than {@link
+ * JobTask#getMaxConcurrency()} tasks of the same concurrency group are running, other tasks have
+ * normal priority and no concurrency limit.
+ *
+ * <p>Queued jobs keep their persisted PENDING status until they are started.
+ */
+class PrioritizedJobExecutorService extends AbstractExecutorService {
+  private static final String UNTYPED = "none";
+
+  private final int maxWorkers;
+  private final ThreadPoolExecutor workers;
+  private final MeterRegistry meterRegistry;
+
+  // guarded by this
+  private final NavigableSet<QueuedTask> queuedTasks;
+  private final Map<String, Integer> nrRunningTasksByGroup;
+  private int nrRunningTasks;
+  private long nrSubmittedTasks;
+  private boolean shutdown;
+
+  PrioritizedJobExecutorService(int maxWorkers, MeterRegistry meterRegistry) {
+    this(maxWorkers, meterRegistry, createWorkers(maxWorkers));
+  }
+
+  PrioritizedJobExecutorService(
+      int maxWorkers, MeterRegistry meterRegistry, ThreadPoolExecutor workers) {
+    this.maxWorkers = maxWorkers;
+    this.meterRegistry = requireNonNull(meterRegistry);
+    this.workers = requireNonNull(workers);
+
+    this.queuedTasks =
+        new TreeSet<>(
+            comparingInt(QueuedTask::getPriority)
+                .reversed()
+                .thenComparing(comparingLong(QueuedTask::getSequenceNumber)));
+    this.nrRunningTasksByGroup = new HashMap<>();
+
+    Gauge.builder("jobs.queue.size", this, PrioritizedJobExecutorService::getNrQueuedTasks)
+        .description("Number of jobs waiting to be started")
+        .register(meterRegistry);
+    Gauge.builder("jobs.running", this, PrioritizedJobExecutorService::getNrRunningTasks)
+        .description("Number of running jobs")
+        .register(meterRegistry);
+  }
+
+  private static ThreadPoolExecutor createWorkers(int maxWorkers) {
+    if (maxWorkers < 1) {
+      throw new IllegalArgumentException("maxWorkers must be greater than zero");
+    }
+    ThreadPoolExecutor workers =
+        new ThreadPoolExecutor(
+            maxWorkers,
+            maxWorkers,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder().setNameFormat("molgenis-job-%d").build());
+    workers.allowCoreThreadTimeOut(true);
+    return workers;
+  }
+
+  @Override
+  public synchronized void execute(Runnable command) {
+    requireNonNull(command);
+    if (shutdown) {
+      throw new RejectedExecutionException("Executor service is shut down");
+    }
+    queuedTasks.add(new QueuedTask(command, nrSubmittedTasks++));
+    dispatch();
+  }
+
+  synchronized int getNrQueuedTasks() {
+    return queuedTasks.size();
+  }
+
+  synchronized int getNrRunningTasks() {
+    return nrRunningTasks;
+  }
+
+  private void dispatch() {
+    for (Iterator<QueuedTask> it = queuedTasks.iterator();
+        it.hasNext() && nrRunningTasks < maxWorkers; ) {
+      QueuedTask queuedTask = it.next();
+      if (nrRunningTasksByGroup.getOrDefault(queuedTask.getConcurrencyGroup(), 0)
+          < queuedTask.getMaxConcurrency()) {
+        it.remove();
+        start(queuedTask);
+      }
+    }
+  }
+
+  /** @throws RejectedExecutionException if the workers reject the task */
+  private void start(QueuedTask queuedTask) {
+    nrRunningTasks++;
+    nrRunningTasksByGroup.merge(queuedTask.getConcurrencyGroup(), 1, Integer::sum);
+    try {
+      workers.execute(
+          () -> {
+            try {
+              queuedTask.run();
+            } finally {
+              finish(queuedTask);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      release(queuedTask);
+      throw e;
+    }
+
+    Timer.builder("jobs.queue.wait")
+        .description("Time that jobs waited in the queue before being started")
+        .tag("type", queuedTask.getType())
+        .register(meterRegistry)
+        .record(System.nanoTime() - queuedTask.getSubmitTime(), TimeUnit.NANOSECONDS);
+  }
+
+  private synchronized void finish(QueuedTask queuedTask) {
+    release(queuedTask);
+    dispatch();
+    if (shutdown && queuedTasks.isEmpty()) {
+      workers.shutdown();
+    }
+  }
+
+  private void release(QueuedTask queuedTask) {
+    nrRunningTasks--;
+    nrRunningTasksByGroup.computeIfPresent(
+        queuedTask.getConcurrencyGroup(),
+        (group, nrRunning) -> nrRunning > 1 ? nrRunning - 1 : null);
+  }
+
+  @Override
+  public synchronized void shutdown() {
+    shutdown = true;
+    if (queuedTasks.isEmpty()) {
+      workers.shutdown();
+    }
+  }
+
+  @Override
+  public synchronized List<Runnable> shutdownNow() {
+    shutdown = true;
+    List<Runnable> notStartedTasks = new ArrayList<>();
+    queuedTasks.forEach(queuedTask -> notStartedTasks.add(queuedTask.getCommand()));
+    queuedTasks.clear();
+    notStartedTasks.addAll(workers.shutdownNow());
+    return notStartedTasks;
+  }
+
+  @Override
+  public synchronized boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return workers.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return workers.awaitTermination(timeout, unit);
+  }
+
+  private static class QueuedTask {
+    private final Runnable command;
+    private final long sequenceNumber;
+    private final long submitTime;
+
+    QueuedTask(Runnable command, long sequenceNumber) {
+      this.command = command;
+      this.sequenceNumber = sequenceNumber;
+      this.submitTime = System.nanoTime();
+    }
+
+    Runnable getCommand() {
+      return command;
+    }
+
+    long getSequenceNumber() {
+      return sequenceNumber;
+    }
+
+    long getSubmitTime() {
+      return submitTime;
+    }
+
+    String getType() {
+      return command instanceof JobTask ? ((JobTask) command).getType() : UNTYPED;
+    }
+
+    String getConcurrencyGroup() {
+      return command instanceof JobTask ? ((JobTask) command).getConcurrencyGroup() : UNTYPED;
+    }
+
+    int getPriority() {
+      return command instanceof JobTask
+          ? ((JobTask) command).getPriority()
+          : JobFactory.PRIORITY_NORMAL;
+    }
+
+    int getMaxConcurrency() {
+      return command instanceof JobTask
+          ? ((JobTask) command).getMaxConcurrency()
+          : Integer.MAX_VALUE;
+    }
+
+    void run() {
+      command.run();
+    }
+  }
+}
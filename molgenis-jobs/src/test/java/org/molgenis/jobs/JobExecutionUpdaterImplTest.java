@@ -0,0 +1,78 @@
+package org.molgenis.jobs;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.jobs.model.JobExecution.Status.RUNNING;
+import static org.molgenis.jobs.model.JobExecution.Status.SUCCESS;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.jobs.model.JobExecution;
+import org.molgenis.test.AbstractMockitoTest;
+
+class JobExecutionUpdaterImplTest extends AbstractMockitoTest {
+  @Mock private JobExecutionContextFactory jobExecutionContextFactory;
+  @Mock private DataService dataService;
+  @Mock private JobExecution jobExecution;
+  private JobExecutionUpdaterImpl jobExecutionUpdater;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getId()).thenReturn("MyJobExecution");
+    when(jobExecution.getEntityType()).thenReturn(entityType);
+    when(jobExecution.getIdentifier()).thenReturn("MyJobExecutionId");
+    when(jobExecutionContextFactory.createJobExecutionContextWithAuthentication(
+            any(JobExecution.class), any()))
+        .thenReturn(mock(JobExecutionContext.class));
+
+    jobExecutionUpdater = new JobExecutionUpdaterImpl(jobExecutionContextFactory, 60000L);
+    jobExecutionUpdater.setDataService(dataService);
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    jobExecutionUpdater.preDestroy();
+  }
+
+  @Test
+  void testUpdateStatusChangeIsWrittenImmediately() {
+    when(jobExecution.getStatus()).thenReturn(RUNNING);
+    jobExecutionUpdater.update(jobExecution);
+    verify(dataService, timeout(1000)).update(any(String.class), any(Entity.class));
+  }
+
+  @Test
+  void testUpdateIsCoalesced() {
+    when(jobExecution.getStatus()).thenReturn(RUNNING, RUNNING, RUNNING, SUCCESS);
+    jobExecutionUpdater.update(jobExecution);
+    verify(dataService, timeout(1000)).update(any(String.class), any(Entity.class));
+
+    jobExecutionUpdater.update(jobExecution);
+    jobExecutionUpdater.update(jobExecution);
+    jobExecutionUpdater.update(jobExecution);
+    verify(dataService, timeout(1000).times(2)).update(any(String.class), any(Entity.class));
+
+    jobExecutionUpdater.preDestroy();
+    verify(dataService, times(2)).update(any(String.class), any(Entity.class));
+  }
+
+  @Test
+  void testPreDestroyWritesPendingUpdates() {
+    when(jobExecution.getStatus()).thenReturn(RUNNING);
+    jobExecutionUpdater.update(jobExecution);
+    verify(dataService, timeout(1000)).update(any(String.class), any(Entity.class));
+    jobExecutionUpdater.update(jobExecution);
+    jobExecutionUpdater.preDestroy();
+    verify(dataService, times(2)).update(any(String.class), any(Entity.class));
+  }
+}
@@ -16,6 +16,7 @@ import java.util.concurrent.ExecutorService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.molgenis.data.DataService;
@@ -224,6 +225,22 @@ class JobExecutorTest extends AbstractMockitoSpringContextTests {
     verify(jobExecutionRegistry).unregisterJobExecution(jobExecution);
   }
 
+  @Test
+  void testGetExecutor() {
+    Runnable command = mock(Runnable.class);
+    jobExecutor.getExecutor("MyTaskType", "MyGroup", JobFactory.PRIORITY_LOW, 2).execute(command);
+
+    ArgumentCaptor<JobTask> jobTaskCaptor = ArgumentCaptor.forClass(JobTask.class);
+    verify(executorService).execute(jobTaskCaptor.capture());
+    JobTask jobTask = jobTaskCaptor.getValue();
+    assertEquals("MyTaskType", jobTask.getType());
+    assertEquals("MyGroup", jobTask.getConcurrencyGroup());
+    assertEquals(JobFactory.PRIORITY_LOW, jobTask.getPriority());
+    assertEquals(2, jobTask.getMaxConcurrency());
+    jobTask.run();
+    verify(command).run();
+  }
+
   @Test
   void testCancel() {
     JobExecution jobExecution = mock(JobExecution.class);
@@ -0,0 +1,151 @@
+package org.molgenis.jobs;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PrioritizedJobExecutorServiceTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private PrioritizedJobExecutorService executorService;
+
+  @AfterEach
+  void tearDownAfterEach() throws InterruptedException {
+    if (executorService != null) {
+      executorService.shutdownNow();
+      executorService.awaitTermination(10, SECONDS);
+    }
+  }
+
+  @Test
+  void testPrioritizedJobExecutorServiceInvalidMaxWorkers() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new PrioritizedJobExecutorService(0, meterRegistry));
+  }
+
+  @Test
+  void testExecutePriority() throws InterruptedException {
+    executorService = new PrioritizedJobExecutorService(1, meterRegistry);
+    CountDownLatch blockLatch = new CountDownLatch(1);
+    List<String> executed = new CopyOnWriteArrayList<>();
+
+    executorService.execute(() -> await(blockLatch));
+    executorService.execute(new JobTask("type", 0, 10, () -> executed.add("normal0")));
+    executorService.execute(new JobTask("type", -1, 10, () -> executed.add("low")));
+    executorService.execute(new JobTask("type", 0, 10, () -> executed.add("normal1")));
+    executorService.execute(new JobTask("type", 1, 10, () -> executed.add("high")));
+    assertEquals(4, executorService.getNrQueuedTasks());
+
+    blockLatch.countDown();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(10, SECONDS));
+    assertEquals(asList("high", "normal0", "normal1", "low"), executed);
+  }
+
+  @Test
+  void testExecuteMaxConcurrency() throws InterruptedException {
+    executorService = new PrioritizedJobExecutorService(2, meterRegistry);
+    CountDownLatch blockLatch = new CountDownLatch(1);
+    CountDownLatch otherTypeLatch = new CountDownLatch(1);
+
+    executorService.execute(new JobTask("import", 0, 1, () -> await(blockLatch)));
+    executorService.execute(new JobTask("import", 0, 1, () -> {}));
+    executorService.execute(new JobTask("mapping", 0, 1, otherTypeLatch::countDown));
+
+    assertTrue(otherTypeLatch.await(10, SECONDS));
+    assertEquals(1, executorService.getNrQueuedTasks());
+
+    blockLatch.countDown();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(10, SECONDS));
+    assertEquals(0, executorService.getNrQueuedTasks());
+    assertEquals(0, executorService.getNrRunningTasks());
+  }
+
+  @Test
+  void testExecuteMaxConcurrencyGroup() throws InterruptedException {
+    executorService = new PrioritizedJobExecutorService(3, meterRegistry);
+    CountDownLatch blockLatch = new CountDownLatch(1);
+    CountDownLatch otherGroupLatch = new CountDownLatch(1);
+
+    executorService.execute(new JobTask("fileIngest", "import", 0, 1, () -> await(blockLatch)));
+    executorService.execute(new JobTask("bucketIngest", "import", 0, 1, () -> {}));
+    executorService.execute(new JobTask("mapping", 0, 1, otherGroupLatch::countDown));
+
+    assertTrue(otherGroupLatch.await(10, SECONDS));
+    assertEquals(1, executorService.getNrQueuedTasks());
+
+    blockLatch.countDown();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(10, SECONDS));
+    assertEquals(0, executorService.getNrQueuedTasks());
+  }
+
+  @Test
+  void testExecuteRejectedByWorkers() {
+    ThreadPoolExecutor workers =
+        new ThreadPoolExecutor(1, 1, 0, SECONDS, new LinkedBlockingQueue<>());
+    workers.shutdown();
+    executorService = new PrioritizedJobExecutorService(1, meterRegistry, workers);
+
+    JobTask jobTask = new JobTask("type", 0, 1, () -> {});
+    assertThrows(RejectedExecutionException.class, () -> executorService.execute(jobTask));
+    assertEquals(0, executorService.getNrRunningTasks());
+    assertEquals(0, executorService.getNrQueuedTasks());
+  }
+
+  @Test
+  void testExecuteMetrics() throws InterruptedException {
+    executorService = new PrioritizedJobExecutorService(1, meterRegistry);
+    CountDownLatch blockLatch = new CountDownLatch(1);
+
+    executorService.execute(new JobTask("type", 0, 1, () -> await(blockLatch)));
+    executorService.execute(new JobTask("type", 0, 1, () -> {}));
+    assertEquals(1, meterRegistry.get("jobs.queue.size").gauge().value());
+    assertEquals(1, meterRegistry.get("jobs.running").gauge().value());
+
+    blockLatch.countDown();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(10, SECONDS));
+    assertEquals(2, meterRegistry.get("jobs.queue.wait").tag("type", "type").timer().count());
+  }
+
+  @Test
+  void testExecuteAfterShutdown() {
+    executorService = new PrioritizedJobExecutorService(1, meterRegistry);
+    executorService.shutdown();
+    assertThrows(RejectedExecutionException.class, () -> executorService.execute(() -> {}));
+  }
+
+  @Test
+  void testShutdownNow() {
+    executorService = new PrioritizedJobExecutorService(1, meterRegistry);
+    CountDownLatch blockLatch = new CountDownLatch(1);
+    Runnable queuedTask = () -> {};
+
+    executorService.execute(() -> await(blockLatch));
+    executorService.execute(queuedTask);
+
+    assertEquals(List.of(queuedTask), executorService.shutdownNow());
+    assertTrue(executorService.isShutdown());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
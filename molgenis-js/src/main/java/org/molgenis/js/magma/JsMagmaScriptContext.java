@@ -5,11 +5,15 @@ import static java.util.stream.Collectors.toList;
 import static org.molgenis.js.graal.GraalScriptEngine.convertGraalValue;
 import static org.molgenis.util.ResourceUtils.getString;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 import org.molgenis.data.Entity;
@@ -17,7 +21,11 @@ import org.molgenis.script.core.ScriptException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** An initialized, reusable, context to evaluate MagmaScript expressions. */
+/**
+ * An initialized, reusable, context to evaluate MagmaScript expressions.
+ *
+ * <p>Expressions are parsed once per context and executed for each entity the context is bound to.
+ */
 public class JsMagmaScriptContext {
   private static final Logger LOGGER = LoggerFactory.getLogger(JsMagmaScriptContext.class);
   private static final String KEY_IS_NULL = "_isNull";
@@ -27,8 +35,17 @@ public class JsMagmaScriptContext {
   private static final String BIND = "bind";
   public static final String KEY_ID_VALUE = "_idValue";
   private static final List<Source> SOURCES;
+  private static final Source RESET_SOURCE = getSource("/js/context-reset.js");
+  private static final int MAX_COMPILED_EXPRESSIONS = 1000;
+
+  /** Sources are independent of contexts, which allows the engine to share parsed code */
+  private static final Cache<String, Source> EXPRESSION_SOURCES =
+      Caffeine.newBuilder().maximumSize(MAX_COMPILED_EXPRESSIONS).build();
 
   private final Context context;
+  @Nullable private final JsMagmaScriptMetrics metrics;
+  private final Cache<String, Value> compiledExpressions;
+  private Value resetFunction;
 
   static {
     SOURCES =
@@ -45,7 +62,13 @@ public class JsMagmaScriptContext {
   }
 
   JsMagmaScriptContext(Context context) {
+    this(context, null);
+  }
+
+  JsMagmaScriptContext(Context context, @Nullable JsMagmaScriptMetrics metrics) {
     this.context = Objects.requireNonNull(context);
+    this.metrics = metrics;
+    this.compiledExpressions = Caffeine.newBuilder().maximumSize(MAX_COMPILED_EXPRESSIONS).build();
     prepare(context);
   }
 
@@ -56,6 +79,7 @@ public class JsMagmaScriptContext {
     Value magmaScript = bindings.getMember(KEY_MAGMA_SCRIPT);
     bindings.putMember(KEY_NEW_VALUE, magmaScript.getMember(KEY_NEW_VALUE));
     bindings.putMember(KEY_IS_NULL, magmaScript.getMember(KEY_IS_NULL));
+    resetFunction = context.eval(RESET_SOURCE);
   }
 
   public Object tryEval(String expression) {
@@ -67,7 +91,18 @@ public class JsMagmaScriptContext {
   }
 
   public Object eval(String expression) {
-    return convertGraalValue(context.eval("js", expression));
+    Value compiledExpression = compiledExpressions.get(expression, this::compile);
+    if (metrics == null) {
+      return convertGraalValue(compiledExpression.execute());
+    }
+    return metrics
+        .getTimer(expression)
+        .record(() -> convertGraalValue(compiledExpression.execute()));
+  }
+
+  private Value compile(String expression) {
+    Source source = EXPRESSION_SOURCES.get(expression, script -> Source.create("js", script));
+    return context.parse(source);
   }
 
   /**
@@ -83,6 +118,34 @@ public class JsMagmaScriptContext {
     bindings.putMember(KEY_DOLLAR, boundDollar);
   }
 
+  /** Removes the binding to the last bound entity. */
+  void unbind() {
+    context.getBindings("js").removeMember(KEY_DOLLAR);
+  }
+
+  /**
+   * Undoes the changes that evaluated expressions made to the global scope since the context was
+   * prepared: added globals are removed and changed globals, built-in objects and their prototypes
+   * are restored. Changes to objects nested deeper than that are not undone. Top-level let, const
+   * and class declarations can't be undone, contexts in which they were evaluated can't be reset.
+   *
+   * @return whether the context was reset, if not the context should not be reused
+   */
+  boolean reset() {
+    unbind();
+    try {
+      Object[] bindingNames = context.getBindings("js").getMemberKeys().toArray();
+      if (!resetFunction.execute(bindingNames).asBoolean()) {
+        LOGGER.debug("Context contains top-level lexical declarations");
+        return false;
+      }
+      return true;
+    } catch (PolyglotException e) {
+      LOGGER.debug("Failed to reset context", e);
+      return false;
+    }
+  }
+
   void enter() {
     context.enter();
   }
@@ -0,0 +1,66 @@
+package org.molgenis.js.magma;
+
+import static java.util.Objects.requireNonNull;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.annotation.PreDestroy;
+import org.molgenis.js.graal.GraalScriptEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pool of prepared {@link JsMagmaScriptContext}s that can be reused across threads, so that the
+ * contexts and the expressions compiled in them don't have to be recreated for each call.
+ *
+ * <p>Borrowing never blocks: if no idle context is available a new one is created. At most {@code
+ * poolSize} idle contexts are retained, returned contexts that don't fit in the pool are closed.
+ */
+@Component
+public class JsMagmaScriptContextPool {
+  private static final Logger LOG = LoggerFactory.getLogger(JsMagmaScriptContextPool.class);
+
+  private final GraalScriptEngine engine;
+  private final JsMagmaScriptMetrics metrics;
+  private final BlockingQueue<JsMagmaScriptContext> idleContexts;
+
+  public JsMagmaScriptContextPool(
+      GraalScriptEngine engine,
+      MeterRegistry meterRegistry,
+      @Value("${magmascript.context.pool.size:8}") int poolSize) {
+    this.engine = requireNonNull(engine);
+    this.metrics = new JsMagmaScriptMetrics(meterRegistry);
+    this.idleContexts = new ArrayBlockingQueue<>(poolSize);
+  }
+
+  /** Returns an idle context or creates a new context if no idle contexts are available. */
+  JsMagmaScriptContext borrowContext() {
+    JsMagmaScriptContext context = idleContexts.poll();
+    if (context == null) {
+      LOG.debug("Creating MagmaScript context");
+      context = new JsMagmaScriptContext(engine.createContext(), metrics);
+    }
+    return context;
+  }
+
+  /**
+   * Returns a context to the pool after resetting its global scope, closes the context if it could
+   * not be reset or if the pool is full.
+   */
+  void returnContext(JsMagmaScriptContext context) {
+    if (!context.reset() || !idleContexts.offer(context)) {
+      context.close();
+    }
+  }
+
+  @PreDestroy
+  void closeContexts() {
+    JsMagmaScriptContext context;
+    while ((context = idleContexts.poll()) != null) {
+      context.close();
+    }
+  }
+}
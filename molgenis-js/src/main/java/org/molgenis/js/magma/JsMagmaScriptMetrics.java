@@ -0,0 +1,61 @@
+package org.molgenis.js.magma;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the evaluation time of MagmaScript expressions. Timers are kept for a limited number of
+ * expressions, the timers of the least recently evaluated expressions are removed from the
+ * registry.
+ *
+ * <p>Timers are tagged with a short hash of the expression instead of the expression itself, which
+ * can be arbitrarily long. The expression belonging to a hash is logged at debug level.
+ */
+class JsMagmaScriptMetrics {
+  private static final Logger LOG = LoggerFactory.getLogger(JsMagmaScriptMetrics.class);
+  private static final String METRIC_NAME = "magmascript.expression";
+  private static final int MAX_EXPRESSIONS = 1000;
+  private static final int HASH_LENGTH = 16;
+
+  private final MeterRegistry meterRegistry;
+  private final Cache<String, Timer> timers;
+
+  JsMagmaScriptMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = requireNonNull(meterRegistry);
+    this.timers =
+        Caffeine.newBuilder()
+            .maximumSize(MAX_EXPRESSIONS)
+            .<String, Timer>removalListener(
+                (expression, timer, cause) -> {
+                  if (timer != null) {
+                    meterRegistry.remove(timer);
+                  }
+                })
+            .build();
+  }
+
+  Timer getTimer(String expression) {
+    return timers.get(expression, this::createTimer);
+  }
+
+  private Timer createTimer(String expression) {
+    String hash = getHash(expression);
+    LOG.debug("Registering timer for expression hash '{}': {}", hash, expression);
+    return Timer.builder(METRIC_NAME)
+        .description("Time spent evaluating a MagmaScript expression")
+        .tag("expression", hash)
+        .register(meterRegistry);
+  }
+
+  static String getHash(String expression) {
+    return Hashing.sha256().hashString(expression, UTF_8).toString().substring(0, HASH_LENGTH);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Snapshots the global object, the objects it references and their prototypes. Evaluates to a
+ * function that undoes changes made since the snapshot: added properties are deleted and changed
+ * properties are restored, so that expressions evaluated in a reused context cannot leak state
+ * through globals or changes to built-in prototypes.
+ *
+ * Top-level let, const and class declarations create bindings in the global scope that are not
+ * properties of the global object and that can't be removed. The function is called with the
+ * names of the global scope bindings and returns false if any of them is such a declaration.
+ */
+(function (global) {
+  'use strict'
+  var ownKeys = Reflect.ownKeys
+  var hasOwn = Function.prototype.call.bind(Object.prototype.hasOwnProperty)
+  var getDescriptor = Object.getOwnPropertyDescriptor
+  var defineProperty = Object.defineProperty
+  var isExtensible = Object.isExtensible
+  var is = Object.is
+  var forEach = Function.prototype.call.bind(Array.prototype.forEach)
+  var every = Function.prototype.call.bind(Array.prototype.every)
+
+  var snapshots = []
+  var targets = new Set()
+
+  function snapshot (target) {
+    if (targets.has(target)) {
+      return
+    }
+    targets.add(target)
+    var descriptors = Object.create(null)
+    forEach(ownKeys(target), function (key) {
+      descriptors[key] = getDescriptor(target, key)
+    })
+    snapshots.push({ target: target, descriptors: descriptors, extensible: isExtensible(target) })
+  }
+
+  function isObject (value) {
+    return (typeof value === 'object' && value !== null) || typeof value === 'function'
+  }
+
+  snapshot(global)
+  forEach(ownKeys(global), function (key) {
+    var descriptor = getDescriptor(global, key)
+    if (isObject(descriptor.value)) {
+      snapshot(descriptor.value)
+      if (typeof descriptor.value === 'function' && isObject(descriptor.value.prototype)) {
+        snapshot(descriptor.value.prototype)
+      }
+    }
+  })
+
+  function isChanged (current, original) {
+    return current === undefined ||
+      !is(current.value, original.value) ||
+      !is(current.get, original.get) ||
+      !is(current.set, original.set)
+  }
+
+  function reset (target, descriptors, extensible) {
+    if (extensible && !isExtensible(target)) {
+      throw new TypeError('Cannot reset an object that was made non-extensible')
+    }
+    forEach(ownKeys(target), function (key) {
+      if (!hasOwn(descriptors, key)) {
+        var current = getDescriptor(target, key)
+        if (current.configurable) {
+          delete target[key]
+        } else {
+          // top-level var declarations can't be deleted, throws if the property is read-only
+          target[key] = undefined
+        }
+      }
+    })
+    forEach(ownKeys(descriptors), function (key) {
+      var current = getDescriptor(target, key)
+      if (isChanged(current, descriptors[key])) {
+        if (current === undefined || current.configurable) {
+          defineProperty(target, key, descriptors[key])
+        } else {
+          // throws if the property was made read-only
+          target[key] = descriptors[key].value
+        }
+      }
+    })
+  }
+
+  return function () {
+    var resettable = every(arguments, function (name) {
+      return hasOwn(global, name)
+    })
+    forEach(snapshots, function (entry) {
+      reset(entry.target, entry.descriptors, entry.extensible)
+    })
+    return resettable
+  }
+})(this)
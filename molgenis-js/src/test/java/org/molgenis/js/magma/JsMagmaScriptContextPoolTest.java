@@ -0,0 +1,125 @@
+package org.molgenis.js.magma;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.molgenis.js.graal.GraalScriptEngine;
+
+class JsMagmaScriptContextPoolTest {
+  private SimpleMeterRegistry meterRegistry;
+  private JsMagmaScriptContextPool contextPool;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    meterRegistry = new SimpleMeterRegistry();
+    contextPool = new JsMagmaScriptContextPool(new GraalScriptEngine(), meterRegistry, 1);
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    contextPool.closeContexts();
+  }
+
+  @Test
+  void testBorrowContextReusesReturnedContext() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    contextPool.returnContext(context);
+    assertSame(context, contextPool.borrowContext());
+  }
+
+  @Test
+  void testBorrowContextCreatesContextIfNoneIdle() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    JsMagmaScriptContext otherContext = contextPool.borrowContext();
+    assertNotSame(context, otherContext);
+    contextPool.returnContext(context);
+    contextPool.returnContext(otherContext);
+    assertSame(context, contextPool.borrowContext());
+    assertNotSame(otherContext, contextPool.borrowContext());
+  }
+
+  @Test
+  void testEvalRecordsExpressionTimer() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("1 + 1");
+    context.eval("1 + 1");
+    contextPool.returnContext(context);
+    assertEquals(
+        2,
+        meterRegistry
+            .get("magmascript.expression")
+            .tag("expression", JsMagmaScriptMetrics.getHash("1 + 1"))
+            .timer()
+            .count());
+  }
+
+  @Test
+  void testGetHash() {
+    String expression = "$('height').div(100).pow(2).value()".repeat(100);
+    assertTrue(JsMagmaScriptMetrics.getHash(expression).matches("[0-9a-f]{16}"));
+  }
+
+  @Test
+  void testReturnContextRemovesGlobals() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("var x = 1; y = 2; globalThis.z = 3");
+    contextPool.returnContext(context);
+
+    JsMagmaScriptContext reusedContext = contextPool.borrowContext();
+    assertSame(context, reusedContext);
+    assertEquals(
+        "undefined undefined undefined",
+        reusedContext.eval("typeof x + ' ' + typeof globalThis.y + ' ' + typeof globalThis.z"));
+  }
+
+  @Test
+  void testReturnContextRestoresGlobals() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("Math = null; MagmaScript.$ = null; parseInt = function () { return 42 }");
+    contextPool.returnContext(context);
+
+    JsMagmaScriptContext reusedContext = contextPool.borrowContext();
+    assertSame(context, reusedContext);
+    assertEquals(
+        true,
+        reusedContext.eval(
+            "Math.abs(-1) === 1 && typeof MagmaScript.$ === 'function' && parseInt('1') === 1"));
+  }
+
+  @Test
+  void testReturnContextRestoresPrototypes() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("Array.prototype.leak = 1; String.prototype.trim = function () { return 'leak' }");
+    contextPool.returnContext(context);
+
+    JsMagmaScriptContext reusedContext = contextPool.borrowContext();
+    assertSame(context, reusedContext);
+    assertEquals(true, reusedContext.eval("[].leak === undefined && ' a '.trim() === 'a'"));
+  }
+
+  @Test
+  void testReturnContextClosesContextThatCannotBeReset() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("Object.freeze(Array.prototype)");
+    contextPool.returnContext(context);
+
+    assertNotSame(context, contextPool.borrowContext());
+  }
+
+  @Test
+  void testReturnContextClosesContextWithLexicalDeclarations() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("let x = 1; const y = 2; class Z {}; x + y");
+    contextPool.returnContext(context);
+
+    JsMagmaScriptContext otherContext = contextPool.borrowContext();
+    assertNotSame(context, otherContext);
+    assertEquals(3, otherContext.eval("let x = 1; const y = 2; class Z {}; x + y"));
+  }
+}
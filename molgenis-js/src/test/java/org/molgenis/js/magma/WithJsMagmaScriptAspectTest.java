@@ -2,6 +2,8 @@ package org.molgenis.js.magma;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.graalvm.polyglot.PolyglotException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,7 +15,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ContextConfiguration;
 
 @ContextConfiguration(
-    classes = {WithJsMagmaScriptAspect.class, WithJsMagmaScriptAspectTest.Config.class})
+    classes = {
+      WithJsMagmaScriptAspect.class,
+      JsMagmaScriptContextPool.class,
+      WithJsMagmaScriptAspectTest.Config.class
+    })
 class WithJsMagmaScriptAspectTest extends AbstractMockitoSpringContextTests {
 
   @Autowired TestBean testBean;
@@ -35,6 +41,12 @@ class WithJsMagmaScriptAspectTest extends AbstractMockitoSpringContextTests {
     assertNull(JsMagmaScriptContextHolder.getContext());
   }
 
+  @Test
+  void testContextIsReused() {
+    JsMagmaScriptContext context = testBean.getContext();
+    assertSame(context, testBean.getContext());
+  }
+
   @Test
   void testContextIsEntered() {
     assertDoesNotThrow(testBean::checkThatContextIsEntered);
@@ -47,6 +59,11 @@ class WithJsMagmaScriptAspectTest extends AbstractMockitoSpringContextTests {
       return new GraalScriptEngine();
     }
 
+    @Bean
+    public MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
     @Bean
     public TestBean testBean() {
       return new TestBean();
@@ -61,6 +78,11 @@ class WithJsMagmaScriptAspectTest extends AbstractMockitoSpringContextTests {
       return context.eval(expression2);
     }
 
+    @WithJsMagmaScriptContext
+    public JsMagmaScriptContext getContext() {
+      return JsMagmaScriptContextHolder.getContext();
+    }
+
     @WithJsMagmaScriptContext
     public void checkThatContextIsEntered() {
       JsMagmaScriptContext context = JsMagmaScriptContextHolder.getContext();
@@ -14,6 +14,7 @@ import org.molgenis.jobs.Progress;
 import org.molgenis.oneclickimporter.job.OneClickImportJob;
 import org.molgenis.oneclickimporter.job.OneClickImportJobExecution;
 import org.molgenis.util.i18n.PropertiesMessageSource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -24,9 +25,13 @@ public class OneClickImporterConfig {
   public static final String NAMESPACE = "one-click-importer";
 
   private final OneClickImportJob oneClickImportJob;
+  private final int maxConcurrency;
 
-  public OneClickImporterConfig(OneClickImportJob oneClickImportJob) {
+  public OneClickImporterConfig(
+      OneClickImportJob oneClickImportJob,
+      @Value("${jobs.import.max-concurrency:2}") int maxConcurrency) {
     this.oneClickImportJob = requireNonNull(oneClickImportJob);
+    this.maxConcurrency = maxConcurrency;
   }
 
   @Bean
@@ -55,6 +60,21 @@ public class OneClickImporterConfig {
           return entityTypes;
         };
       }
+
+      @Override
+      public int getPriority() {
+        return PRIORITY_LOW;
+      }
+
+      @Override
+      public int getMaxConcurrency() {
+        return maxConcurrency;
+      }
+
+      @Override
+      public String getConcurrencyGroup() {
+        return CONCURRENCY_GROUP_IMPORT;
+      }
     };
   }
 
@@ -4,15 +4,20 @@ import static java.util.Objects.requireNonNull;
 
 import org.molgenis.jobs.Job;
 import org.molgenis.jobs.JobFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SortaJobFactory {
   private final SortaJobProcessor sortaJobProcessor;
+  private final int maxConcurrency;
 
-  public SortaJobFactory(SortaJobProcessor sortaJobProcessor) {
+  public SortaJobFactory(
+      SortaJobProcessor sortaJobProcessor,
+      @Value("${jobs.sorta.max-concurrency:2}") int maxConcurrency) {
     this.sortaJobProcessor = requireNonNull(sortaJobProcessor);
+    this.maxConcurrency = maxConcurrency;
   }
 
   @Bean
@@ -28,6 +33,16 @@ public class SortaJobFactory {
                 jobExecution.getResultEntityName(),
                 progress);
       }
+
+      @Override
+      public int getPriority() {
+        return PRIORITY_LOW;
+      }
+
+      @Override
+      public int getMaxConcurrency() {
+        return maxConcurrency;
+      }
     };
   }
 }
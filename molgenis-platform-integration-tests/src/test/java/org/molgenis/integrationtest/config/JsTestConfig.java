@@ -1,11 +1,25 @@
 package org.molgenis.integrationtest.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.molgenis.js.graal.GraalScriptEngine;
+import org.molgenis.js.magma.JsMagmaScriptContextPool;
 import org.molgenis.js.magma.JsMagmaScriptEvaluator;
 import org.molgenis.js.magma.WithJsMagmaScriptAspect;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 @Configuration
-@Import({JsMagmaScriptEvaluator.class, GraalScriptEngine.class, WithJsMagmaScriptAspect.class})
-public class JsTestConfig {}
+@Import({
+  JsMagmaScriptEvaluator.class,
+  GraalScriptEngine.class,
+  JsMagmaScriptContextPool.class,
+  WithJsMagmaScriptAspect.class
+})
+public class JsTestConfig {
+  @Bean
+  public MeterRegistry meterRegistry() {
+    return new SimpleMeterRegistry();
+  }
+}
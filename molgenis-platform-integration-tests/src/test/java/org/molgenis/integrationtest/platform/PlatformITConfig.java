@@ -2,6 +2,8 @@ package org.molgenis.integrationtest.platform;
 
 import static org.mockito.Mockito.mock;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.molgenis.data.SystemRepositoryDecoratorFactoryRegistrar;
 import org.molgenis.data.TestHarnessConfig;
 import org.molgenis.data.config.EntityBaseTestConfig;
@@ -178,6 +180,11 @@ public class PlatformITConfig implements ApplicationListener<ContextRefreshedEve
     return mock(GroupPackageService.class);
   }
 
+  @Bean
+  public MeterRegistry meterRegistry() {
+    return new SimpleMeterRegistry();
+  }
+
   @Bean
   public MailSender mailSender() {
     return mock(MailSender.class);
@@ -11,6 +11,7 @@ import static org.molgenis.security.UriConstants.PATH_SEGMENT_APPS;
 import java.util.LinkedHashMap;
 import javax.servlet.Filter;
 import org.molgenis.data.DataService;
+import org.molgenis.data.security.auth.TokenCache;
 import org.molgenis.data.security.auth.TokenFactory;
 import org.molgenis.data.security.user.UserService;
 import org.molgenis.security.account.AccountController;
@@ -77,6 +78,7 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
 import org.springframework.security.web.util.matcher.OrRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Import({DataServiceClientRegistrationRepository.class, SecurityConfig.class})
 public abstract class MolgenisWebAppSecurityConfig extends WebSecurityConfigurerAdapter {
@@ -92,6 +94,8 @@ public abstract class MolgenisWebAppSecurityConfig extends WebSecurityConfigurer
 
   @Autowired private TokenFactory tokenFactory;
 
+  @Autowired private TokenCache tokenCache;
+
   @Autowired private OtpService otpService;
 
   @Autowired private TwoFactorAuthenticationService twoFactorAuthenticationService;
@@ -112,6 +116,8 @@ public abstract class MolgenisWebAppSecurityConfig extends WebSecurityConfigurer
 
   @Autowired private OAuth2AuthorizedClientService authorizedClientService;
 
+  @Autowired private PlatformTransactionManager transactionManager;
+
   @Override
   protected void configure(HttpSecurity http) throws Exception {
     // do not write cache control headers for static resources
@@ -313,7 +319,12 @@ public abstract class MolgenisWebAppSecurityConfig extends WebSecurityConfigurer
   @Bean
   public TokenService tokenService() {
     return new DataServiceTokenService(
-        new TokenGenerator(), dataService, userDetailsService, tokenFactory);
+        new TokenGenerator(),
+        dataService,
+        userDetailsService,
+        tokenFactory,
+        tokenCache,
+        transactionManager);
   }
 
   @Bean
@@ -1,22 +1,180 @@
 package org.molgenis.security.acl;
 
 import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.transaction.TransactionConstants.TRANSACTION_ID_RESOURCE_NAME;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.molgenis.data.transaction.EntityTypeVersions;
 import org.molgenis.data.transaction.TransactionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.acls.model.AclCache;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Keeps track of the ACLs that were changed in a transaction and evicts them from the {@link
+ * AclCache} when the transaction is rolled back, because the cache might contain their uncommitted
+ * state. Transactions that didn't change ACLs don't evict anything.
+ *
+ * <p>Committed ACL changes change the data that users are permitted to read, so they change the
+ * version of all entity types in the {@link EntityTypeVersions}.
+ */
 public class AclCacheTransactionListener implements TransactionListener {
+  private static final Logger LOG = LoggerFactory.getLogger(AclCacheTransactionListener.class);
+  /** Evicting more ACLs than fit in the cache is slower than clearing the cache */
+  static final int MAX_TRACKED_ACLS = 10000;
+
   private final AclCache aclCache;
-  private final MutableAclClassService aclClassService;
+  private final EntityTypeVersions entityTypeVersions;
+  private final Counter evictionCounter;
+  private final Counter clearCounter;
+  private final Map<String, TransactionAclChanges> transactionAclChanges =
+      new ConcurrentHashMap<>();
 
-  public AclCacheTransactionListener(AclCache aclCache, MutableAclClassService aclClassService) {
+  public AclCacheTransactionListener(
+      AclCache aclCache, EntityTypeVersions entityTypeVersions, MeterRegistry meterRegistry) {
     this.aclCache = requireNonNull(aclCache);
-    this.aclClassService = requireNonNull(aclClassService);
+    this.entityTypeVersions = requireNonNull(entityTypeVersions);
+    this.evictionCounter =
+        Counter.builder("acl.cache.rollback.evictions")
+            .description("ACLs evicted from the ACL cache after a rollback")
+            .register(meterRegistry);
+    this.clearCounter =
+        Counter.builder("acl.cache.rollback.clears")
+            .description("ACL cache clears after a rollback")
+            .register(meterRegistry);
+  }
+
+  /** Registers that an ACL was created in the current transaction. */
+  void aclCreated(ObjectIdentity objectIdentity) {
+    TransactionAclChanges aclChanges = getTransactionAclChanges();
+    if (aclChanges != null) {
+      aclChanges.addCreated(objectIdentity);
+    }
+  }
+
+  /**
+   * Registers that an ACL was updated in the current transaction. Updating an ACL that was created
+   * before the transaction started might affect cached child ACLs, which are unknown.
+   */
+  void aclUpdated(ObjectIdentity objectIdentity) {
+    TransactionAclChanges aclChanges = getTransactionAclChanges();
+    if (aclChanges != null) {
+      if (aclChanges.isCreated(objectIdentity)) {
+        aclChanges.addChanged(objectIdentity);
+      } else {
+        aclChanges.setAllChanged();
+      }
+    }
+  }
+
+  /** Registers that an ACL was deleted in the current transaction. */
+  void aclDeleted(ObjectIdentity objectIdentity) {
+    TransactionAclChanges aclChanges = getTransactionAclChanges();
+    if (aclChanges != null) {
+      aclChanges.addChanged(objectIdentity);
+    }
+  }
+
+  /** Registers that unknown ACLs were changed in the current transaction. */
+  void aclsChanged() {
+    TransactionAclChanges aclChanges = getTransactionAclChanges();
+    if (aclChanges != null) {
+      aclChanges.setAllChanged();
+    }
+  }
+
+  @Override
+  public void afterCommitTransaction(String transactionId) {
+    if (transactionAclChanges.remove(transactionId) != null) {
+      entityTypeVersions.incrementAll();
+    }
   }
 
   @Override
   public void rollbackTransaction(String transactionId) {
-    aclCache.clearCache();
-    aclClassService.clearCache();
+    TransactionAclChanges aclChanges = transactionAclChanges.remove(transactionId);
+    if (aclChanges == null) {
+      return;
+    }
+
+    if (aclChanges.isAllChanged()) {
+      LOG.trace("Clearing ACL cache after rollback of transaction [{}]", transactionId);
+      aclCache.clearCache();
+      clearCounter.increment();
+    } else {
+      Set<ObjectIdentity> objectIdentities = aclChanges.getChanged();
+      LOG.trace(
+          "Evicting {} ACLs from cache after rollback of transaction [{}]",
+          objectIdentities.size(),
+          transactionId);
+      objectIdentities.forEach(aclCache::evictFromCache);
+      evictionCounter.increment(objectIdentities.size());
+    }
+  }
+
+  @Override
+  public void doCleanupAfterCompletion(String transactionId) {
+    transactionAclChanges.remove(transactionId);
+  }
+
+  private TransactionAclChanges getTransactionAclChanges() {
+    String transactionId =
+        (String) TransactionSynchronizationManager.getResource(TRANSACTION_ID_RESOURCE_NAME);
+    if (transactionId == null) {
+      return null;
+    }
+    return transactionAclChanges.computeIfAbsent(transactionId, id -> new TransactionAclChanges());
+  }
+
+  /**
+   * ACL changes of one transaction. Transactions are bound to a thread. Tracking individual ACLs
+   * stops after {@link #MAX_TRACKED_ACLS} changes, after which the whole cache is cleared on
+   * rollback.
+   */
+  private static class TransactionAclChanges {
+    private final Set<ObjectIdentity> created = new HashSet<>();
+    private final Set<ObjectIdentity> changed = new HashSet<>();
+    private boolean allChanged;
+
+    void addCreated(ObjectIdentity objectIdentity) {
+      if (!allChanged) {
+        created.add(objectIdentity);
+        addChanged(objectIdentity);
+      }
+    }
+
+    boolean isCreated(ObjectIdentity objectIdentity) {
+      return created.contains(objectIdentity);
+    }
+
+    void addChanged(ObjectIdentity objectIdentity) {
+      if (!allChanged) {
+        changed.add(objectIdentity);
+        if (changed.size() > MAX_TRACKED_ACLS) {
+          setAllChanged();
+        }
+      }
+    }
+
+    Set<ObjectIdentity> getChanged() {
+      return changed;
+    }
+
+    void setAllChanged() {
+      allChanged = true;
+      created.clear();
+      changed.clear();
+    }
+
+    boolean isAllChanged() {
+      return allChanged;
+    }
   }
 }
@@ -3,9 +3,12 @@ package org.molgenis.security.acl;
 import static java.util.Objects.requireNonNull;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import javax.sql.DataSource;
 import org.molgenis.data.config.DataSourceConfig;
 import org.molgenis.data.security.permission.EntityHelper;
+import org.molgenis.data.transaction.EntityTypeVersions;
 import org.molgenis.data.transaction.TransactionManager;
 import org.molgenis.security.NoOpAuditLogger;
 import org.molgenis.security.core.utils.SecurityUtils;
@@ -37,12 +40,16 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 @Configuration
 @Import(DataSourceConfig.class)
 public class AclConfig {
+  /** Number of ACLs that are retrieved in one query by bulk permission evaluations */
+  private static final int LOOKUP_BATCH_SIZE = 1000;
 
   private final DataSource dataSource;
   private final TransactionManager transactionManager;
   private final RoleHierarchy roleHierarchy;
   private final ConversionService conversionService;
   private final EntityHelper entityHelper;
+  private final MeterRegistry meterRegistry;
+  private final EntityTypeVersions entityTypeVersions;
   @Autowired JdbcTemplate jdbcTemplate;
 
   public AclConfig(
@@ -50,12 +57,16 @@ public class AclConfig {
       TransactionManager transactionManager,
       RoleHierarchy roleHierarchy,
       ConversionService conversionService,
-      EntityHelper entityHelper) {
+      EntityHelper entityHelper,
+      MeterRegistry meterRegistry,
+      EntityTypeVersions entityTypeVersions) {
     this.dataSource = requireNonNull(dataSource);
     this.transactionManager = requireNonNull(transactionManager);
     this.roleHierarchy = requireNonNull(roleHierarchy);
     this.conversionService = requireNonNull(conversionService);
     this.entityHelper = requireNonNull(entityHelper);
+    this.meterRegistry = requireNonNull(meterRegistry);
+    this.entityTypeVersions = requireNonNull(entityTypeVersions);
   }
 
   @Bean
@@ -89,7 +100,10 @@ public class AclConfig {
 
   @Bean
   public AclCache aclCache() {
-    Cache cache = new CaffeineCache("aclCache", Caffeine.newBuilder().maximumSize(10000).build());
+    com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+        Caffeine.newBuilder().maximumSize(10000).recordStats().build();
+    CaffeineCacheMetrics.monitor(meterRegistry, nativeCache, "acl");
+    Cache cache = new CaffeineCache("aclCache", nativeCache);
     return new SpringCacheBasedAclCache(
         cache, permissionGrantingStrategy(), aclAuthorizationStrategy());
   }
@@ -97,14 +111,22 @@ public class AclConfig {
   @Bean
   public AclCacheTransactionListener aclCacheTransactionListener() {
     AclCacheTransactionListener aclCacheTransactionListener =
-        new AclCacheTransactionListener(aclCache(), mutableAclClassService());
+        new AclCacheTransactionListener(aclCache(), entityTypeVersions, meterRegistry);
     transactionManager.addTransactionListener(aclCacheTransactionListener);
     return aclCacheTransactionListener;
   }
 
+  @Bean
+  public PermissionCache permissionCache() {
+    return new PermissionCache();
+  }
+
   @Bean
   public MutableAclClassService mutableAclClassService() {
-    return new MutableAclClassServiceImpl(jdbcTemplate, aclCache());
+    MutableAclClassServiceImpl mutableAclClassService =
+        new MutableAclClassServiceImpl(jdbcTemplate, aclCache());
+    transactionManager.addTransactionListener(mutableAclClassService);
+    return mutableAclClassService;
   }
 
   @Bean
@@ -114,7 +136,7 @@ public class AclConfig {
 
   @Bean
   public MutableSidService mutableSidService() {
-    return new MutableSidServiceImpl(jdbcTemplate);
+    return new MutableSidServiceImpl(jdbcTemplate, aclCacheTransactionListener());
   }
 
   @Bean
@@ -123,6 +145,7 @@ public class AclConfig {
         new BasicLookupStrategy(
             dataSource, aclCache(), aclAuthorizationStrategy(), permissionGrantingStrategy());
     basicLookupStrategy.setAclClassIdSupported(true);
+    basicLookupStrategy.setBatchSize(LOOKUP_BATCH_SIZE);
     basicLookupStrategy.setConversionService(conversionService);
     return basicLookupStrategy;
   }
@@ -130,7 +153,12 @@ public class AclConfig {
   @Bean
   public MutableAclService aclService() {
     JdbcMutableAclService aclService =
-        new TransactionalJdbcMutableAclService(dataSource, lookupStrategy(), aclCache());
+        new TransactionalJdbcMutableAclService(
+            dataSource,
+            lookupStrategy(),
+            aclCache(),
+            permissionCache(),
+            aclCacheTransactionListener());
     aclService.setAclClassIdSupported(true);
     aclService.setConversionService(conversionService);
     aclService.setClassIdentityQuery("select currval(pg_get_serial_sequence('acl_class', 'id'))");
@@ -1,19 +1,31 @@
 package org.molgenis.security.acl;
 
 import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.transaction.TransactionConstants.TRANSACTION_ID_RESOURCE_NAME;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.molgenis.data.transaction.TransactionListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.acls.jdbc.JdbcMutableAclService;
 import org.springframework.security.acls.model.AclCache;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-/** @see JdbcMutableAclService */
-public class MutableAclClassServiceImpl implements MutableAclClassService {
+/**
+ * Caches whether ACL classes exist. ACL classes that were changed in a transaction are evicted from
+ * the cache when the transaction is rolled back.
+ *
+ * @see JdbcMutableAclService
+ */
+public class MutableAclClassServiceImpl implements MutableAclClassService, TransactionListener {
   /** @see JdbcMutableAclService#DEFAULT_INSERT_INTO_ACL_CLASS_WITH_ID */
   private static final String SQL_INSERT_INTO_ACL_CLASS =
       "insert into acl_class (class, class_id_type) values (?, ?)";
@@ -26,6 +38,7 @@ public class MutableAclClassServiceImpl implements MutableAclClassService {
   private final JdbcTemplate jdbcTemplate;
   private final AclCache aclCache;
   private final Cache<String, Integer> aclClassCache;
+  private final Map<String, Set<String>> transactionAclClassTypes = new ConcurrentHashMap<>();
   private static final Logger LOGGER = LoggerFactory.getLogger(MutableAclClassServiceImpl.class);
 
   public MutableAclClassServiceImpl(JdbcTemplate jdbcTemplate, AclCache aclCache) {
@@ -40,6 +53,7 @@ public class MutableAclClassServiceImpl implements MutableAclClassService {
     LOGGER.debug("Create AclClass for type {}.", type);
     jdbcTemplate.update(SQL_INSERT_INTO_ACL_CLASS, type, idType.getCanonicalName());
     aclClassCache.invalidate(type);
+    aclClassChanged(type);
   }
 
   @Transactional
@@ -48,9 +62,32 @@ public class MutableAclClassServiceImpl implements MutableAclClassService {
     LOGGER.debug("Delete AclClass for type {}.", type);
     jdbcTemplate.update(SQL_DELETE_FROM_ACL_CLASS, type);
     aclClassCache.invalidate(type);
+    aclClassChanged(type);
     aclCache.clearCache();
   }
 
+  @Override
+  public void rollbackTransaction(String transactionId) {
+    Set<String> types = transactionAclClassTypes.remove(transactionId);
+    if (types != null) {
+      LOGGER.debug("Invalidate cache for types {}.", types);
+      aclClassCache.invalidateAll(types);
+    }
+  }
+
+  @Override
+  public void doCleanupAfterCompletion(String transactionId) {
+    transactionAclClassTypes.remove(transactionId);
+  }
+
+  private void aclClassChanged(String type) {
+    String transactionId =
+        (String) TransactionSynchronizationManager.getResource(TRANSACTION_ID_RESOURCE_NAME);
+    if (transactionId != null) {
+      transactionAclClassTypes.computeIfAbsent(transactionId, id -> new HashSet<>()).add(type);
+    }
+  }
+
   @Override
   public void clearCache() {
     LOGGER.debug("Invalidate cache.");
@@ -16,9 +16,12 @@ public class MutableSidServiceImpl implements MutableSidService {
   private static final String SQL_DELETE_FROM_ACL_SID = "delete from acl_sid where sid=?";
 
   private final JdbcTemplate jdbcTemplate;
+  private final AclCacheTransactionListener aclCacheTransactionListener;
 
-  public MutableSidServiceImpl(JdbcTemplate jdbcTemplate) {
+  public MutableSidServiceImpl(
+      JdbcTemplate jdbcTemplate, AclCacheTransactionListener aclCacheTransactionListener) {
     this.jdbcTemplate = requireNonNull(jdbcTemplate);
+    this.aclCacheTransactionListener = requireNonNull(aclCacheTransactionListener);
   }
 
   @Transactional
@@ -27,5 +30,7 @@ public class MutableSidServiceImpl implements MutableSidService {
     String sidValue = SidUtils.getStringValue(sid);
     LOGGER.debug("Delete ACL Sid {}.", sidValue);
     jdbcTemplate.update(SQL_DELETE_FROM_ACL_SID, sidValue);
+    // deletes the entries of this sid from all ACLs
+    aclCacheTransactionListener.aclsChanged();
   }
 }
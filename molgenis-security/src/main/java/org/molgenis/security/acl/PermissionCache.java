@@ -0,0 +1,125 @@
+package org.molgenis.security.acl;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Caches the results of permission evaluations within a transaction, so that checking the
+ * permissions on the same domain objects again doesn't require ACL lookups. Each transaction,
+ * including read-only transactions, has its own cache. The cache is bound to the transaction when
+ * the first result is stored and is removed when the transaction completes.
+ *
+ * <p>For each combination of security identities and domain object the evaluated and the granted
+ * permission masks are stored in a single long.
+ */
+public class PermissionCache {
+  private static final Logger LOG = getLogger(PermissionCache.class);
+  private static final int MAX_CACHE_SIZE = 100_000;
+
+  /**
+   * Returns whether a permission was granted.
+   *
+   * @param sids security identities
+   * @param objectIdentity domain object identity
+   * @param mask permission mask, the permission is granted if one of its bits is granted
+   * @return whether the permission was granted or <code>null</code> if unknown
+   */
+  @CheckForNull
+  @Nullable
+  public Boolean isGranted(List<Sid> sids, ObjectIdentity objectIdentity, int mask) {
+    Map<List<Sid>, Map<ObjectIdentity, Long>> cache = getCache();
+    if (cache == null) {
+      return null;
+    }
+    Map<ObjectIdentity, Long> sidsCache = cache.get(sids);
+    Long masks = sidsCache != null ? sidsCache.get(objectIdentity) : null;
+    if (masks == null) {
+      return null;
+    }
+    int evaluatedMask = (int) (masks >>> 32);
+    int grantedMask = masks.intValue();
+    if ((grantedMask & mask) != 0) {
+      return true;
+    }
+    return (evaluatedMask & mask) == mask ? Boolean.FALSE : null;
+  }
+
+  /**
+   * Stores the result of a permission evaluation, does nothing outside of a transaction.
+   *
+   * @param sids security identities
+   * @param objectIdentity domain object identity
+   * @param evaluatedMask permission mask that was evaluated
+   * @param grantedMask bits of the evaluated permission mask that were granted
+   */
+  public void put(
+      List<Sid> sids, ObjectIdentity objectIdentity, int evaluatedMask, int grantedMask) {
+    Map<List<Sid>, Map<ObjectIdentity, Long>> cache = getOrCreateCache();
+    if (cache == null) {
+      return;
+    }
+    Map<ObjectIdentity, Long> sidsCache = cache.computeIfAbsent(sids, key -> new HashMap<>());
+    if (sidsCache.size() >= MAX_CACHE_SIZE && !sidsCache.containsKey(objectIdentity)) {
+      return;
+    }
+    long masks = ((long) evaluatedMask << 32) | (grantedMask & 0xFFFFFFFFL);
+    sidsCache.merge(objectIdentity, masks, (masks1, masks2) -> masks1 | masks2);
+  }
+
+  /** Removes the evaluated permissions on a domain object for all security identities. */
+  public void evict(ObjectIdentity objectIdentity) {
+    Map<List<Sid>, Map<ObjectIdentity, Long>> cache = getCache();
+    if (cache != null) {
+      cache.values().forEach(sidsCache -> sidsCache.remove(objectIdentity));
+    }
+  }
+
+  /** Removes all evaluated permissions. */
+  public void evictAll() {
+    Map<List<Sid>, Map<ObjectIdentity, Long>> cache = getCache();
+    if (cache != null) {
+      cache.clear();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @CheckForNull
+  @Nullable
+  private Map<List<Sid>, Map<ObjectIdentity, Long>> getCache() {
+    return (Map<List<Sid>, Map<ObjectIdentity, Long>>)
+        TransactionSynchronizationManager.getResource(this);
+  }
+
+  /** Returns the cache of the current transaction, or <code>null</code> outside a transaction. */
+  @CheckForNull
+  @Nullable
+  private Map<List<Sid>, Map<ObjectIdentity, Long>> getOrCreateCache() {
+    Map<List<Sid>, Map<ObjectIdentity, Long>> cache = getCache();
+    if (cache == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+      LOG.trace("Creating permission cache for transaction");
+      cache = new HashMap<>();
+      TransactionSynchronizationManager.bindResource(this, cache);
+      TransactionSynchronizationManager.registerSynchronization(
+          new PermissionCacheSynchronization());
+    }
+    return cache;
+  }
+
+  private class PermissionCacheSynchronization implements TransactionSynchronization {
+    @Override
+    public void afterCompletion(int status) {
+      LOG.trace("Cleaning up permission cache after transaction");
+      TransactionSynchronizationManager.unbindResourceIfPossible(PermissionCache.this);
+    }
+  }
+}
@@ -18,14 +18,25 @@ import org.springframework.security.acls.model.Sid;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
-/** {@link Transactional} {@link JdbcMutableAclService}. */
+/**
+ * {@link Transactional} {@link JdbcMutableAclService}. Evicts changed ACLs from the {@link
+ * PermissionCache} and registers them with the {@link AclCacheTransactionListener}.
+ */
 public class TransactionalJdbcMutableAclService extends JdbcMutableAclService {
   private final AclCache aclCache;
+  private final PermissionCache permissionCache;
+  private final AclCacheTransactionListener aclCacheTransactionListener;
 
   public TransactionalJdbcMutableAclService(
-      DataSource dataSource, LookupStrategy lookupStrategy, AclCache aclCache) {
+      DataSource dataSource,
+      LookupStrategy lookupStrategy,
+      AclCache aclCache,
+      PermissionCache permissionCache,
+      AclCacheTransactionListener aclCacheTransactionListener) {
     super(dataSource, lookupStrategy, aclCache);
     this.aclCache = requireNonNull(aclCache);
+    this.permissionCache = requireNonNull(permissionCache);
+    this.aclCacheTransactionListener = requireNonNull(aclCacheTransactionListener);
   }
 
   /**
@@ -47,6 +58,8 @@ public class TransactionalJdbcMutableAclService extends JdbcMutableAclService {
     } catch (DuplicateKeyException e) {
       throw new AlreadyExistsException("Object identity '" + objectIdentity + "' already exists");
     }
+    aclCacheTransactionListener.aclCreated(objectIdentity);
+    permissionCache.evict(objectIdentity);
     // Retrieve the ACL via superclass (ensures cache registration, proper retrieval
     // etc)
     Acl acl = readAclById(objectIdentity);
@@ -59,6 +72,9 @@ public class TransactionalJdbcMutableAclService extends JdbcMutableAclService {
   @Override
   public void deleteAcl(ObjectIdentity objectIdentity, boolean deleteChildren) {
     super.deleteAcl(objectIdentity, deleteChildren);
+    aclCacheTransactionListener.aclDeleted(objectIdentity);
+    // children may inherit entries of the deleted acl
+    permissionCache.evictAll();
   }
 
   /**
@@ -81,6 +97,8 @@ public class TransactionalJdbcMutableAclService extends JdbcMutableAclService {
 
     // Clear all cache
     aclCache.clearCache();
+    permissionCache.evictAll();
+    aclCacheTransactionListener.aclUpdated(acl.getObjectIdentity());
 
     // Retrieve the ACL via superclass (ensures cache registration, proper retrieval
     // etc)
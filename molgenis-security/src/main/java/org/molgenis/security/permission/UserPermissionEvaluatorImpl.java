@@ -1,11 +1,19 @@
 package org.molgenis.security.permission;
 
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.molgenis.security.acl.PermissionCache;
 import org.molgenis.security.core.Permission;
 import org.molgenis.security.core.PermissionRegistry;
 import org.molgenis.security.core.PermissionSet;
@@ -13,26 +21,49 @@ import org.molgenis.security.core.UserPermissionEvaluator;
 import org.molgenis.security.core.utils.SecurityUtils;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.acls.domain.CumulativePermission;
+import org.springframework.security.acls.jdbc.LookupStrategy;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.NotFoundException;
 import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Evaluates permissions for the currently authenticated user. Within a transaction the results are
+ * cached in the {@link PermissionCache}, so that repeated checks don't require ACL lookups.
+ */
 @Component
 public class UserPermissionEvaluatorImpl implements UserPermissionEvaluator {
   private final PermissionEvaluator permissionEvaluator;
   private final PermissionRegistry permissionRegistry;
+  private final LookupStrategy lookupStrategy;
+  private final SidRetrievalStrategy sidRetrievalStrategy;
+  private final PermissionCache permissionCache;
 
   UserPermissionEvaluatorImpl(
-      PermissionEvaluator permissionEvaluator, PermissionRegistry permissionRegistry) {
+      PermissionEvaluator permissionEvaluator,
+      PermissionRegistry permissionRegistry,
+      LookupStrategy lookupStrategy,
+      SidRetrievalStrategy sidRetrievalStrategy,
+      PermissionCache permissionCache) {
     this.permissionEvaluator = requireNonNull(permissionEvaluator);
     this.permissionRegistry = requireNonNull(permissionRegistry);
+    this.lookupStrategy = requireNonNull(lookupStrategy);
+    this.sidRetrievalStrategy = requireNonNull(sidRetrievalStrategy);
+    this.permissionCache = requireNonNull(permissionCache);
   }
 
   @Override
   public boolean hasPermission(ObjectIdentity objectIdentity, Permission action) {
     if (SecurityUtils.currentUserIsSuOrSystem()) {
       return true;
+    } else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      // evaluate using the permission cache of the transaction
+      return !getPermitted(singletonList(objectIdentity), action).isEmpty();
     } else {
       Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
       return authentication != null
@@ -56,6 +87,71 @@ public class UserPermissionEvaluatorImpl implements UserPermissionEvaluator {
         .collect(Collectors.toSet());
   }
 
+  /**
+   * Looks up the ACLs of the domain objects that are not in the {@link PermissionCache} in bulk.
+   * The permission sets of a permission are evaluated one by one, so that the cached results can be
+   * reused for other permissions that share permission sets.
+   */
+  @Override
+  public <T extends ObjectIdentity> Set<T> getPermitted(
+      Collection<T> objectIdentities, Permission permission) {
+    if (SecurityUtils.currentUserIsSuOrSystem()) {
+      return new LinkedHashSet<>(objectIdentities);
+    }
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null) {
+      return emptySet();
+    }
+    List<Sid> sids = sidRetrievalStrategy.getSids(authentication);
+    Set<PermissionSet> permissionSets = permissionRegistry.getPermissions(permission);
+    int mask = getCumulativePermissionToCheck(permission).getMask();
+
+    Set<T> permittedObjectIdentities = new LinkedHashSet<>();
+    List<T> uncachedObjectIdentities = new ArrayList<>();
+    for (T objectIdentity : objectIdentities) {
+      Boolean granted = permissionCache.isGranted(sids, objectIdentity, mask);
+      if (granted == null) {
+        uncachedObjectIdentities.add(objectIdentity);
+      } else if (granted) {
+        permittedObjectIdentities.add(objectIdentity);
+      }
+    }
+
+    if (!uncachedObjectIdentities.isEmpty()) {
+      Map<ObjectIdentity, Acl> acls =
+          lookupStrategy.readAclsById(new ArrayList<>(uncachedObjectIdentities), sids);
+      for (T objectIdentity : uncachedObjectIdentities) {
+        int grantedMask = getGrantedMask(acls.get(objectIdentity), permissionSets, sids);
+        permissionCache.put(sids, objectIdentity, mask, grantedMask);
+        if (grantedMask != 0) {
+          permittedObjectIdentities.add(objectIdentity);
+        }
+      }
+    }
+    return permittedObjectIdentities;
+  }
+
+  private static int getGrantedMask(
+      @Nullable Acl acl, Set<PermissionSet> permissionSets, List<Sid> sids) {
+    int grantedMask = 0;
+    if (acl != null) {
+      for (PermissionSet permissionSet : permissionSets) {
+        if (isGranted(acl, permissionSet, sids)) {
+          grantedMask |= permissionSet.getMask();
+        }
+      }
+    }
+    return grantedMask;
+  }
+
+  private static boolean isGranted(Acl acl, PermissionSet permissionSet, List<Sid> sids) {
+    try {
+      return acl.isGranted(singletonList(permissionSet), sids, false);
+    } catch (NotFoundException e) {
+      return false;
+    }
+  }
+
   private CumulativePermission getCumulativePermissionToCheck(Permission permission) {
     CumulativePermission result = new CumulativePermission();
     Set<PermissionSet> permissionSets = permissionRegistry.getPermissions(permission);
@@ -10,7 +10,9 @@ import static org.molgenis.data.security.auth.UserMetadata.USER;
 import static org.molgenis.data.security.auth.UserMetadata.USERNAME;
 
 import org.molgenis.data.DataService;
+import org.molgenis.data.security.auth.AuthenticatedToken;
 import org.molgenis.data.security.auth.Token;
+import org.molgenis.data.security.auth.TokenCache;
 import org.molgenis.data.security.auth.TokenFactory;
 import org.molgenis.data.security.auth.User;
 import org.molgenis.security.core.runas.RunAsSystem;
@@ -18,7 +20,9 @@ import org.molgenis.security.core.token.TokenService;
 import org.molgenis.security.core.token.UnknownTokenException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /** TokensService implementation that uses the DataService */
 public class DataServiceTokenService implements TokenService {
@@ -26,30 +30,41 @@ public class DataServiceTokenService implements TokenService {
   private final DataService dataService;
   private final UserDetailsService userDetailsService;
   private final TokenFactory tokenFactory;
+  private final TokenCache tokenCache;
+  private final PlatformTransactionManager transactionManager;
 
   public DataServiceTokenService(
       TokenGenerator tokenGenerator,
       DataService dataService,
       UserDetailsService userDetailsService,
-      TokenFactory tokenFactory) {
+      TokenFactory tokenFactory,
+      TokenCache tokenCache,
+      PlatformTransactionManager transactionManager) {
     this.tokenGenerator = requireNonNull(tokenGenerator);
     this.dataService = requireNonNull(dataService);
     this.userDetailsService = requireNonNull(userDetailsService);
     this.tokenFactory = requireNonNull(tokenFactory);
+    this.tokenCache = requireNonNull(tokenCache);
+    this.transactionManager = requireNonNull(transactionManager);
   }
 
   /**
-   * Find a user by a security token
+   * Find a user by a security token. Tokens are cached for a short time, see {@link TokenCache}.
+   * Only tokens that are not cached are read in a (read-only) transaction.
    *
    * @param token security token
    * @return the user or null if not found or token is expired
    */
   @Override
-  @Transactional(readOnly = true)
   @RunAsSystem
   public UserDetails findUserByToken(String token) {
-    Token molgenisToken = getMolgenisToken(token);
-    return userDetailsService.loadUserByUsername(molgenisToken.getUser().getUsername());
+    AuthenticatedToken authenticatedToken =
+        tokenCache.get(token, this::authenticateTokenInTransaction);
+    if (authenticatedToken.isExpired()) {
+      tokenCache.invalidate(token);
+      throw new UnknownTokenException("Invalid token");
+    }
+    return authenticatedToken.getUserDetails();
   }
 
   /**
@@ -90,6 +105,19 @@ public class DataServiceTokenService implements TokenService {
     dataService.delete(TOKEN, molgenisToken);
   }
 
+  private AuthenticatedToken authenticateTokenInTransaction(String token) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(true);
+    return transactionTemplate.execute(status -> authenticateToken(token));
+  }
+
+  private AuthenticatedToken authenticateToken(String token) {
+    Token molgenisToken = getMolgenisToken(token);
+    UserDetails userDetails =
+        userDetailsService.loadUserByUsername(molgenisToken.getUser().getUsername());
+    return AuthenticatedToken.create(userDetails, molgenisToken.getExpirationDate().orElse(null));
+  }
+
   private Token getMolgenisToken(String token) {
     Token molgenisToken = dataService.query(TOKEN, Token.class).eq(TOKEN_ATTR, token).findOne();
     if (molgenisToken == null || molgenisToken.isExpired()) {
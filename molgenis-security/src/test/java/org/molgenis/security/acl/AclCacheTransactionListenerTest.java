@@ -1,35 +1,126 @@
 package org.molgenis.security.acl;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.molgenis.data.transaction.TransactionConstants.TRANSACTION_ID_RESOURCE_NAME;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.molgenis.data.transaction.EntityTypeVersions;
 import org.molgenis.test.AbstractMockitoTest;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
 import org.springframework.security.acls.model.AclCache;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 class AclCacheTransactionListenerTest extends AbstractMockitoTest {
+  private static final String TRANSACTION_ID = "transactionId";
+
   @Mock private AclCache aclCache;
-  @Mock private MutableAclClassService mutableAclClassService;
+  @Mock private EntityTypeVersions entityTypeVersions;
+  private MeterRegistry meterRegistry;
   private AclCacheTransactionListener aclCacheTransactionListener;
 
   @BeforeEach
   void setUpBeforeMethod() {
-    aclCacheTransactionListener = new AclCacheTransactionListener(aclCache, mutableAclClassService);
+    meterRegistry = new SimpleMeterRegistry();
+    aclCacheTransactionListener =
+        new AclCacheTransactionListener(aclCache, entityTypeVersions, meterRegistry);
+    TransactionSynchronizationManager.bindResource(TRANSACTION_ID_RESOURCE_NAME, TRANSACTION_ID);
+  }
+
+  @AfterEach
+  void tearDownAfterMethod() {
+    TransactionSynchronizationManager.unbindResource(TRANSACTION_ID_RESOURCE_NAME);
   }
 
   @Test
   void testAclCacheTransactionListener() {
     assertThrows(
         NullPointerException.class,
-        () -> new AclCacheTransactionListener(null, mutableAclClassService));
+        () -> new AclCacheTransactionListener(null, entityTypeVersions, meterRegistry));
+  }
+
+  @Test
+  void testRollbackTransactionNoChanges() {
+    aclCacheTransactionListener.rollbackTransaction(TRANSACTION_ID);
+    verifyNoInteractions(aclCache);
+  }
+
+  @Test
+  void testRollbackTransactionCreatedAndDeleted() {
+    ObjectIdentity createdObjectIdentity = new ObjectIdentityImpl("type", "created");
+    ObjectIdentity deletedObjectIdentity = new ObjectIdentityImpl("type", "deleted");
+    aclCacheTransactionListener.aclCreated(createdObjectIdentity);
+    aclCacheTransactionListener.aclUpdated(createdObjectIdentity);
+    aclCacheTransactionListener.aclDeleted(deletedObjectIdentity);
+
+    aclCacheTransactionListener.rollbackTransaction(TRANSACTION_ID);
+    verify(aclCache).evictFromCache(createdObjectIdentity);
+    verify(aclCache).evictFromCache(deletedObjectIdentity);
+    verifyNoMoreInteractions(aclCache);
+    assertEquals(2, meterRegistry.counter("acl.cache.rollback.evictions").count());
+  }
+
+  @Test
+  void testRollbackTransactionUpdatedExisting() {
+    aclCacheTransactionListener.aclUpdated(new ObjectIdentityImpl("type", "existing"));
+
+    aclCacheTransactionListener.rollbackTransaction(TRANSACTION_ID);
+    verify(aclCache).clearCache();
+    verifyNoMoreInteractions(aclCache);
+    assertEquals(1, meterRegistry.counter("acl.cache.rollback.clears").count());
+  }
+
+  @Test
+  void testRollbackTransactionAclsChanged() {
+    aclCacheTransactionListener.aclDeleted(new ObjectIdentityImpl("type", "deleted"));
+    aclCacheTransactionListener.aclsChanged();
+
+    aclCacheTransactionListener.rollbackTransaction(TRANSACTION_ID);
+    verify(aclCache).clearCache();
+    verifyNoMoreInteractions(aclCache);
   }
 
   @Test
-  void testRollbackTransaction() {
-    aclCacheTransactionListener.rollbackTransaction("transactionId");
+  void testRollbackTransactionTooManyChanges() {
+    for (int i = 0; i <= AclCacheTransactionListener.MAX_TRACKED_ACLS; i++) {
+      aclCacheTransactionListener.aclDeleted(new ObjectIdentityImpl("type", i));
+    }
+
+    aclCacheTransactionListener.rollbackTransaction(TRANSACTION_ID);
     verify(aclCache).clearCache();
-    verify(mutableAclClassService).clearCache();
+    verifyNoMoreInteractions(aclCache);
+  }
+
+  @Test
+  void testAfterCommitTransaction() {
+    aclCacheTransactionListener.aclDeleted(new ObjectIdentityImpl("type", "deleted"));
+
+    aclCacheTransactionListener.afterCommitTransaction(TRANSACTION_ID);
+    verify(entityTypeVersions).incrementAll();
+    verifyNoInteractions(aclCache);
+  }
+
+  @Test
+  void testAfterCommitTransactionNoChanges() {
+    aclCacheTransactionListener.afterCommitTransaction(TRANSACTION_ID);
+    verifyNoInteractions(entityTypeVersions);
+  }
+
+  @Test
+  void testDoCleanupAfterCompletion() {
+    aclCacheTransactionListener.aclsChanged();
+    aclCacheTransactionListener.doCleanupAfterCompletion(TRANSACTION_ID);
+
+    aclCacheTransactionListener.rollbackTransaction(TRANSACTION_ID);
+    verifyNoInteractions(aclCache);
   }
 }
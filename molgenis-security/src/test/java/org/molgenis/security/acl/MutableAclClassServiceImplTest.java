@@ -8,6 +8,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.transaction.TransactionConstants.TRANSACTION_ID_RESOURCE_NAME;
 
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +17,7 @@ import org.mockito.Mock;
 import org.molgenis.test.AbstractMockitoTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.acls.model.AclCache;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 class MutableAclClassServiceImplTest extends AbstractMockitoTest {
   @Mock private JdbcTemplate jdbcTemplate;
@@ -74,6 +76,23 @@ class MutableAclClassServiceImplTest extends AbstractMockitoTest {
             "select count(*) from acl_class WHERE class = ?", new Object[] {type}, Integer.class);
   }
 
+  @Test
+  void testRollbackTransaction() {
+    String type = "MyType";
+    when(jdbcTemplate.queryForObject(
+            "select count(*) from acl_class WHERE class = ?", new Object[] {type}, Integer.class))
+        .thenReturn(0, 1);
+    TransactionSynchronizationManager.bindResource(TRANSACTION_ID_RESOURCE_NAME, "transactionId");
+    try {
+      mutableAclClassService.createAclClass(type, String.class);
+    } finally {
+      TransactionSynchronizationManager.unbindResource(TRANSACTION_ID_RESOURCE_NAME);
+    }
+    assertFalse(mutableAclClassService.hasAclClass(type));
+    mutableAclClassService.rollbackTransaction("transactionId");
+    assertTrue(mutableAclClassService.hasAclClass(type));
+  }
+
   @Test
   void testGetAclClassTypes() {
     List<String> aclClassTypes = asList("MyType0", "MyType1");
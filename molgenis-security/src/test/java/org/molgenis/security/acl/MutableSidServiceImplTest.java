@@ -13,11 +13,12 @@ import org.springframework.security.acls.model.Sid;
 class MutableSidServiceImplTest extends AbstractMockitoTest {
 
   @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private AclCacheTransactionListener aclCacheTransactionListener;
   private MutableSidServiceImpl mutableSidService;
 
   @BeforeEach
   void setUpBeforeMethod() {
-    mutableSidService = new MutableSidServiceImpl(jdbcTemplate);
+    mutableSidService = new MutableSidServiceImpl(jdbcTemplate, aclCacheTransactionListener);
   }
 
   @Test
@@ -25,5 +26,6 @@ class MutableSidServiceImplTest extends AbstractMockitoTest {
     Sid sid = new GrantedAuthoritySid("ROLE_test_VIEWER");
     mutableSidService.deleteSid(sid);
     verify(jdbcTemplate).update("delete from acl_sid where sid=?", "ROLE_test_VIEWER");
+    verify(aclCacheTransactionListener).aclsChanged();
   }
 }
@@ -0,0 +1,101 @@
+package org.molgenis.security.acl;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_COMMITTED;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class PermissionCacheTest {
+  private final List<Sid> sids = singletonList(new PrincipalSid("user"));
+  private final ObjectIdentity objectIdentity = new ObjectIdentityImpl("type", "id");
+  private PermissionCache permissionCache;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    permissionCache = new PermissionCache();
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      completeTransaction();
+    }
+  }
+
+  @Test
+  void isGrantedUnknown() {
+    assertNull(permissionCache.isGranted(sids, objectIdentity, 1));
+  }
+
+  @Test
+  void isGranted() {
+    permissionCache.put(sids, objectIdentity, 0b101, 0b100);
+    assertEquals(true, permissionCache.isGranted(sids, objectIdentity, 0b110));
+    assertEquals(false, permissionCache.isGranted(sids, objectIdentity, 0b001));
+    assertNull(permissionCache.isGranted(sids, objectIdentity, 0b010));
+  }
+
+  @Test
+  void isGrantedOtherSids() {
+    permissionCache.put(sids, objectIdentity, 1, 1);
+    assertNull(
+        permissionCache.isGranted(singletonList(new PrincipalSid("other")), objectIdentity, 1));
+  }
+
+  @Test
+  void putMerges() {
+    permissionCache.put(sids, objectIdentity, 0b01, 0b00);
+    permissionCache.put(sids, objectIdentity, 0b10, 0b10);
+    assertEquals(false, permissionCache.isGranted(sids, objectIdentity, 0b01));
+    assertEquals(true, permissionCache.isGranted(sids, objectIdentity, 0b10));
+  }
+
+  @Test
+  void putOutsideTransaction() {
+    completeTransaction();
+    permissionCache.put(sids, objectIdentity, 1, 1);
+    assertNull(permissionCache.isGranted(sids, objectIdentity, 1));
+  }
+
+  @Test
+  void transactionCompleted() {
+    permissionCache.put(sids, objectIdentity, 1, 1);
+    completeTransaction();
+    assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+
+    TransactionSynchronizationManager.initSynchronization();
+    assertNull(permissionCache.isGranted(sids, objectIdentity, 1));
+  }
+
+  @Test
+  void evict() {
+    permissionCache.put(sids, objectIdentity, 1, 1);
+    permissionCache.evict(objectIdentity);
+    assertNull(permissionCache.isGranted(sids, objectIdentity, 1));
+  }
+
+  @Test
+  void evictAll() {
+    permissionCache.put(sids, objectIdentity, 1, 1);
+    permissionCache.evictAll();
+    assertNull(permissionCache.isGranted(sids, objectIdentity, 1));
+  }
+
+  private static void completeTransaction() {
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(synchronization -> synchronization.afterCompletion(STATUS_COMMITTED));
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+}
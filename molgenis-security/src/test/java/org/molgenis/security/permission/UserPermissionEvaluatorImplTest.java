@@ -1,7 +1,15 @@
 package org.molgenis.security.permission;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.plugin.model.PluginPermission.VIEW_PLUGIN;
 import static org.molgenis.data.security.EntityTypePermission.READ_DATA;
@@ -10,6 +18,9 @@ import static org.molgenis.security.core.PermissionSet.WRITE;
 import static org.molgenis.security.core.PermissionSet.WRITEMETA;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -17,28 +28,50 @@ import org.molgenis.data.plugin.model.PluginIdentity;
 import org.molgenis.data.plugin.model.PluginPermission;
 import org.molgenis.data.security.EntityTypeIdentity;
 import org.molgenis.data.security.EntityTypePermission;
+import org.molgenis.security.acl.PermissionCache;
 import org.molgenis.security.core.PermissionRegistry;
 import org.molgenis.test.AbstractMockitoSpringContextTests;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.acls.domain.CumulativePermission;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.jdbc.LookupStrategy;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.NotFoundException;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.annotation.SecurityTestExecutionListeners;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ContextConfiguration(classes = {UserPermissionEvaluatorImplTest.Config.class})
 @SecurityTestExecutionListeners
 class UserPermissionEvaluatorImplTest extends AbstractMockitoSpringContextTests {
   @Mock private PermissionEvaluator permissionEvaluator;
   @Mock private PermissionRegistry permissionRegistry;
+  @Mock private LookupStrategy lookupStrategy;
+  @Mock private SidRetrievalStrategy sidRetrievalStrategy;
+  private PermissionCache permissionCache;
 
   private UserPermissionEvaluatorImpl userPermissionEvaluator;
 
   @BeforeEach
   void setUpBeforeMethod() {
+    permissionCache = new PermissionCache();
     userPermissionEvaluator =
-        new UserPermissionEvaluatorImpl(permissionEvaluator, permissionRegistry);
+        new UserPermissionEvaluatorImpl(
+            permissionEvaluator,
+            permissionRegistry,
+            lookupStrategy,
+            sidRetrievalStrategy,
+            permissionCache);
   }
 
   @WithMockUser(username = "USER")
@@ -196,5 +229,119 @@ class UserPermissionEvaluatorImplTest extends AbstractMockitoSpringContextTests
     assertTrue(userPermissionEvaluator.hasPermission(new PluginIdentity("plugin1"), VIEW_PLUGIN));
   }
 
+  @WithMockUser(username = "USER")
+  @Test
+  void getPermitted() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    List<Sid> sids = singletonList(new PrincipalSid("USER"));
+    when(sidRetrievalStrategy.getSids(authentication)).thenReturn(sids);
+    when(permissionRegistry.getPermissions(READ_DATA)).thenReturn(ImmutableSet.of(READ, WRITE));
+
+    EntityTypeIdentity entityTypeIdentity0 = new EntityTypeIdentity("entityType0");
+    EntityTypeIdentity entityTypeIdentity1 = new EntityTypeIdentity("entityType1");
+    EntityTypeIdentity entityTypeIdentity2 = new EntityTypeIdentity("entityType2");
+    Acl acl0 = mock(Acl.class);
+    when(acl0.isGranted(singletonList(READ), sids, false)).thenReturn(false);
+    when(acl0.isGranted(singletonList(WRITE), sids, false)).thenReturn(true);
+    Acl acl1 = mock(Acl.class);
+    when(acl1.isGranted(singletonList(READ), sids, false)).thenThrow(new NotFoundException(""));
+    when(acl1.isGranted(singletonList(WRITE), sids, false)).thenThrow(new NotFoundException(""));
+    List<ObjectIdentity> objectIdentities =
+        asList(entityTypeIdentity0, entityTypeIdentity1, entityTypeIdentity2);
+    when(lookupStrategy.readAclsById(objectIdentities, sids))
+        .thenReturn(Map.of(entityTypeIdentity0, acl0, entityTypeIdentity1, acl1));
+
+    assertEquals(
+        singleton(entityTypeIdentity0),
+        userPermissionEvaluator.getPermitted(objectIdentities, READ_DATA));
+  }
+
+  @WithMockUser(username = "USER")
+  @Test
+  void getPermittedCached() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    List<Sid> sids = singletonList(new PrincipalSid("USER"));
+    when(sidRetrievalStrategy.getSids(authentication)).thenReturn(sids);
+    when(permissionRegistry.getPermissions(READ_DATA)).thenReturn(ImmutableSet.of(READ));
+
+    EntityTypeIdentity entityTypeIdentity = new EntityTypeIdentity("entityType0");
+    Acl acl = mock(Acl.class);
+    when(acl.isGranted(singletonList(READ), sids, false)).thenReturn(true);
+    List<ObjectIdentity> objectIdentities = singletonList(entityTypeIdentity);
+    when(lookupStrategy.readAclsById(objectIdentities, sids))
+        .thenReturn(Map.of(entityTypeIdentity, acl));
+
+    createReadonlyTransactionTemplate()
+        .executeWithoutResult(
+            status -> {
+              userPermissionEvaluator.getPermitted(objectIdentities, READ_DATA);
+              assertEquals(
+                  singleton(entityTypeIdentity),
+                  userPermissionEvaluator.getPermitted(objectIdentities, READ_DATA));
+            });
+    verify(lookupStrategy, times(1)).readAclsById(objectIdentities, sids);
+  }
+
+  @WithMockUser(username = "USER")
+  @Test
+  void hasPermissionCachedInReadonlyTransaction() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    List<Sid> sids = singletonList(new PrincipalSid("USER"));
+    when(sidRetrievalStrategy.getSids(authentication)).thenReturn(sids);
+    when(permissionRegistry.getPermissions(READ_DATA)).thenReturn(ImmutableSet.of(READ));
+
+    EntityTypeIdentity entityTypeIdentity = new EntityTypeIdentity("entityType0");
+    Acl acl = mock(Acl.class);
+    when(acl.isGranted(singletonList(READ), sids, false)).thenReturn(true);
+    List<ObjectIdentity> objectIdentities = singletonList(entityTypeIdentity);
+    when(lookupStrategy.readAclsById(objectIdentities, sids))
+        .thenReturn(Map.of(entityTypeIdentity, acl));
+
+    createReadonlyTransactionTemplate()
+        .executeWithoutResult(
+            status -> {
+              assertTrue(userPermissionEvaluator.hasPermission(entityTypeIdentity, READ_DATA));
+              assertTrue(userPermissionEvaluator.hasPermission(entityTypeIdentity, READ_DATA));
+            });
+    verify(lookupStrategy, times(1)).readAclsById(objectIdentities, sids);
+    verifyNoInteractions(permissionEvaluator);
+  }
+
+  @WithMockUser(
+      username = "USER",
+      authorities = {"ROLE_SU"})
+  @Test
+  void getPermittedSuperuser() {
+    List<EntityTypeIdentity> objectIdentities =
+        singletonList(new EntityTypeIdentity("entityType0"));
+    assertEquals(
+        new HashSet<>(objectIdentities),
+        userPermissionEvaluator.getPermitted(objectIdentities, READ_DATA));
+    verifyNoInteractions(lookupStrategy);
+  }
+
   static class Config {}
+
+  /** Creates a read-only transaction template with a transaction manager without resources. */
+  private static TransactionTemplate createReadonlyTransactionTemplate() {
+    PlatformTransactionManager transactionManager =
+        new AbstractPlatformTransactionManager() {
+          @Override
+          protected Object doGetTransaction() {
+            return new Object();
+          }
+
+          @Override
+          protected void doBegin(Object transaction, TransactionDefinition definition) {}
+
+          @Override
+          protected void doCommit(DefaultTransactionStatus status) {}
+
+          @Override
+          protected void doRollback(DefaultTransactionStatus status) {}
+        };
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(true);
+    return transactionTemplate;
+  }
 }
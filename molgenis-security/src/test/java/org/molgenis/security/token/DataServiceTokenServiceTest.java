@@ -3,43 +3,71 @@ package org.molgenis.security.token;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.security.auth.TokenMetadata.TOKEN;
 import static org.molgenis.data.security.auth.TokenMetadata.TOKEN_ATTR;
 import static org.molgenis.data.security.auth.UserMetadata.USER;
 import static org.molgenis.data.security.auth.UserMetadata.USERNAME;
 
+import java.time.Instant;
+import java.util.function.Function;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Query;
+import org.molgenis.data.security.auth.AuthenticatedToken;
 import org.molgenis.data.security.auth.Token;
+import org.molgenis.data.security.auth.TokenCache;
 import org.molgenis.data.security.auth.TokenFactory;
 import org.molgenis.data.security.auth.User;
 import org.molgenis.security.core.token.UnknownTokenException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
 
 class DataServiceTokenServiceTest {
   private DataServiceTokenService tokenService;
   private TokenGenerator tokenGenerator;
   private DataService dataService;
   private UserDetailsService userDetailsService;
+  private TokenCache tokenCache;
+  private PlatformTransactionManager transactionManager;
 
   @BeforeEach
   void beforeMethod() {
     tokenGenerator = mock(TokenGenerator.class);
     dataService = mock(DataService.class);
     userDetailsService = mock(UserDetailsService.class);
+    tokenCache = mock(TokenCache.class);
+    when(tokenCache.get(any(), any()))
+        .thenAnswer(
+            invocation ->
+                invocation
+                    .<Function<String, AuthenticatedToken>>getArgument(1)
+                    .apply(invocation.getArgument(0)));
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
     TokenFactory tokenFactory = mock(TokenFactory.class);
     when(tokenFactory.create()).thenAnswer(invocation -> mock(Token.class));
     tokenService =
-        new DataServiceTokenService(tokenGenerator, dataService, userDetailsService, tokenFactory);
+        new DataServiceTokenService(
+            tokenGenerator,
+            dataService,
+            userDetailsService,
+            tokenFactory,
+            tokenCache,
+            transactionManager);
   }
 
   @Test
@@ -62,6 +90,18 @@ class DataServiceTokenServiceTest {
     when(userDetailsService.loadUserByUsername("admin")).thenReturn(userDetails);
 
     assertEquals(userDetails, tokenService.findUserByToken("token"));
+    verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+  }
+
+  @Test
+  void findUserByTokenCached() {
+    UserDetails userDetails = mock(UserDetails.class);
+    AuthenticatedToken authenticatedToken =
+        AuthenticatedToken.create(userDetails, Instant.now().plusSeconds(60));
+    doReturn(authenticatedToken).when(tokenCache).get(eq("token"), any());
+
+    assertEquals(userDetails, tokenService.findUserByToken("token"));
+    verifyNoInteractions(transactionManager, dataService);
   }
 
   @Test
@@ -79,6 +119,17 @@ class DataServiceTokenServiceTest {
     assertThrows(UnknownTokenException.class, () -> tokenService.findUserByToken("token"));
   }
 
+  @Test
+  void findUserByTokenCachedExpired() {
+    UserDetails userDetails = mock(UserDetails.class);
+    AuthenticatedToken authenticatedToken =
+        AuthenticatedToken.create(userDetails, Instant.now().minusSeconds(1));
+    doReturn(authenticatedToken).when(tokenCache).get(eq("token"), any());
+
+    assertThrows(UnknownTokenException.class, () -> tokenService.findUserByToken("token"));
+    verify(tokenCache).invalidate("token");
+  }
+
   @Test
   void generateAndStoreToken() {
     User user = mock(User.class);
@@ -14,6 +14,7 @@ import org.molgenis.semanticmapper.service.MappingService;
 import org.molgenis.semanticmapper.service.impl.MappingServiceImpl;
 import org.molgenis.web.menu.MenuReaderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -27,16 +28,19 @@ public class MappingJobConfig {
   private final ScheduledJobTypeFactory scheduledJobTypeFactory;
   private final MappingJobExecutionMetadata mappingJobExecutionMetadata;
   private final Gson gson;
+  private final int maxConcurrency;
 
   @Autowired
   public MappingJobConfig(
       MappingService mappingService,
       ScheduledJobTypeFactory scheduledJobTypeFactory,
-      MappingJobExecutionMetadata mappingJobExecutionMetadata) {
+      MappingJobExecutionMetadata mappingJobExecutionMetadata,
+      @Value("${jobs.mapping.max-concurrency:2}") int maxConcurrency) {
     this.mappingService = requireNonNull(mappingService);
     this.scheduledJobTypeFactory = requireNonNull(scheduledJobTypeFactory);
     this.mappingJobExecutionMetadata = requireNonNull(mappingJobExecutionMetadata);
     this.gson = new Gson();
+    this.maxConcurrency = maxConcurrency;
   }
 
   @Autowired private MenuReaderService menuReaderService;
@@ -66,6 +70,16 @@ public class MappingJobConfig {
                 label,
                 progress);
       }
+
+      @Override
+      public int getPriority() {
+        return PRIORITY_LOW;
+      }
+
+      @Override
+      public int getMaxConcurrency() {
+        return maxConcurrency;
+      }
     };
   }
 
@@ -0,0 +1,129 @@
+package org.molgenis.semanticmapper.service.impl;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.molgenis.js.magma.WithJsMagmaScriptAspect.withJsMagmaScriptContext;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.js.magma.JsMagmaScriptContextPool;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Maps batches of source entities on worker threads, so that evaluating the mapping algorithms of a
+ * batch overlaps with reading the next batch and writing the previous batch on the mapping job
+ * thread. A batch is divided over the worker threads, each of which evaluates its part in its own
+ * {@link org.molgenis.js.magma.JsMagmaScriptContext} borrowed from the {@link
+ * JsMagmaScriptContextPool}. Mapped entities are returned in source order.
+ *
+ * <p>Workers run with the security context of the mapping job, but outside its transaction. With a
+ * single thread batches are mapped on the calling thread when they are submitted.
+ */
+public class MappingExecutor {
+  private final JsMagmaScriptContextPool contextPool;
+  private final int nrThreads;
+  private final ExecutorService executorService;
+
+  public MappingExecutor(JsMagmaScriptContextPool contextPool, int nrThreads) {
+    if (nrThreads < 1) {
+      throw new IllegalArgumentException("nrThreads must be greater than 0");
+    }
+    this.contextPool = requireNonNull(contextPool);
+    this.nrThreads = nrThreads;
+    this.executorService =
+        nrThreads > 1
+            ? Executors.newFixedThreadPool(
+                nrThreads, new ThreadFactoryBuilder().setNameFormat("molgenis-mapping-%d").build())
+            : null;
+  }
+
+  @PreDestroy
+  void preDestroy() {
+    if (executorService != null) {
+      ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
+    }
+  }
+
+  /** Submits a batch of source entities to be mapped by the given mapper. */
+  MappedBatch submit(List<Entity> sourceEntities, Function<Entity, Entity> mapper) {
+    if (executorService == null) {
+      List<Entity> mappedEntities = sourceEntities.stream().map(mapper).collect(toList());
+      return new MappedBatch(List.of(CompletableFuture.completedFuture(mappedEntities)));
+    }
+
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    int partitionSize = Math.max(1, (sourceEntities.size() + nrThreads - 1) / nrThreads);
+    List<Future<List<Entity>>> futures = new ArrayList<>();
+    for (List<Entity> partition : Lists.partition(sourceEntities, partitionSize)) {
+      futures.add(executorService.submit(() -> map(partition, mapper, securityContext)));
+    }
+    return new MappedBatch(futures);
+  }
+
+  private List<Entity> map(
+      List<Entity> sourceEntities, Function<Entity, Entity> mapper, SecurityContext context) {
+    SecurityContextHolder.setContext(context);
+    try {
+      return withJsMagmaScriptContext(
+          contextPool, () -> sourceEntities.stream().map(mapper).collect(toList()));
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+  }
+
+  /** Entities mapped from a batch of source entities that might not be mapped yet. */
+  static class MappedBatch {
+    private final List<Future<List<Entity>>> futures;
+
+    private MappedBatch(List<Future<List<Entity>>> futures) {
+      this.futures = futures;
+    }
+
+    /**
+     * Waits until the batch is mapped.
+     *
+     * @return mapped entities in source entity order
+     * @throws RuntimeException the first exception thrown by a mapper
+     */
+    List<Entity> get() {
+      List<Entity> mappedEntities = new ArrayList<>();
+      try {
+        for (Future<List<Entity>> future : futures) {
+          mappedEntities.addAll(future.get());
+        }
+      } catch (InterruptedException e) {
+        cancel();
+        Thread.currentThread().interrupt();
+        throw new MolgenisDataException("Interrupted while mapping entities", e);
+      } catch (ExecutionException e) {
+        cancel();
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new MolgenisDataException(cause);
+      }
+      return mappedEntities;
+    }
+
+    /** Stops mapping the batch, e.g. because writing a previous batch failed. */
+    void cancel() {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+}
@@ -4,7 +4,6 @@ import static com.google.common.collect.Maps.newHashMap;
 import static java.lang.Boolean.TRUE;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.toList;
 import static org.molgenis.data.EntityManager.CreationMode.POPULATE;
 import static org.molgenis.data.meta.model.EntityType.AttributeCopyMode.DEEP_COPY_ATTRS;
 import static org.molgenis.data.meta.model.PackageMetadata.PACKAGE;
@@ -16,6 +15,7 @@ import static org.molgenis.semanticmapper.meta.MappingProjectMetadata.NAME;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.molgenis.data.DataService;
@@ -41,6 +41,7 @@ import org.molgenis.semanticmapper.mapping.model.MappingTarget;
 import org.molgenis.semanticmapper.repository.MappingProjectRepository;
 import org.molgenis.semanticmapper.service.AlgorithmService;
 import org.molgenis.semanticmapper.service.MappingService;
+import org.molgenis.semanticmapper.service.impl.MappingExecutor.MappedBatch;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -57,6 +58,7 @@ public class MappingServiceImpl implements MappingService {
   private final PermissionSystemService permissionSystemService;
   private final AttributeFactory attrMetaFactory;
   private final EntityManager entityManager;
+  private final MappingExecutor mappingExecutor;
 
   public MappingServiceImpl(
       DataService dataService,
@@ -64,13 +66,15 @@ public class MappingServiceImpl implements MappingService {
       MappingProjectRepository mappingProjectRepository,
       PermissionSystemService permissionSystemService,
       AttributeFactory attrMetaFactory,
-      EntityManager entityManager) {
+      EntityManager entityManager,
+      MappingExecutor mappingExecutor) {
     this.dataService = requireNonNull(dataService);
     this.algorithmService = requireNonNull(algorithmService);
     this.mappingProjectRepository = requireNonNull(mappingProjectRepository);
     this.permissionSystemService = requireNonNull(permissionSystemService);
     this.attrMetaFactory = requireNonNull(attrMetaFactory);
     this.entityManager = requireNonNull(entityManager);
+    this.mappingExecutor = requireNonNull(mappingExecutor);
   }
 
   @Override
@@ -340,39 +344,55 @@ public class MappingServiceImpl implements MappingService {
     AtomicLong counter = new AtomicLong();
 
     boolean canAdd = targetRepo.count() == 0;
-    dataService
-        .getRepository(sourceMapping.getName())
-        .forEachBatched(
-            entities ->
-                processBatch(sourceMapping, targetRepo, progress, counter, canAdd, entities),
-            MAPPING_BATCH_SIZE);
+    EntityType targetMetadata = targetRepo.getEntityType();
+    // map a batch while writing the previous batch, batches are written in source order
+    AtomicReference<MappedBatch> pendingBatch = new AtomicReference<>();
+    try {
+      dataService
+          .getRepository(sourceMapping.getName())
+          .forEachBatched(
+              entities -> {
+                MappedBatch mappedBatch =
+                    mappingExecutor.submit(
+                        entities,
+                        sourceEntity ->
+                            applyMappingToEntity(sourceMapping, sourceEntity, targetMetadata));
+                MappedBatch previousBatch = pendingBatch.getAndSet(mappedBatch);
+                if (previousBatch != null) {
+                  processBatch(targetRepo, progress, counter, canAdd, previousBatch);
+                }
+              },
+              MAPPING_BATCH_SIZE);
+
+      MappedBatch lastBatch = pendingBatch.getAndSet(null);
+      if (lastBatch != null) {
+        processBatch(targetRepo, progress, counter, canAdd, lastBatch);
+      }
+    } finally {
+      MappedBatch unprocessedBatch = pendingBatch.get();
+      if (unprocessedBatch != null) {
+        unprocessedBatch.cancel();
+      }
+    }
 
     progress.status(format("Mapped %s [%s] entities.", counter, sourceMapping.getLabel()));
     return counter.get();
   }
 
   private void processBatch(
-      EntityMapping sourceMapping,
       Repository<Entity> targetRepo,
       Progress progress,
       AtomicLong counter,
       boolean canAdd,
-      List<Entity> entities) {
-    List<Entity> mappedEntities = mapEntities(sourceMapping, targetRepo.getEntityType(), entities);
+      MappedBatch mappedBatch) {
+    List<Entity> mappedEntities = mappedBatch.get();
     if (canAdd) {
       targetRepo.add(mappedEntities.stream());
     } else {
       targetRepo.upsertBatch(mappedEntities);
     }
     progress.increment(1);
-    counter.addAndGet(entities.size());
-  }
-
-  private List<Entity> mapEntities(
-      EntityMapping sourceMapping, EntityType targetMetaData, List<Entity> entities) {
-    return entities.stream()
-        .map(sourceEntity -> applyMappingToEntity(sourceMapping, sourceEntity, targetMetaData))
-        .collect(toList());
+    counter.addAndGet(mappedEntities.size());
   }
 
   /** Package-private for testablility */
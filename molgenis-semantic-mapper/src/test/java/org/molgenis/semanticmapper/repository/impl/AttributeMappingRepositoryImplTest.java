@@ -34,6 +34,7 @@ import org.molgenis.data.security.permission.PermissionSystemService;
 import org.molgenis.data.security.user.UserService;
 import org.molgenis.data.support.DynamicEntity;
 import org.molgenis.data.util.EntityUtils;
+import org.molgenis.js.magma.JsMagmaScriptContextPool;
 import org.molgenis.js.magma.JsMagmaScriptEvaluator;
 import org.molgenis.ontology.core.config.OntologyConfig;
 import org.molgenis.semanticmapper.config.MapperTestConfig;
@@ -277,6 +278,11 @@ class AttributeMappingRepositoryImplTest extends AbstractMolgenisSpringTest {
       return mock(JsMagmaScriptEvaluator.class);
     }
 
+    @Bean
+    JsMagmaScriptContextPool jsMagmaScriptContextPool() {
+      return mock(JsMagmaScriptContextPool.class);
+    }
+
     @Bean
     OntologyTagService ontologyTagService() {
       return mock(OntologyTagService.class);
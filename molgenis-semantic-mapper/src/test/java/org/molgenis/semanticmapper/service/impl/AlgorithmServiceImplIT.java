@@ -25,6 +25,8 @@ import static org.molgenis.data.meta.model.EntityType.AttributeRole.ROLE_LABEL;
 import static org.molgenis.js.magma.WithJsMagmaScriptAspect.withJsMagmaScriptContext;
 
 import com.google.common.collect.LinkedHashMultimap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.Month;
@@ -48,6 +50,7 @@ import org.molgenis.data.security.config.UserTestConfig;
 import org.molgenis.data.semantic.Relation;
 import org.molgenis.data.support.DynamicEntity;
 import org.molgenis.js.graal.GraalScriptEngine;
+import org.molgenis.js.magma.JsMagmaScriptContextPool;
 import org.molgenis.js.magma.WithJsMagmaScriptAspect;
 import org.molgenis.ontology.core.model.OntologyTerm;
 import org.molgenis.ontology.core.service.OntologyService;
@@ -89,7 +92,7 @@ class AlgorithmServiceImplIT extends AbstractMolgenisSpringTest {
 
   @Autowired private AlgorithmTemplateService algorithmTemplateService;
 
-  @Autowired private GraalScriptEngine engine;
+  @Autowired private JsMagmaScriptContextPool contextPool;
 
   @BeforeEach
   void setUpBeforeMethod() {
@@ -222,7 +225,7 @@ class AlgorithmServiceImplIT extends AbstractMolgenisSpringTest {
     attributeMapping.setAlgorithm(algorithm);
     Object result =
         withJsMagmaScriptContext(
-            engine,
+            contextPool,
             () -> {
               algorithmService.bind(source);
               return algorithmService.apply(attributeMapping);
@@ -247,7 +250,7 @@ class AlgorithmServiceImplIT extends AbstractMolgenisSpringTest {
         "Math.floor((new Date(2015, 2, 12) - $('dob').value())/(365.2425 * 24 * 60 * 60 * 1000))");
     Object result =
         withJsMagmaScriptContext(
-            engine,
+            contextPool,
             () -> {
               algorithmService.bind(source);
               return algorithmService.apply(attributeMapping);
@@ -291,7 +294,7 @@ class AlgorithmServiceImplIT extends AbstractMolgenisSpringTest {
 
     Entity result =
         withJsMagmaScriptContext(
-            engine,
+            contextPool,
             () -> {
               algorithmService.bind(source);
               return (Entity) algorithmService.apply(attributeMapping);
@@ -324,7 +327,7 @@ class AlgorithmServiceImplIT extends AbstractMolgenisSpringTest {
 
     Object result =
         withJsMagmaScriptContext(
-            engine,
+            contextPool,
             () -> {
               algorithmService.bind(sourceEntity);
               return algorithmService.apply(attributeMapping);
@@ -362,7 +365,7 @@ class AlgorithmServiceImplIT extends AbstractMolgenisSpringTest {
 
     Object result =
         withJsMagmaScriptContext(
-            engine,
+            contextPool,
             () -> {
               algorithmService.bind(sourceEntity);
               return algorithmService.apply(attributeMapping);
@@ -423,7 +426,7 @@ class AlgorithmServiceImplIT extends AbstractMolgenisSpringTest {
 
     Object result =
         withJsMagmaScriptContext(
-            engine,
+            contextPool,
             () -> {
               algorithmService.bind(source);
               return algorithmService.apply(attributeMapping);
@@ -471,7 +474,7 @@ class AlgorithmServiceImplIT extends AbstractMolgenisSpringTest {
 
     Object result =
         withJsMagmaScriptContext(
-            engine,
+            contextPool,
             () -> {
               algorithmService.bind(source);
               return algorithmService.apply(attributeMapping);
@@ -594,10 +597,20 @@ class AlgorithmServiceImplIT extends AbstractMolgenisSpringTest {
   }
 
   @Configuration
-  @Import({UserTestConfig.class, WithJsMagmaScriptAspect.class, GraalScriptEngine.class})
+  @Import({
+    UserTestConfig.class,
+    WithJsMagmaScriptAspect.class,
+    JsMagmaScriptContextPool.class,
+    GraalScriptEngine.class
+  })
   static class Config {
     @Autowired private DataService dataService;
 
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
     @Bean
     SemanticSearchService semanticSearchService() {
       return mock(SemanticSearchService.class);
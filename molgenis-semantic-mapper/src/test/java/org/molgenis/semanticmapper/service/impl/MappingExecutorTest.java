@@ -0,0 +1,111 @@
+package org.molgenis.semanticmapper.service.impl;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.Entity;
+import org.molgenis.js.graal.GraalScriptEngine;
+import org.molgenis.js.magma.JsMagmaScriptContextHolder;
+import org.molgenis.js.magma.JsMagmaScriptContextPool;
+import org.molgenis.semanticmapper.service.impl.MappingExecutor.MappedBatch;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class MappingExecutorTest {
+  private JsMagmaScriptContextPool contextPool;
+  private MappingExecutor mappingExecutor;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    contextPool =
+        new JsMagmaScriptContextPool(new GraalScriptEngine(), new SimpleMeterRegistry(), 4);
+    mappingExecutor = new MappingExecutor(contextPool, 4);
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    mappingExecutor.preDestroy();
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void testMappingExecutorInvalidNrThreads() {
+    assertThrows(IllegalArgumentException.class, () -> new MappingExecutor(contextPool, 0));
+  }
+
+  @Test
+  void testSubmit() {
+    List<Entity> sourceEntities = createEntities(10);
+    List<Entity> targetEntities = createEntities(10);
+
+    MappedBatch mappedBatch =
+        mappingExecutor.submit(
+            sourceEntities,
+            sourceEntity -> targetEntities.get(sourceEntities.indexOf(sourceEntity)));
+
+    assertEquals(targetEntities, mappedBatch.get());
+  }
+
+  @Test
+  void testSubmitWorkerContexts() {
+    Authentication authentication = new TestingAuthenticationToken("user", null);
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+
+    MappedBatch mappedBatch =
+        mappingExecutor.submit(
+            createEntities(10),
+            sourceEntity -> {
+              assertNotNull(JsMagmaScriptContextHolder.getContext());
+              assertSame(authentication, SecurityContextHolder.getContext().getAuthentication());
+              return sourceEntity;
+            });
+
+    assertEquals(10, mappedBatch.get().size());
+  }
+
+  @Test
+  void testSubmitMapperException() {
+    IllegalStateException exception = new IllegalStateException("error");
+    MappedBatch mappedBatch =
+        mappingExecutor.submit(
+            createEntities(10),
+            sourceEntity -> {
+              throw exception;
+            });
+
+    assertSame(exception, assertThrows(IllegalStateException.class, mappedBatch::get));
+  }
+
+  @Test
+  void testSubmitSingleThread() {
+    MappingExecutor singleThreadMappingExecutor =
+        new MappingExecutor(mock(JsMagmaScriptContextPool.class), 1);
+    Thread callingThread = Thread.currentThread();
+    List<Entity> sourceEntities = createEntities(3);
+
+    MappedBatch mappedBatch =
+        singleThreadMappingExecutor.submit(
+            sourceEntities,
+            sourceEntity -> {
+              assertSame(callingThread, Thread.currentThread());
+              return sourceEntity;
+            });
+
+    assertEquals(sourceEntities, mappedBatch.get());
+  }
+
+  private static List<Entity> createEntities(int nrEntities) {
+    return IntStream.range(0, nrEntities).mapToObj(i -> mock(Entity.class)).collect(toList());
+  }
+}
@@ -4,11 +4,14 @@ import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -28,11 +31,14 @@ import static org.molgenis.semanticmapper.service.impl.MappingServiceImpl.MAPPIN
 import static org.molgenis.semanticmapper.service.impl.MappingServiceImpl.SOURCE;
 
 import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
@@ -64,6 +70,8 @@ import org.molgenis.data.security.permission.PermissionSystemService;
 import org.molgenis.data.support.DynamicEntity;
 import org.molgenis.data.util.EntityUtils;
 import org.molgenis.jobs.Progress;
+import org.molgenis.js.graal.GraalScriptEngine;
+import org.molgenis.js.magma.JsMagmaScriptContextPool;
 import org.molgenis.js.magma.JsMagmaScriptEvaluator;
 import org.molgenis.semanticmapper.mapping.model.AttributeMapping;
 import org.molgenis.semanticmapper.mapping.model.EntityMapping;
@@ -90,6 +98,7 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
   private static final String TARGET_HOP_ENTITY = "HopEntity";
   private static final String SOURCE_GENE_ENTITY = "Gene";
   private static final String SOURCE_EXON_ENTITY = "Exon";
+  private static final ThreadLocal<String> BOUND_SOURCE_ID = new ThreadLocal<>();
 
   @Autowired private DataService dataService;
 
@@ -135,6 +144,8 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
     Mockito.reset(geneRepo);
     Mockito.reset(exonRepo);
     Mockito.reset(progress);
+    Mockito.reset(algorithmService);
+    Mockito.reset(entityManager);
 
     package_ = packageFactory.create("package");
 
@@ -554,6 +565,108 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
     Mockito.verifyNoMoreInteractions(progress);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  void testApplyMappingsToRepoMultipleThreads() {
+    List<Entity> sourceEntities = createSourceEntities(10);
+    EntityMapping sourceMapping = createIdentifierMapping(sourceEntities, 4);
+    Repository<Entity> targetRepo = mock(Repository.class);
+    when(targetRepo.getEntityType()).thenReturn(hopMetaData);
+    List<Object> writtenIdentifiers = Collections.synchronizedList(new ArrayList<>());
+    Mockito.doAnswer(
+            invocation -> {
+              invocation
+                  .<Stream<Entity>>getArgument(0)
+                  .forEach(entity -> writtenIdentifiers.add(entity.get("identifier")));
+              return null;
+            })
+        .when(targetRepo)
+        .add(ArgumentMatchers.any(Stream.class));
+
+    // the first entity of each batch is mapped last, so that partitions finish out of order
+    when(algorithmService.apply(ArgumentMatchers.any(AttributeMapping.class)))
+        .thenAnswer(
+            invocation -> {
+              String id = BOUND_SOURCE_ID.get();
+              if (Integer.parseInt(id) % 4 == 0) {
+                Thread.sleep(100);
+              }
+              return id;
+            });
+
+    MappingExecutor mappingExecutor = createMappingExecutor(3);
+    try {
+      long count =
+          createMappingService(mappingExecutor)
+              .applyMappingToRepo(sourceMapping, targetRepo, progress);
+      assertEquals(10L, count);
+    } finally {
+      mappingExecutor.preDestroy();
+    }
+
+    assertEquals(
+        sourceEntities.stream().map(entity -> entity.get("id")).collect(toList()),
+        writtenIdentifiers);
+    Mockito.verify(progress, Mockito.times(3)).increment(1);
+    Mockito.verify(progress).status("Mapped 10 [sourceMappingLabel] entities.");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testApplyMappingsToRepoAlgorithmExceptionMultipleThreads() throws InterruptedException {
+    List<Entity> sourceEntities = createSourceEntities(3);
+    EntityMapping sourceMapping = createIdentifierMapping(sourceEntities, 1);
+    Repository<Entity> targetRepo = mock(Repository.class);
+    when(targetRepo.getEntityType()).thenReturn(hopMetaData);
+
+    // the second batch fails while the third batch is being mapped
+    CountDownLatch thirdBatchStarted = new CountDownLatch(1);
+    CountDownLatch thirdBatchInterrupted = new CountDownLatch(1);
+    AlgorithmException algorithmException = new AlgorithmException("error");
+    when(algorithmService.apply(ArgumentMatchers.any(AttributeMapping.class)))
+        .thenAnswer(
+            invocation -> {
+              String id = BOUND_SOURCE_ID.get();
+              if (id.equals("1")) {
+                thirdBatchStarted.await();
+                throw algorithmException;
+              } else if (id.equals("2")) {
+                thirdBatchStarted.countDown();
+                try {
+                  new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                  thirdBatchInterrupted.countDown();
+                }
+              }
+              return id;
+            });
+
+    MappingExecutor mappingExecutor = createMappingExecutor(3);
+    try {
+      MappingServiceImpl multiThreadedMappingService = createMappingService(mappingExecutor);
+      assertSame(
+          algorithmException,
+          assertThrows(
+              AlgorithmException.class,
+              () ->
+                  multiThreadedMappingService.applyMappingToRepo(
+                      sourceMapping, targetRepo, progress)));
+      assertTrue(thirdBatchInterrupted.await(10, SECONDS));
+    } finally {
+      mappingExecutor.preDestroy();
+    }
+
+    ArgumentCaptor<Stream<Entity>> streamCaptor = ArgumentCaptor.forClass(Stream.class);
+    Mockito.verify(targetRepo).add(streamCaptor.capture());
+    assertEquals(
+        singletonList("0"),
+        streamCaptor.getValue().map(entity -> entity.get("identifier")).collect(toList()));
+    Mockito.verify(targetRepo, Mockito.never()).upsertBatch(ArgumentMatchers.any(List.class));
+    Mockito.verify(progress).status("Mapping source [sourceMappingLabel]...");
+    Mockito.verify(progress).increment(1);
+    Mockito.verifyNoMoreInteractions(progress);
+  }
+
   @Test
   void testIncompatibleMetaDataUnknownAttribute() {
     String targetRepositoryName = "targetRepository";
@@ -760,6 +873,70 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
     assertEquals(3, mappingService.calculateMaxProgress(mappingTarget));
   }
 
+  private List<Entity> createSourceEntities(int nrEntities) {
+    List<Entity> sourceEntities = new ArrayList<>();
+    for (int i = 0; i < nrEntities; ++i) {
+      Entity geneEntity = new DynamicEntity(geneMetaData);
+      geneEntity.set("id", String.valueOf(i));
+      geneEntity.set("length", i * 2d);
+      sourceEntities.add(geneEntity);
+    }
+    return sourceEntities;
+  }
+
+  /**
+   * Creates a mapping of the source entities, read in batches of the given size, that maps the id
+   * of the source entity that is bound on the current thread to the target identifier.
+   */
+  @SuppressWarnings("unchecked")
+  private EntityMapping createIdentifierMapping(List<Entity> sourceEntities, int batchSize) {
+    EntityMapping sourceMapping = mock(EntityMapping.class);
+    when(sourceMapping.getLabel()).thenReturn("sourceMappingLabel");
+    when(sourceMapping.getName()).thenReturn("sourceMappingID");
+    AttributeMapping identifierMapping =
+        new AttributeMapping(hopMetaData.getAttribute("identifier"));
+    when(sourceMapping.getAttributeMappings()).thenReturn(singletonList(identifierMapping));
+
+    Repository<Entity> sourceRepo = mock(Repository.class);
+    when(dataService.getRepository("sourceMappingID")).thenReturn(sourceRepo);
+    Mockito.doAnswer(
+            invocation -> {
+              Consumer<List<Entity>> consumer = invocation.getArgument(0);
+              Lists.partition(sourceEntities, batchSize).forEach(consumer);
+              return null;
+            })
+        .when(sourceRepo)
+        .forEachBatched(ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+
+    when(entityManager.create(hopMetaData, EntityManager.CreationMode.POPULATE))
+        .thenAnswer(invocation -> new DynamicEntity(hopMetaData));
+    Mockito.doAnswer(
+            invocation -> {
+              BOUND_SOURCE_ID.set(invocation.<Entity>getArgument(0).getString("id"));
+              return null;
+            })
+        .when(algorithmService)
+        .bind(ArgumentMatchers.any(Entity.class));
+    return sourceMapping;
+  }
+
+  private MappingExecutor createMappingExecutor(int nrThreads) {
+    return new MappingExecutor(
+        new JsMagmaScriptContextPool(new GraalScriptEngine(), new SimpleMeterRegistry(), nrThreads),
+        nrThreads);
+  }
+
+  private MappingServiceImpl createMappingService(MappingExecutor mappingExecutor) {
+    return new MappingServiceImpl(
+        dataService,
+        algorithmService,
+        mappingProjectRepo,
+        permissionSystemService,
+        attrMetaFactory,
+        entityManager,
+        mappingExecutor);
+  }
+
   private EntityMapping getMockEntityMapping(String id, long sourceRows) {
     EntityMapping entityMapping = mock(EntityMapping.class);
     EntityType sourceEntityType = mock(EntityType.class);
@@ -838,6 +1015,11 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
       return mock(JsMagmaScriptEvaluator.class);
     }
 
+    @Bean
+    MappingExecutor mappingExecutor() {
+      return new MappingExecutor(mock(JsMagmaScriptContextPool.class), 1);
+    }
+
     @Bean
     MappingProjectRepository mappingProjectRepository() {
       return mock(MappingProjectRepository.class);